@@ -0,0 +1,60 @@
+package uk.ac.manchester.cs.demost.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.benchmarks.SyntheticOntologies.Shape;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/** Measures the atomic decomposition of synthetic ontologies on its own. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecompositionBenchmark {
+    /** The shape. */
+    @Param({ "CHAIN", "WIDE", "EXISTENTIAL" })
+    public Shape shape;
+    /** The number of classes. */
+    @Param({ "100", "1000", "5000", "20000" })
+    public int size;
+    /** The module type. */
+    @Param({ "BOT", "STAR" })
+    public ModuleType moduleType;
+    /** The ontology. */
+    private OWLOntology ontology;
+
+    /** Generates the ontology.
+     * 
+     * @throws OWLOntologyCreationException
+     *             the OWL ontology creation exception */
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        ontology = SyntheticOntologies.create(shape, size);
+    }
+
+    /** Decompose.
+     * 
+     * @return the atomic decomposition */
+    @Benchmark
+    public AtomicDecomposition decompose() {
+        return new AtomicDecomposerOWLAPITOOLS(ontology, moduleType);
+    }
+}
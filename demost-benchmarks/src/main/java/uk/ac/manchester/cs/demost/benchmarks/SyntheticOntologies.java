@@ -0,0 +1,92 @@
+package uk.ac.manchester.cs.demost.benchmarks;
+
+import java.util.Random;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+/** Generates synthetic ontologies of a given shape and size, so that the
+ * benchmarks do not depend on ontology files. The generation is deterministic:
+ * the same shape and size always give the same axioms. */
+public final class SyntheticOntologies {
+    /** The Constant NAMESPACE. */
+    private static final String NAMESPACE = "urn:demost:benchmark#";
+    /** The number of object properties used by dense ontologies. */
+    private static final int PROPERTIES = 8;
+    /** The number of existential restrictions per class in dense ontologies. */
+    private static final int RESTRICTIONS_PER_CLASS = 3;
+
+    /** The shapes of the generated ontologies. */
+    public enum Shape {
+        /** One subclass chain, C0 &lt; C1 &lt; ... &lt; Cn: one atom per tier. */
+        CHAIN,
+        /** A flat hierarchy, every Ci subclass of the same root: one tier. */
+        WIDE,
+        /** Every Ci subclass of existential restrictions on random earlier
+         * classes: a dense dependency DAG. */
+        EXISTENTIAL
+    }
+
+    /** Instantiates a new synthetic ontologies. */
+    private SyntheticOntologies() {}
+
+    /** Creates an ontology.
+     * 
+     * @param shape
+     *            the shape
+     * @param size
+     *            the number of classes
+     * @return the ontology, in a new manager
+     * @throws OWLOntologyCreationException
+     *             the OWL ontology creation exception */
+    public static OWLOntology create(Shape shape, int size)
+            throws OWLOntologyCreationException {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.createOntology();
+        OWLDataFactory df = manager.getOWLDataFactory();
+        OWLClass[] classes = new OWLClass[size];
+        for (int i = 0; i < size; i++) {
+            classes[i] = df.getOWLClass(IRI.create(NAMESPACE + "C" + i));
+        }
+        switch (shape) {
+            case CHAIN:
+                for (int i = 1; i < size; i++) {
+                    manager.addAxiom(ontology,
+                            df.getOWLSubClassOfAxiom(classes[i - 1], classes[i]));
+                }
+                break;
+            case WIDE:
+                OWLClass root = df.getOWLClass(IRI.create(NAMESPACE + "Root"));
+                for (int i = 0; i < size; i++) {
+                    manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(classes[i], root));
+                }
+                break;
+            case EXISTENTIAL:
+                OWLObjectProperty[] properties = new OWLObjectProperty[PROPERTIES];
+                for (int i = 0; i < PROPERTIES; i++) {
+                    properties[i] = df.getOWLObjectProperty(IRI.create(NAMESPACE + "r"
+                            + i));
+                }
+                Random random = new Random(size);
+                for (int i = 1; i < size; i++) {
+                    for (int j = 0; j < RESTRICTIONS_PER_CLASS; j++) {
+                        manager.addAxiom(ontology, df.getOWLSubClassOfAxiom(
+                                classes[i],
+                                df.getOWLObjectSomeValuesFrom(
+                                        properties[random.nextInt(PROPERTIES)],
+                                        classes[random.nextInt(i)])));
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+        return ontology;
+    }
+}
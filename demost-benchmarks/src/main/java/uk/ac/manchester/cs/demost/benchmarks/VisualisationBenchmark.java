@@ -0,0 +1,193 @@
+package uk.ac.manchester.cs.demost.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.DefaultListModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+
+import prefuse.Visualization;
+import prefuse.data.Graph;
+import prefuse.data.Tuple;
+import prefuse.data.expression.Predicate;
+import prefuse.visual.VisualItem;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.benchmarks.SyntheticOntologies.Shape;
+import uk.ac.manchester.cs.demost.ui.AtomClosures;
+import uk.ac.manchester.cs.demost.ui.AtomGraph;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+import uk.ac.manchester.cs.demost.ui.GraphSelectionModel;
+import uk.ac.manchester.cs.demost.ui.InfluenceMatrixModel;
+import uk.ac.manchester.cs.demost.ui.IsDependantFromSelectionPredicate;
+import uk.ac.manchester.cs.demost.ui.Renderer;
+import uk.ac.manchester.cs.demost.ui.ShouldBeVisiblePredicate;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/** Measures, on a decomposition computed once per trial, each of the steps that
+ * turn it into a visualisation: tiers, closures, graph construction, influence
+ * matrix, and the evaluation of the visibility and selection predicates over
+ * all nodes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VisualisationBenchmark {
+    /** The number of entities in the selected list, and of selected nodes. */
+    private static final int SELECTION_SIZE = 10;
+    /** The entity renderer. */
+    private static final Renderer<OWLEntity> RENDERER = new Renderer<OWLEntity>() {
+        @Override
+        public String render(OWLEntity entity) {
+            return entity.toString();
+        }
+    };
+    /** The shape. */
+    @Param({ "CHAIN", "WIDE", "EXISTENTIAL" })
+    public Shape shape;
+    /** The number of classes. The larger sizes have enough entities for the
+     * influence matrix to be split between threads. */
+    @Param({ "100", "1000", "5000", "20000" })
+    public int size;
+    /** The module type of the decomposition. */
+    @Param({ "BOT", "STAR" })
+    public ModuleType moduleType;
+    /** The atomic decomposition. */
+    private AtomicDecomposition ad;
+    /** The layering. */
+    private AtomLayering layering;
+    /** The closures. */
+    private AtomClosures closures;
+    /** The graph. */
+    private Graph graph;
+    /** The visibility predicate. */
+    private Predicate shouldBeVisiblePredicate;
+    /** The selection predicate. */
+    private Predicate isDependantFromSelectionPredicate;
+
+    /** Decomposes the ontology and builds everything the benchmarks start from.
+     * 
+     * @throws OWLOntologyCreationException
+     *             the OWL ontology creation exception */
+    @Setup
+    public void setUp() throws OWLOntologyCreationException {
+        ad = new AtomicDecomposerOWLAPITOOLS(SyntheticOntologies.create(shape, size),
+                moduleType);
+        layering = new AtomLayering(ad);
+        closures = new AtomClosures(layering);
+        AtomGraph atomGraph = new AtomGraph(new Graph(true), RENDERER);
+        atomGraph.build(ad);
+        graph = atomGraph.getGraph();
+        DefaultListModel listModel = new DefaultListModel();
+        for (OWLEntity entity : ad.getTermBasedIndex().keySet()) {
+            if (listModel.size() == SELECTION_SIZE) {
+                break;
+            }
+            listModel.addElement(entity);
+        }
+        shouldBeVisiblePredicate = new ShouldBeVisiblePredicate(listModel, ad, closures);
+        Visualization visualisation = new Visualization();
+        visualisation.add("graph", graph);
+        List<VisualItem> selection = new ArrayList<VisualItem>();
+        Iterator<?> items = visualisation.items("graph.nodes");
+        while (items.hasNext() && selection.size() < SELECTION_SIZE) {
+            selection.add((VisualItem) items.next());
+        }
+        GraphSelectionModel graphSelectionModel = new GraphSelectionModel();
+        graphSelectionModel.setSelectedItems(selection, this);
+        isDependantFromSelectionPredicate = new IsDependantFromSelectionPredicate(ad,
+                closures, graphSelectionModel);
+    }
+
+    /** Computes the heights and tiers of the atoms.
+     * 
+     * @return the layering */
+    @Benchmark
+    public AtomLayering layering() {
+        return new AtomLayering(ad);
+    }
+
+    /** Computes the dependency and dependent closures.
+     * 
+     * @return the closures */
+    @Benchmark
+    public AtomClosures closures() {
+        return new AtomClosures(layering);
+    }
+
+    /** Builds the graph, as initGraph in the views.
+     * 
+     * @return the graph */
+    @Benchmark
+    public Graph buildGraph() {
+        AtomGraph atomGraph = new AtomGraph(new Graph(true), RENDERER);
+        atomGraph.build(ad);
+        return atomGraph.getGraph();
+    }
+
+    /** Builds the influence matrix on the calling thread.
+     * 
+     * @return the influence matrix model */
+    @Benchmark
+    public InfluenceMatrixModel influenceMatrix() {
+        return InfluenceMatrixModel.create(ad, closures, 1);
+    }
+
+    /** Builds the influence matrix on all processors.
+     * 
+     * @return the influence matrix model */
+    @Benchmark
+    public InfluenceMatrixModel influenceMatrixParallel() {
+        return InfluenceMatrixModel.create(ad, closures, Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    /** Evaluates the visibility predicate on all nodes.
+     * 
+     * @return the number of visible nodes */
+    @Benchmark
+    public int shouldBeVisible() {
+        return count(shouldBeVisiblePredicate);
+    }
+
+    /** Evaluates the selection predicate on all nodes.
+     * 
+     * @return the number of nodes depending on the selection */
+    @Benchmark
+    public int isDependantFromSelection() {
+        return count(isDependantFromSelectionPredicate);
+    }
+
+    /** Counts the nodes satisfying a predicate.
+     * 
+     * @param predicate
+     *            the predicate
+     * @return the count */
+    private int count(Predicate predicate) {
+        int count = 0;
+        Iterator<?> tuples = graph.getNodes().tuples();
+        while (tuples.hasNext()) {
+            if (predicate.getBoolean((Tuple) tuples.next())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
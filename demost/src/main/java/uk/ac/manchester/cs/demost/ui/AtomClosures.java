@@ -0,0 +1,261 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+
+/** Dependency and dependent closures of all the atoms of a decomposition, as
+ * bitsets over the dense atom numbering of an {@link AtomLayering}. The
+ * transitive closures are computed bottom up over the dependency DAG: the
+ * dependencies of an atom are the atom itself plus the union of the
+ * dependencies of its direct dependencies, and symmetrically for the
+ * dependents, so every closure costs one bitwise OR per direct edge rather
+ * than a graph traversal. Once built, the closures act as a reachability index:
+ * whether an atom depends on another is a single bit lookup, and the atoms
+ * reachable from a whole selection are the OR of a few rows. The atoms whose
+ * signature contains each entity are indexed as well, so that going from
+ * selected entities to atoms does not scan the signatures.
+ * <p>
+ * The bitsets returned by the getters are shared and must not be modified. */
+public class AtomClosures {
+    /** The empty bitset, shared by the entities outside the signature. */
+    private static final BitSet EMPTY = new BitSet();
+    /** The layering. */
+    private final AtomLayering layering;
+    /** The direct dependencies of each atom, excluding the atom itself. */
+    private final BitSet[] directDependencies;
+    /** The direct dependents of each atom, excluding the atom itself. */
+    private final BitSet[] directDependents;
+    /** The transitive dependencies of each atom, including the atom itself. */
+    private final BitSet[] dependencies;
+    /** The transitive dependents of each atom, including the atom itself. */
+    private final BitSet[] dependents;
+    /** The atoms whose signature contains each entity. */
+    private final Map<OWLEntity, BitSet> entityIndex = new HashMap<OWLEntity, BitSet>();
+
+    /** Instantiates new atom closures.
+     * 
+     * @param layering
+     *            the layering providing the atom numbering and the direct
+     *            dependencies */
+    public AtomClosures(AtomLayering layering) {
+        if (layering == null) {
+            throw new NullPointerException("The layering cannot be null");
+        }
+        this.layering = layering;
+        int size = layering.getAtomCount();
+        directDependencies = new BitSet[size];
+        directDependents = new BitSet[size];
+        dependencies = new BitSet[size];
+        dependents = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            directDependencies[i] = new BitSet();
+            directDependents[i] = new BitSet();
+        }
+        for (int i = 0; i < size; i++) {
+            for (OWLEntity entity : layering.getAtom(i).getSignature()) {
+                BitSet atoms = entityIndex.get(entity);
+                if (atoms == null) {
+                    atoms = new BitSet();
+                    entityIndex.put(entity, atoms);
+                }
+                atoms.set(i);
+            }
+            for (Atom dependency : layering.getDirectDependencies(layering.getAtom(i))) {
+                int d = layering.indexOf(dependency);
+                directDependencies[i].set(d);
+                directDependents[d].set(i);
+            }
+        }
+        // the last tier holds the atoms without dependencies, so walking the
+        // tiers backwards visits every atom after its dependencies
+        List<Integer> order = new ArrayList<Integer>(size);
+        for (int tier = layering.getTierCount() - 1; tier >= 0; tier--) {
+            for (Atom atom : layering.getTier(tier)) {
+                order.add(layering.indexOf(atom));
+            }
+        }
+        for (int i : order) {
+            dependencies[i] = close(i, directDependencies[i], dependencies);
+        }
+        for (int k = order.size() - 1; k >= 0; k--) {
+            int i = order.get(k);
+            dependents[i] = close(i, directDependents[i], dependents);
+        }
+    }
+
+    /** Computes the closure of an atom from the closures of its neighbours.
+     * 
+     * @param index
+     *            the index of the atom
+     * @param neighbours
+     *            the direct neighbours of the atom
+     * @param closures
+     *            the closures computed so far
+     * @return the closure */
+    private static BitSet close(int index, BitSet neighbours, BitSet[] closures) {
+        BitSet closure = new BitSet();
+        closure.set(index);
+        for (int n = neighbours.nextSetBit(0); n >= 0; n = neighbours.nextSetBit(n + 1)) {
+            if (closures[n] != null) {
+                closure.or(closures[n]);
+            } else {
+                // only possible on a cyclic decomposition
+                closure.set(n);
+            }
+        }
+        return closure;
+    }
+
+    /** Gets the layering.
+     * 
+     * @return the layering */
+    public AtomLayering getLayering() {
+        return layering;
+    }
+
+    /** Gets the transitive dependencies of an atom, including the atom itself.
+     * 
+     * @param index
+     *            the index of the atom
+     * @return the dependencies */
+    public BitSet getDependencies(int index) {
+        return dependencies[index];
+    }
+
+    /** Gets the transitive dependents of an atom, including the atom itself.
+     * 
+     * @param index
+     *            the index of the atom
+     * @return the dependents */
+    public BitSet getDependents(int index) {
+        return dependents[index];
+    }
+
+    /** Gets the direct dependencies of an atom, excluding the atom itself.
+     * 
+     * @param index
+     *            the index of the atom
+     * @return the direct dependencies */
+    public BitSet getDirectDependencies(int index) {
+        return directDependencies[index];
+    }
+
+    /** Gets the direct dependents of an atom, excluding the atom itself.
+     * 
+     * @param index
+     *            the index of the atom
+     * @return the direct dependents */
+    public BitSet getDirectDependents(int index) {
+        return directDependents[index];
+    }
+
+    /** Gets the atoms whose signature contains an entity.
+     * 
+     * @param entity
+     *            the entity
+     * @return the atoms, empty if the entity is in no signature */
+    public BitSet getAtoms(Object entity) {
+        BitSet toReturn = entityIndex.get(entity);
+        return toReturn == null ? EMPTY : toReturn;
+    }
+
+    /** Checks whether an atom depends on another, directly or transitively.
+     * Every atom depends on itself.
+     * 
+     * @param dependent
+     *            the index of the dependent atom
+     * @param dependency
+     *            the index of the dependency
+     * @return true, if dependent depends on dependency */
+    public boolean dependsOn(int dependent, int dependency) {
+        return dependencies[dependent].get(dependency);
+    }
+
+    /** Checks whether an atom depends on another, directly or transitively.
+     * Every atom depends on itself; atoms outside the decomposition depend on
+     * nothing.
+     * 
+     * @param dependent
+     *            the dependent atom
+     * @param dependency
+     *            the dependency
+     * @return true, if dependent depends on dependency */
+    public boolean dependsOn(Atom dependent, Atom dependency) {
+        int i = layering.indexOf(dependent);
+        int j = layering.indexOf(dependency);
+        return i >= 0 && j >= 0 && dependencies[i].get(j);
+    }
+
+    /** Gets the union of the transitive dependencies of some atoms, the atoms
+     * included.
+     * 
+     * @param atoms
+     *            the indexes of the atoms
+     * @return a new bitset */
+    public BitSet getDependencies(BitSet atoms) {
+        return union(atoms, dependencies);
+    }
+
+    /** Gets the union of the transitive dependents of some atoms, the atoms
+     * included.
+     * 
+     * @param atoms
+     *            the indexes of the atoms
+     * @return a new bitset */
+    public BitSet getDependents(BitSet atoms) {
+        return union(atoms, dependents);
+    }
+
+    /** Union.
+     * 
+     * @param atoms
+     *            the indexes of the atoms
+     * @param closures
+     *            the closures to merge
+     * @return a new bitset */
+    private static BitSet union(BitSet atoms, BitSet[] closures) {
+        BitSet toReturn = new BitSet();
+        for (int i = atoms.nextSetBit(0); i >= 0; i = atoms.nextSetBit(i + 1)) {
+            toReturn.or(closures[i]);
+        }
+        return toReturn;
+    }
+
+    /** Converts a collection of atoms to a bitset; atoms outside the
+     * decomposition are ignored.
+     * 
+     * @param atoms
+     *            the atoms
+     * @return a new bitset */
+    public BitSet toBitSet(Collection<? extends Atom> atoms) {
+        BitSet toReturn = new BitSet();
+        for (Atom atom : atoms) {
+            int index = layering.indexOf(atom);
+            if (index >= 0) {
+                toReturn.set(index);
+            }
+        }
+        return toReturn;
+    }
+
+    /** Converts a bitset to the list of the corresponding atoms.
+     * 
+     * @param bits
+     *            the bitset
+     * @return the atoms, in index order */
+    public List<Atom> toAtoms(BitSet bits) {
+        List<Atom> toReturn = new ArrayList<Atom>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            toReturn.add(layering.getAtom(i));
+        }
+        return toReturn;
+    }
+}
@@ -0,0 +1,358 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiomChange;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntologyChange;
+
+import prefuse.data.Edge;
+import prefuse.data.Graph;
+import prefuse.data.Node;
+import prefuse.data.expression.Predicate;
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** Keeps a prefuse {@link Graph} in sync with an atomic decomposition: one node
+ * per atom, one edge from each atom to each of its direct dependencies, and the
+ * node coordinates derived from the {@link AtomLayering}. The graph can be
+ * built from scratch or patched in place after a change in the ontology, in
+ * which case only the nodes and edges of the atoms affected by the change are
+ * touched. */
+public class AtomGraph {
+    /** The Constant SELECTED_COLUMN_NAME. */
+    public static final String SELECTED_COLUMN_NAME = "selected";
+    /** The Constant SIZE_COLUMN_NAME. */
+    public static final String SIZE_COLUMN_NAME = "size";
+    /** The Constant Y_COLUMN_NAME. */
+    public static final String Y_COLUMN_NAME = "y";
+    /** The Constant X_COLUMN_NAME. */
+    public static final String X_COLUMN_NAME = "x";
+    /** The Constant ACTUAL_Y_COLUMN_NAME. */
+    public static final String ACTUAL_Y_COLUMN_NAME = "actual_y";
+    /** The Constant ACTUAL_X_COLUMN_NAME. */
+    public static final String ACTUAL_X_COLUMN_NAME = "actual_x";
+    /** The Constant LABEL_COLUMN_NAME. */
+    public static final String LABEL_COLUMN_NAME = "label";
+    /** The Constant GENERATING_AXIOM_COLUMN_NAME. */
+    public static final String GENERATING_AXIOM_COLUMN_NAME = "generatingAxiom";
+    /** The Constant VISIBLE_COLUMN_NAME, on both nodes and edges. */
+    public static final String VISIBLE_COLUMN_NAME = "visible";
+    /** The distance between two tiers, and between two nodes in a tier. */
+    private static final double PACE = 200;
+    /** The graph. */
+    private final Graph graph;
+    /** The entity renderer. */
+    private final Renderer<OWLEntity> renderer;
+    /** The node of each atom. */
+    private final Map<Atom, Node> nodes = new HashMap<Atom, Node>();
+    /** The layering. */
+    private AtomLayering layering;
+    /** The label index. */
+    private AtomLabelIndex labelIndex;
+
+    /** Instantiates a new atom graph.
+     * 
+     * @param graph
+     *            the graph to populate
+     * @param renderer
+     *            the renderer for the entities in the atom labels */
+    public AtomGraph(Graph graph, Renderer<OWLEntity> renderer) {
+        if (graph == null) {
+            throw new NullPointerException("The graph cannot be null");
+        }
+        if (renderer == null) {
+            throw new NullPointerException("The renderer cannot be null");
+        }
+        this.graph = graph;
+        this.renderer = renderer;
+        graph.addColumn(GENERATING_AXIOM_COLUMN_NAME, Atom.class);
+        graph.addColumn(LABEL_COLUMN_NAME, String.class);
+        graph.addColumn(SELECTED_COLUMN_NAME, Boolean.class);
+        graph.addColumn(Y_COLUMN_NAME, Integer.class);
+        graph.addColumn(X_COLUMN_NAME, Integer.class);
+        graph.addColumn(ACTUAL_X_COLUMN_NAME, double.class);
+        graph.addColumn(ACTUAL_Y_COLUMN_NAME, double.class);
+        graph.addColumn(SIZE_COLUMN_NAME, int.class);
+        graph.addColumn(VISIBLE_COLUMN_NAME, boolean.class, Boolean.TRUE);
+    }
+
+    /** Removes everything from the graph and builds it again from the
+     * specified decomposition.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition */
+    public void build(AtomicDecomposition atomicDecomposition) {
+        build(new AtomLayering(atomicDecomposition), new AtomLabelIndex(
+                atomicDecomposition, renderer));
+    }
+
+    /** Removes everything from the graph and builds it again from a layering
+     * and a label index computed beforehand for the same decomposition. All
+     * nodes, with their values and coordinates, and then all edges are added
+     * in bulk, so that graph listeners get one event for each.
+     * 
+     * @param atomLayering
+     *            the layering
+     * @param atomLabelIndex
+     *            the label index */
+    public void build(AtomLayering atomLayering, AtomLabelIndex atomLabelIndex) {
+        graph.clear();
+        nodes.clear();
+        layering = atomLayering;
+        labelIndex = atomLabelIndex;
+        List<Atom> atoms = layering.getAtoms();
+        int n = atoms.size();
+        Map<Atom, Integer> index = new HashMap<Atom, Integer>(2 * n);
+        Object[] generatingAxioms = new Object[n];
+        Object[] labels = new Object[n];
+        int[] sizes = new int[n];
+        int edgeCount = 0;
+        for (int i = 0; i < n; i++) {
+            Atom atom = atoms.get(i);
+            index.put(atom, Integer.valueOf(i));
+            generatingAxioms[i] = atom;
+            labels[i] = labelIndex.getLabel(atom);
+            sizes[i] = layering.getDirectDependencies(atom).size();
+            edgeCount += sizes[i];
+        }
+        Object[] ys = new Object[n];
+        Object[] xs = new Object[n];
+        double[] actualYs = new double[n];
+        double[] actualXs = new double[n];
+        for (int tier = 0; tier < layering.getTierCount(); tier++) {
+            int startX = 1;
+            for (Atom atom : layering.getTier(tier)) {
+                int i = index.get(atom).intValue();
+                ys[i] = Integer.valueOf(tier);
+                xs[i] = Integer.valueOf(startX);
+                actualYs[i] = PACE * tier;
+                actualXs[i] = PACE * startX;
+                startX++;
+            }
+        }
+        int first = graph.addNodeRows(n, new String[] { GENERATING_AXIOM_COLUMN_NAME,
+                LABEL_COLUMN_NAME, SIZE_COLUMN_NAME, Y_COLUMN_NAME, X_COLUMN_NAME,
+                ACTUAL_Y_COLUMN_NAME, ACTUAL_X_COLUMN_NAME }, new Object[] {
+                generatingAxioms, labels, sizes, ys, xs, actualYs, actualXs });
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        int e = 0;
+        for (int i = 0; i < n; i++) {
+            Atom atom = atoms.get(i);
+            nodes.put(atom, graph.getNode(first + i));
+            for (Atom dependency : layering.getDirectDependencies(atom)) {
+                sources[e] = first + i;
+                targets[e] = first + index.get(dependency).intValue();
+                e++;
+            }
+        }
+        graph.addEdgeRows(sources, targets, edgeCount);
+    }
+
+    /** Patches the graph after the decomposition has been recomputed because of
+     * a change in the ontology; the patch is computed on the calling thread, see
+     * {@link AtomGraphPatch} for the atoms affected by the change.
+     * 
+     * @param atomicDecomposition
+     *            the recomputed atomic decomposition
+     * @param changedSignature
+     *            the signature of the added and removed logical axioms
+     * @return the affected atoms, in the new decomposition */
+    public Set<Atom> update(AtomicDecomposition atomicDecomposition,
+            Collection<? extends OWLEntity> changedSignature) {
+        if (layering == null) {
+            build(atomicDecomposition);
+            return new HashSet<Atom>(layering.getAtoms());
+        }
+        return apply(new AtomGraphPatch(layering, new AtomLayering(atomicDecomposition),
+                new AtomLabelIndex(atomicDecomposition, renderer), atomicDecomposition,
+                changedSignature));
+    }
+
+    /** Applies a patch computed beforehand. Only the nodes of vanished atoms are
+     * removed, only the affected atoms get their label and outgoing edges
+     * recomputed, and only the moved atoms get new coordinates; all other nodes
+     * are simply rebound to their new atom. A patch computed for another
+     * layering than the one on display cannot be applied, and the graph is
+     * built again from the layering of the patch instead.
+     * 
+     * @param patch
+     *            the patch
+     * @return the affected atoms, in the new decomposition */
+    public Set<Atom> apply(AtomGraphPatch patch) {
+        if (layering == null || patch.getPreviousLayering() != layering) {
+            build(patch.getLayering(), patch.getLabelIndex());
+            return new HashSet<Atom>(layering.getAtoms());
+        }
+        layering = patch.getLayering();
+        labelIndex = patch.getLabelIndex();
+        for (Atom previous : patch.getRemoved()) {
+            graph.removeNode(nodes.remove(previous));
+        }
+        Map<Atom, Node> previousNodes = new HashMap<Atom, Node>(nodes);
+        nodes.clear();
+        for (Map.Entry<Atom, Atom> e : patch.getMatches().entrySet()) {
+            Node node = previousNodes.get(e.getKey());
+            node.set(GENERATING_AXIOM_COLUMN_NAME, e.getValue());
+            nodes.put(e.getValue(), node);
+        }
+        for (Atom atom : patch.getAdded()) {
+            Node node = graph.addNode();
+            node.set(GENERATING_AXIOM_COLUMN_NAME, atom);
+            nodes.put(atom, node);
+            place(atom, patch.getColumn(atom));
+        }
+        for (Atom atom : patch.getMoved()) {
+            place(atom, patch.getColumn(atom));
+        }
+        for (Atom atom : patch.getAffected()) {
+            Node node = nodes.get(atom);
+            node.set(LABEL_COLUMN_NAME, labelIndex.getLabel(atom));
+            List<Edge> outEdges = new ArrayList<Edge>();
+            Iterator<?> it = node.outEdges();
+            while (it.hasNext()) {
+                outEdges.add((Edge) it.next());
+            }
+            for (Edge edge : outEdges) {
+                graph.removeEdge(edge);
+            }
+            addEdges(atom);
+        }
+        return patch.getAffected();
+    }
+
+    /** Renders again all labelling entities and updates the labels of the nodes
+     * whose atoms render differently.
+     * 
+     * @return the atoms whose label has changed */
+    public Set<Atom> refreshLabels() {
+        if (labelIndex == null) {
+            return Collections.emptySet();
+        }
+        Set<Atom> changed = labelIndex.refresh();
+        for (Atom atom : changed) {
+            Node node = nodes.get(atom);
+            if (node != null) {
+                node.set(LABEL_COLUMN_NAME, labelIndex.getLabel(atom));
+            }
+        }
+        return changed;
+    }
+
+    /** Evaluates a predicate on every node and stores the result in the
+     * visibility column; an edge is visible if both its nodes are.
+     * 
+     * @param predicate
+     *            the predicate deciding which nodes are visible */
+    public void updateVisibility(Predicate predicate) {
+        updateVisibility(predicate, nodes.keySet());
+    }
+
+    /** Evaluates a predicate on the nodes of some atoms only and stores the
+     * result in the visibility column, updating the edges of these nodes. The
+     * other nodes are assumed to have kept their visibility.
+     * 
+     * @param predicate
+     *            the predicate deciding which nodes are visible
+     * @param atoms
+     *            the atoms whose visibility may have changed */
+    public void updateVisibility(Predicate predicate, Collection<Atom> atoms) {
+        List<Node> changed = new ArrayList<Node>(atoms.size());
+        for (Atom atom : atoms) {
+            Node node = nodes.get(atom);
+            if (node != null) {
+                node.setBoolean(VISIBLE_COLUMN_NAME, predicate.getBoolean(node));
+                changed.add(node);
+            }
+        }
+        for (Node node : changed) {
+            Iterator<?> edges = node.edges();
+            while (edges.hasNext()) {
+                Edge edge = (Edge) edges.next();
+                edge.setBoolean(VISIBLE_COLUMN_NAME,
+                        edge.getSourceNode().getBoolean(VISIBLE_COLUMN_NAME)
+                                && edge.getTargetNode().getBoolean(VISIBLE_COLUMN_NAME));
+            }
+        }
+    }
+
+    /** Adds the edges from an atom to its direct dependencies.
+     * 
+     * @param atom
+     *            the atom */
+    private void addEdges(Atom atom) {
+        Node node = nodes.get(atom);
+        Set<Atom> dependencies = layering.getDirectDependencies(atom);
+        node.set(SIZE_COLUMN_NAME, dependencies.size());
+        for (Atom dependantAtom : dependencies) {
+            graph.addEdge(node, nodes.get(dependantAtom));
+        }
+    }
+
+    /** Assigns the coordinates of the node of an atom from its tier and its
+     * position in the tier.
+     * 
+     * @param atom
+     *            the atom
+     * @param x
+     *            the position of the atom in its tier, starting from 1 */
+    private void place(Atom atom, int x) {
+        int tier = layering.getTier(atom);
+        Node node = nodes.get(atom);
+        node.set(Y_COLUMN_NAME, tier);
+        node.set(X_COLUMN_NAME, x);
+        node.set(ACTUAL_Y_COLUMN_NAME, PACE * tier);
+        node.set(ACTUAL_X_COLUMN_NAME, PACE * x);
+    }
+
+    /** Checks whether an ontology change can affect the decomposition, i.e.,
+     * whether it adds or removes a logical axiom. Annotations, declarations and
+     * ontology level changes are irrelevant.
+     * 
+     * @param change
+     *            the change
+     * @return true, if the change is a logical axiom change */
+    public static boolean isLogicalChange(OWLOntologyChange change) {
+        return change.isAxiomChange()
+                && ((OWLAxiomChange) change).getAxiom().isLogicalAxiom();
+    }
+
+    /** Gets the graph.
+     * 
+     * @return the graph */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /** Gets the node for an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @return the node, or null if the atom is not in the graph */
+    public Node getNode(Atom atom) {
+        return nodes.get(atom);
+    }
+
+    /** Gets the layering.
+     * 
+     * @return the layering, null if the graph has not been built yet */
+    public AtomLayering getLayering() {
+        return layering;
+    }
+
+    /** Gets the label index.
+     * 
+     * @return the label index, null if the graph has not been built yet */
+    public AtomLabelIndex getLabelIndex() {
+        return labelIndex;
+    }
+}
@@ -0,0 +1,241 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** The changes turning an {@link AtomGraph} built for a decomposition into the
+ * graph of a decomposition recomputed after a change in the ontology. The
+ * patch only depends on the two layerings, so that it can be computed off the
+ * Event Dispatch Thread; applying it then only touches the nodes and edges that
+ * differ.
+ * <p>
+ * Atoms are matched to the previous atoms by their axioms. The affected atoms,
+ * whose label and outgoing edges are recomputed, are the new atoms, the atoms
+ * whose signature contains an entity of the changed axioms, all the atoms
+ * depending on them, and the atoms that depended on an atom which no longer
+ * exists. The labels of the affected atoms are rendered when the patch is
+ * created. */
+public class AtomGraphPatch {
+    /** The previous layering. */
+    private final AtomLayering previousLayering;
+    /** The new layering. */
+    private final AtomLayering layering;
+    /** The new label index. */
+    private final AtomLabelIndex labelIndex;
+    /** The changed signature. */
+    private final Set<OWLEntity> changedSignature;
+    /** The new atom matching each previous atom that still exists. */
+    private final Map<Atom, Atom> matches = new LinkedHashMap<Atom, Atom>();
+    /** The previous atoms that no longer exist. */
+    private final List<Atom> removed = new ArrayList<Atom>();
+    /** The new atoms without a previous match. */
+    private final List<Atom> added = new ArrayList<Atom>();
+    /** The atoms whose label and outgoing edges have to be recomputed. */
+    private final Set<Atom> affected = new HashSet<Atom>();
+    /** The matched atoms that have changed tier or position in their tier. */
+    private final List<Atom> moved = new ArrayList<Atom>();
+    /** The index in the previous layering of each new atom, -1 if none. */
+    private final int[] previousIndices;
+    /** The position of each new atom in its tier, starting from 1. */
+    private final int[] columns;
+
+    /** Instantiates a new atom graph patch.
+     * 
+     * @param previousLayering
+     *            the layering the graph has been built or patched for
+     * @param layering
+     *            the layering of the recomputed decomposition
+     * @param labelIndex
+     *            the label index of the recomputed decomposition
+     * @param atomicDecomposition
+     *            the recomputed decomposition
+     * @param changedSignature
+     *            the signature of the added and removed logical axioms */
+    public AtomGraphPatch(AtomLayering previousLayering, AtomLayering layering,
+            AtomLabelIndex labelIndex, AtomicDecomposition atomicDecomposition,
+            Collection<? extends OWLEntity> changedSignature) {
+        if (previousLayering == null) {
+            throw new NullPointerException("The previous layering cannot be null");
+        }
+        if (layering == null) {
+            throw new NullPointerException("The layering cannot be null");
+        }
+        if (labelIndex == null) {
+            throw new NullPointerException("The label index cannot be null");
+        }
+        this.previousLayering = previousLayering;
+        this.layering = layering;
+        this.labelIndex = labelIndex;
+        this.changedSignature = Collections.unmodifiableSet(new HashSet<OWLEntity>(
+                changedSignature));
+        Map<OWLEntity, Set<Atom>> termBasedIndex = atomicDecomposition
+                .getTermBasedIndex();
+        for (OWLEntity entity : changedSignature) {
+            Set<Atom> touched = termBasedIndex.get(entity);
+            if (touched != null) {
+                for (Atom atom : touched) {
+                    if (!affected.contains(atom)) {
+                        affected.addAll(atomicDecomposition.getDependents(atom));
+                    }
+                }
+            }
+        }
+        Map<Set<OWLAxiom>, Atom> previousAtoms = new HashMap<Set<OWLAxiom>, Atom>();
+        for (Atom atom : previousLayering.getAtoms()) {
+            previousAtoms.put(new HashSet<OWLAxiom>(atom.getAxioms()), atom);
+        }
+        previousIndices = new int[layering.getAtomCount()];
+        Arrays.fill(previousIndices, -1);
+        for (Atom atom : layering.getAtoms()) {
+            Atom previous = previousAtoms.remove(new HashSet<OWLAxiom>(atom.getAxioms()));
+            if (previous == null) {
+                added.add(atom);
+                affected.add(atom);
+            } else {
+                matches.put(previous, atom);
+                previousIndices[layering.indexOf(atom)] = previousLayering
+                        .indexOf(previous);
+            }
+        }
+        removed.addAll(previousAtoms.values());
+        // whatever pointed to a vanished atom needs new edges
+        for (Atom previous : previousLayering.getAtoms()) {
+            Atom atom = matches.get(previous);
+            if (atom != null && !affected.contains(atom)) {
+                for (Atom dependency : previousLayering.getDirectDependencies(previous)) {
+                    if (!matches.containsKey(dependency)) {
+                        affected.add(atom);
+                        break;
+                    }
+                }
+            }
+        }
+        int[] previousColumns = columns(previousLayering);
+        columns = columns(layering);
+        for (Map.Entry<Atom, Atom> e : matches.entrySet()) {
+            int previousIndex = previousLayering.indexOf(e.getKey());
+            int index = layering.indexOf(e.getValue());
+            if (previousColumns[previousIndex] != columns[index]
+                    || previousLayering.getTier(e.getKey()) != layering.getTier(e
+                            .getValue())) {
+                moved.add(e.getValue());
+            }
+        }
+        for (Atom atom : affected) {
+            labelIndex.getLabel(atom);
+        }
+    }
+
+    /** Computes the position of every atom in its tier, starting from 1.
+     * 
+     * @param atomLayering
+     *            the layering
+     * @return the positions, by atom index */
+    static int[] columns(AtomLayering atomLayering) {
+        int[] columns = new int[atomLayering.getAtomCount()];
+        for (int tier = 0; tier < atomLayering.getTierCount(); tier++) {
+            int column = 1;
+            for (Atom atom : atomLayering.getTier(tier)) {
+                columns[atomLayering.indexOf(atom)] = column++;
+            }
+        }
+        return columns;
+    }
+
+    /** Gets the previous layering.
+     * 
+     * @return the layering the patch applies to */
+    public AtomLayering getPreviousLayering() {
+        return previousLayering;
+    }
+
+    /** Gets the layering.
+     * 
+     * @return the layering of the recomputed decomposition */
+    public AtomLayering getLayering() {
+        return layering;
+    }
+
+    /** Gets the label index.
+     * 
+     * @return the label index of the recomputed decomposition */
+    public AtomLabelIndex getLabelIndex() {
+        return labelIndex;
+    }
+
+    /** Gets the changed signature.
+     * 
+     * @return the signature of the added and removed logical axioms */
+    public Set<OWLEntity> getChangedSignature() {
+        return changedSignature;
+    }
+
+    /** Gets the matches.
+     * 
+     * @return the new atom matching each previous atom that still exists */
+    public Map<Atom, Atom> getMatches() {
+        return Collections.unmodifiableMap(matches);
+    }
+
+    /** Gets the removed atoms.
+     * 
+     * @return the previous atoms that no longer exist */
+    public List<Atom> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    /** Gets the added atoms.
+     * 
+     * @return the new atoms without a previous match */
+    public List<Atom> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    /** Gets the affected atoms.
+     * 
+     * @return the atoms whose label and outgoing edges have to be recomputed,
+     *         including the added atoms */
+    public Set<Atom> getAffected() {
+        return Collections.unmodifiableSet(affected);
+    }
+
+    /** Gets the moved atoms.
+     * 
+     * @return the matched atoms that have changed tier or position in their
+     *         tier */
+    public List<Atom> getMoved() {
+        return Collections.unmodifiableList(moved);
+    }
+
+    /** Gets the position of an atom in its tier.
+     * 
+     * @param atom
+     *            the atom, in the new layering
+     * @return the position, starting from 1 */
+    public int getColumn(Atom atom) {
+        return columns[layering.indexOf(atom)];
+    }
+
+    /** Gets the index an atom had in the previous layering.
+     * 
+     * @param index
+     *            the index of the atom in the new layering
+     * @return the index of the matching previous atom, -1 if the atom is new */
+    public int getPreviousIndex(int index) {
+        return previousIndices[index];
+    }
+}
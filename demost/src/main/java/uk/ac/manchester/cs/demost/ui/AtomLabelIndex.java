@@ -0,0 +1,151 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** Inverted index from atoms to the entities that label them, i.e., the
+ * entities whose term based index entry contains the atom. The index is built
+ * in a single pass over {@link AtomicDecomposition#getTermBasedIndex()}; the
+ * renderings of the entities and the resulting atom labels are cached, so that
+ * labelling all atoms is linear in the size of the term based index and a
+ * change in the renderings only rebuilds the labels of the atoms whose entities
+ * render differently. */
+public class AtomLabelIndex {
+    /** The Constant SEPARATOR. */
+    private static final String SEPARATOR = ", ";
+    /** The renderer. */
+    private final Renderer<OWLEntity> renderer;
+    /** The labelling entities of each atom. */
+    private final Map<Atom, List<OWLEntity>> entities = new HashMap<Atom, List<OWLEntity>>();
+    /** The atoms labelled by each entity. */
+    private final Map<OWLEntity, Collection<Atom>> atoms = new LinkedHashMap<OWLEntity, Collection<Atom>>();
+    /** The cached renderings. */
+    private final Map<OWLEntity, String> renderings = new HashMap<OWLEntity, String>();
+    /** The cached labels. */
+    private final Map<Atom, String> labels = new HashMap<Atom, String>();
+
+    /** Instantiates a new atom label index.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param renderer
+     *            the renderer for the labelling entities */
+    public AtomLabelIndex(AtomicDecomposition atomicDecomposition,
+            Renderer<OWLEntity> renderer) {
+        if (atomicDecomposition == null) {
+            throw new NullPointerException("The atomic decomposition cannot be null");
+        }
+        if (renderer == null) {
+            throw new NullPointerException("The renderer cannot be null");
+        }
+        this.renderer = renderer;
+        for (Map.Entry<OWLEntity, Set<Atom>> e : atomicDecomposition.getTermBasedIndex()
+                .entrySet()) {
+            OWLEntity entity = e.getKey();
+            atoms.put(entity, e.getValue());
+            for (Atom atom : e.getValue()) {
+                List<OWLEntity> list = entities.get(atom);
+                if (list == null) {
+                    list = new ArrayList<OWLEntity>();
+                    entities.put(atom, list);
+                }
+                list.add(entity);
+            }
+        }
+    }
+
+    /** Gets the entities labelling an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @return the labelling entities, empty if the atom is not labelled */
+    public List<OWLEntity> getEntities(Atom atom) {
+        List<OWLEntity> list = entities.get(atom);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /** Gets the rendering of an entity, rendering it on first use.
+     * 
+     * @param entity
+     *            the entity
+     * @return the rendering */
+    public String getRendering(OWLEntity entity) {
+        String rendering = renderings.get(entity);
+        if (rendering == null) {
+            rendering = renderer.render(entity);
+            renderings.put(entity, rendering);
+        }
+        return rendering;
+    }
+
+    /** Gets the label of an atom, i.e., the comma separated renderings of its
+     * labelling entities.
+     * 
+     * @param atom
+     *            the atom
+     * @return the label */
+    public String getLabel(Atom atom) {
+        String label = labels.get(atom);
+        if (label == null) {
+            StringBuilder out = new StringBuilder();
+            Iterator<OWLEntity> iterator = getEntities(atom).iterator();
+            while (iterator.hasNext()) {
+                out.append(getRendering(iterator.next()));
+                if (iterator.hasNext()) {
+                    out.append(SEPARATOR);
+                }
+            }
+            label = out.toString();
+            labels.put(atom, label);
+        }
+        return label;
+    }
+
+    /** Renders again all entities in the index.
+     * 
+     * @return the atoms whose label has changed */
+    public Set<Atom> refresh() {
+        return refresh(atoms.keySet());
+    }
+
+    /** Renders again the specified entities; the labels of the atoms they label
+     * are dropped only if the rendering has actually changed.
+     * 
+     * @param changed
+     *            the entities to render again
+     * @return the atoms whose label has changed */
+    public Set<Atom> refresh(Collection<? extends OWLEntity> changed) {
+        Set<Atom> toReturn = new HashSet<Atom>();
+        for (OWLEntity entity : changed) {
+            Collection<Atom> labelled = atoms.get(entity);
+            if (labelled == null) {
+                continue;
+            }
+            String rendering = renderer.render(entity);
+            String old = renderings.put(entity, rendering);
+            if (old == null || !old.equals(rendering)) {
+                toReturn.addAll(labelled);
+            }
+        }
+        for (Atom atom : toReturn) {
+            labels.remove(atom);
+        }
+        return toReturn;
+    }
+}
@@ -0,0 +1,252 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** Assigns every atom of an atomic decomposition to a tier of the dependency
+ * DAG. The height of an atom is one plus the maximum height of the atoms it
+ * directly depends on (atoms without dependencies have height 1); its tier is
+ * the distance from the top of the graph, i.e., the maximum height minus the
+ * height of the atom, so that the most dependent atoms are drawn first.
+ * <p>
+ * All heights are computed in a single topological pass (Kahn's algorithm) over
+ * the direct dependencies, so the cost is linear in the number of atoms and
+ * direct dependency edges. Atoms are numbered densely, in the iteration order
+ * of {@link AtomicDecomposition#getAtoms()}, and the numbering is exposed for
+ * components that want to store per-atom data in arrays. */
+public class AtomLayering {
+    /** The atoms, by index. */
+    private final List<Atom> atoms = new ArrayList<Atom>();
+    /** The index of each atom. */
+    private final Map<Atom, Integer> indexes = new HashMap<Atom, Integer>();
+    /** The direct dependencies of each atom, by index. */
+    private final List<Set<Atom>> directDependencies = new ArrayList<Set<Atom>>();
+    /** The height of each atom, by index. */
+    private final int[] heights;
+    /** The maximum height. */
+    private final int maxHeight;
+    /** The members of each tier, by tier. */
+    private final List<List<Atom>> tiers = new ArrayList<List<Atom>>();
+
+    /** Instantiates a new atom layering.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition */
+    public AtomLayering(AtomicDecomposition atomicDecomposition) {
+        if (atomicDecomposition == null) {
+            throw new NullPointerException("The atomic decomposition cannot be null");
+        }
+        for (Atom atom : atomicDecomposition.getAtoms()) {
+            register(atom);
+        }
+        // dependencies are fetched once per atom; atoms only reachable as
+        // dependencies are appended to the numbering as they are found
+        for (int i = 0; i < atoms.size(); i++) {
+            Atom atom = atoms.get(i);
+            Set<Atom> dependencies = new LinkedHashSet<Atom>();
+            Set<Atom> direct = atomicDecomposition.getDependencies(atom, true);
+            if (direct != null) {
+                for (Atom dependency : direct) {
+                    if (!dependency.equals(atom)) {
+                        register(dependency);
+                        dependencies.add(dependency);
+                    }
+                }
+            }
+            directDependencies.add(dependencies);
+        }
+        int size = atoms.size();
+        heights = new int[size];
+        int[] pending = new int[size];
+        int[][] dependents = dependents(pending);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0) {
+                heights[i] = 1;
+                queue[tail++] = i;
+            }
+        }
+        int max = 0;
+        while (head < tail) {
+            int current = queue[head++];
+            int height = heights[current];
+            max = max < height ? height : max;
+            for (int dependent : dependents[current]) {
+                if (heights[dependent] < height + 1) {
+                    heights[dependent] = height + 1;
+                }
+                if (--pending[dependent] == 0) {
+                    queue[tail++] = dependent;
+                }
+            }
+        }
+        if (tail < size) {
+            // the decomposition is acyclic by construction; should a cycle
+            // ever show up, its atoms are parked on top of everything else
+            max++;
+            for (int i = 0; i < size; i++) {
+                if (pending[i] > 0) {
+                    heights[i] = max;
+                }
+            }
+        }
+        maxHeight = max;
+        for (int tier = 0; tier < maxHeight; tier++) {
+            tiers.add(new ArrayList<Atom>());
+        }
+        for (int i = 0; i < size; i++) {
+            tiers.get(maxHeight - heights[i]).add(atoms.get(i));
+        }
+    }
+
+    /** Registers an atom, assigning it the next free index if it has not been
+     * seen before.
+     * 
+     * @param atom
+     *            the atom */
+    private void register(Atom atom) {
+        if (!indexes.containsKey(atom)) {
+            indexes.put(atom, atoms.size());
+            atoms.add(atom);
+        }
+    }
+
+    /** Inverts the direct dependencies, counting for each atom the number of
+     * dependencies still to be resolved.
+     * 
+     * @param pending
+     *            the array to fill with the number of direct dependencies of
+     *            each atom
+     * @return the direct dependents of each atom, by index */
+    private int[][] dependents(int[] pending) {
+        int size = atoms.size();
+        int[] counts = new int[size];
+        for (int i = 0; i < size; i++) {
+            pending[i] = directDependencies.get(i).size();
+            for (Atom dependency : directDependencies.get(i)) {
+                counts[indexes.get(dependency)]++;
+            }
+        }
+        int[][] dependents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            dependents[i] = new int[counts[i]];
+            counts[i] = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            for (Atom dependency : directDependencies.get(i)) {
+                int d = indexes.get(dependency);
+                dependents[d][counts[d]++] = i;
+            }
+        }
+        return dependents;
+    }
+
+    /** Gets the atoms, in index order.
+     * 
+     * @return the atoms */
+    public List<Atom> getAtoms() {
+        return Collections.unmodifiableList(atoms);
+    }
+
+    /** Gets the number of atoms.
+     * 
+     * @return the atom count */
+    public int getAtomCount() {
+        return atoms.size();
+    }
+
+    /** Gets the index of an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @return the index, or -1 if the atom is not part of the decomposition */
+    public int indexOf(Atom atom) {
+        Integer index = indexes.get(atom);
+        return index == null ? -1 : index.intValue();
+    }
+
+    /** Gets the atom with the specified index.
+     * 
+     * @param index
+     *            the index
+     * @return the atom */
+    public Atom getAtom(int index) {
+        return atoms.get(index);
+    }
+
+    /** Gets the direct dependencies of an atom, excluding the atom itself.
+     * 
+     * @param atom
+     *            the atom
+     * @return the direct dependencies */
+    public Set<Atom> getDirectDependencies(Atom atom) {
+        return Collections.unmodifiableSet(directDependencies.get(checkedIndexOf(atom)));
+    }
+
+    /** Gets the height of an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @return the height, 1 for atoms without dependencies */
+    public int getHeight(Atom atom) {
+        return heights[checkedIndexOf(atom)];
+    }
+
+    /** Gets the maximum height.
+     * 
+     * @return the maximum height, 0 for an empty decomposition */
+    public int getMaxHeight() {
+        return maxHeight;
+    }
+
+    /** Gets the tier of an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @return the tier, 0 for the atoms with maximum height */
+    public int getTier(Atom atom) {
+        return maxHeight - getHeight(atom);
+    }
+
+    /** Gets the number of tiers.
+     * 
+     * @return the tier count */
+    public int getTierCount() {
+        return tiers.size();
+    }
+
+    /** Gets the members of a tier, in index order.
+     * 
+     * @param tier
+     *            the tier
+     * @return the atoms in the tier */
+    public List<Atom> getTier(int tier) {
+        return Collections.unmodifiableList(tiers.get(tier));
+    }
+
+    /** Checked index of.
+     * 
+     * @param atom
+     *            the atom
+     * @return the index */
+    private int checkedIndexOf(Atom atom) {
+        if (atom == null) {
+            throw new NullPointerException("The atom cannot be null");
+        }
+        Integer index = indexes.get(atom);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown atom: " + atom);
+        }
+        return index.intValue();
+    }
+}
@@ -0,0 +1,415 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLLogicalAxiom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.util.ShortFormProvider;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.owl.owlapi.SimpleRenderer;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/** Persistent cache of atomic decompositions. Each decomposition is stored in a
+ * binary file named after a fingerprint of the logical axioms of the ontology
+ * and the module type; atoms, dependencies and the term based index refer to
+ * axioms and entities by their position in the sorted logical axioms and in
+ * their sorted signature, so that the file holds only integers. Files are
+ * memory mapped on load and validated against the ontology; any mismatch or
+ * read error is treated as a miss, and the decomposition is recomputed and
+ * stored again.
+ * <p>
+ * Tiers are not stored: {@link AtomLayering} computes them in linear time from
+ * the direct dependencies, which are. */
+public class AtomicDecompositionCache {
+    /** The Constant MAGIC. */
+    private static final int MAGIC = 0x444d4144;
+    /** The Constant VERSION. */
+    private static final int VERSION = 3;
+    /** The Constant EXTENSION. */
+    private static final String EXTENSION = ".ad";
+    /** The directory. */
+    private final File directory;
+
+    /** Instantiates a new atomic decomposition cache.
+     * 
+     * @param directory
+     *            the directory holding the cache files; created on first
+     *            store */
+    public AtomicDecompositionCache(File directory) {
+        if (directory == null) {
+            throw new NullPointerException("The directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    /** Gets the default directory, .demost/cache in the user home.
+     * 
+     * @return the default directory */
+    public static File getDefaultDirectory() {
+        return new File(new File(System.getProperty("user.home"), ".demost"), "cache");
+    }
+
+    /** Gets the decomposition of an ontology from the cache, or computes and
+     * stores it if it is not there.
+     * 
+     * @param ontology
+     *            the ontology
+     * @param moduleType
+     *            the module type
+     * @return the atomic decomposition */
+    public AtomicDecomposition getOrCompute(OWLOntology ontology, ModuleType moduleType) {
+        Canonical canonical = new Canonical(ontology);
+        AtomicDecomposition ad = load(canonical, moduleType);
+        if (ad == null) {
+            ad = new AtomicDecomposerOWLAPITOOLS(ontology, moduleType);
+            store(canonical, moduleType, ad);
+        }
+        return ad;
+    }
+
+    /** Loads the decomposition of an ontology.
+     * 
+     * @param ontology
+     *            the ontology
+     * @param moduleType
+     *            the module type
+     * @return the decomposition, or null if it is not in the cache or the file
+     *         is not valid */
+    public AtomicDecomposition load(OWLOntology ontology, ModuleType moduleType) {
+        return load(new Canonical(ontology), moduleType);
+    }
+
+    /** Stores the decomposition of an ontology.
+     * 
+     * @param ontology
+     *            the ontology
+     * @param moduleType
+     *            the module type
+     * @param ad
+     *            the decomposition
+     * @return true, if the decomposition has been stored; decompositions
+     *         referring to axioms or entities outside the logical axioms of the
+     *         ontology, and I/O errors, are not */
+    public boolean store(OWLOntology ontology, ModuleType moduleType,
+            AtomicDecomposition ad) {
+        return store(new Canonical(ontology), moduleType, ad);
+    }
+
+    /** Gets the file for an ontology and module type.
+     * 
+     * @param canonical
+     *            the canonical form of the ontology
+     * @param moduleType
+     *            the module type
+     * @return the file */
+    private File getFile(Canonical canonical, ModuleType moduleType) {
+        return new File(directory, toHex(canonical.fingerprint) + "-" + moduleType
+                + EXTENSION);
+    }
+
+    /** Load.
+     * 
+     * @param canonical
+     *            the canonical form of the ontology
+     * @param moduleType
+     *            the module type
+     * @return the decomposition, or null */
+    private AtomicDecomposition load(Canonical canonical, ModuleType moduleType) {
+        File file = getFile(canonical, moduleType);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            RandomAccessFile in = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = in.getChannel();
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        channel.size());
+                return read(buffer, canonical, moduleType);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        } catch (BufferUnderflowException e) {
+            return null;
+        } catch (IndexOutOfBoundsException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            // negative sizes in a corrupted file
+            return null;
+        }
+    }
+
+    /** Reads and validates a decomposition.
+     * 
+     * @param buffer
+     *            the buffer
+     * @param canonical
+     *            the canonical form of the ontology
+     * @param moduleType
+     *            the module type
+     * @return the decomposition, or null if the buffer does not match */
+    private static AtomicDecomposition read(MappedByteBuffer buffer,
+            Canonical canonical, ModuleType moduleType) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != moduleType.ordinal()) {
+            return null;
+        }
+        if (buffer.getInt() != canonical.fingerprint.length) {
+            return null;
+        }
+        byte[] fingerprint = new byte[canonical.fingerprint.length];
+        buffer.get(fingerprint);
+        if (!Arrays.equals(fingerprint, canonical.fingerprint)
+                || buffer.getInt() != canonical.axioms.size()
+                || buffer.getInt() != canonical.entities.size()) {
+            return null;
+        }
+        int atomCount = buffer.getInt();
+        List<Atom> atoms = new ArrayList<Atom>(atomCount);
+        for (int i = 0; i < atomCount; i++) {
+            int size = buffer.getInt();
+            List<OWLAxiom> axioms = new ArrayList<OWLAxiom>(size);
+            for (int j = 0; j < size; j++) {
+                axioms.add(canonical.axioms.get(buffer.getInt()));
+            }
+            atoms.add(new Atom(axioms));
+        }
+        Map<Atom, Set<Atom>> directDependencies = new HashMap<Atom, Set<Atom>>();
+        for (Atom atom : atoms) {
+            int size = buffer.getInt();
+            Set<Atom> dependencies = new LinkedHashSet<Atom>();
+            for (int j = 0; j < size; j++) {
+                dependencies.add(atoms.get(buffer.getInt()));
+            }
+            directDependencies.put(atom, dependencies);
+        }
+        int entryCount = buffer.getInt();
+        Map<OWLEntity, Set<Atom>> termBasedIndex = new LinkedHashMap<OWLEntity, Set<Atom>>();
+        for (int i = 0; i < entryCount; i++) {
+            OWLEntity entity = canonical.entities.get(buffer.getInt());
+            int size = buffer.getInt();
+            Set<Atom> indexed = new LinkedHashSet<Atom>();
+            for (int j = 0; j < size; j++) {
+                indexed.add(atoms.get(buffer.getInt()));
+            }
+            termBasedIndex.put(entity, indexed);
+        }
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+        return new CachedAtomicDecomposition(atoms, directDependencies, termBasedIndex);
+    }
+
+    /** Store.
+     * 
+     * @param canonical
+     *            the canonical form of the ontology
+     * @param moduleType
+     *            the module type
+     * @param ad
+     *            the decomposition
+     * @return true, if stored */
+    private boolean store(Canonical canonical, ModuleType moduleType,
+            AtomicDecomposition ad) {
+        Map<OWLAxiom, Integer> axiomIndexes = new HashMap<OWLAxiom, Integer>();
+        for (OWLAxiom axiom : canonical.axioms) {
+            axiomIndexes.put(axiom, axiomIndexes.size());
+        }
+        Map<OWLEntity, Integer> entityIndexes = new HashMap<OWLEntity, Integer>();
+        for (OWLEntity entity : canonical.entities) {
+            entityIndexes.put(entity, entityIndexes.size());
+        }
+        List<Atom> atoms = new ArrayList<Atom>(ad.getAtoms());
+        Map<Atom, Integer> atomIndexes = new HashMap<Atom, Integer>();
+        for (Atom atom : atoms) {
+            atomIndexes.put(atom, atomIndexes.size());
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return false;
+        }
+        File file = getFile(canonical, moduleType);
+        File temp = new File(directory, file.getName() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp)));
+            boolean complete = false;
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(moduleType.ordinal());
+                out.writeInt(canonical.fingerprint.length);
+                out.write(canonical.fingerprint);
+                out.writeInt(canonical.axioms.size());
+                out.writeInt(canonical.entities.size());
+                out.writeInt(atoms.size());
+                for (Atom atom : atoms) {
+                    out.writeInt(atom.getAxioms().size());
+                    for (OWLAxiom axiom : atom.getAxioms()) {
+                        if (!write(out, axiomIndexes.get(axiom))) {
+                            return false;
+                        }
+                    }
+                }
+                for (Atom atom : atoms) {
+                    Set<Atom> dependencies = new LinkedHashSet<Atom>(ad.getDependencies(
+                            atom, true));
+                    dependencies.remove(atom);
+                    out.writeInt(dependencies.size());
+                    for (Atom dependency : dependencies) {
+                        if (!write(out, atomIndexes.get(dependency))) {
+                            return false;
+                        }
+                    }
+                }
+                Map<OWLEntity, Set<Atom>> termBasedIndex = ad.getTermBasedIndex();
+                out.writeInt(termBasedIndex.size());
+                for (Map.Entry<OWLEntity, Set<Atom>> e : termBasedIndex.entrySet()) {
+                    if (!write(out, entityIndexes.get(e.getKey()))) {
+                        return false;
+                    }
+                    out.writeInt(e.getValue().size());
+                    for (Atom atom : e.getValue()) {
+                        if (!write(out, atomIndexes.get(atom))) {
+                            return false;
+                        }
+                    }
+                }
+                out.writeInt(MAGIC);
+                complete = true;
+            } finally {
+                out.close();
+                if (!complete) {
+                    temp.delete();
+                }
+            }
+            return (!file.exists() || file.delete()) && temp.renameTo(file);
+        } catch (IOException e) {
+            temp.delete();
+            return false;
+        }
+    }
+
+    /** Writes an index.
+     * 
+     * @param out
+     *            the output
+     * @param index
+     *            the index, null if the object has no index
+     * @return false, if the index is null
+     * @throws IOException
+     *             Signals that an I/O exception has occurred. */
+    private static boolean write(DataOutputStream out, Integer index) throws IOException {
+        if (index == null) {
+            return false;
+        }
+        out.writeInt(index.intValue());
+        return true;
+    }
+
+    /** To hex.
+     * 
+     * @param bytes
+     *            the bytes
+     * @return the hexadecimal string */
+    private static String toHex(byte[] bytes) {
+        StringBuilder out = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            out.append(Character.forDigit(b >> 4 & 0xf, 16));
+            out.append(Character.forDigit(b & 0xf, 16));
+        }
+        return out.toString();
+    }
+
+    /** The logical axioms of an ontology and their signature, sorted, with a
+     * fingerprint of the axioms. The fingerprint digests a rendering of each
+     * axiom with the full IRIs of its entities, so that ontologies only share a
+     * fingerprint if they have the same logical axioms. The rendering does not
+     * go through the {@link org.semanticweb.owlapi.io.ToStringRenderer}, which
+     * views switch to short names. */
+    private static final class Canonical {
+        /** Renders entities by their full IRIs. */
+        private static final ShortFormProvider FULL_IRIS = new ShortFormProvider() {
+            @Override
+            public String getShortForm(OWLEntity entity) {
+                return entity.getIRI().toQuotedString();
+            }
+
+            @Override
+            public void dispose() {}
+        };
+        /** The sorted logical axioms. */
+        final List<OWLAxiom> axioms;
+        /** The sorted signature. */
+        final List<OWLEntity> entities;
+        /** The fingerprint. */
+        final byte[] fingerprint;
+
+        /** Instantiates a new canonical form.
+         * 
+         * @param ontology
+         *            the ontology */
+        Canonical(OWLOntology ontology) {
+            List<OWLLogicalAxiom> logicalAxioms = new ArrayList<OWLLogicalAxiom>(
+                    ontology.getLogicalAxioms());
+            Collections.sort(logicalAxioms);
+            axioms = new ArrayList<OWLAxiom>(logicalAxioms);
+            Set<OWLEntity> signature = new TreeSet<OWLEntity>();
+            for (OWLAxiom axiom : axioms) {
+                signature.addAll(axiom.getSignature());
+            }
+            entities = new ArrayList<OWLEntity>(signature);
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+                byte[] word = new byte[4];
+                SimpleRenderer renderer = new SimpleRenderer();
+                renderer.setShortFormProvider(FULL_IRIS);
+                for (OWLAxiom axiom : axioms) {
+                    byte[] text = renderer.render(axiom).getBytes("UTF-8");
+                    // prefix each axiom with its length, so that the
+                    // concatenation cannot be split differently
+                    int length = text.length;
+                    word[0] = (byte) (length >>> 24);
+                    word[1] = (byte) (length >>> 16);
+                    word[2] = (byte) (length >>> 8);
+                    word[3] = (byte) length;
+                    digest.update(word);
+                    digest.update(text);
+                }
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+            fingerprint = digest.digest();
+        }
+    }
+}
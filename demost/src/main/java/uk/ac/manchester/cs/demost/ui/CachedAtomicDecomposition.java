@@ -0,0 +1,150 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** An atomic decomposition restored by the {@link AtomicDecompositionCache}.
+ * Only the atoms, the direct dependencies and the term based index are stored;
+ * the direct dependents are inverted on construction, and the transitive
+ * closures are computed on first request and kept. Direct dependencies and
+ * dependents never include the atom itself, transitive ones always do. */
+public class CachedAtomicDecomposition implements AtomicDecomposition {
+    /** The atoms. */
+    private final Set<Atom> atoms;
+    /** The atom of each axiom. */
+    private final Map<OWLAxiom, Atom> atomsByAxiom = new HashMap<OWLAxiom, Atom>();
+    /** The direct dependencies of each atom. */
+    private final Map<Atom, Set<Atom>> directDependencies;
+    /** The direct dependents of each atom. */
+    private final Map<Atom, Set<Atom>> directDependents = new HashMap<Atom, Set<Atom>>();
+    /** The transitive dependencies computed so far. */
+    private final Map<Atom, Set<Atom>> dependencies = new HashMap<Atom, Set<Atom>>();
+    /** The transitive dependents computed so far. */
+    private final Map<Atom, Set<Atom>> dependents = new HashMap<Atom, Set<Atom>>();
+    /** The term based index. */
+    private final Map<OWLEntity, Set<Atom>> termBasedIndex;
+
+    /** Instantiates a new cached atomic decomposition.
+     * 
+     * @param atoms
+     *            the atoms
+     * @param directDependencies
+     *            the direct dependencies of each atom, excluding the atom
+     *            itself
+     * @param termBasedIndex
+     *            the term based index */
+    CachedAtomicDecomposition(List<Atom> atoms, Map<Atom, Set<Atom>> directDependencies,
+            Map<OWLEntity, Set<Atom>> termBasedIndex) {
+        this.atoms = Collections.unmodifiableSet(new LinkedHashSet<Atom>(atoms));
+        this.directDependencies = directDependencies;
+        this.termBasedIndex = Collections.unmodifiableMap(termBasedIndex);
+        for (Atom atom : atoms) {
+            for (OWLAxiom axiom : atom.getAxioms()) {
+                atomsByAxiom.put(axiom, atom);
+            }
+            directDependents.put(atom, new LinkedHashSet<Atom>());
+        }
+        for (Atom atom : atoms) {
+            for (Atom dependency : directDependencies.get(atom)) {
+                directDependents.get(dependency).add(atom);
+            }
+        }
+    }
+
+    @Override
+    public Set<Atom> getAtoms() {
+        return atoms;
+    }
+
+    @Override
+    public Atom getAtomForAxiom(OWLAxiom axiom) {
+        return atomsByAxiom.get(axiom);
+    }
+
+    @Override
+    public Map<OWLEntity, Set<Atom>> getTermBasedIndex() {
+        return termBasedIndex;
+    }
+
+    @Override
+    public Set<Atom> getDependencies(Atom atom) {
+        return getDependencies(atom, false);
+    }
+
+    @Override
+    public Set<Atom> getDependencies(Atom atom, boolean direct) {
+        if (direct) {
+            return unmodifiable(directDependencies.get(atom));
+        }
+        return closure(atom, directDependencies, dependencies);
+    }
+
+    @Override
+    public Set<Atom> getDependents(Atom atom) {
+        return getDependents(atom, false);
+    }
+
+    @Override
+    public Set<Atom> getDependents(Atom atom, boolean direct) {
+        if (direct) {
+            return unmodifiable(directDependents.get(atom));
+        }
+        return closure(atom, directDependents, dependents);
+    }
+
+    /** Unmodifiable.
+     * 
+     * @param set
+     *            the set, possibly null
+     * @return an unmodifiable view, empty for null */
+    private static Set<Atom> unmodifiable(Set<Atom> set) {
+        if (set == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    /** Computes, or retrieves, the transitive closure of an atom.
+     * 
+     * @param atom
+     *            the atom
+     * @param direct
+     *            the direct neighbours of each atom
+     * @param closures
+     *            the closures computed so far
+     * @return the closure, including the atom itself */
+    private synchronized Set<Atom> closure(Atom atom, Map<Atom, Set<Atom>> direct,
+            Map<Atom, Set<Atom>> closures) {
+        Set<Atom> closure = closures.get(atom);
+        if (closure == null) {
+            if (!direct.containsKey(atom)) {
+                return Collections.emptySet();
+            }
+            closure = new LinkedHashSet<Atom>();
+            ArrayDeque<Atom> queue = new ArrayDeque<Atom>();
+            closure.add(atom);
+            queue.add(atom);
+            while (!queue.isEmpty()) {
+                for (Atom next : direct.get(queue.poll())) {
+                    if (closure.add(next)) {
+                        queue.add(next);
+                    }
+                }
+            }
+            closure = Collections.unmodifiableSet(closure);
+            closures.put(atom, closure);
+        }
+        return closure;
+    }
+}
@@ -0,0 +1,369 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/** Headless batch mode: decomposes a list of ontologies and exports, for each
+ * of them, the influence matrix, the atoms and the direct dependencies as
+ * tables, without opening any window. Tables are streamed to disk row by row;
+ * the time spent in each stage is logged on standard error. Several ontologies
+ * are processed at the same time, each with its own ontology manager.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * DeMoStBatch [-module BOT|TOP|STAR] [-format tsv|csv] [-out dir]
+ *             [-threads n] [-cache dir] ontology...
+ * </pre>
+ * 
+ * Ontologies are file names or IRIs. For an ontology named <i>name</i>, the
+ * files <i>name</i>.influence.tsv, <i>name</i>.atoms.tsv and
+ * <i>name</i>.dependencies.tsv are written to the output directory (.csv with
+ * the csv format). */
+public class DeMoStBatch {
+    /** The Constant LOADING. */
+    public static final String LOADING = "Loading";
+    /** The Constant WRITING. */
+    public static final String WRITING = "Writing";
+    /** The Constant ENCODING. */
+    private static final String ENCODING = "UTF-8";
+    /** The entity renderer. */
+    private static final Renderer<OWLEntity> ENTITY_RENDERER = new Renderer<OWLEntity>() {
+        @Override
+        public String render(OWLEntity entity) {
+            return entity.toString();
+        }
+    };
+    /** The module type. */
+    private ModuleType moduleType = ModuleType.BOT;
+    /** The separator. */
+    private char separator = TableWriter.TSV_SEPARATOR;
+    /** The output directory. */
+    private File outputDirectory = new File(".");
+    /** The number of ontologies processed at the same time. */
+    private int threads = 1;
+    /** The cache, null if none. */
+    private AtomicDecompositionCache cache;
+    /** The ontologies. */
+    private final List<String> ontologies = new ArrayList<String>();
+
+    /** Sets the module type.
+     * 
+     * @param moduleType
+     *            the new module type */
+    public void setModuleType(ModuleType moduleType) {
+        if (moduleType == null) {
+            throw new NullPointerException("The module type cannot be null");
+        }
+        this.moduleType = moduleType;
+    }
+
+    /** Sets the separator.
+     * 
+     * @param separator
+     *            the new separator */
+    public void setSeparator(char separator) {
+        this.separator = separator;
+    }
+
+    /** Sets the output directory.
+     * 
+     * @param outputDirectory
+     *            the new output directory */
+    public void setOutputDirectory(File outputDirectory) {
+        if (outputDirectory == null) {
+            throw new NullPointerException("The output directory cannot be null");
+        }
+        this.outputDirectory = outputDirectory;
+    }
+
+    /** Sets the number of ontologies processed at the same time.
+     * 
+     * @param threads
+     *            the new number of threads */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed: "
+                    + threads);
+        }
+        this.threads = threads;
+    }
+
+    /** Sets the cache.
+     * 
+     * @param cache
+     *            the new cache, null to always decompose from scratch */
+    public void setCache(AtomicDecompositionCache cache) {
+        this.cache = cache;
+    }
+
+    /** Adds an ontology to process.
+     * 
+     * @param ontology
+     *            the file name or IRI of the ontology */
+    public void addOntology(String ontology) {
+        ontologies.add(ontology);
+    }
+
+    /** Processes all ontologies.
+     * 
+     * @return the number of ontologies that could not be processed */
+    public int run() {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            System.err.println("Cannot create " + outputDirectory);
+            return ontologies.size();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads,
+                Math.max(1, ontologies.size())));
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (final String ontology : ontologies) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    process(ontology);
+                }
+            }));
+        }
+        executor.shutdown();
+        int failures = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return ontologies.size() - i;
+            } catch (ExecutionException e) {
+                failures++;
+                System.err.println(ontologies.get(i) + ": failed");
+                e.getCause().printStackTrace();
+            }
+        }
+        return failures;
+    }
+
+    /** Processes an ontology.
+     * 
+     * @param location
+     *            the file name or IRI of the ontology */
+    void process(String location) {
+        String name = baseName(location);
+        Stopwatch stopwatch = new Stopwatch(name);
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology;
+        try {
+            File file = new File(location);
+            ontology = file.exists() ? manager.loadOntologyFromOntologyDocument(file)
+                    : manager.loadOntology(IRI.create(location));
+        } catch (OWLOntologyCreationException e) {
+            throw new RuntimeException(e);
+        }
+        stopwatch.lap(LOADING);
+        AtomicDecomposition ad = cache == null ? new AtomicDecomposerOWLAPITOOLS(
+                ontology, moduleType) : cache.getOrCompute(ontology, moduleType);
+        stopwatch.lap(DecompositionService.DECOMPOSING);
+        AtomLayering layering = new AtomLayering(ad);
+        stopwatch.lap(DecompositionService.LAYERING);
+        AtomClosures closures = new AtomClosures(layering);
+        InfluenceMatrixModel influenceMatrixModel = InfluenceMatrixModel.create(ad,
+                closures, 1);
+        stopwatch.lap(DecompositionService.COMPUTING_INFLUENCE);
+        AtomLabelIndex labelIndex = new AtomLabelIndex(ad, ENTITY_RENDERER);
+        String extension = separator == TableWriter.TSV_SEPARATOR ? ".tsv" : ".csv";
+        TableWriter out = open(name + ".influence" + extension);
+        try {
+            influenceMatrixModel.write(out);
+        } finally {
+            close(out, name + ".influence" + extension);
+        }
+        out = open(name + ".atoms" + extension);
+        try {
+            out.row("Atom", "Tier", "#Axioms", "Label");
+            for (int i = 0; i < layering.getAtomCount(); i++) {
+                Atom atom = layering.getAtom(i);
+                out.cell(i).cell(layering.getTier(atom)).cell(atom.getAxioms().size())
+                        .cell(labelIndex.getLabel(atom)).endRow();
+            }
+        } finally {
+            close(out, name + ".atoms" + extension);
+        }
+        out = open(name + ".dependencies" + extension);
+        try {
+            out.row("Atom", "Dependency");
+            for (int i = 0; i < layering.getAtomCount(); i++) {
+                BitSet dependencies = closures.getDirectDependencies(i);
+                for (int d = dependencies.nextSetBit(0); d >= 0; d = dependencies
+                        .nextSetBit(d + 1)) {
+                    out.cell(i).cell(d).endRow();
+                }
+            }
+        } finally {
+            close(out, name + ".dependencies" + extension);
+        }
+        stopwatch.lap(WRITING);
+        stopwatch.total(layering.getAtomCount());
+        manager.removeOntology(ontology);
+    }
+
+    /** Opens a table file in the output directory.
+     * 
+     * @param fileName
+     *            the file name
+     * @return the table writer */
+    private TableWriter open(String fileName) {
+        try {
+            return new TableWriter(new PrintStream(new BufferedOutputStream(
+                    new FileOutputStream(new File(outputDirectory, fileName)), 1 << 16),
+                    false, ENCODING), separator);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** Closes a table file.
+     * 
+     * @param out
+     *            the table writer
+     * @param fileName
+     *            the file name, for error reporting */
+    private static void close(TableWriter out, String fileName) {
+        if (!out.close()) {
+            throw new RuntimeException("Error writing " + fileName);
+        }
+    }
+
+    /** Gets a base name for the output files of an ontology.
+     * 
+     * @param location
+     *            the file name or IRI of the ontology
+     * @return the base name */
+    static String baseName(String location) {
+        String name = location;
+        while (name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+        name = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.length() == 0 ? "ontology" : name;
+    }
+
+    /** Logs the time spent in each stage for an ontology. */
+    private static final class Stopwatch {
+        /** The ontology name. */
+        private final String name;
+        /** The start time. */
+        private final long start = System.nanoTime();
+        /** The time of the last lap. */
+        private long last = start;
+
+        /** Instantiates a new stopwatch.
+         * 
+         * @param name
+         *            the ontology name */
+        Stopwatch(String name) {
+            this.name = name;
+        }
+
+        /** Logs the time since the last lap.
+         * 
+         * @param stage
+         *            the stage just finished */
+        void lap(String stage) {
+            long now = System.nanoTime();
+            System.err.println(name + '\t' + stage + '\t' + (now - last) / 1000000 + " ms");
+            last = now;
+        }
+
+        /** Logs the total time.
+         * 
+         * @param atoms
+         *            the number of atoms */
+        void total(int atoms) {
+            System.err.println(name + "\tTotal\t" + (System.nanoTime() - start) / 1000000
+                    + " ms, " + atoms + " atoms");
+        }
+    }
+
+    /** The main method.
+     * 
+     * @param args
+     *            the arguments */
+    public static void main(String[] args) {
+        DeMoStBatch batch = new DeMoStBatch();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-module")) {
+                    batch.setModuleType(ModuleType.valueOf(args[++i]));
+                } else if (arg.equals("-format")) {
+                    String format = args[++i];
+                    if (format.equals("csv")) {
+                        batch.setSeparator(TableWriter.CSV_SEPARATOR);
+                    } else if (format.equals("tsv")) {
+                        batch.setSeparator(TableWriter.TSV_SEPARATOR);
+                    } else {
+                        throw new IllegalArgumentException("Unknown format: " + format);
+                    }
+                } else if (arg.equals("-out")) {
+                    batch.setOutputDirectory(new File(args[++i]));
+                } else if (arg.equals("-threads")) {
+                    batch.setThreads(Integer.parseInt(args[++i]));
+                } else if (arg.equals("-cache")) {
+                    batch.setCache(new AtomicDecompositionCache(new File(args[++i])));
+                } else {
+                    batch.addOntology(arg);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            usage();
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            return;
+        }
+        if (batch.ontologies.isEmpty()) {
+            usage();
+            return;
+        }
+        int failures = batch.run();
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** Prints the usage. */
+    private static void usage() {
+        System.err.println("Usage: DeMoStBatch [-module BOT|TOP|STAR] [-format tsv|csv]"
+                + " [-out dir] [-threads n] [-cache dir] ontology...");
+    }
+}
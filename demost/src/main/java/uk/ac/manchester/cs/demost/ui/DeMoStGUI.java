@@ -1,33 +1,37 @@
 package uk.ac.manchester.cs.demost.ui;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JSplitPane;
 import javax.swing.JTable;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 
@@ -35,6 +39,7 @@ import org.protege.editor.core.ui.util.ComponentFactory;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.io.ToStringRenderer;
 import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiomChange;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLException;
@@ -46,7 +51,6 @@ import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.vocab.OWL2Datatype;
 
-import prefuse.Constants;
 import prefuse.Display;
 import prefuse.Visualization;
 import prefuse.action.ActionList;
@@ -63,15 +67,11 @@ import prefuse.controls.ZoomControl;
 import prefuse.data.Graph;
 import prefuse.data.Node;
 import prefuse.data.Tuple;
-import prefuse.data.expression.Predicate;
+import prefuse.data.expression.ColumnExpression;
 import prefuse.data.expression.parser.ExpressionParser;
-import prefuse.render.DefaultRendererFactory;
-import prefuse.render.EdgeRenderer;
-import prefuse.render.LabelRenderer;
 import prefuse.util.ColorLib;
 import prefuse.visual.VisualItem;
 import uk.ac.manchester.cs.atomicdecomposition.Atom;
-import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
 import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 import uk.ac.manchester.cs.owl.owlapi.mansyntaxrenderer.ManchesterOWLSyntaxOWLObjectRendererImpl;
 import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
@@ -79,21 +79,9 @@ import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
 /** The Class DeMoStGUI. */
 public class DeMoStGUI extends JFrame {
     /** The Constant SELECTED_COLUMN_NAME. */
-    public static final String SELECTED_COLUMN_NAME = "selected";
-    /** The Constant SIZE_COLUMN_NAME. */
-    private static final String SIZE_COLUMN_NAME = "size";
-    /** The Constant Y_COLUMN_NAME. */
-    private static final String Y_COLUMN_NAME = "y";
-    /** The Constant X_COLUMN_NAME. */
-    private static final String X_COLUMN_NAME = "x";
-    /** The Constant ACTUAL_Y_COLUMN_NAME. */
-    private static final String ACTUAL_Y_COLUMN_NAME = "actual_y";
-    /** The Constant ACTUAL_X_COLUMN_NAME. */
-    private static final String ACTUAL_X_COLUMN_NAME = "actual_x";
-    /** The Constant LABEL_COLUMN_NAME. */
-    private static final String LABEL_COLUMN_NAME = "label";
+    public static final String SELECTED_COLUMN_NAME = AtomGraph.SELECTED_COLUMN_NAME;
     /** The Constant GENERATING_AXIOM_COLUMN_NAME. */
-    public static final String GENERATING_AXIOM_COLUMN_NAME = "generatingAxiom";
+    public static final String GENERATING_AXIOM_COLUMN_NAME = AtomGraph.GENERATING_AXIOM_COLUMN_NAME;
     // Needed because Protege calls updateView() unnecessarily even when the
     // active ontology has not changed.
     /** The ontology. */
@@ -108,17 +96,6 @@ public class DeMoStGUI extends JFrame {
 
     /** The Class InfluenceTableMode. */
     private final class InfluenceTableMode implements TableModel {
-        /** The m. */
-        final InfluenceMatrixModel m;
-
-        /** Instantiates a new influence table mode.
-         * 
-         * @param m
-         *            the m */
-        public InfluenceTableMode(InfluenceMatrixModel m) {
-            this.m = m;
-        }
-
         /** The listeners. */
         List<TableModelListener> listeners = new ArrayList<TableModelListener>();
 
@@ -177,6 +154,14 @@ public class DeMoStGUI extends JFrame {
             System.out
                     .println("DeMoStView.InfluenceTableMode.setValueAt() NOT DOING IT!");
         }
+
+        /** Notifies the listeners that the whole table has changed. */
+        public void fireTableChanged() {
+            TableModelEvent event = new TableModelEvent(this);
+            for (TableModelListener l : new ArrayList<TableModelListener>(listeners)) {
+                l.tableChanged(event);
+            }
+        }
     }
 
     /** The listener interface for receiving red events. The class that is
@@ -187,27 +172,33 @@ public class DeMoStGUI extends JFrame {
     private final class RedListener implements ListDataListener, ListSelectionListener {
         @Override
         public void intervalRemoved(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
         @Override
         public void intervalAdded(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
         @Override
         public void contentsChanged(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
-        /** Refresh.
-         * 
-         * @param c
-         *            the c */
-        protected void refresh(Collection<VisualItem> c) {
+        /** Brings the visibility column and the selected nodes up to date with
+         * the list; only the nodes whose visibility has changed are touched. */
+        protected void refresh() {
             showAllGraphButton.setEnabled(selectedEntitiesListModel.size() > 0);
-            shouldBeVisiblePredicate.reset();
-            graphSelectionModel.setSelectedItems(c, this);
+            if (shouldBeVisiblePredicate == null) {
+                // nothing decomposed yet
+                return;
+            }
+            atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                    atomClosures.toAtoms(shouldBeVisiblePredicate.reset()));
+            if (isSelectedInListPredicate != null) {
+                isSelectedInListPredicate.reset();
+            }
+            graphSelectionModel.setSelectedItems(selected(), this);
             visualisation.run("layout");
         }
 
@@ -216,6 +207,9 @@ public class DeMoStGUI extends JFrame {
          * @return the list */
         protected List<VisualItem> selected() {
             List<VisualItem> list = new ArrayList<VisualItem>();
+            if (isSelectedInListPredicate == null) {
+                return list;
+            }
             Iterator<?> it = visualisation.items(isSelectedInListPredicate);
             while (it.hasNext()) {
                 list.add((VisualItem) it.next());
@@ -226,7 +220,7 @@ public class DeMoStGUI extends JFrame {
         @Override
         public void valueChanged(ListSelectionEvent e) {
             if (!e.getValueIsAdjusting()) {
-                refresh(selected());
+                refresh();
             }
         }
     }
@@ -241,10 +235,20 @@ public class DeMoStGUI extends JFrame {
         @Override
         public void ontologiesChanged(List<? extends OWLOntologyChange> changes)
                 throws OWLException {
-            // TODO: filter out modifications on non logical axioms as they are
-            // meaningless for us
-            resetDependecies();
-            initGraph();
+            Set<OWLEntity> changedSignature = new HashSet<OWLEntity>();
+            boolean logical = false;
+            for (OWLOntologyChange change : changes) {
+                // modifications on non logical axioms are meaningless for us
+                if (change.getOntology() == ontology
+                        && AtomGraph.isLogicalChange(change)) {
+                    logical = true;
+                    changedSignature.addAll(((OWLAxiomChange) change).getAxiom()
+                            .getSignature());
+                }
+            }
+            if (logical) {
+                decompositionService.update(ontology, changedSignature);
+            }
         }
     }
 
@@ -277,25 +281,78 @@ public class DeMoStGUI extends JFrame {
         }
     }
 
+    /** Publishes the decompositions computed in background, and shows the
+     * progress of the runs. */
+    private final class DecompositionPublisher implements DecompositionListener {
+        @Override
+        public void decompositionProgress(String stage, int step, int steps) {
+            progressBar.setMaximum(steps);
+            progressBar.setValue(step);
+            progressBar.setString(stage);
+            progressBar.setVisible(true);
+            statusLabel.setVisible(false);
+        }
+
+        @Override
+        public void decompositionFinished(DecompositionModel model) {
+            progressBar.setVisible(false);
+            publish(model);
+        }
+
+        @Override
+        public void decompositionFailed(Throwable t) {
+            progressBar.setVisible(false);
+            progressBar.setValue(0);
+            progressBar.setString(null);
+            // the graph still shows the last decomposition that succeeded
+            String message = t.getMessage() == null ? t.getClass().getSimpleName() : t
+                    .getMessage();
+            statusLabel.setText("Decomposition failed, showing the previous results: "
+                    + message);
+            statusLabel.setToolTipText(t.toString());
+            statusLabel.setVisible(true);
+            LOGGER.log(Level.SEVERE, "Decomposition failed", t);
+        }
+    }
+
     private static final long serialVersionUID = -5255020726258623538L;
+    /** The logger. */
+    private static final Logger LOGGER = Logger.getLogger(DeMoStGUI.class.getName());
     /** The ad. */
     private AtomicDecomposition ad;
     /** The ontology change listener. */
     private final OWLOntologyChangeListener ontologyChangeListener = new OntologyChangeListener();
+    /** The entity renderer. */
+    private final Renderer<OWLEntity> entityRenderer = new Renderer<OWLEntity>() {
+        @Override
+        public String render(OWLEntity entity) {
+            return entity.toString();
+        }
+    };
     /** The visualisation. */
     private final Visualization visualisation = new Visualization();
     /** The display. */
     private final Display display = new Display(visualisation);
     /** The graph. */
-    private final Graph graph = new Graph(true);
+    private Graph graph = new Graph(true);
+    /** The atom graph, keeping the graph in sync with the decomposition. */
+    private AtomGraph atomGraph = new AtomGraph(graph, entityRenderer);
+    /** The decomposition progress bar. */
+    private final JProgressBar progressBar = new JProgressBar();
+    /** The decomposition status label, showing the last failure. */
+    private final JLabel statusLabel = new JLabel();
+    /** The decomposition service. */
+    private final DecompositionService decompositionService;
     /** The atom list. */
     private JList atomList;
     /** The graph selection model. */
     private GraphSelectionModel graphSelectionModel = new GraphSelectionModel();
     /** The selection listener. */
     private final SelectionListener selectionListener = new SelectionListener();
+    /** The atom closures. */
+    private AtomClosures atomClosures;
     /** The is dependant from selection predicate. */
-    private Predicate isDependantFromSelectionPredicate;
+    private IsDependantFromSelectionPredicate isDependantFromSelectionPredicate;
     /** The should be visible predicate. */
     private ShouldBeVisiblePredicate shouldBeVisiblePredicate;
     /** The is selected in list predicate. */
@@ -310,8 +367,24 @@ public class DeMoStGUI extends JFrame {
      * @param ontology
      *            the ontology */
     public DeMoStGUI(AtomicDecomposition ad, OWLOntology ontology) {
+        this(ad, ontology, ModuleType.BOT);
+    }
+
+    /** Instantiates a new de mo st gui.
+     * 
+     * @param ad
+     *            the ad
+     * @param ontology
+     *            the ontology
+     * @param moduleType
+     *            the module type used for ad, and for the decompositions
+     *            following changes in the ontology */
+    public DeMoStGUI(AtomicDecomposition ad, OWLOntology ontology, ModuleType moduleType) {
         this.ad = ad;
+        this.ontology = ontology;
         manager = ontology.getOWLOntologyManager();
+        decompositionService = new DecompositionService(moduleType, entityRenderer,
+                new DecompositionPublisher());
         initGUI();
     }
 
@@ -331,6 +404,10 @@ public class DeMoStGUI extends JFrame {
         initGraphLayout();
         // create a new Display that pull from our Visualization
         display.setSize(720, 500); // set display size
+        // large graphs are drawn in tiles, on all processors
+        display.setTiledRendering(LevelsOfDetail.createTileRendererFactories());
+        // paint timings, when enabled with -Ddemost.metrics
+        RenderingMetrics.install(display);
         display.addControlListener(new DragControl()); // drag items around
         display.addControlListener(new PanControl()); // pan with
         // background
@@ -365,6 +442,14 @@ public class DeMoStGUI extends JFrame {
                 selectedEntitiesListModel.clear();
             }
         });
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        statusLabel.setForeground(Color.RED);
+        statusLabel.setVisible(false);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(progressBar, BorderLayout.NORTH);
+        statusPanel.add(statusLabel, BorderLayout.SOUTH);
+        graphPanel.add(statusPanel, BorderLayout.NORTH);
         graphPanel.add(display, BorderLayout.CENTER);
         graphPanel.add(showAllGraphButton, BorderLayout.SOUTH);
         topPanel.setLeftComponent(graphPanel);
@@ -375,41 +460,9 @@ public class DeMoStGUI extends JFrame {
         bottomPanel.setDividerLocation(.8);
         bottomPanel.setResizeWeight(.8);
         bottomPanel.setLeftComponent(ComponentFactory.createScrollPane(atomList));
-        for (OWLEntity key : ad.getTermBasedIndex().keySet()) {
-            Record record = new Record();
-            record.setEntity(key);
-            int[] values = new int[5];
-            Collection<Atom> value = ad.getTermBasedIndex().get(key);
-            values[0] = value.size();
-            Set<Atom> setAtoms = new HashSet<Atom>();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependencies(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[1] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependents(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[2] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependencies(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[3] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependents(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[4] = setAtoms.size();
-            record.setValues(values);
-            influenceMatrixModel.addRecord(record);
-        }
-        influenceMatrixModel.sort(1);
-        final JTable statsTable = new JTable(new InfluenceTableMode(influenceMatrixModel));
+        influenceMatrixModel = InfluenceMatrixModel.create(ad, atomClosures, Runtime
+                .getRuntime().availableProcessors());
+        final JTable statsTable = new JTable(influenceTableMode);
         statsTable.getTableHeader().addMouseListener(new MouseListener() {
             @Override
             public void mouseReleased(MouseEvent e) {}
@@ -454,169 +507,94 @@ public class DeMoStGUI extends JFrame {
         this.add(mainPanel, BorderLayout.CENTER);
     }
 
-    /** The all nodes. */
-    Map<Atom, Node> allNodes = new HashMap<Atom, Node>();
-
     /** Inits the graph. */
     private void initGraph() {
-        // TODO Listen to the rendering changed event from the model manager and
-        // repaint the graph accordingly.
-        graph.removeSet("graph.nodes");
-        graph.removeSet("graph.edges");
-        graph.addColumn(GENERATING_AXIOM_COLUMN_NAME, Atom.class);
-        graph.addColumn(LABEL_COLUMN_NAME, String.class);
-        graph.addColumn(SELECTED_COLUMN_NAME, Boolean.class);
-        graph.addColumn(Y_COLUMN_NAME, Integer.class);
-        graph.addColumn(X_COLUMN_NAME, Integer.class);
-        graph.addColumn(ACTUAL_X_COLUMN_NAME, double.class);
-        graph.addColumn(ACTUAL_Y_COLUMN_NAME, double.class);
-        graph.addColumn(SIZE_COLUMN_NAME, int.class);
+        resetGraphSelectionModel();
+        atomGraph.build(ad);
+        atomClosures = new AtomClosures(atomGraph.getLayering());
+        initPredicates();
+    }
+
+    /** Publishes a decomposition: complete models replace the graph on display,
+     * incremental models patch it in place.
+     * 
+     * @param model
+     *            the model */
+    private void publish(DecompositionModel model) {
+        ad = model.getAtomicDecomposition();
+        atomClosures = model.getAtomClosures();
+        if (model.isIncremental()) {
+            patch(model.getAtomGraphPatch());
+        } else {
+            resetGraphSelectionModel();
+            atomGraph = model.getAtomGraph();
+            graph = atomGraph.getGraph();
+            visualisation.removeGroup("graph");
+            visualisation.add("graph", graph);
+            initPredicates();
+            // the actions hold the predicates, so they have to be rebuilt too
+            initGraphLayout();
+        }
+        influenceMatrixModel = model.getInfluenceMatrixModel();
+        influenceTableMode.fireTableChanged();
+    }
+
+    /** Applies the patch of an incremental model to the graph on display. The
+     * selection and the actions are kept, the predicates are rebound to the new
+     * decomposition, and only the nodes that have been patched or whose
+     * visibility has changed get their visibility updated.
+     * 
+     * @param patch
+     *            the patch */
+    private void patch(AtomGraphPatch patch) {
+        Set<Atom> affected = atomGraph.apply(patch);
+        isDependantFromSelectionPredicate.setDecomposition(ad, atomClosures);
+        ShouldBeVisiblePredicate previous = shouldBeVisiblePredicate;
+        shouldBeVisiblePredicate = new ShouldBeVisiblePredicate(
+                selectedEntitiesListModel, ad, atomClosures);
+        BitSet changed = shouldBeVisiblePredicate.getChanges(previous, patch);
+        changed.or(atomClosures.toBitSet(affected));
+        atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                atomClosures.toAtoms(changed));
+        visualisation.run("color");
+        visualisation.run("layout");
+    }
+
+    /** Reset graph selection model. */
+    private void resetGraphSelectionModel() {
         graphSelectionModel.removeGraphSelectionModelListener(selectionListener);
         graphSelectionModel = new GraphSelectionModel();
         graphSelectionModel.addGraphSelectionModelListener(selectionListener);
-        Set<Atom> atoms = ad.getAtoms();
-        allNodes.clear();
-        int maxHeight = 0;
-        for (Atom atom : atoms) {
-            Node node = allNodes.get(atom);
-            if (node == null) {
-                node = graph.addNode();
-                node.set(GENERATING_AXIOM_COLUMN_NAME, atom);
-                // node.set(LABEL_COLUMN_NAME, Integer.toString(i++));
-                node.set(LABEL_COLUMN_NAME, computeLabel(atom));
-                int height = this.getHeight(atom);
-                node.set(Y_COLUMN_NAME, height);
-                allNodes.put(atom, node);
-                maxHeight = maxHeight < height ? height : maxHeight;
-            }
-            Set<Atom> dependencies = ad.getDependencies(atom, true);
-            int size = dependencies.size() - 1;
-            node.set(SIZE_COLUMN_NAME, size);
-            for (Atom dependantAtom : dependencies) {
-                Node depandantNode = allNodes.get(dependantAtom);
-                if (depandantNode == null) {
-                    depandantNode = graph.addNode();
-                    depandantNode.set(GENERATING_AXIOM_COLUMN_NAME, dependantAtom);
-                    depandantNode.set(LABEL_COLUMN_NAME, computeLabel(dependantAtom));
-                    int height = this.getHeight(dependantAtom);
-                    depandantNode.set(Y_COLUMN_NAME, height);
-                    allNodes.put(dependantAtom, depandantNode);
-                    maxHeight = maxHeight < height ? height : maxHeight;
-                }
-                graph.addEdge(node, depandantNode);
-            }
-        }
-        List<Node> list = new ArrayList<Node>();
-        for (int j = 0; j < graph.getNodeCount(); j++) {
-            Node node = graph.getNode(j);
-            list.add(node);
-            if (node.canGet(Y_COLUMN_NAME, Integer.class)) {
-                Integer newValue = -1 * ((Integer) node.get(Y_COLUMN_NAME) - maxHeight);
-                node.set(Y_COLUMN_NAME, newValue);
-            }
-        }
-        Collections.sort(list, new Comparator<Node>() {
-            @Override
-            public int compare(Node node, Node anotherNode) {
-                int toReturn = 0;
-                if (node == null) {
-                    toReturn = anotherNode == null ? 0 : -1;
-                } else if (anotherNode == null) {
-                    toReturn = 1;
-                } else {
-                    if (node.canGet(Y_COLUMN_NAME, Integer.class)
-                            && anotherNode.canGet(Y_COLUMN_NAME, Integer.class)) {
-                        Integer aNodeHeight = Integer.parseInt(node.get(Y_COLUMN_NAME)
-                                .toString());
-                        Integer anotherNodeHeight = Integer.parseInt(anotherNode.get(
-                                Y_COLUMN_NAME).toString());
-                        toReturn = (int) Math.signum(aNodeHeight - anotherNodeHeight);
-                    } else {
-                        toReturn = (int) Math.signum(node.hashCode()
-                                - anotherNode.hashCode());
-                    }
-                }
-                return toReturn;
-            }
-        });
-        int startX = 1;
-        if (!list.isEmpty()) {
-            int currentTier = (Integer) list.get(0).get(Y_COLUMN_NAME);
-            for (Node node : list) {
-                int nodeHeight = (Integer) node.get(Y_COLUMN_NAME);
-                if (nodeHeight != currentTier) {
-                    startX = 1;
-                    currentTier = nodeHeight;
-                }
-                node.set(X_COLUMN_NAME, startX);
-                startX++;
-            }
-            double pace = 200;
-            for (Node node : list) {
-                if (node.canGet(Y_COLUMN_NAME, Integer.class)
-                        && node.canSet(ACTUAL_Y_COLUMN_NAME, Double.class)) {
-                    double height = (Integer) node.get(Y_COLUMN_NAME);
-                    node.set(ACTUAL_Y_COLUMN_NAME, pace * height);
-                }
-                if (node.canGet(X_COLUMN_NAME, Integer.class)
-                        && node.canSet(ACTUAL_X_COLUMN_NAME, Double.class)) {
-                    double width = (Integer) node.get(X_COLUMN_NAME);
-                    node.set(ACTUAL_X_COLUMN_NAME, pace * width);
-                }
-            }
-        }
+    }
+
+    /** Inits the predicates. */
+    private void initPredicates() {
         isDependantFromSelectionPredicate = new IsDependantFromSelectionPredicate(ad,
-                graphSelectionModel);
+                atomClosures, graphSelectionModel);
         shouldBeVisiblePredicate = new ShouldBeVisiblePredicate(
-                selectedEntitiesListModel, ad);
+                selectedEntitiesListModel, ad, atomClosures);
+        // nodes and edges of a new graph are all visible
+        atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                atomClosures.toAtoms(shouldBeVisiblePredicate.getHiddenAtoms()));
         // this.isSelectedInListPredicate = new IsSelectedInListPredicate(ad,
         // selectedEntitiesListModel, selectedEntitiesList);
     }
 
     /** The influence matrix model. */
-    final InfluenceMatrixModel influenceMatrixModel = new InfluenceMatrixModel();
-
-    /** Gets the height.
-     * 
-     * @param atom
-     *            the atom
-     * @return the height */
-    private int getHeight(Atom atom) {
-        if (atom == null) {
-            throw new NullPointerException("The axiom cannot be null");
-        }
-        int toReturn = 1;
-        Set<Atom> children = ad.getDependencies(atom, true);
-        int max = 0;
-        if (children != null) {
-            for (Atom child : children) {
-                if (!child.equals(atom)) {
-                    int childHeight = this.getHeight(child);
-                    max = max < childHeight ? childHeight : max;
-                }
-            }
-        }
-        return toReturn + max;
-    }
+    InfluenceMatrixModel influenceMatrixModel = new InfluenceMatrixModel();
+    /** The influence table model. */
+    private final InfluenceTableMode influenceTableMode = new InfluenceTableMode();
 
     /** The Constant DEFAULT_FONT. */
     private static final Font DEFAULT_FONT = new Font("Helevetica", Font.BOLD, 14);
 
     /** Inits the graph layout. */
     private void initGraphLayout() {
-        // draw the "name" label for NodeItems
-        LabelRenderer r = new LabelRenderer();
-        r.setRoundedCorner(8, 8);// round the corners
-        r.setVerticalPadding(10);
-        r.setHorizontalPadding(10);
-        // create a new default renderer factory
-        // return our name label renderer as the default for all non-EdgeItems
-        // includes straight line edges for EdgeItems by default
-        EdgeRenderer edgeRenderer = new EdgeRenderer(Constants.EDGE_TYPE_LINE,
-                Constants.EDGE_ARROW_FORWARD);
-        edgeRenderer.setArrowHeadSize(10, 10);
-        edgeRenderer.setArrowType(Constants.EDGE_ARROW_FORWARD);
-        visualisation.setRendererFactory(new DefaultRendererFactory(r, edgeRenderer));
+        // labels, arrows and eventually nodes and edges are dropped as the
+        // display is zoomed out, and the tiers are drawn instead
+        visualisation.setRendererFactory(LevelsOfDetail.createRendererFactory());
+        visualisation.removeGroup(LevelsOfDetail.TIERS_GROUP);
+        visualisation.addAggregates(LevelsOfDetail.TIERS_GROUP);
         // DataSizeAction dataSizeAction = new DataSizeAction("graph.nodes",
         // SIZE_COLUMN_NAME);
         FontAction fontAction = new FontAction("graph.nodes", DEFAULT_FONT);
@@ -637,7 +615,11 @@ public class DeMoStGUI extends JFrame {
                 ColorLib.gray(180));
         ColorAction edgesArrows = new ColorAction("graph.edges", VisualItem.FILLCOLOR,
                 ColorLib.gray(180));
-        VisibilityFilter visibilityFilter = new VisibilityFilter(shouldBeVisiblePredicate);
+        ColorAction tiers = new ColorAction(LevelsOfDetail.TIERS_GROUP,
+                VisualItem.FILLCOLOR, ColorLib.rgba(30, 30, 255, 60));
+        // the visibility is precomputed in a column whenever the list changes
+        VisibilityFilter visibilityFilter = new VisibilityFilter(new ColumnExpression(
+                AtomGraph.VISIBLE_COLUMN_NAME));
         // create an action list containing all color assignments
         ActionList color = new ActionList();
         color.add(new RepaintAction());
@@ -650,9 +632,11 @@ public class DeMoStGUI extends JFrame {
         // create an action list with an animated layout
         // the INFINITY parameter tells the action list to run indefinitely
         ActionList layout = new ActionList(Activity.DEFAULT_STEP_TIME);
-        layout.add(new SpecifiedLayout("graph.nodes", ACTUAL_X_COLUMN_NAME,
-                ACTUAL_Y_COLUMN_NAME));
+        layout.add(new SpecifiedLayout("graph.nodes", AtomGraph.ACTUAL_X_COLUMN_NAME,
+                AtomGraph.ACTUAL_Y_COLUMN_NAME));
         layout.add(visibilityFilter);
+        layout.add(new TierAggregateAction(LevelsOfDetail.TIERS_GROUP, "graph.nodes"));
+        layout.add(tiers);
         layout.add(new RepaintAction());
         // add the actions to the visualization
         visualisation.putAction("color", color);
@@ -661,36 +645,10 @@ public class DeMoStGUI extends JFrame {
         visualisation.run("layout"); // start up the animated layout
     }
 
-    /** Reset dependecies. */
-    protected void resetDependecies() {
-        ad = new AtomicDecomposerOWLAPITOOLS(ontology);
-        // this.entitiesToAtoms=atomicDecomposition.getEntitiesToAtom();
-    }
-
     /** dispose. */
     public void disposeView() {
         manager.removeOntologyChangeListener(ontologyChangeListener);
-    }
-
-    /** Compute label.
-     * 
-     * @param atom
-     *            the atom
-     * @return the string */
-    private String computeLabel(Atom atom) {
-        StringBuilder out = new StringBuilder();
-        Set<OWLEntity> signatureForLabel = computeSignatureForLabel(atom);
-        Iterator<OWLEntity> iterator = signatureForLabel.iterator();
-        while (iterator.hasNext()) {
-            OWLEntity owlEntity = iterator.next();
-            // String rendering = this.getOWLEditorKit().getOWLModelManager()
-            // .getRendering(owlEntity);
-            out.append(owlEntity.toString());
-            if (iterator.hasNext()) {
-                out.append(", ");
-            }
-        }
-        return out.toString();
+        decompositionService.dispose();
     }
 
     /** Builds the well known objects. */
@@ -717,33 +675,6 @@ public class DeMoStGUI extends JFrame {
         return wellKnownObjects;
     }
 
-    // private MultiMap<OWLEntity, Atom> entitiesToAtoms=new MultiMap<OWLEntity,
-    // Atom>();
-    /** Compute signature for label.
-     * 
-     * @param atom
-     *            the atom
-     * @return the sets the */
-    private Set<OWLEntity> computeSignatureForLabel(Atom atom) {
-        Set<OWLEntity> signature = new HashSet<OWLEntity>();
-        Map<OWLEntity, Set<Atom>> termBasedIndex = ad.getTermBasedIndex();
-        for (OWLEntity e : ad.getTermBasedIndex().keySet()) {
-            // System.out.println("DeMoStGUI.computeSignatureForLabel() termBasedIndex map "
-            // + termBasedIndex.keySet());
-            if (termBasedIndex.containsKey(e)) {
-                Set<Atom> set = termBasedIndex.get(e);
-                if (set.contains(atom)) {
-                    signature.add(e);
-                }
-            }
-            // if(atomicDecomposition.getEntitiesToAtom().contains(e, atom)) {
-            // signature.add(e);
-            // }
-        }
-        // System.out.println("DeMoStGUI.computeSignatureForLabel() signature "
-        // + signature);
-        return signature;
-    }
 
     /** The main method.
      * 
@@ -753,7 +684,9 @@ public class DeMoStGUI extends JFrame {
      *             the oWL ontology creation exception */
     public static void main(String[] args) throws OWLOntologyCreationException {
         // ToStringRenderer.getInstance().setRenderer(new ManchesterSynt);
-        if (args.length > 0) {
+        if (args.length > 0 && args[0].equals("-batch")) {
+            DeMoStBatch.main(Arrays.copyOfRange(args, 1, args.length));
+        } else if (args.length > 0) {
             OWLOntologyManager ontologyManager = OWLManager.createOWLOntologyManager();
             OWLOntology ontology = ontologyManager.loadOntology(IRI.create(args[0]));
             ModuleType type = ModuleType.BOT;
@@ -770,9 +703,10 @@ public class DeMoStGUI extends JFrame {
                     + ModuleType.BOT.toString() + "," + ModuleType.TOP.toString() + ","
                     + ModuleType.STAR.toString());
             System.out.println("Selected module type: " + type.toString());
-            AtomicDecomposition ad_owltools = new AtomicDecomposerOWLAPITOOLS(ontology,
+            AtomicDecomposition ad_owltools = new AtomicDecompositionCache(
+                    AtomicDecompositionCache.getDefaultDirectory()).getOrCompute(ontology,
                     type);
-            DeMoStGUI frame = new DeMoStGUI(ad_owltools, ontology);
+            DeMoStGUI frame = new DeMoStGUI(ad_owltools, ontology, type);
             frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
             frame.pack();
             frame.setVisible(true);
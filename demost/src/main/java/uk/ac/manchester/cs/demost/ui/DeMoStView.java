@@ -1,6 +1,7 @@
 package uk.ac.manchester.cs.demost.ui;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,35 +10,41 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JSplitPane;
 import javax.swing.JTable;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.TableModel;
 
 import org.protege.editor.core.ui.list.MList;
 import org.protege.editor.core.ui.util.ComponentFactory;
+import org.protege.editor.owl.model.event.EventType;
+import org.protege.editor.owl.model.event.OWLModelManagerChangeEvent;
+import org.protege.editor.owl.model.event.OWLModelManagerListener;
 import org.protege.editor.owl.ui.list.OWLObjectList;
 import org.protege.editor.owl.ui.renderer.OWLCellRenderer;
 import org.protege.editor.owl.ui.renderer.OWLRendererPreferences;
 import org.protege.editor.owl.ui.view.AbstractOWLSelectionViewComponent;
 import org.semanticweb.owlapi.io.ToStringRenderer;
+import org.semanticweb.owlapi.model.OWLAxiomChange;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLEntity;
 import org.semanticweb.owlapi.model.OWLException;
@@ -48,7 +55,6 @@ import org.semanticweb.owlapi.model.OWLOntologyChange;
 import org.semanticweb.owlapi.model.OWLOntologyChangeListener;
 import org.semanticweb.owlapi.vocab.OWL2Datatype;
 
-import prefuse.Constants;
 import prefuse.Display;
 import prefuse.Visualization;
 import prefuse.action.ActionList;
@@ -65,36 +71,21 @@ import prefuse.controls.ZoomControl;
 import prefuse.data.Graph;
 import prefuse.data.Node;
 import prefuse.data.Tuple;
-import prefuse.data.expression.Predicate;
+import prefuse.data.expression.ColumnExpression;
 import prefuse.data.expression.parser.ExpressionParser;
-import prefuse.render.DefaultRendererFactory;
-import prefuse.render.EdgeRenderer;
-import prefuse.render.LabelRenderer;
 import prefuse.util.ColorLib;
 import prefuse.visual.VisualItem;
 import uk.ac.manchester.cs.atomicdecomposition.Atom;
-import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
 import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 import uk.ac.manchester.cs.owl.owlapi.mansyntaxrenderer.ManchesterOWLSyntaxOWLObjectRendererImpl;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
 
 /** The Class DeMoStView. */
 public class DeMoStView extends AbstractOWLSelectionViewComponent {
     /** The Constant SELECTED_COLUMN_NAME. */
-    public static final String SELECTED_COLUMN_NAME = "selected";
-    /** The Constant SIZE_COLUMN_NAME. */
-    private static final String SIZE_COLUMN_NAME = "size";
-    /** The Constant Y_COLUMN_NAME. */
-    private static final String Y_COLUMN_NAME = "y";
-    /** The Constant X_COLUMN_NAME. */
-    private static final String X_COLUMN_NAME = "x";
-    /** The Constant ACTUAL_Y_COLUMN_NAME. */
-    private static final String ACTUAL_Y_COLUMN_NAME = "actual_y";
-    /** The Constant ACTUAL_X_COLUMN_NAME. */
-    private static final String ACTUAL_X_COLUMN_NAME = "actual_x";
-    /** The Constant LABEL_COLUMN_NAME. */
-    private static final String LABEL_COLUMN_NAME = "label";
+    public static final String SELECTED_COLUMN_NAME = AtomGraph.SELECTED_COLUMN_NAME;
     /** The Constant GENERATING_AXIOM_COLUMN_NAME. */
-    public static final String GENERATING_AXIOM_COLUMN_NAME = "generatingAxiom";
+    public static final String GENERATING_AXIOM_COLUMN_NAME = AtomGraph.GENERATING_AXIOM_COLUMN_NAME;
     // Needed because Protege calls updateView() unnecessarily even when the
     // active ontology has not changed.
     /** The active ontology. */
@@ -110,17 +101,6 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
 
     /** The Class InfluenceTableMode. */
     private final class InfluenceTableMode implements TableModel {
-        /** The m. */
-        final InfluenceMatrixModel m;
-
-        /** Instantiates a new influence table mode.
-         * 
-         * @param m
-         *            the m */
-        public InfluenceTableMode(InfluenceMatrixModel m) {
-            this.m = m;
-        }
-
         /** The listeners. */
         List<TableModelListener> listeners = new ArrayList<TableModelListener>();
 
@@ -179,6 +159,14 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
             System.out
                     .println("DeMoStView.InfluenceTableMode.setValueAt() NOT DOING IT!");
         }
+
+        /** Notifies the listeners that the whole table has changed. */
+        public void fireTableChanged() {
+            TableModelEvent event = new TableModelEvent(this);
+            for (TableModelListener l : new ArrayList<TableModelListener>(listeners)) {
+                l.tableChanged(event);
+            }
+        }
     }
 
     /** The listener interface for receiving red events. The class that is
@@ -189,27 +177,33 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
     private final class RedListener implements ListDataListener, ListSelectionListener {
         @Override
         public void intervalRemoved(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
         @Override
         public void intervalAdded(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
         @Override
         public void contentsChanged(ListDataEvent e) {
-            refresh(selected());
+            refresh();
         }
 
-        /** Refresh.
-         * 
-         * @param c
-         *            the c */
-        protected void refresh(Collection<VisualItem> c) {
+        /** Brings the visibility column and the selected nodes up to date with
+         * the list; only the nodes whose visibility has changed are touched. */
+        protected void refresh() {
             showAllGraphButton.setEnabled(selectedEntitiesListModel.size() > 0);
-            shouldBeVisiblePredicate.reset();
-            graphSelectionModel.setSelectedItems(c, this);
+            if (shouldBeVisiblePredicate == null) {
+                // nothing decomposed yet
+                return;
+            }
+            atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                    atomClosures.toAtoms(shouldBeVisiblePredicate.reset()));
+            if (isSelectedInListPredicate != null) {
+                isSelectedInListPredicate.reset();
+            }
+            graphSelectionModel.setSelectedItems(selected(), this);
             visualisation.run("layout");
         }
 
@@ -218,6 +212,9 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
          * @return the list */
         protected List<VisualItem> selected() {
             List<VisualItem> list = new ArrayList<VisualItem>();
+            if (isSelectedInListPredicate == null) {
+                return list;
+            }
             Iterator<?> it = visualisation.items(isSelectedInListPredicate);
             while (it.hasNext()) {
                 list.add((VisualItem) it.next());
@@ -228,7 +225,7 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         @Override
         public void valueChanged(ListSelectionEvent e) {
             if (!e.getValueIsAdjusting()) {
-                refresh(selected());
+                refresh();
             }
         }
     }
@@ -243,10 +240,20 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         @Override
         public void ontologiesChanged(List<? extends OWLOntologyChange> changes)
                 throws OWLException {
-            // TODO: filter out modifications on non logical axioms as they are
-            // meaningless for us
-            resetDependecies();
-            initGraph();
+            Set<OWLEntity> changedSignature = new HashSet<OWLEntity>();
+            boolean logical = false;
+            for (OWLOntologyChange change : changes) {
+                // modifications on non logical axioms are meaningless for us
+                if (change.getOntology() == activeOntology
+                        && AtomGraph.isLogicalChange(change)) {
+                    logical = true;
+                    changedSignature.addAll(((OWLAxiomChange) change).getAxiom()
+                            .getSignature());
+                }
+            }
+            if (logical) {
+                decompositionService.update(activeOntology, changedSignature);
+            }
         }
     }
 
@@ -279,25 +286,97 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         }
     }
 
+    /** The listener interface for receiving rendering change events from the
+     * model manager. Only the labels of the atoms whose entities render
+     * differently are updated. */
+    private final class RenderingListener implements OWLModelManagerListener {
+        @Override
+        public void handleChange(OWLModelManagerChangeEvent event) {
+            if (event.isType(EventType.ENTITY_RENDERER_CHANGED)
+                    || event.isType(EventType.ENTITY_RENDERING_CHANGED)) {
+                if (!atomGraph.refreshLabels().isEmpty()) {
+                    visualisation.repaint();
+                }
+            }
+        }
+    }
+
+    /** Publishes the decompositions computed in background, and shows the
+     * progress of the runs. */
+    private final class DecompositionPublisher implements DecompositionListener {
+        @Override
+        public void decompositionProgress(String stage, int step, int steps) {
+            progressBar.setMaximum(steps);
+            progressBar.setValue(step);
+            progressBar.setString(stage);
+            progressBar.setVisible(true);
+            statusLabel.setVisible(false);
+        }
+
+        @Override
+        public void decompositionFinished(DecompositionModel model) {
+            progressBar.setVisible(false);
+            publish(model);
+        }
+
+        @Override
+        public void decompositionFailed(Throwable t) {
+            progressBar.setVisible(false);
+            progressBar.setValue(0);
+            progressBar.setString(null);
+            // the graph still shows the last decomposition that succeeded
+            String message = t.getMessage() == null ? t.getClass().getSimpleName() : t
+                    .getMessage();
+            statusLabel.setText("Decomposition failed, showing the previous results: "
+                    + message);
+            statusLabel.setToolTipText(t.toString());
+            statusLabel.setVisible(true);
+            LOGGER.log(Level.SEVERE, "Decomposition failed", t);
+        }
+    }
+
     private static final long serialVersionUID = -5255020726258623538L;
+    /** The logger. */
+    private static final Logger LOGGER = Logger.getLogger(DeMoStView.class.getName());
     /** The ad. */
     private AtomicDecomposition ad;
     /** The ontology change listener. */
     private final OWLOntologyChangeListener ontologyChangeListener = new OntologyChangeListener();
+    /** The rendering listener. */
+    private final OWLModelManagerListener renderingListener = new RenderingListener();
+    /** The entity renderer. */
+    private final Renderer<OWLEntity> entityRenderer = new Renderer<OWLEntity>() {
+        @Override
+        public String render(OWLEntity entity) {
+            return getOWLEditorKit().getOWLModelManager().getRendering(entity);
+        }
+    };
     /** The visualisation. */
     private final Visualization visualisation = new Visualization();
     /** The display. */
     private final Display display = new Display(visualisation);
     /** The graph. */
-    private final Graph graph = new Graph(true);
+    private Graph graph = new Graph(true);
+    /** The atom graph, keeping the graph in sync with the decomposition. */
+    private AtomGraph atomGraph = new AtomGraph(graph, entityRenderer);
+    /** The decomposition progress bar. */
+    private final JProgressBar progressBar = new JProgressBar();
+    /** The decomposition status label, showing the last failure. */
+    private final JLabel statusLabel = new JLabel();
+    /** The decomposition service. */
+    private final DecompositionService decompositionService = new DecompositionService(
+            ModuleType.BOT, entityRenderer, new DecompositionPublisher(),
+            new AtomicDecompositionCache(AtomicDecompositionCache.getDefaultDirectory()));
     /** The atom list. */
     private OWLObjectList<OWLLogicalAxiom> atomList;
     /** The graph selection model. */
     private GraphSelectionModel graphSelectionModel = new GraphSelectionModel();
     /** The selection listener. */
     private final SelectionListener selectionListener = new SelectionListener();
+    /** The atom closures. */
+    private AtomClosures atomClosures;
     /** The is dependant from selection predicate. */
-    private Predicate isDependantFromSelectionPredicate;
+    private IsDependantFromSelectionPredicate isDependantFromSelectionPredicate;
     /** The should be visible predicate. */
     private ShouldBeVisiblePredicate shouldBeVisiblePredicate;
     /** The is selected in list predicate. */
@@ -312,15 +391,17 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         selectedEntitiesList.setModel(selectedEntitiesListModel);
         selectedEntitiesList.setCellRenderer(new OWLCellRenderer(getOWLEditorKit()));
         setLayout(new BorderLayout());
-        resetDependecies();
-        initGraph();
         visualisation.add("graph", graph);
         display.setVisualization(visualisation);
         getOWLEditorKit().getOWLModelManager().getOWLOntologyManager()
                 .addOntologyChangeListener(ontologyChangeListener);
-        initGraphLayout();
+        getOWLEditorKit().getOWLModelManager().addListener(renderingListener);
         // create a new Display that pull from our Visualization
         display.setSize(720, 500); // set display size
+        // large graphs are drawn in tiles, on all processors
+        display.setTiledRendering(LevelsOfDetail.createTileRendererFactories());
+        // paint timings, when enabled with -Ddemost.metrics
+        RenderingMetrics.install(display);
         display.addControlListener(new DragControl()); // drag items around
         display.addControlListener(new PanControl()); // pan with
         // background
@@ -373,6 +454,14 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
             @Override
             public void keyPressed(KeyEvent e) {}
         });
+        progressBar.setStringPainted(true);
+        progressBar.setVisible(false);
+        statusLabel.setForeground(Color.RED);
+        statusLabel.setVisible(false);
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(progressBar, BorderLayout.NORTH);
+        statusPanel.add(statusLabel, BorderLayout.SOUTH);
+        graphPanel.add(statusPanel, BorderLayout.NORTH);
         graphPanel.add(display, BorderLayout.CENTER);
         graphPanel.add(showAllGraphButton, BorderLayout.SOUTH);
         topPanel.setLeftComponent(graphPanel);
@@ -383,51 +472,7 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         bottomPanel.setDividerLocation(.8);
         bottomPanel.setResizeWeight(.8);
         bottomPanel.setLeftComponent(ComponentFactory.createScrollPane(atomList));
-        for (OWLEntity key : ad.getTermBasedIndex().keySet()) {
-            Record record = new Record();
-            record.setEntity(key);
-            int[] values = new int[5];
-            Collection<Atom> value = ad.getTermBasedIndex().get(key);
-            values[0] = value.size();
-            Set<Atom> setAtoms = new HashSet<Atom>();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependencies(a));
-            }
-            setAtoms.removeAll(value);
-            values[1] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependents(a));
-            }
-            setAtoms.removeAll(value);
-            values[2] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependencies(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[3] = setAtoms.size();
-            setAtoms.clear();
-            for (Atom a : value) {
-                setAtoms.addAll(ad.getDependents(a, true));
-            }
-            setAtoms.removeAll(value);
-            values[4] = setAtoms.size();
-            record.setValues(values);
-            influenceMatrixModel.addRecord(record);
-        }
-        influenceMatrixModel.sort(1);
-        // try {
-        // PrintStream p=new
-        // PrintStream("/Users/macbook/Desktop/influenceData.csv");
-        // p.println(influenceMatrixModel);
-        // p.close();
-        // }catch(Exception e) {
-        // e.printStackTrace();
-        // }
-        // System.out.println("DeMoStView.initialiseView() " +
-        // influenceMatrixModel);
-        final JTable statsTable = new JTable(new InfluenceTableMode(influenceMatrixModel));
+        final JTable statsTable = new JTable(influenceTableMode);
         statsTable.getTableHeader().addMouseListener(new MouseListener() {
             @Override
             public void mouseReleased(MouseEvent e) {}
@@ -470,168 +515,88 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         mainPanel.setDividerLocation(.7);
         mainPanel.setResizeWeight(.7);
         this.add(mainPanel, BorderLayout.CENTER);
+        decompositionService.decompose(activeOntology);
+    }
+
+    /** Publishes a decomposition: complete models replace the graph on display,
+     * incremental models patch it in place.
+     * 
+     * @param model
+     *            the model */
+    private void publish(DecompositionModel model) {
+        ad = model.getAtomicDecomposition();
+        atomClosures = model.getAtomClosures();
+        if (model.isIncremental()) {
+            patch(model.getAtomGraphPatch());
+        } else {
+            resetGraphSelectionModel();
+            atomGraph = model.getAtomGraph();
+            graph = atomGraph.getGraph();
+            visualisation.removeGroup("graph");
+            visualisation.add("graph", graph);
+            initPredicates();
+            // the actions hold the predicates, so they have to be rebuilt too
+            initGraphLayout();
+        }
+        influenceMatrixModel = model.getInfluenceMatrixModel();
+        influenceTableMode.fireTableChanged();
+    }
+
+    /** Applies the patch of an incremental model to the graph on display. The
+     * selection and the actions are kept, the predicates are rebound to the new
+     * decomposition, and only the nodes that have been patched or whose
+     * visibility has changed get their visibility updated.
+     * 
+     * @param patch
+     *            the patch */
+    private void patch(AtomGraphPatch patch) {
+        Set<Atom> affected = atomGraph.apply(patch);
+        isDependantFromSelectionPredicate.setDecomposition(ad, atomClosures);
+        ShouldBeVisiblePredicate previous = shouldBeVisiblePredicate;
+        shouldBeVisiblePredicate = new ShouldBeVisiblePredicate(
+                selectedEntitiesListModel, ad, atomClosures);
+        BitSet changed = shouldBeVisiblePredicate.getChanges(previous, patch);
+        changed.or(atomClosures.toBitSet(affected));
+        atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                atomClosures.toAtoms(changed));
+        isSelectedInListPredicate = new IsSelectedInListPredicate(ad, atomClosures,
+                selectedEntitiesListModel, selectedEntitiesList);
+        visualisation.run("color");
+        visualisation.run("layout");
     }
 
-    /** The all nodes. */
-    Map<Atom, Node> allNodes = new HashMap<Atom, Node>();
-
-    /** Inits the graph. */
-    private void initGraph() {
-        // TODO Listen to the rendering changed event from the model manager and
-        // repaint the graph accordingly.
-        graph.removeSet("graph.nodes");
-        graph.removeSet("graph.edges");
-        graph.addColumn(GENERATING_AXIOM_COLUMN_NAME, Atom.class);
-        graph.addColumn(LABEL_COLUMN_NAME, String.class);
-        graph.addColumn(SELECTED_COLUMN_NAME, Boolean.class);
-        graph.addColumn(Y_COLUMN_NAME, Integer.class);
-        graph.addColumn(X_COLUMN_NAME, Integer.class);
-        graph.addColumn(ACTUAL_X_COLUMN_NAME, double.class);
-        graph.addColumn(ACTUAL_Y_COLUMN_NAME, double.class);
-        graph.addColumn(SIZE_COLUMN_NAME, int.class);
+    /** Reset graph selection model. */
+    private void resetGraphSelectionModel() {
         graphSelectionModel.removeGraphSelectionModelListener(selectionListener);
         graphSelectionModel = new GraphSelectionModel();
         graphSelectionModel.addGraphSelectionModelListener(selectionListener);
-        Set<Atom> atoms = ad.getAtoms();
-        allNodes.clear();
-        int maxHeight = 0;
-        for (Atom atom : atoms) {
-            Node node = allNodes.get(atom);
-            if (node == null) {
-                node = graph.addNode();
-                node.set(GENERATING_AXIOM_COLUMN_NAME, atom);
-                // node.set(LABEL_COLUMN_NAME, Integer.toString(i++));
-                node.set(LABEL_COLUMN_NAME, computeLabel(atom));
-                int height = this.getHeight(atom);
-                node.set(Y_COLUMN_NAME, height);
-                allNodes.put(atom, node);
-                maxHeight = maxHeight < height ? height : maxHeight;
-            }
-            Set<Atom> dependencies = ad.getDependencies(atom, true);
-            int size = dependencies.size() - 1;
-            node.set(SIZE_COLUMN_NAME, size);
-            for (Atom dependantAtom : dependencies) {
-                Node depandantNode = allNodes.get(dependantAtom);
-                if (depandantNode == null) {
-                    depandantNode = graph.addNode();
-                    depandantNode.set(GENERATING_AXIOM_COLUMN_NAME, dependantAtom);
-                    depandantNode.set(LABEL_COLUMN_NAME, computeLabel(dependantAtom));
-                    int height = this.getHeight(dependantAtom);
-                    depandantNode.set(Y_COLUMN_NAME, height);
-                    allNodes.put(dependantAtom, depandantNode);
-                    maxHeight = maxHeight < height ? height : maxHeight;
-                }
-                graph.addEdge(node, depandantNode);
-            }
-        }
-        List<Node> list = new ArrayList<Node>();
-        for (int j = 0; j < graph.getNodeCount(); j++) {
-            Node node = graph.getNode(j);
-            list.add(node);
-            if (node.canGet(Y_COLUMN_NAME, Integer.class)) {
-                Integer newValue = -1 * ((Integer) node.get(Y_COLUMN_NAME) - maxHeight);
-                node.set(Y_COLUMN_NAME, newValue);
-            }
-        }
-        Collections.sort(list, new Comparator<Node>() {
-            @Override
-            public int compare(Node node, Node anotherNode) {
-                int toReturn = 0;
-                if (node == null) {
-                    toReturn = anotherNode == null ? 0 : -1;
-                } else if (anotherNode == null) {
-                    toReturn = 1;
-                } else {
-                    if (node.canGet(Y_COLUMN_NAME, Integer.class)
-                            && anotherNode.canGet(Y_COLUMN_NAME, Integer.class)) {
-                        Integer aNodeHeight = Integer.parseInt(node.get(Y_COLUMN_NAME)
-                                .toString());
-                        Integer anotherNodeHeight = Integer.parseInt(anotherNode.get(
-                                Y_COLUMN_NAME).toString());
-                        toReturn = (int) Math.signum(aNodeHeight - anotherNodeHeight);
-                    } else {
-                        toReturn = (int) Math.signum(node.hashCode()
-                                - anotherNode.hashCode());
-                    }
-                }
-                return toReturn;
-            }
-        });
-        int startX = 1;
-        if (!list.isEmpty()) {
-            int currentTier = (Integer) list.get(0).get(Y_COLUMN_NAME);
-            for (Node node : list) {
-                int nodeHeight = (Integer) node.get(Y_COLUMN_NAME);
-                if (nodeHeight != currentTier) {
-                    startX = 1;
-                    currentTier = nodeHeight;
-                }
-                node.set(X_COLUMN_NAME, startX);
-                startX++;
-            }
-            double pace = 200;
-            for (Node node : list) {
-                if (node.canGet(Y_COLUMN_NAME, Integer.class)
-                        && node.canSet(ACTUAL_Y_COLUMN_NAME, Double.class)) {
-                    double height = (Integer) node.get(Y_COLUMN_NAME);
-                    node.set(ACTUAL_Y_COLUMN_NAME, pace * height);
-                }
-                if (node.canGet(X_COLUMN_NAME, Integer.class)
-                        && node.canSet(ACTUAL_X_COLUMN_NAME, Double.class)) {
-                    double width = (Integer) node.get(X_COLUMN_NAME);
-                    node.set(ACTUAL_X_COLUMN_NAME, pace * width);
-                }
-            }
-        }
+    }
+
+    /** Inits the predicates. */
+    private void initPredicates() {
         isDependantFromSelectionPredicate = new IsDependantFromSelectionPredicate(ad,
-                graphSelectionModel);
+                atomClosures, graphSelectionModel);
         shouldBeVisiblePredicate = new ShouldBeVisiblePredicate(
-                selectedEntitiesListModel, ad);
-        isSelectedInListPredicate = new IsSelectedInListPredicate(ad,
+                selectedEntitiesListModel, ad, atomClosures);
+        // nodes and edges of a new graph are all visible
+        atomGraph.updateVisibility(shouldBeVisiblePredicate,
+                atomClosures.toAtoms(shouldBeVisiblePredicate.getHiddenAtoms()));
+        isSelectedInListPredicate = new IsSelectedInListPredicate(ad, atomClosures,
                 selectedEntitiesListModel, selectedEntitiesList);
     }
 
     /** The influence matrix model. */
-    final InfluenceMatrixModel influenceMatrixModel = new InfluenceMatrixModel();
-
-    /** Gets the height.
-     * 
-     * @param atom
-     *            the atom
-     * @return the height */
-    private int getHeight(Atom atom) {
-        if (atom == null) {
-            throw new NullPointerException("The axiom cannot be null");
-        }
-        int toReturn = 1;
-        Set<Atom> children = ad.getDependencies(atom, true);
-        int max = 0;
-        if (children != null) {
-            for (Atom child : children) {
-                if (!child.equals(atom)) {
-                    int childHeight = this.getHeight(child);
-                    max = max < childHeight ? childHeight : max;
-                }
-            }
-        }
-        return toReturn + max;
-    }
+    InfluenceMatrixModel influenceMatrixModel = new InfluenceMatrixModel();
+    /** The influence table model. */
+    private final InfluenceTableMode influenceTableMode = new InfluenceTableMode();
 
     /** Inits the graph layout. */
     private void initGraphLayout() {
-        // draw the "name" label for NodeItems
-        LabelRenderer r = new LabelRenderer();
-        r.setRoundedCorner(8, 8);// round the corners
-        r.setVerticalPadding(10);
-        r.setHorizontalPadding(10);
-        // create a new default renderer factory
-        // return our name label renderer as the default for all non-EdgeItems
-        // includes straight line edges for EdgeItems by default
-        EdgeRenderer edgeRenderer = new EdgeRenderer(Constants.EDGE_TYPE_LINE,
-                Constants.EDGE_ARROW_FORWARD);
-        edgeRenderer.setArrowHeadSize(10, 10);
-        edgeRenderer.setArrowType(Constants.EDGE_ARROW_FORWARD);
-        visualisation.setRendererFactory(new DefaultRendererFactory(r, edgeRenderer));
+        // labels, arrows and eventually nodes and edges are dropped as the
+        // display is zoomed out, and the tiers are drawn instead
+        visualisation.setRendererFactory(LevelsOfDetail.createRendererFactory());
+        visualisation.removeGroup(LevelsOfDetail.TIERS_GROUP);
+        visualisation.addAggregates(LevelsOfDetail.TIERS_GROUP);
         // DataSizeAction dataSizeAction = new DataSizeAction("graph.nodes",
         // SIZE_COLUMN_NAME);
         FontAction fontAction = new FontAction("graph.nodes", OWLRendererPreferences
@@ -650,7 +615,11 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
                 ColorLib.gray(180));
         ColorAction edgesArrows = new ColorAction("graph.edges", VisualItem.FILLCOLOR,
                 ColorLib.gray(180));
-        VisibilityFilter visibilityFilter = new VisibilityFilter(shouldBeVisiblePredicate);
+        ColorAction tiers = new ColorAction(LevelsOfDetail.TIERS_GROUP,
+                VisualItem.FILLCOLOR, ColorLib.rgba(30, 30, 255, 60));
+        // the visibility is precomputed in a column whenever the list changes
+        VisibilityFilter visibilityFilter = new VisibilityFilter(new ColumnExpression(
+                AtomGraph.VISIBLE_COLUMN_NAME));
         // create an action list containing all color assignments
         ActionList color = new ActionList();
         color.add(new RepaintAction());
@@ -663,9 +632,11 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         // create an action list with an animated layout
         // the INFINITY parameter tells the action list to run indefinitely
         ActionList layout = new ActionList(Activity.DEFAULT_STEP_TIME);
-        layout.add(new SpecifiedLayout("graph.nodes", ACTUAL_X_COLUMN_NAME,
-                ACTUAL_Y_COLUMN_NAME));
+        layout.add(new SpecifiedLayout("graph.nodes", AtomGraph.ACTUAL_X_COLUMN_NAME,
+                AtomGraph.ACTUAL_Y_COLUMN_NAME));
         layout.add(visibilityFilter);
+        layout.add(new TierAggregateAction(LevelsOfDetail.TIERS_GROUP, "graph.nodes"));
+        layout.add(tiers);
         layout.add(new RepaintAction());
         // add the actions to the visualization
         visualisation.putAction("color", color);
@@ -674,17 +645,12 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         visualisation.run("layout"); // start up the animated layout
     }
 
-    /** Reset dependecies. */
-    protected void resetDependecies() {
-        ad = new AtomicDecomposerOWLAPITOOLS(getOWLEditorKit().getOWLModelManager()
-                .getActiveOntology());
-        // this.entitiesToAtoms=atomicDecomposition.getEntitiesToAtom();
-    }
-
     @Override
     public void disposeView() {
         getOWLEditorKit().getOWLModelManager().getOWLOntologyManager()
                 .removeOntologyChangeListener(ontologyChangeListener);
+        getOWLEditorKit().getOWLModelManager().removeListener(renderingListener);
+        decompositionService.dispose();
     }
 
     @Override
@@ -693,8 +659,7 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
                 .getActiveOntology();
         if (this.activeOntology != activeOntology) {
             this.activeOntology = activeOntology;
-            resetDependecies();
-            initGraph();
+            decompositionService.decompose(activeOntology);
         }
         OWLObject selectedObject = getOWLEditorKit().getOWLWorkspace()
                 .getOWLSelectionModel().getSelectedObject();
@@ -712,27 +677,6 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         }
     }
 
-    /** Compute label.
-     * 
-     * @param atom
-     *            the atom
-     * @return the string */
-    private String computeLabel(Atom atom) {
-        StringBuilder out = new StringBuilder();
-        Set<OWLEntity> signatureForLabel = computeSignatureForLabel(atom);
-        Iterator<OWLEntity> iterator = signatureForLabel.iterator();
-        while (iterator.hasNext()) {
-            OWLEntity owlEntity = iterator.next();
-            String rendering = getOWLEditorKit().getOWLModelManager().getRendering(
-                    owlEntity);
-            out.append(rendering);
-            if (iterator.hasNext()) {
-                out.append(", ");
-            }
-        }
-        return out.toString();
-    }
-
     /** Builds the well known objects. */
     private final void buildWellKnownObjects() {
         wellKnownObjects = new HashSet<OWLObject>();
@@ -757,28 +701,4 @@ public class DeMoStView extends AbstractOWLSelectionViewComponent {
         }
         return wellKnownObjects;
     }
-
-    // private MultiMap<OWLEntity, Atom> entitiesToAtoms=new MultiMap<OWLEntity,
-    // Atom>();
-    /** Compute signature for label.
-     * 
-     * @param atom
-     *            the atom
-     * @return the sets the */
-    private Set<OWLEntity> computeSignatureForLabel(Atom atom) {
-        Set<OWLEntity> signature = new HashSet<OWLEntity>();
-        for (OWLEntity e : ad.getTermBasedIndex().keySet()) {
-            // XXX: ad.getTermBasedIndex() is not a multi map
-            Map<OWLEntity, Set<Atom>> termBasedIndex = ad.getTermBasedIndex();
-            if (termBasedIndex.containsKey(e)) {
-                if (termBasedIndex.get(e).equals(atom)) {
-                    signature.add(e);
-                }
-            }
-            // if(atomicDecomposition.getEntitiesToAtom().contains(e, atom)) {
-            // signature.add(e);
-            // }
-        }
-        return signature;
-    }
 }
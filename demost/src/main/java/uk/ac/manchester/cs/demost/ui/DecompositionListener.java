@@ -0,0 +1,31 @@
+package uk.ac.manchester.cs.demost.ui;
+
+/** The listener interface for receiving the results of a
+ * {@link DecompositionService}. All methods are invoked on the Event Dispatch
+ * Thread, and only for the latest run: results and progress of superseded runs
+ * are never delivered.
+ * 
+ * @see DecompositionModel */
+public interface DecompositionListener {
+    /** Decomposition progress.
+     * 
+     * @param stage
+     *            the name of the stage being started
+     * @param step
+     *            the index of the stage, starting from 0
+     * @param steps
+     *            the number of stages in the run */
+    public void decompositionProgress(String stage, int step, int steps);
+
+    /** Decomposition finished.
+     * 
+     * @param model
+     *            the model to publish */
+    public void decompositionFinished(DecompositionModel model);
+
+    /** Decomposition failed.
+     * 
+     * @param t
+     *            the cause of the failure */
+    public void decompositionFailed(Throwable t);
+}
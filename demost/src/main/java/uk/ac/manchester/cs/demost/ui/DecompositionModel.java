@@ -0,0 +1,119 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.Set;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+
+/** The result of a run of the {@link DecompositionService}: everything a view
+ * needs to display a decomposition, computed together so that it can be
+ * published in one go. A model is either complete, carrying a freshly built
+ * {@link AtomGraph}, or incremental, carrying the {@link AtomGraphPatch} that
+ * turns the graph on display into the graph of the new decomposition. */
+public class DecompositionModel {
+    /** The ontology. */
+    private final OWLOntology ontology;
+    /** The atomic decomposition. */
+    private final AtomicDecomposition atomicDecomposition;
+    /** The atom graph, null for incremental models. */
+    private final AtomGraph atomGraph;
+    /** The atom graph patch, null for complete models. */
+    private final AtomGraphPatch atomGraphPatch;
+    /** The atom closures. */
+    private final AtomClosures atomClosures;
+    /** The influence matrix model. */
+    private final InfluenceMatrixModel influenceMatrixModel;
+
+    /** Instantiates a new decomposition model.
+     * 
+     * @param ontology
+     *            the decomposed ontology
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param atomGraph
+     *            the atom graph, or null for an incremental model
+     * @param atomGraphPatch
+     *            the patch for the graph on display, or null for a complete
+     *            model
+     * @param atomClosures
+     *            the atom closures of the decomposition
+     * @param influenceMatrixModel
+     *            the influence matrix model */
+    public DecompositionModel(OWLOntology ontology,
+            AtomicDecomposition atomicDecomposition, AtomGraph atomGraph,
+            AtomGraphPatch atomGraphPatch, AtomClosures atomClosures,
+            InfluenceMatrixModel influenceMatrixModel) {
+        if (atomicDecomposition == null) {
+            throw new NullPointerException("The atomic decomposition cannot be null");
+        }
+        if (atomGraph == null && atomGraphPatch == null) {
+            throw new NullPointerException(
+                    "Either the atom graph or the atom graph patch must be specified");
+        }
+        this.ontology = ontology;
+        this.atomicDecomposition = atomicDecomposition;
+        this.atomGraph = atomGraph;
+        this.atomGraphPatch = atomGraphPatch;
+        this.atomClosures = atomClosures;
+        this.influenceMatrixModel = influenceMatrixModel;
+    }
+
+    /** Gets the ontology.
+     * 
+     * @return the ontology */
+    public OWLOntology getOntology() {
+        return ontology;
+    }
+
+    /** Gets the atomic decomposition.
+     * 
+     * @return the atomic decomposition */
+    public AtomicDecomposition getAtomicDecomposition() {
+        return atomicDecomposition;
+    }
+
+    /** Gets the atom graph.
+     * 
+     * @return the atom graph, null for incremental models */
+    public AtomGraph getAtomGraph() {
+        return atomGraph;
+    }
+
+    /** Gets the changed signature.
+     * 
+     * @return the signature of the changed axioms, null for complete models */
+    public Set<OWLEntity> getChangedSignature() {
+        return atomGraphPatch == null ? null : atomGraphPatch.getChangedSignature();
+    }
+
+    /** Gets the atom graph patch.
+     * 
+     * @return the patch for the graph on display, null for complete models */
+    public AtomGraphPatch getAtomGraphPatch() {
+        return atomGraphPatch;
+    }
+
+    /** Gets the atom closures.
+     * 
+     * @return the atom closures */
+    public AtomClosures getAtomClosures() {
+        return atomClosures;
+    }
+
+    /** Gets the influence matrix model.
+     * 
+     * @return the influence matrix model */
+    public InfluenceMatrixModel getInfluenceMatrixModel() {
+        return influenceMatrixModel;
+    }
+
+    /** Checks if the model is incremental.
+     * 
+     * @return true, if the graph on display has to be patched rather than
+     *         replaced */
+    public boolean isIncremental() {
+        return atomGraph == null;
+    }
+}
@@ -0,0 +1,317 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import prefuse.data.Graph;
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+/** Computes decompositions off the Event Dispatch Thread. Each run is a
+ * pipeline of stages (decomposition, layering, labels and graph construction
+ * or atom matching, influence matrix) executed on a single worker thread;
+ * between stages the run checks whether it has been superseded, so that a user
+ * who keeps editing the ontology does not queue up obsolete decompositions. The result is handed to
+ * the {@link DecompositionListener} on the Event Dispatch Thread as a single
+ * {@link DecompositionModel}.
+ * <p>
+ * Complete runs build a new graph; incremental runs, requested after changes in
+ * the logical axioms, compute an {@link AtomGraphPatch} from the layering of the
+ * latest published model, so that the view only has to apply the differences
+ * to the graph on display. The signatures of superseded incremental runs are
+ * accumulated, and a superseded complete run turns the next run into a
+ * complete one, so that whatever is eventually published accounts for all
+ * changes since the last publication. */
+public class DecompositionService {
+    /** The Constant DECOMPOSING. */
+    public static final String DECOMPOSING = "Decomposing";
+    /** The Constant LAYERING. */
+    public static final String LAYERING = "Computing tiers";
+    /** The Constant LABELLING. */
+    public static final String LABELLING = "Computing labels";
+    /** The Constant MATCHING. */
+    public static final String MATCHING = "Matching atoms";
+    /** The Constant BUILDING_GRAPH. */
+    public static final String BUILDING_GRAPH = "Building graph";
+    /** The Constant COMPUTING_INFLUENCE. */
+    public static final String COMPUTING_INFLUENCE = "Computing influence";
+    /** The module type. */
+    private final ModuleType moduleType;
+    /** The entity renderer. */
+    private final Renderer<OWLEntity> renderer;
+    /** The listener. */
+    private final DecompositionListener listener;
+    /** The cache for complete decompositions, null if none. */
+    private final AtomicDecompositionCache cache;
+    /** The executor. */
+    private final ExecutorService executor = Executors
+            .newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "DeMoSt decomposition");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+    /** The generation of the latest run. */
+    private final AtomicInteger generation = new AtomicInteger();
+    /** The latest run. */
+    private Future<?> current;
+    /** Whether the next publication must be complete. */
+    private boolean pendingComplete = true;
+    /** The signature changed since the last publication. */
+    private final Set<OWLEntity> pendingSignature = new HashSet<OWLEntity>();
+    /** The layering of the latest published model, patched by incremental runs. */
+    private AtomLayering publishedLayering;
+
+    /** Instantiates a new decomposition service.
+     * 
+     * @param moduleType
+     *            the module type
+     * @param renderer
+     *            the renderer for the entities in the atom labels
+     * @param listener
+     *            the listener */
+    public DecompositionService(ModuleType moduleType, Renderer<OWLEntity> renderer,
+            DecompositionListener listener) {
+        this(moduleType, renderer, listener, null);
+    }
+
+    /** Instantiates a new decomposition service.
+     * 
+     * @param moduleType
+     *            the module type
+     * @param renderer
+     *            the renderer for the entities in the atom labels
+     * @param listener
+     *            the listener
+     * @param cache
+     *            the cache for complete decompositions, null to always
+     *            decompose from scratch */
+    public DecompositionService(ModuleType moduleType, Renderer<OWLEntity> renderer,
+            DecompositionListener listener, AtomicDecompositionCache cache) {
+        if (moduleType == null) {
+            throw new NullPointerException("The module type cannot be null");
+        }
+        if (renderer == null) {
+            throw new NullPointerException("The renderer cannot be null");
+        }
+        if (listener == null) {
+            throw new NullPointerException("The listener cannot be null");
+        }
+        this.moduleType = moduleType;
+        this.renderer = renderer;
+        this.listener = listener;
+        this.cache = cache;
+    }
+
+    /** Starts a complete decomposition of an ontology, cancelling any run in
+     * progress.
+     * 
+     * @param ontology
+     *            the ontology */
+    public synchronized void decompose(OWLOntology ontology) {
+        pendingComplete = true;
+        pendingSignature.clear();
+        schedule(ontology);
+    }
+
+    /** Starts an incremental decomposition of an ontology after a change in its
+     * logical axioms, cancelling any run in progress.
+     * 
+     * @param ontology
+     *            the ontology
+     * @param changedSignature
+     *            the signature of the added and removed logical axioms */
+    public synchronized void update(OWLOntology ontology,
+            Set<OWLEntity> changedSignature) {
+        pendingSignature.addAll(changedSignature);
+        schedule(ontology);
+    }
+
+    /** Cancels the run in progress, if any; nothing will be published until the
+     * next request. */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+        }
+    }
+
+    /** Cancels the run in progress and stops the worker thread. The service
+     * cannot be used afterwards. */
+    public synchronized void dispose() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    /** Schedules a new run with the pending state.
+     * 
+     * @param ontology
+     *            the ontology */
+    private void schedule(final OWLOntology ontology) {
+        if (current != null) {
+            current.cancel(true);
+        }
+        final int run = generation.incrementAndGet();
+        final Set<OWLEntity> signature = pendingComplete ? null : new HashSet<OWLEntity>(
+                pendingSignature);
+        final AtomLayering previous = pendingComplete ? null : publishedLayering;
+        current = executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    execute(run, ontology, signature, previous);
+                } catch (CancellationException e) {
+                    // superseded; a newer run will publish
+                } catch (final Throwable t) {
+                    deliver(run, new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.decompositionFailed(t);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /** Executes the stages of a run.
+     * 
+     * @param run
+     *            the generation of the run
+     * @param ontology
+     *            the ontology
+     * @param signature
+     *            the changed signature, null for a complete run
+     * @param previous
+     *            the layering of the latest published model, null for a
+     *            complete run */
+    private void execute(int run, OWLOntology ontology, Set<OWLEntity> signature,
+            AtomLayering previous) {
+        int steps = signature == null ? 5 : 4;
+        int step = 0;
+        progress(run, DECOMPOSING, step++, steps);
+        // incremental runs are not cached: the next edit would make them stale
+        AtomicDecomposition ad = signature == null && cache != null ? cache
+                .getOrCompute(ontology, moduleType) : new AtomicDecomposerOWLAPITOOLS(
+                ontology, moduleType);
+        progress(run, LAYERING, step++, steps);
+        AtomLayering layering = new AtomLayering(ad);
+        AtomGraph atomGraph = null;
+        AtomGraphPatch atomGraphPatch = null;
+        if (signature == null) {
+            progress(run, LABELLING, step++, steps);
+            AtomLabelIndex labelIndex = new AtomLabelIndex(ad, renderer);
+            for (Atom atom : layering.getAtoms()) {
+                labelIndex.getLabel(atom);
+            }
+            progress(run, BUILDING_GRAPH, step++, steps);
+            atomGraph = new AtomGraph(new Graph(true), renderer);
+            atomGraph.build(layering, labelIndex);
+        } else {
+            progress(run, MATCHING, step++, steps);
+            atomGraphPatch = new AtomGraphPatch(previous, layering, new AtomLabelIndex(
+                    ad, renderer), ad, signature);
+        }
+        progress(run, COMPUTING_INFLUENCE, step++, steps);
+        AtomClosures closures = new AtomClosures(layering);
+        InfluenceMatrixModel influenceMatrixModel = InfluenceMatrixModel.create(ad,
+                closures, Runtime.getRuntime().availableProcessors());
+        checkCurrent(run);
+        final DecompositionModel model = new DecompositionModel(ontology, ad, atomGraph,
+                atomGraphPatch, closures, influenceMatrixModel);
+        publish(run, model);
+    }
+
+    /** Publishes a model on the Event Dispatch Thread, if the run is still
+     * current by then; the pending state is cleared at the same time, so that
+     * later requests are relative to this model.
+     * 
+     * @param run
+     *            the generation of the run
+     * @param model
+     *            the model */
+    private void publish(final int run, final DecompositionModel model) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (DecompositionService.this) {
+                    if (run != generation.get()) {
+                        return;
+                    }
+                    pendingComplete = false;
+                    pendingSignature.clear();
+                    publishedLayering = model.getAtomClosures().getLayering();
+                    current = null;
+                }
+                listener.decompositionFinished(model);
+            }
+        });
+    }
+
+    /** Reports progress, after checking that the run is still current.
+     * 
+     * @param run
+     *            the generation of the run
+     * @param stage
+     *            the stage
+     * @param step
+     *            the step
+     * @param steps
+     *            the steps */
+    private void progress(int run, final String stage, final int step, final int steps) {
+        checkCurrent(run);
+        deliver(run, new Runnable() {
+            @Override
+            public void run() {
+                listener.decompositionProgress(stage, step, steps);
+            }
+        });
+    }
+
+    /** Checks that a run has not been superseded or interrupted.
+     * 
+     * @param run
+     *            the generation of the run
+     * @throws CancellationException
+     *             if the run should stop */
+    private void checkCurrent(int run) {
+        if (run != generation.get() || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    }
+
+    /** Runs a task on the Event Dispatch Thread, if the run is still current
+     * by then.
+     * 
+     * @param run
+     *            the generation of the run
+     * @param task
+     *            the task */
+    private void deliver(final int run, final Runnable task) {
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (run == generation.get()) {
+                    task.run();
+                }
+            }
+        });
+    }
+}
@@ -14,6 +14,8 @@ public class GraphSelectionModel {
     private final Set<GraphSelectionModelListener> listeners = new HashSet<GraphSelectionModelListener>();
     /** The selected items. */
     private final List<VisualItem> selectedItems = new ArrayList<VisualItem>();
+    /** The number of times the selection has been set. */
+    private volatile int modificationCount;
 
     /** Adds the graph selection model listener.
      * 
@@ -60,6 +62,16 @@ public class GraphSelectionModel {
             Object source) {
         this.selectedItems.clear();
         this.selectedItems.addAll(selectedItems);
+        modificationCount++;
         notifyListeners(new GraphSelectionEvent(source, selectedItems));
     }
+
+    /** Gets the modification count, which changes every time the selection is
+     * set; components caching data derived from the selection can compare it
+     * with the count they have seen last.
+     * 
+     * @return the modification count */
+    public int getModificationCount() {
+        return modificationCount;
+    }
 }
@@ -1,19 +1,185 @@
 package uk.ac.manchester.cs.demost.ui;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.semanticweb.owlapi.model.OWLEntity;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 
 /** The Class InfluenceMatrixModel. */
 public class InfluenceMatrixModel {
     /** The records. */
     private final List<Record> records = new ArrayList<Record>();
+    /** The minimum number of entities worth a thread of their own. */
+    private static final int MIN_CHUNK_SIZE = 1024;
+    /** The pool shared by all parallel computations, created on first use. */
+    private static ExecutorService pool;
     /** The headings. */
     String[] headings = new String[] { "Entity", "#Atoms", "Total Dependence Degree",
             "Total Influential Degree", "Direct Dependence Degree",
             "Direct Influential Degree" };
 
+    /** Creates the influence matrix of an atomic decomposition, with one record
+     * per entity in the term based index, sorted by number of atoms.
+     * 
+     * @param ad
+     *            the atomic decomposition
+     * @return the influence matrix model */
+    public static InfluenceMatrixModel create(AtomicDecomposition ad) {
+        return create(ad, new AtomClosures(new AtomLayering(ad)), Runtime.getRuntime()
+                .availableProcessors());
+    }
+
+    /** Creates the influence matrix of an atomic decomposition from the atom
+     * closures computed beforehand. Each value is the cardinality of a union of
+     * closures minus the atoms of the entity itself; the entities are split in
+     * ranges that are computed in parallel, and the records are added in bulk
+     * in the order of the term based index. The ranges run on a pool of daemon
+     * threads shared by all runs, sized on the available processors.
+     * 
+     * @param ad
+     *            the atomic decomposition
+     * @param closures
+     *            the atom closures of the decomposition
+     * @param threads
+     *            the number of threads to use; 1 computes everything on the
+     *            calling thread
+     * @return the influence matrix model */
+    public static InfluenceMatrixModel create(AtomicDecomposition ad,
+            final AtomClosures closures, int threads) {
+        final List<Map.Entry<OWLEntity, Set<Atom>>> entries = new ArrayList<Map.Entry<OWLEntity, Set<Atom>>>(
+                ad.getTermBasedIndex().entrySet());
+        final Record[] records = new Record[entries.size()];
+        int chunks = Math.max(1, Math.min(threads, records.length / MIN_CHUNK_SIZE));
+        if (chunks == 1) {
+            computeRecords(entries, closures, records, 0, records.length);
+        } else {
+            ExecutorService executor = getPool();
+            List<Future<?>> futures = new ArrayList<Future<?>>(chunks);
+            try {
+                for (int c = 0; c < chunks; c++) {
+                    final int from = (int) ((long) records.length * c / chunks);
+                    final int to = (int) ((long) records.length * (c + 1) / chunks);
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            computeRecords(entries, closures, records, from, to);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while computing influence");
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                // stops the remaining ranges of a cancelled or failed run
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        InfluenceMatrixModel influenceMatrixModel = new InfluenceMatrixModel();
+        influenceMatrixModel.addRecords(Arrays.asList(records));
+        influenceMatrixModel.sort(1);
+        return influenceMatrixModel;
+    }
+
+    /** Gets the shared pool, creating it if needed.
+     * 
+     * @return the pool */
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            final AtomicInteger count = new AtomicInteger();
+            pool = Executors.newFixedThreadPool(Runtime.getRuntime()
+                    .availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "DeMoSt influence "
+                            + count.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                }
+            });
+        }
+        return pool;
+    }
+
+    /** Computes the records for a range of entities.
+     * 
+     * @param entries
+     *            the term based index entries
+     * @param closures
+     *            the atom closures
+     * @param records
+     *            the array to fill
+     * @param from
+     *            the first entry, inclusive
+     * @param to
+     *            the last entry, exclusive */
+    static void computeRecords(List<Map.Entry<OWLEntity, Set<Atom>>> entries,
+            AtomClosures closures, Record[] records, int from, int to) {
+        BitSet own = new BitSet();
+        BitSet[] unions = new BitSet[] { new BitSet(), new BitSet(), new BitSet(),
+                new BitSet() };
+        for (int e = from; e < to; e++) {
+            Map.Entry<OWLEntity, Set<Atom>> entry = entries.get(e);
+            own.clear();
+            for (BitSet union : unions) {
+                union.clear();
+            }
+            for (Atom atom : entry.getValue()) {
+                int index = closures.getLayering().indexOf(atom);
+                if (index < 0) {
+                    continue;
+                }
+                own.set(index);
+                unions[0].or(closures.getDependencies(index));
+                unions[1].or(closures.getDependents(index));
+                unions[2].or(closures.getDirectDependencies(index));
+                unions[3].or(closures.getDirectDependents(index));
+            }
+            int[] values = new int[5];
+            values[0] = entry.getValue().size();
+            for (int i = 0; i < unions.length; i++) {
+                unions[i].andNot(own);
+                values[i + 1] = unions[i].cardinality();
+            }
+            Record record = new Record();
+            record.setEntity(entry.getKey());
+            record.setValues(values);
+            records[e] = record;
+        }
+    }
+
+    /** Adds the records.
+     * 
+     * @param toAdd
+     *            the records */
+    public void addRecords(Collection<Record> toAdd) {
+        records.addAll(toAdd);
+    }
+
     /** Adds the record.
      * 
      * @param record
@@ -22,6 +188,21 @@ public class InfluenceMatrixModel {
         records.add(record);
     }
 
+    /** Writes the headings and one row per record, in the current order.
+     * 
+     * @param out
+     *            the output */
+    public void write(TableWriter out) {
+        out.row((Object[]) headings);
+        for (Record r : records) {
+            out.cell(r.entity);
+            for (int value : r.influenceValues) {
+                out.cell(value);
+            }
+            out.endRow();
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder s = new StringBuilder();
@@ -1,7 +1,6 @@
 package uk.ac.manchester.cs.demost.ui;
 
-import java.util.Iterator;
-import java.util.Set;
+import java.util.BitSet;
 
 import prefuse.data.Node;
 import prefuse.data.Tuple;
@@ -11,13 +10,23 @@ import prefuse.visual.VisualItem;
 import uk.ac.manchester.cs.atomicdecomposition.Atom;
 import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 
-/** The Class IsDependantFromSelectionPredicate. */
+/** The Class IsDependantFromSelectionPredicate. The dependencies of the
+ * selected atoms are merged into one bitset when the selection changes, so
+ * that evaluating the predicate on a tuple is a single bit lookup. The
+ * decomposition can be replaced after a graph has been patched, so that the
+ * actions holding the predicate do not have to be rebuilt. */
 public class IsDependantFromSelectionPredicate extends AbstractPredicate implements
         Predicate {
     /** The graph selection model. */
     private final GraphSelectionModel graphSelectionModel;
     /** The atomic decomposition. */
-    private final AtomicDecomposition atomicDecomposition;
+    private AtomicDecomposition atomicDecomposition;
+    /** The atom closures. */
+    private AtomClosures atomClosures;
+    /** The dependencies of the selected atoms. */
+    private BitSet selectionDependencies = new BitSet();
+    /** The modification count of the selection the dependencies refer to. */
+    private int seenModificationCount = -1;
 
     /** Instantiates a new checks if is dependant from selection predicate.
      * 
@@ -27,33 +36,87 @@ public class IsDependantFromSelectionPredicate extends AbstractPredicate impleme
      *            the graph selection model */
     public IsDependantFromSelectionPredicate(AtomicDecomposition atomicDecomposition,
             GraphSelectionModel graphSelectionModel) {
+        this(atomicDecomposition, new AtomClosures(new AtomLayering(atomicDecomposition)),
+                graphSelectionModel);
+    }
+
+    /** Instantiates a new checks if is dependant from selection predicate.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param atomClosures
+     *            the atom closures of the decomposition
+     * @param graphSelectionModel
+     *            the graph selection model */
+    public IsDependantFromSelectionPredicate(AtomicDecomposition atomicDecomposition,
+            AtomClosures atomClosures, GraphSelectionModel graphSelectionModel) {
         if (atomicDecomposition == null) {
             throw new NullPointerException("The atomic decomposition cannot be null");
         }
+        if (atomClosures == null) {
+            throw new NullPointerException("The atom closures cannot be null");
+        }
         this.graphSelectionModel = graphSelectionModel;
         this.atomicDecomposition = atomicDecomposition;
+        this.atomClosures = atomClosures;
+    }
+
+    /** Replaces the decomposition the atoms of the tuples belong to; the
+     * dependencies of the selection are recomputed on the next evaluation.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param atomClosures
+     *            the atom closures of the decomposition */
+    public synchronized void setDecomposition(AtomicDecomposition atomicDecomposition,
+            AtomClosures atomClosures) {
+        if (atomicDecomposition == null) {
+            throw new NullPointerException("The atomic decomposition cannot be null");
+        }
+        if (atomClosures == null) {
+            throw new NullPointerException("The atom closures cannot be null");
+        }
+        this.atomicDecomposition = atomicDecomposition;
+        this.atomClosures = atomClosures;
+        seenModificationCount = -1;
     }
 
     @Override
-    public boolean getBoolean(Tuple t) {
+    public synchronized boolean getBoolean(Tuple t) {
         boolean toReturn = t instanceof Node;
         if (toReturn) {
-            boolean found = false;
-            Iterator<VisualItem> iterator = getGraphSelectionModel().getSelectedItems()
-                    .iterator();
-            while (!found && iterator.hasNext()) {
-                VisualItem visualItem = iterator.next();
-                Atom atom = (Atom) visualItem
-                        .get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME);
-                Set<Atom> descendants = getAtomicDecomposition().getDependencies(atom);
-                found = descendants.contains(t
-                        .get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME));
-            }
-            toReturn = found;
+            int index = atomClosures.getLayering().indexOf(
+                    (Atom) t.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME));
+            toReturn = index >= 0 && getSelectionDependencies().get(index);
         }
         return toReturn;
     }
 
+    /** Gets the dependencies of the selected atoms, recomputing them if the
+     * selection has changed since the last call.
+     * 
+     * @return the dependencies */
+    private synchronized BitSet getSelectionDependencies() {
+        int modificationCount = graphSelectionModel.getModificationCount();
+        if (modificationCount != seenModificationCount) {
+            BitSet selected = new BitSet();
+            for (VisualItem visualItem : graphSelectionModel.getSelectedItems()) {
+                if (!visualItem.isValid()) {
+                    // the node of an atom that vanished in a patch
+                    continue;
+                }
+                int index = atomClosures.getLayering().indexOf(
+                        (Atom) visualItem.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME));
+                if (index >= 0) {
+                    selected.set(index);
+                }
+            }
+            selectionDependencies = atomClosures.getDependencies(selected);
+            seenModificationCount = modificationCount;
+        }
+        return selectionDependencies;
+    }
+
     /** Gets the graph selection model.
      * 
      * @return the graphSelectionModel */
@@ -64,7 +127,7 @@ public class IsDependantFromSelectionPredicate extends AbstractPredicate impleme
     /** Gets the atomic decomposition.
      * 
      * @return the atomicDecomposition */
-    public AtomicDecomposition getAtomicDecomposition() {
+    public synchronized AtomicDecomposition getAtomicDecomposition() {
         return atomicDecomposition;
     }
 }
@@ -1,12 +1,11 @@
 package uk.ac.manchester.cs.demost.ui;
 
+import java.util.BitSet;
 import java.util.Enumeration;
-import java.util.Set;
 
 import javax.swing.DefaultListModel;
 
 import org.protege.editor.core.ui.list.MList;
-import org.semanticweb.owlapi.model.OWLEntity;
 
 import prefuse.data.Node;
 import prefuse.data.Tuple;
@@ -15,7 +14,12 @@ import prefuse.data.expression.Predicate;
 import uk.ac.manchester.cs.atomicdecomposition.Atom;
 import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 
-/** The Class IsSelectedInListPredicate. */
+/** The Class IsSelectedInListPredicate. A node is selected if its atom has
+ * one of the selected entities of the list in its signature, or one of all the
+ * entities of the list when none is selected. The selected atoms are computed
+ * as a bitset from the entity index of the {@link AtomClosures} on
+ * {@link #reset()}, so that evaluating the predicate on a tuple is a single
+ * bit lookup. */
 public class IsSelectedInListPredicate extends AbstractPredicate implements Predicate {
     /** The selected entities list model. */
     private final DefaultListModel selectedEntitiesListModel;
@@ -23,6 +27,10 @@ public class IsSelectedInListPredicate extends AbstractPredicate implements Pred
     private final MList selectedEntitiesList;
     /** The atomic decomposition. */
     private final AtomicDecomposition atomicDecomposition;
+    /** The atom closures. */
+    private final AtomClosures atomClosures;
+    /** The selected atoms. */
+    private volatile BitSet selectedAtoms = new BitSet();
 
     /** Instantiates a new checks if is selected in list predicate.
      * 
@@ -34,47 +42,77 @@ public class IsSelectedInListPredicate extends AbstractPredicate implements Pred
      *            the selected entities list */
     public IsSelectedInListPredicate(AtomicDecomposition atomicDecomposition,
             DefaultListModel selectedEntitiesListModel, MList selectedEntitiesList) {
-        if (atomicDecomposition == null) {
-            throw new NullPointerException("The atomic decomposition cannot be null");
+        this(atomicDecomposition, new AtomClosures(new AtomLayering(
+                checkNotNull(atomicDecomposition))), selectedEntitiesListModel,
+                selectedEntitiesList);
+    }
+
+    /** Instantiates a new checks if is selected in list predicate.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param atomClosures
+     *            the atom closures of the decomposition
+     * @param selectedEntitiesListModel
+     *            the selected entities list model
+     * @param selectedEntitiesList
+     *            the selected entities list */
+    public IsSelectedInListPredicate(AtomicDecomposition atomicDecomposition,
+            AtomClosures atomClosures, DefaultListModel selectedEntitiesListModel,
+            MList selectedEntitiesList) {
+        checkNotNull(atomicDecomposition);
+        if (atomClosures == null) {
+            throw new NullPointerException("The atom closures cannot be null");
         }
         this.selectedEntitiesListModel = selectedEntitiesListModel;
         this.atomicDecomposition = atomicDecomposition;
+        this.atomClosures = atomClosures;
         this.selectedEntitiesList = selectedEntitiesList;
+        reset();
+    }
+
+    /** Checks that the atomic decomposition is not null.
+     * 
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @return the atomic decomposition */
+    private static AtomicDecomposition checkNotNull(
+            AtomicDecomposition atomicDecomposition) {
+        if (atomicDecomposition == null) {
+            throw new NullPointerException("The atomic decomposition cannot be null");
+        }
+        return atomicDecomposition;
+    }
+
+    /** Recomputes the selected atoms from the list and its selection. */
+    public void reset() {
+        BitSet selected = new BitSet();
+        if (selectedEntitiesList.isSelectionEmpty()) {
+            // then it's all elements in the list model; nothing is highlighted
+            // if the list is empty
+            Enumeration<?> en = selectedEntitiesListModel.elements();
+            while (en.hasMoreElements()) {
+                selected.or(atomClosures.getAtoms(en.nextElement()));
+            }
+        } else {
+            try {
+                for (Object o : selectedEntitiesList.getSelectedValues()) {
+                    selected.or(atomClosures.getAtoms(o));
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                selected.clear();
+            }
+        }
+        selectedAtoms = selected;
     }
 
     @Override
     public boolean getBoolean(Tuple t) {
         boolean toReturn = t instanceof Node;
         if (toReturn) {
-            if (selectedEntitiesList.isSelectionEmpty()) {
-                // then it's all elements in the list model
-                if (selectedEntitiesListModel.isEmpty()) {
-                    // default to not highlight anything
-                    return false;
-                }
-                Atom atom = (Atom) t.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME);
-                final Set<OWLEntity> signature = (Set<OWLEntity>) atom.getSignature();
-                Enumeration<?> en = selectedEntitiesListModel.elements();
-                while (en.hasMoreElements()) {
-                    if (signature.contains(en.nextElement())) {
-                        return true;
-                    }
-                }
-                return false;
-            } else {
-                Atom atom = (Atom) t.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME);
-                final Set<OWLEntity> signature = (Set<OWLEntity>) atom.getSignature();
-                try {
-                    for (Object o : selectedEntitiesList.getSelectedValues()) {
-                        if (signature.contains(o)) {
-                            return true;
-                        }
-                    }
-                } catch (ArrayIndexOutOfBoundsException e) {
-                    return false;
-                }
-                return false;
-            }
+            Atom atom = (Atom) t.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME);
+            int index = atomClosures.getLayering().indexOf(atom);
+            toReturn = index >= 0 && selectedAtoms.get(index);
         }
         return toReturn;
     }
@@ -0,0 +1,75 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import prefuse.Constants;
+import prefuse.render.BoundsRenderer;
+import prefuse.render.DefaultRendererFactory;
+import prefuse.render.EdgeRenderer;
+import prefuse.render.LabelRenderer;
+import prefuse.render.LevelOfDetailRenderer;
+import prefuse.render.PointRenderer;
+import prefuse.render.RendererFactory;
+
+/** The renderers of the atom graph, which get cheaper as the graph is zoomed
+ * out: labels lose their text below {@link #TEXT_SCALE}, nodes become points
+ * below {@link #POINT_SCALE}, and below {@link #TIER_SCALE} nodes and edges are
+ * no longer drawn, the tiers being drawn as bands instead. */
+public final class LevelsOfDetail {
+    /** The group of the tier aggregates. */
+    public static final String TIERS_GROUP = "tiers";
+    /** The scale below which labels are drawn as empty boxes and edges have no
+     * arrowheads. */
+    public static final double TEXT_SCALE = 0.5;
+    /** The scale below which nodes are drawn as points. */
+    public static final double POINT_SCALE = 0.15;
+    /** The scale below which tiers are drawn instead of nodes and edges. */
+    public static final double TIER_SCALE = 0.04;
+
+    /** Instantiates a new levels of detail. */
+    private LevelsOfDetail() {}
+
+    /** Creates the renderer factory for the graph and its tiers.
+     * 
+     * @return the renderer factory */
+    public static RendererFactory createRendererFactory() {
+        // draw the "name" label for NodeItems
+        LabelRenderer labelRenderer = new LabelRenderer();
+        labelRenderer.setRoundedCorner(8, 8);// round the corners
+        labelRenderer.setVerticalPadding(10);
+        labelRenderer.setHorizontalPadding(10);
+        LevelOfDetailRenderer nodeRenderer = new LevelOfDetailRenderer(labelRenderer);
+        nodeRenderer.addLevel(TEXT_SCALE, new BoundsRenderer());
+        nodeRenderer.addLevel(POINT_SCALE, new PointRenderer());
+        nodeRenderer.addLevel(TIER_SCALE, null);
+        EdgeRenderer edgeRenderer = new EdgeRenderer(Constants.EDGE_TYPE_LINE,
+                Constants.EDGE_ARROW_FORWARD);
+        edgeRenderer.setArrowHeadSize(10, 10);
+        edgeRenderer.setArrowType(Constants.EDGE_ARROW_FORWARD);
+        LevelOfDetailRenderer edgeLevels = new LevelOfDetailRenderer(edgeRenderer);
+        edgeLevels.addLevel(TEXT_SCALE, new EdgeRenderer(Constants.EDGE_TYPE_LINE,
+                Constants.EDGE_ARROW_NONE));
+        edgeLevels.addLevel(TIER_SCALE, null);
+        // the tiers are only drawn when zoomed out
+        LevelOfDetailRenderer tierRenderer = new LevelOfDetailRenderer(null);
+        tierRenderer.addLevel(TIER_SCALE, new BoundsRenderer());
+        DefaultRendererFactory factory = new DefaultRendererFactory(nodeRenderer,
+                edgeLevels);
+        factory.add("INGROUP('" + TIERS_GROUP + "')", tierRenderer);
+        return factory;
+    }
+
+    /** Creates renderer factories for tiled rendering, one per processor, as
+     * renderers cannot be shared between threads.
+     * 
+     * @return the renderer factories, or null if there is a single processor */
+    public static RendererFactory[] createTileRendererFactories() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (processors < 2) {
+            return null;
+        }
+        RendererFactory[] factories = new RendererFactory[processors];
+        for (int i = 0; i < processors; i++) {
+            factories[i] = createRendererFactory();
+        }
+        return factories;
+    }
+}
@@ -17,6 +17,13 @@ public class Record {
         this.entity = entity;
     }
 
+    /** Gets the entity.
+     * 
+     * @return the entity */
+    public OWLEntity getEntity() {
+        return entity;
+    }
+
     /** Sets the values.
      * 
      * @param values
@@ -0,0 +1,92 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import prefuse.Display;
+import prefuse.activity.ActivityManager;
+import prefuse.util.metrics.Metrics;
+import prefuse.util.metrics.MetricsRecorder;
+
+/** Opt-in instrumentation of the atom graph views. Running with
+ * <code>-Ddemost.metrics=true</code> records the timings of the paints of the
+ * displays and of the layout and colour actions, and exports them as JMX MBeans
+ * in the {@link #DOMAIN} domain; with <code>-Ddemost.metrics=</code><i>file</i>
+ * every recorded value is also written to the file. All views share the same
+ * metrics. */
+public final class RenderingMetrics {
+    /** The system property enabling the metrics. */
+    public static final String PROPERTY = "demost.metrics";
+    /** The JMX domain of the metrics. */
+    public static final String DOMAIN = "uk.ac.manchester.cs.demost";
+    /** The logger. */
+    private static final Logger LOGGER = Logger.getLogger(RenderingMetrics.class
+            .getName());
+    /** The shared metrics, created on first use. */
+    private static Metrics metrics;
+
+    /** Instantiates a new rendering metrics. */
+    private RenderingMetrics() {}
+
+    /** Gets the shared metrics, creating them if the system property is set.
+     * 
+     * @return the metrics, or null if the metrics are not enabled */
+    public static synchronized Metrics getMetrics() {
+        String value = System.getProperty(PROPERTY);
+        if (metrics == null && value != null && !value.equals("false")) {
+            metrics = new Metrics();
+            try {
+                metrics.registerMBeans(DOMAIN);
+            } catch (JMException e) {
+                // the metrics are still recorded, only not exported
+                LOGGER.log(Level.WARNING, "Could not register the metrics MBeans", e);
+            }
+            if (!value.equals("true") && value.length() > 0) {
+                record(new File(value));
+            }
+            ActivityManager.setMetrics(metrics);
+        }
+        return metrics;
+    }
+
+    /** Records the paints of a display, if the metrics are enabled.
+     * 
+     * @param display
+     *            the display */
+    public static void install(Display display) {
+        if (display == null) {
+            throw new NullPointerException("The display cannot be null");
+        }
+        display.setMetrics(getMetrics());
+    }
+
+    /** Writes every recorded value to a file, flushed when the virtual machine
+     * exits.
+     * 
+     * @param file
+     *            the file */
+    private static void record(File file) {
+        final MetricsRecorder recorder;
+        try {
+            recorder = new MetricsRecorder(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not record the metrics to " + file, e);
+            return;
+        }
+        metrics.addMetricsListener(recorder);
+        Runtime.getRuntime().addShutdownHook(new Thread("demost-metrics") {
+            @Override
+            public void run() {
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not close the metrics recording", e);
+                }
+            }
+        });
+    }
+}
@@ -1,13 +1,14 @@
 package uk.ac.manchester.cs.demost.ui;
 
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.ListModel;
 
-import org.semanticweb.owlapi.model.OWLObject;
-
 import prefuse.data.Edge;
 import prefuse.data.Node;
 import prefuse.data.Tuple;
@@ -16,14 +17,26 @@ import prefuse.data.expression.Predicate;
 import uk.ac.manchester.cs.atomicdecomposition.Atom;
 import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
 
-/** The Class ShouldBeVisiblePredicate. */
+/** The Class ShouldBeVisiblePredicate. An atom is visible if nothing is
+ * selected, or if it is a dependency or a dependent of one of the main atoms,
+ * i.e., the atoms whose signature contains a selected entity. The visible atoms
+ * are kept as a bitset, so that evaluating the predicate on a tuple is a single
+ * bit lookup. The bitset is brought up to date by {@link #reset()}, which only
+ * processes the entities added to or removed from the list since the previous
+ * call: every atom counts the selected entities that make it visible. */
 public class ShouldBeVisiblePredicate extends AbstractPredicate implements Predicate {
     /** The list model. */
     private final ListModel listModel;
     /** The atomic decomposition. */
     private final AtomicDecomposition atomicDecomposition;
-    /** The main atoms. */
-    private final Set<Atom> mainAtoms = new HashSet<Atom>();
+    /** The atom closures. */
+    private final AtomClosures atomClosures;
+    /** The atoms made visible by each entity counted so far. */
+    private final Map<Object, BitSet> counted = new HashMap<Object, BitSet>();
+    /** The number of counted entities making each atom visible. */
+    private final int[] counts;
+    /** The visible atoms, null if no entity is selected. */
+    private volatile BitSet visibleAtoms;
 
     /** Instantiates a new should be visible predicate.
      * 
@@ -33,26 +46,133 @@ public class ShouldBeVisiblePredicate extends AbstractPredicate implements Predi
      *            the atomic decomposition */
     public ShouldBeVisiblePredicate(ListModel listModel,
             AtomicDecomposition atomicDecomposition) {
+        this(listModel, atomicDecomposition, new AtomClosures(new AtomLayering(
+                atomicDecomposition)));
+    }
+
+    /** Instantiates a new should be visible predicate.
+     * 
+     * @param listModel
+     *            the list model
+     * @param atomicDecomposition
+     *            the atomic decomposition
+     * @param atomClosures
+     *            the atom closures of the decomposition */
+    public ShouldBeVisiblePredicate(ListModel listModel,
+            AtomicDecomposition atomicDecomposition, AtomClosures atomClosures) {
         if (listModel == null) {
             throw new NullPointerException("The list Model cannot be null");
         }
+        if (atomClosures == null) {
+            throw new NullPointerException("The atom closures cannot be null");
+        }
         this.atomicDecomposition = atomicDecomposition;
         this.listModel = listModel;
+        this.atomClosures = atomClosures;
+        counts = new int[atomClosures.getLayering().getAtomCount()];
         reset();
     }
 
-    /** Reset. */
-    public void reset() {
-        mainAtoms.clear();
+    /** Brings the visible atoms up to date with the list model.
+     * 
+     * @return the atoms whose visibility has changed */
+    public synchronized BitSet reset() {
+        Set<Object> entities = new HashSet<Object>();
         for (int i = 0; i < listModel.getSize(); i++) {
-            OWLObject owlObject = (OWLObject) listModel.getElementAt(i);
-            Set<Atom> atoms = atomicDecomposition.getAtoms();
-            for (Atom atom : atoms) {
-                if (atom.getSignature().contains(owlObject)) {
-                    mainAtoms.add(atom);
+            entities.add(listModel.getElementAt(i));
+        }
+        BitSet previous = visibleAtoms;
+        BitSet visible = previous == null ? new BitSet() : (BitSet) previous.clone();
+        Iterator<Map.Entry<Object, BitSet>> it = counted.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Object, BitSet> e = it.next();
+            if (!entities.contains(e.getKey())) {
+                BitSet atoms = e.getValue();
+                for (int i = atoms.nextSetBit(0); i >= 0; i = atoms.nextSetBit(i + 1)) {
+                    if (--counts[i] == 0) {
+                        visible.clear(i);
+                    }
+                }
+                it.remove();
+            }
+        }
+        for (Object entity : entities) {
+            if (!counted.containsKey(entity)) {
+                BitSet mainAtoms = atomClosures.getAtoms(entity);
+                BitSet atoms = atomClosures.getDependencies(mainAtoms);
+                atoms.or(atomClosures.getDependents(mainAtoms));
+                for (int i = atoms.nextSetBit(0); i >= 0; i = atoms.nextSetBit(i + 1)) {
+                    if (counts[i]++ == 0) {
+                        visible.set(i);
+                    }
                 }
+                counted.put(entity, atoms);
+            }
+        }
+        BitSet changed = previous == null ? all() : (BitSet) previous.clone();
+        visibleAtoms = counted.isEmpty() ? null : visible;
+        changed.xor(counted.isEmpty() ? all() : visible);
+        return changed;
+    }
+
+    /** Gets all the atoms.
+     * 
+     * @return a new bitset with a bit set for each atom */
+    private BitSet all() {
+        BitSet toReturn = new BitSet(counts.length);
+        toReturn.set(0, counts.length);
+        return toReturn;
+    }
+
+    /** Checks whether an atom is visible.
+     * 
+     * @param index
+     *            the index of the atom
+     * @return true, if the atom is visible */
+    public boolean isVisible(int index) {
+        BitSet visible = visibleAtoms;
+        return visible == null || visible.get(index);
+    }
+
+    /** Gets the hidden atoms, i.e., the atoms whose nodes have to be updated in
+     * a graph where every node is visible.
+     * 
+     * @return a new bitset with a bit set for each hidden atom */
+    public BitSet getHiddenAtoms() {
+        BitSet visible = visibleAtoms;
+        BitSet toReturn = new BitSet();
+        if (visible != null) {
+            toReturn.set(0, counts.length);
+            toReturn.andNot(visible);
+        }
+        return toReturn;
+    }
+
+    /** Gets the atoms whose visibility differs from the visibility their
+     * previous atom had under the predicate of the decomposition a patch has
+     * been computed from; the atoms without a previous atom are included.
+     * 
+     * @param previous
+     *            the predicate of the previous decomposition
+     * @param patch
+     *            the patch from the previous decomposition to this one
+     * @return a new bitset with a bit set for each changed atom */
+    public BitSet getChanges(ShouldBeVisiblePredicate previous, AtomGraphPatch patch) {
+        BitSet toReturn = new BitSet();
+        for (int i = 0; i < counts.length; i++) {
+            int previousIndex = patch.getPreviousIndex(i);
+            if (previousIndex < 0 || previous.isVisible(previousIndex) != isVisible(i)) {
+                toReturn.set(i);
             }
         }
+        return toReturn;
+    }
+
+    /** Gets the atomic decomposition.
+     * 
+     * @return the atomic decomposition */
+    public AtomicDecomposition getAtomicDecomposition() {
+        return atomicDecomposition;
     }
 
     @Override
@@ -65,40 +185,10 @@ public class ShouldBeVisiblePredicate extends AbstractPredicate implements Predi
             toReturn = getBoolean(sourceNode) && getBoolean(targetNode);
         } else {
             Atom atom = (Atom) t.get(DeMoStView.GENERATING_AXIOM_COLUMN_NAME);
-            toReturn = listModel.getSize() == 0 || isDependantFromMainAtoms(atom)
-                    || anyOfMainAtomsDependsOn(atom);
+            int index = atomClosures.getLayering().indexOf(atom);
+            BitSet visible = visibleAtoms;
+            toReturn = visible == null || index >= 0 && visible.get(index);
         }
         return toReturn;
     }
-
-    /** Any of main atoms depends on.
-     * 
-     * @param atom
-     *            the atom
-     * @return true, if successful */
-    private boolean anyOfMainAtomsDependsOn(Atom atom) {
-        boolean found = false;
-        Iterator<Atom> iterator = mainAtoms.iterator();
-        Set<Atom> dependencies = atomicDecomposition.getDependencies(atom);
-        while (!found && iterator.hasNext()) {
-            Atom aMainAtom = iterator.next();
-            found = dependencies.contains(aMainAtom);
-        }
-        return found;
-    }
-
-    /** Checks if is dependant from main atoms.
-     * 
-     * @param atom
-     *            the atom
-     * @return true, if is dependant from main atoms */
-    private boolean isDependantFromMainAtoms(Atom atom) {
-        boolean found = false;
-        Iterator<Atom> iterator = mainAtoms.iterator();
-        while (!found && iterator.hasNext()) {
-            Atom aMainAtom = iterator.next();
-            found = atomicDecomposition.getDependencies(aMainAtom).contains(atom);
-        }
-        return found;
-    }
 }
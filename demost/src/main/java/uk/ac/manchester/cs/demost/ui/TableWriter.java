@@ -0,0 +1,124 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.io.PrintStream;
+
+/** Streams a table to a {@link PrintStream} one cell at a time, so that large
+ * tables can be exported without building them as strings first. With a tab
+ * separator, TSV has no quoting, so tabs and line breaks in cells are written
+ * as spaces; with any other separator, cells containing the separator, quotes
+ * or line breaks are quoted as in CSV. */
+public class TableWriter {
+    /** The Constant CSV_SEPARATOR. */
+    public static final char CSV_SEPARATOR = ',';
+    /** The Constant TSV_SEPARATOR. */
+    public static final char TSV_SEPARATOR = Row.CSV_SEPARATOR;
+    /** The output. */
+    private final PrintStream out;
+    /** The separator. */
+    private final char separator;
+    /** Whether the next cell starts a row. */
+    private boolean rowStart = true;
+
+    /** Instantiates a new table writer.
+     * 
+     * @param out
+     *            the output
+     * @param separator
+     *            the separator */
+    public TableWriter(PrintStream out, char separator) {
+        if (out == null) {
+            throw new NullPointerException("The output cannot be null");
+        }
+        this.out = out;
+        this.separator = separator;
+    }
+
+    /** Writes a row of cells.
+     * 
+     * @param cells
+     *            the cells
+     * @return this writer */
+    public TableWriter row(Object... cells) {
+        for (Object cell : cells) {
+            cell(cell);
+        }
+        return endRow();
+    }
+
+    /** Writes a cell.
+     * 
+     * @param cell
+     *            the cell, written as empty if null
+     * @return this writer */
+    public TableWriter cell(Object cell) {
+        if (!rowStart) {
+            out.print(separator);
+        }
+        rowStart = false;
+        String text = cell == null ? "" : cell.toString();
+        if (separator == TSV_SEPARATOR) {
+            out.print(text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' '));
+        } else if (needsQuotes(text)) {
+            out.print('"');
+            out.print(text.replace("\"", "\"\""));
+            out.print('"');
+        } else {
+            out.print(text);
+        }
+        return this;
+    }
+
+    /** Writes an integer cell.
+     * 
+     * @param cell
+     *            the cell
+     * @return this writer */
+    public TableWriter cell(int cell) {
+        if (!rowStart) {
+            out.print(separator);
+        }
+        rowStart = false;
+        out.print(cell);
+        return this;
+    }
+
+    /** Ends the current row.
+     * 
+     * @return this writer */
+    public TableWriter endRow() {
+        out.print('\n');
+        rowStart = true;
+        return this;
+    }
+
+    /** Flushes the output.
+     * 
+     * @return true, if no error has occurred on the output so far */
+    public boolean flush() {
+        out.flush();
+        return !out.checkError();
+    }
+
+    /** Closes the output.
+     * 
+     * @return true, if no error has occurred on the output */
+    public boolean close() {
+        out.close();
+        return !out.checkError();
+    }
+
+    /** Checks whether a cell has to be quoted.
+     * 
+     * @param text
+     *            the text of the cell
+     * @return true, if the text contains the separator, quotes or line breaks */
+    private boolean needsQuotes(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == separator || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.manchester.cs.demost.ui;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import prefuse.action.GroupAction;
+import prefuse.visual.AggregateItem;
+import prefuse.visual.AggregateTable;
+import prefuse.visual.VisualItem;
+
+/** Groups the visible nodes of the graph into one aggregate per tier, so that
+ * the tiers can be drawn in place of the nodes when the graph is zoomed out.
+ * The aggregates are rebuilt every time the action runs, and are not
+ * interactive. */
+public class TierAggregateAction extends GroupAction {
+    /** The node group. */
+    private final String nodeGroup;
+
+    /** Instantiates a new tier aggregate action.
+     * 
+     * @param aggregateGroup
+     *            the group of the aggregates, which must be an aggregate group
+     * @param nodeGroup
+     *            the group of the nodes */
+    public TierAggregateAction(String aggregateGroup, String nodeGroup) {
+        super(aggregateGroup);
+        if (nodeGroup == null) {
+            throw new NullPointerException("The node group cannot be null");
+        }
+        this.nodeGroup = nodeGroup;
+    }
+
+    @Override
+    public void run(double frac) {
+        AggregateTable tiers = (AggregateTable) m_vis.getGroup(m_group);
+        tiers.clear();
+        Map<Object, AggregateItem> aggregates = new HashMap<Object, AggregateItem>();
+        Iterator<?> items = m_vis.visibleItems(nodeGroup);
+        while (items.hasNext()) {
+            VisualItem item = (VisualItem) items.next();
+            Object tier = item.get(AtomGraph.Y_COLUMN_NAME);
+            if (tier == null) {
+                continue;
+            }
+            AggregateItem aggregate = aggregates.get(tier);
+            if (aggregate == null) {
+                aggregate = (AggregateItem) tiers.addItem();
+                aggregate.setInteractive(false);
+                aggregates.put(tier, aggregate);
+            }
+            aggregate.addItem(item);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomClosures;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+
+@SuppressWarnings("javadoc")
+public class AtomClosuresTest {
+    @Test
+    public void shouldAnswerReachabilityOnSubClassChain()
+            throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass powerYoga = f.getOWLClass(IRI.create("urn:test#PowerYoga"));
+        OWLClass yoga = f.getOWLClass(IRI.create("urn:test#Yoga"));
+        OWLClass relaxation = f.getOWLClass(IRI.create("urn:test#Relaxation"));
+        OWLClass activity = f.getOWLClass(IRI.create("urn:test#Activity"));
+        OWLSubClassOfAxiom poweryogaSub = f.getOWLSubClassOfAxiom(powerYoga, yoga);
+        OWLSubClassOfAxiom yogaSubRelax = f.getOWLSubClassOfAxiom(yoga, relaxation);
+        OWLSubClassOfAxiom relaxSubActivity = f.getOWLSubClassOfAxiom(relaxation,
+                activity);
+        m.addAxiom(o, poweryogaSub);
+        m.addAxiom(o, yogaSubRelax);
+        m.addAxiom(o, relaxSubActivity);
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomClosures closures = new AtomClosures(new AtomLayering(ad));
+        Atom top = ad.getAtomForAxiom(poweryogaSub);
+        Atom middle = ad.getAtomForAxiom(yogaSubRelax);
+        Atom bottom = ad.getAtomForAxiom(relaxSubActivity);
+        assertTrue(closures.dependsOn(top, bottom));
+        assertTrue(closures.dependsOn(top, middle));
+        assertTrue(closures.dependsOn(middle, middle));
+        assertFalse(closures.dependsOn(bottom, top));
+        int m0 = closures.getLayering().indexOf(middle);
+        assertEquals(ad.getDependencies(middle).size(), closures.getDependencies(m0)
+                .cardinality());
+        assertEquals(ad.getDependents(middle).size(), closures.getDependents(m0)
+                .cardinality());
+        BitSet selection = closures.toBitSet(Collections.singleton(top));
+        assertEquals(3, closures.getDependencies(selection).cardinality());
+        assertEquals(1, closures.getDependents(selection).cardinality());
+    }
+
+    @Test
+    public void shouldIndexAtomsBySignature() throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass yoga = f.getOWLClass(IRI.create("urn:test#Yoga"));
+        OWLClass relaxation = f.getOWLClass(IRI.create("urn:test#Relaxation"));
+        OWLClass activity = f.getOWLClass(IRI.create("urn:test#Activity"));
+        OWLSubClassOfAxiom yogaSubRelax = f.getOWLSubClassOfAxiom(yoga, relaxation);
+        OWLSubClassOfAxiom relaxSubActivity = f.getOWLSubClassOfAxiom(relaxation,
+                activity);
+        m.addAxiom(o, yogaSubRelax);
+        m.addAxiom(o, relaxSubActivity);
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomClosures closures = new AtomClosures(new AtomLayering(ad));
+        Atom top = ad.getAtomForAxiom(yogaSubRelax);
+        Atom bottom = ad.getAtomForAxiom(relaxSubActivity);
+        assertEquals(Collections.singletonList(top),
+                closures.toAtoms(closures.getAtoms(yoga)));
+        assertEquals(Collections.singletonList(bottom),
+                closures.toAtoms(closures.getAtoms(activity)));
+        assertEquals(2, closures.getAtoms(relaxation).cardinality());
+        assertTrue(closures.getAtoms(f.getOWLClass(IRI.create("urn:test#Other")))
+                .isEmpty());
+    }
+}
@@ -0,0 +1,115 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+
+import javax.swing.DefaultListModel;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import prefuse.data.Graph;
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomClosures;
+import uk.ac.manchester.cs.demost.ui.AtomGraph;
+import uk.ac.manchester.cs.demost.ui.AtomGraphPatch;
+import uk.ac.manchester.cs.demost.ui.AtomLabelIndex;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+import uk.ac.manchester.cs.demost.ui.Renderer;
+import uk.ac.manchester.cs.demost.ui.ShouldBeVisiblePredicate;
+
+@SuppressWarnings("javadoc")
+public class AtomGraphPatchTest {
+    private static final Renderer<OWLEntity> RENDERER = new Renderer<OWLEntity>() {
+        @Override
+        public String render(OWLEntity entity) {
+            return entity.toString();
+        }
+    };
+
+    @Test
+    public void shouldPatchOnlyChangedAtoms() throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass a = f.getOWLClass(IRI.create("urn:test#A"));
+        OWLClass b = f.getOWLClass(IRI.create("urn:test#B"));
+        OWLClass c = f.getOWLClass(IRI.create("urn:test#C"));
+        OWLClass d = f.getOWLClass(IRI.create("urn:test#D"));
+        OWLClass e = f.getOWLClass(IRI.create("urn:test#E"));
+        OWLAxiom ab = f.getOWLSubClassOfAxiom(a, b);
+        OWLAxiom cd = f.getOWLSubClassOfAxiom(c, d);
+        OWLAxiom de = f.getOWLSubClassOfAxiom(d, e);
+        m.addAxiom(o, ab);
+        m.addAxiom(o, cd);
+        AtomicDecomposition before = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomGraph graph = new AtomGraph(new Graph(true), RENDERER);
+        graph.build(before);
+        AtomLayering previous = graph.getLayering();
+        AtomClosures previousClosures = new AtomClosures(previous);
+        DefaultListModel list = new DefaultListModel();
+        list.addElement(a);
+        ShouldBeVisiblePredicate previousVisibility = new ShouldBeVisiblePredicate(list,
+                before, previousClosures);
+        // a new atom for d and e, on which the atom of c and d depends
+        m.addAxiom(o, de);
+        AtomicDecomposition after = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomLayering layering = new AtomLayering(after);
+        AtomGraphPatch patch = new AtomGraphPatch(previous, layering, new AtomLabelIndex(
+                after, RENDERER), after, new HashSet<OWLEntity>(de.getSignature()));
+        assertTrue(patch.getRemoved().isEmpty());
+        assertEquals(1, patch.getAdded().size());
+        Atom added = patch.getAdded().get(0);
+        assertEquals(Collections.singleton(de), new HashSet<OWLAxiom>(added.getAxioms()));
+        assertEquals(2, patch.getMatches().size());
+        assertTrue(patch.getAffected().contains(added));
+        for (Atom atom : patch.getAffected()) {
+            assertFalse(atom.getAxioms().contains(ab));
+        }
+        assertEquals(-1, patch.getPreviousIndex(layering.indexOf(added)));
+        assertEquals(3, layering.getAtomCount());
+        // only the new atom is visible differently: it is hidden as c and d
+        AtomClosures closures = new AtomClosures(layering);
+        ShouldBeVisiblePredicate visibility = new ShouldBeVisiblePredicate(list, after,
+                closures);
+        BitSet changed = new BitSet();
+        changed.set(layering.indexOf(added));
+        assertEquals(changed, visibility.getChanges(previousVisibility, patch));
+        assertEquals(patch.getAffected(), graph.apply(patch));
+        assertTrue(layering == graph.getLayering());
+        assertEquals(3, graph.getGraph().getNodeCount());
+        int edges = 0;
+        for (Atom atom : layering.getAtoms()) {
+            edges += layering.getDirectDependencies(atom).size();
+        }
+        assertEquals(edges, graph.getGraph().getEdgeCount());
+        for (Atom atom : layering.getAtoms()) {
+            assertTrue(atom == graph.getNode(atom).get(
+                    AtomGraph.GENERATING_AXIOM_COLUMN_NAME));
+            assertEquals(Integer.valueOf(layering.getTier(atom)), graph.getNode(atom)
+                    .get(AtomGraph.Y_COLUMN_NAME));
+        }
+        // a patch for another layering rebuilds the graph instead
+        m.removeAxiom(o, ab);
+        AtomicDecomposition last = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomGraphPatch stale = new AtomGraphPatch(previous, new AtomLayering(last),
+                new AtomLabelIndex(last, RENDERER), last, new HashSet<OWLEntity>(
+                        ab.getSignature()));
+        assertEquals(1, stale.getRemoved().size());
+        graph.apply(stale);
+        assertEquals(2, graph.getGraph().getNodeCount());
+    }
+}
@@ -0,0 +1,54 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+
+@SuppressWarnings("javadoc")
+public class AtomLayeringTest {
+    @Test
+    public void shouldLayerSubClassChain() throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass powerYoga = f.getOWLClass(IRI.create("urn:test#PowerYoga"));
+        OWLClass yoga = f.getOWLClass(IRI.create("urn:test#Yoga"));
+        OWLClass relaxation = f.getOWLClass(IRI.create("urn:test#Relaxation"));
+        OWLClass activity = f.getOWLClass(IRI.create("urn:test#Activity"));
+        OWLSubClassOfAxiom poweryogaSub = f.getOWLSubClassOfAxiom(powerYoga, yoga);
+        OWLSubClassOfAxiom yogaSubRelax = f.getOWLSubClassOfAxiom(yoga, relaxation);
+        OWLSubClassOfAxiom relaxSubActivity = f.getOWLSubClassOfAxiom(relaxation,
+                activity);
+        m.addAxiom(o, poweryogaSub);
+        m.addAxiom(o, yogaSubRelax);
+        m.addAxiom(o, relaxSubActivity);
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomLayering layering = new AtomLayering(ad);
+        Atom top = ad.getAtomForAxiom(poweryogaSub);
+        Atom middle = ad.getAtomForAxiom(yogaSubRelax);
+        Atom bottom = ad.getAtomForAxiom(relaxSubActivity);
+        assertEquals(3, layering.getAtomCount());
+        assertEquals(3, layering.getMaxHeight());
+        assertEquals(3, layering.getHeight(top));
+        assertEquals(2, layering.getHeight(middle));
+        assertEquals(1, layering.getHeight(bottom));
+        assertEquals(3, layering.getTierCount());
+        assertEquals(0, layering.getTier(top));
+        assertEquals(2, layering.getTier(bottom));
+        assertTrue(layering.getTier(1).contains(middle));
+        assertEquals(1, layering.getTier(0).size());
+    }
+}
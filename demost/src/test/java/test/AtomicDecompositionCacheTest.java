@@ -0,0 +1,106 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.io.ToStringRenderer;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomicDecompositionCache;
+import uk.ac.manchester.cs.owl.owlapi.SimpleRenderer;
+import uk.ac.manchester.cs.owl.owlapi.mansyntaxrenderer.ManchesterOWLSyntaxOWLObjectRendererImpl;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+
+@SuppressWarnings("javadoc")
+public class AtomicDecompositionCacheTest {
+    @Test
+    public void shouldRestoreStoredDecomposition() throws OWLOntologyCreationException,
+            IOException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass powerYoga = f.getOWLClass(IRI.create("urn:test#PowerYoga"));
+        OWLClass yoga = f.getOWLClass(IRI.create("urn:test#Yoga"));
+        OWLClass relaxation = f.getOWLClass(IRI.create("urn:test#Relaxation"));
+        OWLSubClassOfAxiom poweryogaSub = f.getOWLSubClassOfAxiom(powerYoga, yoga);
+        OWLSubClassOfAxiom yogaSubRelax = f.getOWLSubClassOfAxiom(yoga, relaxation);
+        m.addAxiom(o, poweryogaSub);
+        m.addAxiom(o, yogaSubRelax);
+        File directory = File.createTempFile("demost", "cache");
+        directory.delete();
+        AtomicDecompositionCache cache = new AtomicDecompositionCache(directory);
+        assertNull(cache.load(o, ModuleType.BOT));
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o, ModuleType.BOT);
+        assertTrue(cache.store(o, ModuleType.BOT, ad));
+        assertNull(cache.load(o, ModuleType.STAR));
+        AtomicDecomposition restored = cache.load(o, ModuleType.BOT);
+        assertNotNull(restored);
+        assertEquals(ad.getAtoms().size(), restored.getAtoms().size());
+        assertEquals(ad.getTermBasedIndex().keySet(), restored.getTermBasedIndex()
+                .keySet());
+        Atom top = restored.getAtomForAxiom(poweryogaSub);
+        Atom bottom = restored.getAtomForAxiom(yogaSubRelax);
+        assertTrue(restored.getDependencies(top).contains(bottom));
+        assertTrue(restored.getDependents(bottom).contains(top));
+        assertFalse(restored.getDependencies(bottom).contains(top));
+        // a different axiom, with the same counts of axioms and entities
+        m.removeAxiom(o, yogaSubRelax);
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(relaxation, yoga));
+        assertNull(cache.load(o, ModuleType.BOT));
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void shouldTellNamespacesApart() throws OWLOntologyCreationException,
+            IOException {
+        // short names, as set by the views, render both ontologies alike
+        ToStringRenderer.getInstance().setRenderer(
+                new ManchesterOWLSyntaxOWLObjectRendererImpl());
+        File directory = File.createTempFile("demost", "cache");
+        directory.delete();
+        try {
+            OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+            OWLDataFactory f = m.getOWLDataFactory();
+            OWLClass aA = f.getOWLClass(IRI.create("urn:a#A"));
+            OWLClass aB = f.getOWLClass(IRI.create("urn:a#B"));
+            OWLClass aC = f.getOWLClass(IRI.create("urn:a#C"));
+            OWLClass bB = f.getOWLClass(IRI.create("urn:b#B"));
+            OWLOntology first = m.createOntology();
+            m.addAxiom(first, f.getOWLSubClassOfAxiom(aA, aB));
+            m.addAxiom(first, f.getOWLSubClassOfAxiom(bB, aC));
+            OWLOntology second = m.createOntology();
+            m.addAxiom(second, f.getOWLSubClassOfAxiom(aA, bB));
+            m.addAxiom(second, f.getOWLSubClassOfAxiom(aB, aC));
+            AtomicDecompositionCache cache = new AtomicDecompositionCache(directory);
+            assertTrue(cache.store(first, ModuleType.BOT, new AtomicDecomposerOWLAPITOOLS(
+                    first, ModuleType.BOT)));
+            assertNotNull(cache.load(first, ModuleType.BOT));
+            assertNull(cache.load(second, ModuleType.BOT));
+        } finally {
+            ToStringRenderer.getInstance().setRenderer(new SimpleRenderer());
+            File[] files = directory.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            directory.delete();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLEntity;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import uk.ac.manchester.cs.atomicdecomposition.Atom;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomClosures;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+import uk.ac.manchester.cs.demost.ui.InfluenceMatrixModel;
+import uk.ac.manchester.cs.demost.ui.Record;
+
+@SuppressWarnings("javadoc")
+public class InfluenceMatrixModelTest {
+    @Test
+    public void shouldMatchSetBasedInfluence() throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass powerYoga = f.getOWLClass(IRI.create("urn:test#PowerYoga"));
+        OWLClass yoga = f.getOWLClass(IRI.create("urn:test#Yoga"));
+        OWLClass relaxation = f.getOWLClass(IRI.create("urn:test#Relaxation"));
+        OWLClass activity = f.getOWLClass(IRI.create("urn:test#Activity"));
+        OWLClass hotYoga = f.getOWLClass(IRI.create("urn:test#HotYoga"));
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(powerYoga, yoga));
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(yoga, relaxation));
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(relaxation, activity));
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(hotYoga, yoga));
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomClosures closures = new AtomClosures(new AtomLayering(ad));
+        InfluenceMatrixModel sequential = InfluenceMatrixModel.create(ad, closures, 1);
+        InfluenceMatrixModel parallel = InfluenceMatrixModel.create(ad, closures, 4);
+        Map<OWLEntity, Set<Atom>> index = ad.getTermBasedIndex();
+        assertEquals(index.size(), sequential.getRecords().size());
+        assertEquals(sequential.toString(), parallel.toString());
+        for (Record record : sequential.getRecords()) {
+            Set<Atom> own = index.get(record.getEntity());
+            assertEquals(own.size(), record.getValue(0));
+            Set<Atom> dependencies = new HashSet<Atom>();
+            Set<Atom> dependents = new HashSet<Atom>();
+            for (Atom a : own) {
+                dependencies.addAll(ad.getDependencies(a));
+                dependents.addAll(ad.getDependents(a));
+            }
+            dependencies.removeAll(own);
+            dependents.removeAll(own);
+            assertEquals(dependencies.size(), record.getValue(1));
+            assertEquals(dependents.size(), record.getValue(2));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+
+import javax.swing.DefaultListModel;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposerOWLAPITOOLS;
+import uk.ac.manchester.cs.atomicdecomposition.AtomicDecomposition;
+import uk.ac.manchester.cs.demost.ui.AtomClosures;
+import uk.ac.manchester.cs.demost.ui.AtomLayering;
+import uk.ac.manchester.cs.demost.ui.ShouldBeVisiblePredicate;
+
+@SuppressWarnings("javadoc")
+public class ShouldBeVisiblePredicateTest {
+    @Test
+    public void shouldReportOnlyChangedAtoms() throws OWLOntologyCreationException {
+        OWLOntologyManager m = OWLManager.createOWLOntologyManager();
+        OWLOntology o = m.createOntology();
+        OWLDataFactory f = m.getOWLDataFactory();
+        OWLClass a = f.getOWLClass(IRI.create("urn:test#A"));
+        OWLClass b = f.getOWLClass(IRI.create("urn:test#B"));
+        OWLClass c = f.getOWLClass(IRI.create("urn:test#C"));
+        OWLClass d = f.getOWLClass(IRI.create("urn:test#D"));
+        // two unrelated atoms
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(a, b));
+        m.addAxiom(o, f.getOWLSubClassOfAxiom(c, d));
+        AtomicDecomposition ad = new AtomicDecomposerOWLAPITOOLS(o);
+        AtomClosures closures = new AtomClosures(new AtomLayering(ad));
+        BitSet ab = closures.getAtoms(a);
+        BitSet cd = closures.getAtoms(c);
+        DefaultListModel list = new DefaultListModel();
+        ShouldBeVisiblePredicate predicate = new ShouldBeVisiblePredicate(list, ad,
+                closures);
+        assertTrue(predicate.reset().isEmpty());
+        list.addElement(a);
+        // everything was visible, the atom of c and d disappears
+        assertEquals(cd, predicate.reset());
+        list.addElement(b);
+        assertTrue(predicate.reset().isEmpty());
+        list.addElement(d);
+        assertEquals(cd, predicate.reset());
+        list.removeElement(a);
+        list.removeElement(b);
+        assertEquals(ab, predicate.reset());
+        list.removeElement(d);
+        assertEquals(ab, predicate.reset());
+    }
+}
@@ -0,0 +1,36 @@
+package test;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.cs.demost.ui.TableWriter;
+
+@SuppressWarnings("javadoc")
+public class TableWriterTest {
+    @Test
+    public void shouldQuoteCsvCellsOnly() {
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        TableWriter out = new TableWriter(new PrintStream(csv), TableWriter.CSV_SEPARATOR);
+        out.row("a,b", "say \"hi\"", null).cell(1).cell("c").endRow();
+        assertTrue(out.close());
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\n1,c\n", csv.toString());
+        ByteArrayOutputStream tsv = new ByteArrayOutputStream();
+        out = new TableWriter(new PrintStream(tsv), TableWriter.TSV_SEPARATOR);
+        out.row("a,b", 2);
+        assertTrue(out.close());
+        assertEquals("a,b\t2\n", tsv.toString());
+    }
+
+    @Test
+    public void shouldFlattenTsvCells() {
+        ByteArrayOutputStream tsv = new ByteArrayOutputStream();
+        TableWriter out = new TableWriter(new PrintStream(tsv), TableWriter.TSV_SEPARATOR);
+        out.row("a\tb", "c\nd", "e\r\nf", "\"g\"");
+        assertTrue(out.close());
+        assertEquals("a b\tc d\te  f\t\"g\"\n", tsv.toString());
+    }
+}
@@ -25,7 +25,9 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.logging.Logger;
 
 import javax.imageio.ImageIO;
@@ -44,6 +46,7 @@ import prefuse.data.expression.BooleanLiteral;
 import prefuse.data.expression.Predicate;
 import prefuse.data.expression.parser.ExpressionParser;
 import prefuse.render.Renderer;
+import prefuse.render.RendererFactory;
 import prefuse.util.ColorLib;
 import prefuse.util.StringLib;
 import prefuse.util.UpdateListener;
@@ -54,7 +57,11 @@ import prefuse.util.display.DebugStatsPainter;
 import prefuse.util.display.ExportDisplayAction;
 import prefuse.util.display.ItemBoundsListener;
 import prefuse.util.display.PaintListener;
+import prefuse.util.display.RenderBatcher;
 import prefuse.util.display.RenderingQueue;
+import prefuse.util.display.SpatialIndex;
+import prefuse.util.display.TileRasterizer;
+import prefuse.util.metrics.Metrics;
 import prefuse.visual.VisualItem;
 import prefuse.visual.expression.VisiblePredicate;
 import prefuse.visual.sort.ItemSorter;
@@ -139,6 +146,26 @@ public class Display extends JComponent {
     protected RenderingQueue m_queue = new RenderingQueue();
     /** The m_visible count. */
     protected int m_visibleCount = 0;
+    /** The m_tiles, rendering the queue on several threads, or null. */
+    protected TileRasterizer m_tiles = null;
+    /** The m_batcher, batching items of the queue with the same renderer. */
+    protected RenderBatcher m_batcher = new RenderBatcher();
+    /** The m_metrics, recording the timings of paints, or null. */
+    protected Metrics m_metrics = null;
+    // spatial index of item bounds
+    /** The m_index. */
+    protected SpatialIndex m_index = new SpatialIndex();
+    /** The items whose bounds or visibility may have changed since the index
+     * was last updated. */
+    private final LinkedHashSet m_changed = new LinkedHashSet();
+    /** Whether the index has to be rebuilt from all items. */
+    private volatile boolean m_indexStale = true;
+    /** Whether the item bounds and count have to be recomputed. */
+    private volatile boolean m_boundsStale = true;
+    /** The thread updating the index, whose own changes are ignored. */
+    private Thread m_indexer;
+    /** The items returned by index queries. */
+    private final ArrayList m_candidates = new ArrayList();
     // transform variables
     /** The m_transform. */
     protected AffineTransform m_transform = new AffineTransform();
@@ -229,6 +256,7 @@ public class Display extends JComponent {
         m_predicate.addExpressionListener(new UpdateListener() {
             @Override
             public void update(Object src) {
+                m_boundsStale = true;
                 damageReport();
             }
         });
@@ -358,6 +386,25 @@ public class Display extends JComponent {
         return frameRate;
     }
 
+    /** Get the metrics in which the timings of paints are recorded.
+     * 
+     * @return the metrics, or null if timings are not recorded */
+    public Metrics getMetrics() {
+        return m_metrics;
+    }
+
+    /** Sets the metrics in which the timings of paints are recorded. Each
+     * paint records the duration of its phases, from the computation of the
+     * damaged region to the rendering of the items, and the number of items
+     * rendered and culled, under the <code>DISPLAY_</code> names of
+     * {@link Metrics}. Several displays can share the same metrics.
+     * 
+     * @param metrics
+     *            the metrics, or null to stop recording */
+    public void setMetrics(Metrics metrics) {
+        m_metrics = metrics;
+    }
+
     /** Determines if the Display uses a higher quality rendering, using
      * anti-aliasing. This causes drawing to be much slower, however, and so is
      * disabled by default.
@@ -379,6 +426,33 @@ public class Display extends JComponent {
         return m_highQuality;
     }
 
+    /** Enables or disables tiled rendering, which splits the damaged region
+     * into tiles drawn in parallel, one thread per renderer factory. Renderers
+     * are usually not thread-safe, so each thread needs a factory of its own,
+     * returning renderers equivalent to those of the visualization. Drawing to
+     * a transformed graphics context, as when printing, is always serial.
+     * 
+     * @param factories
+     *            the renderer factories, one per thread, or null to render on
+     *            the painting thread only */
+    public synchronized void setTiledRendering(RendererFactory[] factories) {
+        if (m_tiles != null) {
+            m_tiles.dispose();
+            m_tiles = null;
+        }
+        if (factories != null && factories.length > 0) {
+            m_tiles = new TileRasterizer(factories);
+        }
+        damageReport();
+    }
+
+    /** Indicates if the Display renders in tiles on several threads.
+     * 
+     * @return true if tiled rendering is enabled, false otherwise */
+    public boolean isTiledRendering() {
+        return m_tiles != null;
+    }
+
     /** Returns the Visualization backing this Display.
      * 
      * @return this Display's {@link Visualization} */
@@ -406,6 +480,86 @@ public class Display extends JComponent {
         if (m_vis != null) {
             m_vis.addDisplay(this);
         }
+        invalidateIndex();
+    }
+
+    // ------------------------------------------------------------------------
+    // Spatial Index
+    /** Reports that an item has been added or removed, or that its bounds or
+     * visibility may have changed. The item is reindexed on the next paint.
+     * Called by the Visualization.
+     * 
+     * @param item
+     *            the changed item */
+    void itemChanged(VisualItem item) {
+        if (m_indexStale || m_indexer == Thread.currentThread()) {
+            return; // the index is rebuilt anyway, or we are validating
+        }
+        synchronized (m_changed) {
+            m_changed.add(item);
+        }
+    }
+
+    /** Reports that the whole index has to be rebuilt on the next paint, for
+     * example because data groups have been added to or removed from the
+     * Visualization. */
+    void invalidateIndex() {
+        m_indexStale = true;
+        synchronized (m_changed) {
+            m_changed.clear();
+        }
+    }
+
+    /** Brings the spatial index up to date, validating the bounds of the
+     * changed items, and recomputes the item bounds and the visible item count
+     * if anything has changed. Must be called with the Visualization and this
+     * Display locked. */
+    protected void updateIndex() {
+        boolean changed = m_boundsStale;
+        m_indexer = Thread.currentThread();
+        try {
+            if (m_indexStale) {
+                m_indexStale = false;
+                synchronized (m_changed) {
+                    m_changed.clear();
+                }
+                m_index.clear();
+                for (Iterator items = m_vis.items(); items.hasNext();) {
+                    VisualItem item = (VisualItem) items.next();
+                    m_index.update(item, item.getBounds());
+                }
+                changed = true;
+            } else {
+                Object[] items;
+                synchronized (m_changed) {
+                    items = m_changed.toArray();
+                    m_changed.clear();
+                }
+                for (int i = 0; i < items.length; ++i) {
+                    VisualItem item = (VisualItem) items[i];
+                    if (item.isValid()) {
+                        m_index.update(item, item.getBounds());
+                    } else {
+                        m_index.remove(item);
+                    }
+                }
+                changed |= items.length > 0;
+            }
+        } finally {
+            m_indexer = null;
+        }
+        if (changed) {
+            m_boundsStale = false;
+            m_bounds.reset();
+            m_visibleCount = 0;
+            for (Iterator items = m_index.items(); items.hasNext();) {
+                VisualItem item = (VisualItem) items.next();
+                if (m_predicate.getBoolean(item)) {
+                    m_bounds.union(item.getBounds());
+                    ++m_visibleCount;
+                }
+            }
+        }
     }
 
     /** Returns the filtering Predicate used to control what items are drawn by
@@ -812,6 +966,8 @@ public class Display extends JComponent {
      * @see javax.swing.JComponent#paintComponent(java.awt.Graphics) */
     @Override
     public void paintComponent(Graphics g) {
+        Metrics metrics = m_metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
         if (m_offscreen == null) {
             m_offscreen = getNewOffscreenBuffer(getWidth(), getHeight());
             damageReport();
@@ -837,6 +993,9 @@ public class Display extends JComponent {
             mark = t;
             nframes = 0;
         }
+        if (metrics != null) {
+            metrics.recordSince(Metrics.DISPLAY_FRAME, start);
+        }
     }
 
     /** Renders the display within the given graphics context and size bounds.
@@ -852,6 +1011,10 @@ public class Display extends JComponent {
                 if (m_clip.isEmpty()) {
                     return; // no damage, no render
                 }
+                Metrics metrics = m_metrics;
+                long t = metrics == null ? 0 : System.nanoTime();
+                // tiles are composited in pixels of the graphics context
+                boolean tiled = m_tiles != null && g2D.getTransform().isIdentity();
                 // map the screen bounds to absolute coords
                 m_screen.setClip(0, 0, d.width + 1, d.height + 1);
                 m_screen.transform(m_itransform);
@@ -896,30 +1059,51 @@ public class Display extends JComponent {
                 }
                 // now clear the region
                 clearRegion(g2D, m_rclip);
+                if (metrics != null) {
+                    t = metrics.recordSince(Metrics.DISPLAY_DAMAGE, t);
+                }
                 // -- render ----------------------------
                 // the actual rendering loop
-                // copy current item bounds into m_rclip, reset item bounds
+                // copy current item bounds into m_rclip, update the index
                 getItemBounds(m_rclip);
-                m_bounds.reset();
-                // fill the rendering and picking queues
+                updateIndex();
+                // fill the rendering queue with the items in the clip only
                 m_queue.clear();   // clear the queue
-                Iterator items = m_vis.items(m_predicate);
-                for (m_visibleCount = 0; items.hasNext(); ++m_visibleCount) {
-                    VisualItem item = (VisualItem) items.next();
-                    Rectangle2D bounds = item.getBounds();
-                    m_bounds.union(bounds); // add to item bounds
-                    if (m_clip.intersects(bounds, pixel)) {
+                m_candidates.clear();
+                m_index.query(m_clip.getMinX() - pixel, m_clip.getMinY() - pixel,
+                        m_clip.getMaxX() + pixel, m_clip.getMaxY() + pixel, m_candidates);
+                for (int i = 0; i < m_candidates.size(); ++i) {
+                    VisualItem item = (VisualItem) m_candidates.get(i);
+                    if (m_predicate.getBoolean(item)
+                            && m_clip.intersects(item.getBounds(), pixel)) {
                         m_queue.addToRenderQueue(item);
                     }
-                    if (item.isInteractive()) {
-                        m_queue.addToPickingQueue(item);
-                    }
+                }
+                m_candidates.clear();
+                if (metrics != null) {
+                    t = metrics.recordSince(Metrics.DISPLAY_FILL, t);
                 }
                 // sort the rendering queue
                 m_queue.sortRenderQueue();
+                if (metrics != null) {
+                    t = metrics.recordSince(Metrics.DISPLAY_SORT, t);
+                }
                 // render each visual item
-                for (int i = 0; i < m_queue.rsize; ++i) {
-                    m_queue.ritems[i].render(g2D);
+                if (tiled) {
+                    m_tiles.render(g2D, m_queue.ritems, m_queue.rscores, m_queue.rsize,
+                            d);
+                } else {
+                    for (int i = 0; i < m_queue.rsize; ++i) {
+                        VisualItem item = m_queue.ritems[i];
+                        m_batcher.render(g2D, item, item.getRenderer(),
+                                m_queue.rscores[i]);
+                    }
+                    m_batcher.flush(g2D);
+                }
+                if (metrics != null) {
+                    metrics.recordSince(Metrics.DISPLAY_RENDER, t);
+                    metrics.record(Metrics.DISPLAY_RENDERED, m_queue.rsize);
+                    metrics.record(Metrics.DISPLAY_CULLED, m_index.size() - m_queue.rsize);
                 }
                 // no more damage so reset the clip
                 if (m_damageRedraw) {
@@ -1554,10 +1738,22 @@ public class Display extends JComponent {
     public synchronized VisualItem findItem(Point p) {
         // transform mouse point from screen space to item space
         Point2D p2 = m_itransform == null ? p : m_itransform.transform(p, m_tmpPoint);
-        // ensure that the picking queue has been z-sorted
-        if (!m_queue.psorted) {
-            m_queue.sortPickingQueue();
+        // only the items indexed near the point can be hit; the tolerance
+        // covers renderers that accept hits slightly outside the bounds
+        double tolerance = 1.0 + 1.0 / getScale();
+        m_candidates.clear();
+        m_index.query(p2.getX() - tolerance, p2.getY() - tolerance, p2.getX()
+                + tolerance, p2.getY() + tolerance, m_candidates);
+        m_queue.clearPickingQueue();
+        for (int i = 0; i < m_candidates.size(); ++i) {
+            VisualItem item = (VisualItem) m_candidates.get(i);
+            if (item.isValid() && item.isInteractive() && m_predicate.getBoolean(item)) {
+                m_queue.addToPickingQueue(item);
+            }
         }
+        m_candidates.clear();
+        // ensure that the picking queue has been z-sorted
+        m_queue.sortPickingQueue();
         // walk queue from front to back looking for hits
         for (int i = m_queue.psize; --i >= 0;) {
             VisualItem vi = m_queue.pitems[i];
@@ -265,6 +265,7 @@ public class Visualization {
         if (src != null) {
             m_source.put(group, src);
         }
+        invalidateIndexes();
     }
 
     // -- Tables --------------------------------------------------------------
@@ -728,6 +729,7 @@ public class Visualization {
         }
         m_visual.remove(group);
         m_source.remove(group);
+        invalidateIndexes();
         return true;
     }
 
@@ -747,6 +749,7 @@ public class Visualization {
         // finally clear out all map entries
         m_visual.clear();
         m_source.clear();
+        invalidateIndexes();
     }
 
     // ------------------------------------------------------------------------
@@ -1090,7 +1093,8 @@ public class Visualization {
     // ------------------------------------------------------------------------
     // Action Methods
     /** Add a data processing Action to this Visualization. The Action will be
-     * updated to use this Visualization in its data processing.
+     * updated to use this Visualization in its data processing, and is named
+     * after the given name if it has no name yet.
      * 
      * @param name
      *            the name of the Action
@@ -1099,6 +1103,9 @@ public class Visualization {
      * @return the action */
     public Action putAction(String name, Action action) {
         action.setVisualization(this);
+        if (action.getName() == null) {
+            action.setName(name);
+        }
         m_actions.put(name, action);
         return action;
     }
@@ -1344,4 +1351,23 @@ public class Visualization {
             }
         }
     }
+
+    /** Reports that an item has been added or removed, or that its bounds or
+     * visibility may have changed, so that the spatial indexes of the Displays
+     * can be updated. Called by the visual tables on every row change.
+     * 
+     * @param item
+     *            the changed item */
+    public void itemChanged(VisualItem item) {
+        for (int i = 0; i < m_displays.size(); ++i) {
+            getDisplay(i).itemChanged(item);
+        }
+    }
+
+    /** Makes all Displays rebuild their spatial index on their next paint. */
+    private void invalidateIndexes() {
+        for (int i = 0; i < m_displays.size(); ++i) {
+            getDisplay(i).invalidateIndex();
+        }
+    }
 } // end of class Visualization
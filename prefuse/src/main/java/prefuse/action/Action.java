@@ -142,4 +142,14 @@ public abstract class Action extends Activity {
     public void setVisualization(Visualization vis) {
         m_vis = vis;
     }
+
+    /** Get the scheduling key: the actions of a Visualization are run one at a
+     * time, as they synchronize on it anyway.
+     * 
+     * @return the Visualization, or null
+     * @see prefuse.activity.Activity#getSchedulingKey() */
+    @Override
+    public Object getSchedulingKey() {
+        return m_vis;
+    }
 } // end of class Action
@@ -4,7 +4,9 @@ import java.util.logging.Logger;
 
 import prefuse.Visualization;
 import prefuse.activity.Activity;
+import prefuse.activity.ActivityManager;
 import prefuse.util.StringLib;
+import prefuse.util.metrics.Metrics;
 
 /** <p>
  * The ActionList represents a chain of Actions that process VisualItems.
@@ -72,11 +74,21 @@ public class ActionList extends CompositeAction {
     @Override
     public void run(double frac) {
         Object[] actions = m_actions.getArray();
+        Metrics metrics = ActivityManager.getMetrics();
         for (int i = 0; i < actions.length; ++i) {
             Action a = (Action) actions[i];
             try {
-                if (a.isEnabled()) {
+                if (!a.isEnabled()) {
+                    continue;
+                }
+                if (metrics == null) {
+                    a.run(frac);
+                } else {
+                    // record each action of the list, by position
+                    long start = System.nanoTime();
                     a.run(frac);
+                    metrics.recordSince(Metrics.ACTIVITY_PREFIX + getMetricsName()
+                            + '/' + i + ':' + a.getMetricsName(), start);
                 }
             } catch (Exception e) {
                 s_logger.warning(e.getMessage() + '\n' + StringLib.getStackTrace(e));
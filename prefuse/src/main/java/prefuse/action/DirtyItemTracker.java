@@ -0,0 +1,168 @@
+package prefuse.action;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Set;
+
+import prefuse.data.Table;
+import prefuse.data.event.EventConstants;
+import prefuse.data.event.TableListener;
+
+/** Tracks the rows of the tables of an item group whose values changed in a
+ * given set of columns, for the incremental runs of an {@link ItemAction}.
+ * Added rows are tracked as changed, and all rows are reported as changed
+ * until the first run, after the tables or columns change, and after the
+ * schema of a table changes.
+ * <p>
+ * The tables only hold the tracker weakly, so that an action that is
+ * discarded without being released does not stay reachable from its tables:
+ * the listener registered with the tables removes itself on the first event
+ * after the tracker has been collected.
+ * </p> */
+class DirtyItemTracker {
+    /** The m_listener registered with the tracked tables. */
+    private final Listener m_listener = new Listener(this);
+    /** The m_tables. */
+    private Table[] m_tables = new Table[0];
+    /** The m_dirty rows, one set per table. */
+    private BitSet[] m_dirty = new BitSet[0];
+    /** The m_columns. */
+    private Set m_columns = null;
+    /** The m_all flag, set when all rows must be processed. */
+    private boolean m_all = true;
+
+    /** Track the given tables and columns, starting over if they differ from
+     * the tracked ones.
+     * 
+     * @param tables
+     *            the tables of the group
+     * @param columns
+     *            the names of the columns the action depends on */
+    synchronized void track(Table[] tables, Set columns) {
+        if (sameTables(tables) && columns.equals(m_columns)) {
+            return;
+        }
+        release();
+        m_tables = tables;
+        m_dirty = new BitSet[tables.length];
+        for (int i = 0; i < tables.length; ++i) {
+            m_dirty[i] = new BitSet();
+            tables[i].addTableListener(m_listener);
+        }
+        m_columns = columns;
+    }
+
+    /** Stop tracking the tables; all rows are reported as changed when they
+     * are tracked again. */
+    synchronized void release() {
+        for (int i = 0; i < m_tables.length; ++i) {
+            m_tables[i].removeTableListener(m_listener);
+        }
+        m_tables = new Table[0];
+        m_dirty = new BitSet[0];
+        m_columns = null;
+        m_all = true;
+    }
+
+    /** Report all rows as changed on the next run. */
+    synchronized void invalidate() {
+        m_all = true;
+    }
+
+    /** Get the rows changed since the last call, and start tracking anew.
+     * 
+     * @return the changed rows, one set per table, or null if all rows must
+     *         be processed */
+    synchronized BitSet[] take() {
+        BitSet[] dirty = m_dirty;
+        m_dirty = new BitSet[dirty.length];
+        for (int i = 0; i < dirty.length; ++i) {
+            m_dirty[i] = new BitSet();
+        }
+        if (m_all) {
+            m_all = false;
+            return null;
+        }
+        return dirty;
+    }
+
+    /** Record a change of a tracked table.
+     * 
+     * @param t
+     *            the t
+     * @param start
+     *            the start
+     * @param end
+     *            the end
+     * @param col
+     *            the col
+     * @param type
+     *            the type
+     * @see prefuse.data.event.TableListener#tableChanged(prefuse.data.Table,
+     *      int, int, int, int) */
+    synchronized void tableChanged(Table t, int start, int end, int col, int type) {
+        int i = 0;
+        while (i < m_tables.length && m_tables[i] != t) {
+            ++i;
+        }
+        if (i == m_tables.length || m_all) {
+            return;
+        }
+        if (col == EventConstants.ALL_COLUMNS) {
+            if (type == EventConstants.DELETE) {
+                m_dirty[i].clear(start, end + 1);
+            } else {
+                m_dirty[i].set(start, end + 1);
+            }
+        } else if (type != EventConstants.UPDATE) {
+            // a column was added or removed
+            m_all = true;
+        } else if (m_columns.contains(t.getColumnName(col))) {
+            m_dirty[i].set(start, end + 1);
+        }
+    }
+
+    /** Indicates if the given tables are the tracked ones.
+     * 
+     * @param tables
+     *            the tables
+     * @return true if they are the same tables, in the same order */
+    private boolean sameTables(Table[] tables) {
+        if (tables.length != m_tables.length) {
+            return false;
+        }
+        for (int i = 0; i < tables.length; ++i) {
+            if (tables[i] != m_tables[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** The listener registered with the tracked tables, forwarding their
+     * events to the tracker while it is reachable. */
+    private static class Listener implements TableListener {
+        /** The tracker. */
+        private final WeakReference m_tracker;
+
+        /** Instantiates a new listener.
+         * 
+         * @param tracker
+         *            the tracker */
+        Listener(DirtyItemTracker tracker) {
+            m_tracker = new WeakReference(tracker);
+        }
+
+        @Override
+        public void tableChanged(Table t, int start, int end, int col, int type) {
+            DirtyItemTracker tracker = (DirtyItemTracker) m_tracker.get();
+            if (tracker == null) {
+                t.removeTableListener(this);
+            } else {
+                tracker.tableChanged(t, start, end, col, type);
+            }
+        }
+    }
+} // end of class DirtyItemTracker
@@ -4,8 +4,12 @@
  */
 package prefuse.action;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import prefuse.Visualization;
 import prefuse.data.expression.Expression;
+import prefuse.data.expression.ExpressionAnalyzer;
 import prefuse.data.expression.ExpressionVisitor;
 import prefuse.data.expression.ObjectLiteral;
 import prefuse.data.expression.Predicate;
@@ -92,6 +96,7 @@ public abstract class EncoderAction extends ItemAction {
             ((Action) value).setVisualization(m_vis);
         }
         m_chain.add(p, value);
+        invalidate();
     }
 
     /** Lookup the value mapped to by the given item.
@@ -108,6 +113,7 @@ public abstract class EncoderAction extends ItemAction {
         if (m_chain != null) {
             m_chain.clear();
         }
+        invalidate();
     }
 
     /** Remove rules using the given predicate from this encoder. This method
@@ -119,9 +125,76 @@ public abstract class EncoderAction extends ItemAction {
      *            the predicate to remove
      * @return true if a rule was successfully removed, false otherwise */
     public boolean remove(Predicate p) {
+        invalidate();
         return m_chain != null ? m_chain.remove(p) : false;
     }
 
+    /** Get the dependencies: the columns referenced by the filtering
+     * predicate and by the rules, if they only depend on the values of an
+     * item, and the dependencies of the encoders the rules delegate to.
+     * Subclasses whose encoding depends on other data fields must add them,
+     * or return null if the encoding depends on other items.
+     * 
+     * @return the dependencies, or null if they are unknown
+     * @see prefuse.action.ItemAction#getDependencies() */
+    @Override
+    protected Set getDependencies() {
+        Set filter = ExpressionAnalyzer.getRowDependencies(m_predicate);
+        if (filter == null) {
+            return null;
+        }
+        Set columns = new HashSet(filter);
+        if (m_chain != null) {
+            Set rules = ExpressionAnalyzer.getRowDependencies(m_chain.getExpression());
+            if (rules == null) {
+                return null;
+            }
+            columns.addAll(rules);
+            DependencyVisitor dv = new DependencyVisitor(columns);
+            m_chain.getExpression().visit(dv);
+            if (!dv.m_known) {
+                return null;
+            }
+        }
+        return columns;
+    }
+
+    /** Indicates if this Action can process distinct items concurrently. An
+     * encoder may keep state across calls to
+     * {@link #process(VisualItem, double)}, so the default implementation
+     * returns false. Encoders whose processing has been checked to only read
+     * their own state override this method and return
+     * {@link #areRulesThreadSafe()}.
+     * 
+     * @return true if this Action can run in parallel
+     * @see prefuse.action.ItemAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /** Indicates if the filtering predicate and the rules of this encoder
+     * allow distinct items to be processed concurrently: they must only depend
+     * on the values of an item, and the encoders the rules delegate to must be
+     * thread-safe.
+     * 
+     * @return true if the predicate and the rules can be evaluated in parallel */
+    protected boolean areRulesThreadSafe() {
+        if (ExpressionAnalyzer.getRowDependencies(m_predicate) == null) {
+            return false;
+        }
+        if (m_chain != null) {
+            Expression rules = m_chain.getExpression();
+            if (ExpressionAnalyzer.getRowDependencies(rules) == null) {
+                return false;
+            }
+            ThreadSafeVisitor tv = new ThreadSafeVisitor();
+            rules.visit(tv);
+            return tv.m_safe;
+        }
+        return true;
+    }
+
     /** Sets the visualization.
      * 
      * @param vis
@@ -194,6 +267,46 @@ public abstract class EncoderAction extends ItemAction {
         public void up() { /* do nothing */}
     }
 
+    /** Adds the dependencies of the encoders the rules delegate to. */
+    private static class DependencyVisitor extends ActionVisitor {
+        /** The m_columns. */
+        private final Set m_columns;
+        /** The m_known flag, cleared by an encoder of unknown dependencies. */
+        boolean m_known = true;
+
+        /** Instantiates a new dependency visitor.
+         * 
+         * @param columns
+         *            the set to which the dependencies are added */
+        DependencyVisitor(Set columns) {
+            m_columns = columns;
+        }
+
+        @Override
+        public void visitAction(Action a) {
+            Set columns = a instanceof EncoderAction ? ((EncoderAction) a)
+                    .getDependencies() : null;
+            if (columns == null) {
+                m_known = false;
+            } else {
+                m_columns.addAll(columns);
+            }
+        }
+    }
+
+    /** Checks that the actions the rules delegate to are thread-safe. */
+    private static class ThreadSafeVisitor extends ActionVisitor {
+        /** The m_safe flag, cleared by an action that is not thread-safe. */
+        boolean m_safe = true;
+
+        @Override
+        public void visitAction(Action a) {
+            if (!(a instanceof ItemAction) || !((ItemAction) a).isThreadSafe()) {
+                m_safe = false;
+            }
+        }
+    }
+
     /** Sets the visualization status for any Actions contained within the
      * predicate chain. */
     private class SetVisualizationVisitor extends ActionVisitor {
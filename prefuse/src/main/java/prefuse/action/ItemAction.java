@@ -1,9 +1,16 @@
 package prefuse.action;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import prefuse.Visualization;
+import prefuse.data.Table;
 import prefuse.data.expression.Predicate;
+import prefuse.data.tuple.CompositeTupleSet;
+import prefuse.data.tuple.TupleSet;
 import prefuse.visual.VisualItem;
 import prefuse.visual.expression.VisiblePredicate;
 
@@ -11,11 +18,30 @@ import prefuse.visual.expression.VisiblePredicate;
  * processes items that are visible. Use the
  * {@link #setFilterPredicate(Predicate)} method to change the filtering
  * criteria.
+ * <p>
+ * In {@link #setIncremental(boolean) incremental} mode, an action whose
+ * {@link #getDependencies() dependencies} are known only processes the items
+ * that were added, or whose values changed in one of these columns, since its
+ * previous run.
+ * </p>
+ * <p>
+ * In {@link #setParallel(boolean) parallel} mode, an action that is
+ * {@link #isThreadSafe() thread-safe} splits the items into ranges, and
+ * processes them on several threads.
+ * </p>
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public abstract class ItemAction extends GroupAction {
+    /** The default number of items of the ranges of parallel runs. */
+    public static final int DEFAULT_GRAIN_SIZE = 256;
     /** A reference to filtering predicate for this Action. */
     protected Predicate m_predicate;
+    /** The tracker of the changed items, or null if not incremental. */
+    private DirtyItemTracker m_tracker = null;
+    /** The m_parallel flag. */
+    private boolean m_parallel = false;
+    /** The m_grain size, the number of items of the ranges of parallel runs. */
+    private int m_grainSize = DEFAULT_GRAIN_SIZE;
 
     /** Create a new ItemAction that processes all groups.
      * 
@@ -88,21 +114,286 @@ public abstract class ItemAction extends GroupAction {
      *            the filtering {@link prefuse.data.expression.Predicate} to use */
     public void setFilterPredicate(Predicate filter) {
         m_predicate = filter;
+        invalidate();
     }
 
-    /** Run.
+    /** Sets the group.
+     * 
+     * @param group
+     *            the new group
+     * @see prefuse.action.GroupAction#setGroup(java.lang.String) */
+    @Override
+    public void setGroup(String group) {
+        super.setGroup(group);
+        invalidate();
+    }
+
+    /** Sets the visualization. When running incrementally, the tables of the
+     * previous visualization are no longer tracked.
+     * 
+     * @param vis
+     *            the new visualization
+     * @see prefuse.action.Action#setVisualization(prefuse.Visualization) */
+    @Override
+    public void setVisualization(Visualization vis) {
+        DirtyItemTracker tracker = m_tracker;
+        if (tracker != null && vis != getVisualization()) {
+            tracker.release();
+        }
+        super.setVisualization(vis);
+        invalidate();
+    }
+
+    // ------------------------------------------------------------------------
+    /** Indicates if this Action only processes the items that changed since
+     * its previous run.
+     * 
+     * @return true if incremental */
+    public boolean isIncremental() {
+        return m_tracker != null;
+    }
+
+    /** Sets if this Action only processes the items that were added, or whose
+     * values changed in one of the columns returned by
+     * {@link #getDependencies()}, since its previous run. All items are
+     * processed on the first run, and whenever the dependencies are unknown or
+     * the group is not backed by tables. Items that are not processed keep
+     * their start values, so incremental actions should not be followed by
+     * animators interpolating from the start values.
+     * 
+     * @param incremental
+     *            true to only process the changed items */
+    public void setIncremental(boolean incremental) {
+        if (incremental && m_tracker == null) {
+            m_tracker = new DirtyItemTracker();
+        } else if (!incremental && m_tracker != null) {
+            m_tracker.release();
+            m_tracker = null;
+        }
+    }
+
+    /** Causes the next run to process all items, for example after a change
+     * of the parameters of this Action. Setters of subclasses changing the
+     * result of {@link #process(VisualItem, double)} should call this
+     * method. */
+    public void invalidate() {
+        DirtyItemTracker tracker = m_tracker;
+        if (tracker != null) {
+            tracker.invalidate();
+        }
+    }
+
+    /** Get the names of the columns whose values determine the result of
+     * processing an item, including the columns of the filtering predicate.
+     * Subclasses supporting incremental runs override this method; the
+     * default implementation returns null.
+     * 
+     * @return the names of the columns, or null if the result may depend on
+     *         anything else, such as other items or external state */
+    protected Set getDependencies() {
+        return null;
+    }
+
+    /** Indicates if this Action processes the items on several threads.
+     * 
+     * @return true if parallel */
+    public boolean isParallel() {
+        return m_parallel;
+    }
+
+    /** Sets if this Action processes the items on several threads. Only
+     * actions that are {@link #isThreadSafe() thread-safe} run in parallel,
+     * and only when they process more items than the
+     * {@link #getGrainSize() grain size}; incremental runs are always serial.
+     * The run completes once all items are processed.
+     * 
+     * @param parallel
+     *            true to process the items on several threads */
+    public void setParallel(boolean parallel) {
+        m_parallel = parallel;
+    }
+
+    /** Get the number of items of the ranges processed by a thread in
+     * parallel runs.
+     * 
+     * @return the grain size */
+    public int getGrainSize() {
+        return m_grainSize;
+    }
+
+    /** Sets the number of items of the ranges processed by a thread in
+     * parallel runs. Smaller ranges balance the load better, larger ones have
+     * less overhead.
+     * 
+     * @param size
+     *            the grain size */
+    public void setGrainSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid grain size: " + size);
+        }
+        m_grainSize = size;
+    }
+
+    /** Indicates if this Action can process distinct items concurrently: its
+     * {@link #process(VisualItem, double)} method must only read the state of
+     * the Action, and only read and set the values of the given item. The
+     * values of distinct items can be set concurrently, as columns notify
+     * their listeners one change at a time. The default implementation returns
+     * false.
+     * 
+     * @return true if this Action can run in parallel */
+    public boolean isThreadSafe() {
+        return false;
+    }
+
+    /** Get the executor running the threads of parallel runs.
+     * 
+     * @return the executor */
+    public static Executor getExecutor() {
+        return ParallelItemRunner.getExecutor();
+    }
+
+    /** Sets the executor running the threads of parallel runs. The thread
+     * running an Action processes items as well, and the number of threads is
+     * set by the <code>action.threadCount</code> configuration property. The
+     * executor is not shut down when replaced.
+     * 
+     * @param executor
+     *            the executor, or null to use a default pool of daemon
+     *            threads */
+    public static void setExecutor(Executor executor) {
+        ParallelItemRunner.setExecutor(executor);
+    }
+
+    /** Run. The updates of the tables of the group are batched, so that table
+     * listeners are notified once all items have been processed.
      * 
      * @param frac
      *            the frac
-     * @see prefuse.action.Action#run(double) */
+     * @see prefuse.action.Action#run(double)
+     * @see Table#beginBatch() */
     @Override
     public void run(double frac) {
+        Table[] tables = getTables();
+        if (tables == null) {
+            runItems(null, frac);
+            return;
+        }
+        for (int i = 0; i < tables.length; ++i) {
+            tables[i].beginBatch();
+        }
+        try {
+            runItems(tables, frac);
+        } finally {
+            for (int i = tables.length; --i >= 0;) {
+                tables[i].endBatch();
+            }
+        }
+    }
+
+    /** Process the items of the group, or only the changed ones when running
+     * incrementally.
+     * 
+     * @param tables
+     *            the tables of the group, or null if it is not made of tables
+     * @param frac
+     *            the fraction of elapsed duration time */
+    private void runItems(Table[] tables, double frac) {
+        DirtyItemTracker tracker = m_tracker;
+        if (tracker != null) {
+            Set columns = tables == null ? null : getDependencies();
+            if (columns == null) {
+                tracker.release();
+            } else {
+                tracker.track(tables, columns);
+                BitSet[] dirty = tracker.take();
+                if (dirty != null) {
+                    runIncremental(tables, dirty, frac);
+                    return;
+                }
+            }
+        }
         Iterator items = getVisualization().items(m_group, m_predicate);
+        if (m_parallel && isThreadSafe()) {
+            runParallel(items, frac);
+            return;
+        }
         while (items.hasNext()) {
             process((VisualItem) items.next(), frac);
         }
     }
 
+    /** Process items on several threads, if there are more than the grain
+     * size. The items are collected first, as tuples are created lazily.
+     * 
+     * @param items
+     *            the items
+     * @param frac
+     *            the fraction of elapsed duration time */
+    private void runParallel(Iterator items, double frac) {
+        VisualItem[] array = new VisualItem[m_grainSize + 1];
+        int size = 0;
+        while (items.hasNext()) {
+            if (size == array.length) {
+                VisualItem[] a = new VisualItem[2 * size];
+                System.arraycopy(array, 0, a, 0, size);
+                array = a;
+            }
+            array[size++] = (VisualItem) items.next();
+        }
+        if (size <= m_grainSize) {
+            for (int i = 0; i < size; ++i) {
+                process(array[i], frac);
+            }
+        } else {
+            ParallelItemRunner.run(this, array, size, m_grainSize, frac);
+        }
+    }
+
+    /** Process the changed items of the tables of the group.
+     * 
+     * @param tables
+     *            the tables
+     * @param dirty
+     *            the changed rows, one set per table
+     * @param frac
+     *            the fraction of elapsed duration time */
+    private void runIncremental(Table[] tables, BitSet[] dirty, double frac) {
+        for (int i = 0; i < tables.length; ++i) {
+            BitSet rows = dirty[i];
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                if (!tables[i].isValidRow(row)) {
+                    continue;
+                }
+                VisualItem item = (VisualItem) tables[i].getTuple(row);
+                if (m_predicate.getBoolean(item)) {
+                    process(item, frac);
+                }
+            }
+        }
+    }
+
+    /** Get the tables holding the items of the group.
+     * 
+     * @return the tables, or null if the group is not made of tables */
+    private Table[] getTables() {
+        TupleSet ts = getVisualization().getGroup(m_group);
+        if (ts instanceof Table) {
+            return new Table[] { (Table) ts };
+        } else if (ts instanceof CompositeTupleSet) {
+            ArrayList tables = new ArrayList();
+            for (Iterator sets = ((CompositeTupleSet) ts).sets(); sets.hasNext();) {
+                Object set = sets.next();
+                if (!(set instanceof Table)) {
+                    return null;
+                }
+                tables.add(set);
+            }
+            return (Table[]) tables.toArray(new Table[tables.size()]);
+        }
+        return null;
+    }
+
     /** Processes an individual item.
      * 
      * @param item
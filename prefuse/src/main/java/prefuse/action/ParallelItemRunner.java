@@ -0,0 +1,202 @@
+package prefuse.action;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import prefuse.data.column.AbstractColumn;
+import prefuse.util.PrefuseConfig;
+import prefuse.visual.VisualItem;
+
+/** Processes the items of a parallel {@link ItemAction}. The items are split
+ * into consecutive ranges; tasks are forked to the executor, and they and the
+ * calling thread then claim ranges until none are left, which balances the
+ * load when the processing time of the items varies. The calling thread only
+ * waits for the ranges claimed by running tasks, so that it never blocks on
+ * tasks still queued behind other work. While processing ranges, the threads
+ * share the column event lock of the runner, so that column listeners are
+ * notified of one change at a time. */
+class ParallelItemRunner implements Runnable {
+    /** The s_executor, or null until the default pool is created. */
+    private static Executor s_executor = null;
+    /** The s_pool, the default executor, or null. */
+    private static ExecutorService s_pool = null;
+    /** The m_action. */
+    private final ItemAction m_action;
+    /** The m_items. */
+    private final VisualItem[] m_items;
+    /** The m_size, the number of items. */
+    private final int m_size;
+    /** The m_grain size, the number of items of a range. */
+    private final int m_grain;
+    /** The m_frac. */
+    private final double m_frac;
+    /** The m_next range to claim. */
+    private final AtomicInteger m_next = new AtomicInteger();
+    /** The m_done latch, counting down the processed ranges. */
+    private final CountDownLatch m_done;
+    /** The m_event lock, shared by the threads processing the items. */
+    private final Object m_eventLock = new Object();
+    /** The m_failure, the first exception thrown by a task, or null. */
+    private volatile Throwable m_failure = null;
+
+    /** Get the number of threads processing the items of an action.
+     * 
+     * @return the <code>action.threadCount</code> configuration property, or
+     *         the number of available processors if it is not positive */
+    static int getParallelism() {
+        int count = PrefuseConfig.getInt("action.threadCount");
+        return count > 0 ? count : Runtime.getRuntime().availableProcessors();
+    }
+
+    /** Get the executor running the forked tasks, creating the default pool
+     * if needed.
+     * 
+     * @return the executor */
+    static synchronized Executor getExecutor() {
+        if (s_executor == null) {
+            s_pool = Executors.newCachedThreadPool(new ThreadFactory() {
+                private int m_count = 0;
+
+                @Override
+                public synchronized Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "prefuse_ItemWorker-" + ++m_count);
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+            s_executor = s_pool;
+        }
+        return s_executor;
+    }
+
+    /** Sets the executor running the forked tasks.
+     * 
+     * @param executor
+     *            the executor, or null to use the default pool */
+    static void setExecutor(Executor executor) {
+        ExecutorService pool;
+        synchronized (ParallelItemRunner.class) {
+            pool = s_pool;
+            s_pool = null;
+            s_executor = executor;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /** Process items in parallel.
+     * 
+     * @param action
+     *            the action processing the items
+     * @param items
+     *            the items
+     * @param size
+     *            the number of items
+     * @param grain
+     *            the number of items of a range
+     * @param frac
+     *            the fraction of elapsed duration time */
+    static void run(ItemAction action, VisualItem[] items, int size, int grain,
+            double frac) {
+        int ranges = (size + grain - 1) / grain;
+        ParallelItemRunner runner = new ParallelItemRunner(action, items, size, grain,
+                frac, ranges);
+        int forks = Math.min(getParallelism(), ranges) - 1;
+        Executor executor = getExecutor();
+        for (int i = 0; i < forks; ++i) {
+            try {
+                executor.execute(runner);
+            } catch (RejectedExecutionException e) {
+                // the calling thread processes the remaining ranges
+                break;
+            }
+        }
+        runner.run();
+        runner.join();
+    }
+
+    /** Instantiates a new runner.
+     * 
+     * @param action
+     *            the action
+     * @param items
+     *            the items
+     * @param size
+     *            the number of items
+     * @param grain
+     *            the number of items of a range
+     * @param frac
+     *            the fraction of elapsed duration time
+     * @param ranges
+     *            the number of ranges */
+    private ParallelItemRunner(ItemAction action, VisualItem[] items, int size,
+            int grain, double frac, int ranges) {
+        m_action = action;
+        m_items = items;
+        m_size = size;
+        m_grain = grain;
+        m_frac = frac;
+        m_done = new CountDownLatch(ranges);
+    }
+
+    /** Claim and process ranges until none are left.
+     * 
+     * @see java.lang.Runnable#run() */
+    @Override
+    public void run() {
+        Object lock = AbstractColumn.setEventLock(m_eventLock);
+        try {
+            for (int r = m_next.getAndIncrement(); r * m_grain < m_size; r = m_next
+                    .getAndIncrement()) {
+                int end = Math.min(m_size, (r + 1) * m_grain);
+                try {
+                    if (m_failure == null) {
+                        for (int i = r * m_grain; i < end; ++i) {
+                            m_action.process(m_items[i], m_frac);
+                        }
+                    }
+                } catch (Throwable t) {
+                    if (m_failure == null) {
+                        m_failure = t;
+                    }
+                } finally {
+                    m_done.countDown();
+                }
+            }
+        } finally {
+            AbstractColumn.setEventLock(lock);
+        }
+    }
+
+    /** Wait for all ranges to be processed, and rethrow the first exception
+     * thrown while processing them. */
+    private void join() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                m_done.await();
+                break;
+            } catch (InterruptedException e) {
+                // the items have to be processed before the action completes
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable t = m_failure;
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+} // end of class ParallelItemRunner
@@ -79,6 +79,15 @@ public class ColorAnimator extends ItemAction {
         }
     }
 
+    /** Is thread safe.
+     * 
+     * @return true, as items are interpolated independently
+     * @see prefuse.action.ItemAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /** Process.
      * 
      * @param item
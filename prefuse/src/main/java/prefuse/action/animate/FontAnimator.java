@@ -26,6 +26,15 @@ public class FontAnimator extends ItemAction {
         super(group);
     }
 
+    /** Is thread safe.
+     * 
+     * @return true, as items are interpolated independently
+     * @see prefuse.action.ItemAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /** Process.
      * 
      * @param item
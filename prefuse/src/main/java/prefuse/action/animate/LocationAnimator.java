@@ -21,6 +21,15 @@ public class LocationAnimator extends ItemAction {
         super(group);
     }
 
+    /** Is thread safe.
+     * 
+     * @return true, as items are interpolated independently
+     * @see prefuse.action.ItemAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /** Process.
      * 
      * @param item
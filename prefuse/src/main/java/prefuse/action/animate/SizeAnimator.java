@@ -20,6 +20,15 @@ public class SizeAnimator extends ItemAction {
         super(group);
     }
 
+    /** Is thread safe.
+     * 
+     * @return true, as items are interpolated independently
+     * @see prefuse.action.ItemAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     /** Process.
      * 
      * @param item
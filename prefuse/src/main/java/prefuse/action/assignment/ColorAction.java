@@ -127,6 +127,7 @@ public class ColorAction extends EncoderAction {
         m_colorField = field;
         m_startField = PrefuseLib.getStartField(field);
         m_endField = PrefuseLib.getEndField(field);
+        invalidate();
     }
 
     /** Returns the default color for this ColorAction.
@@ -143,6 +144,7 @@ public class ColorAction extends EncoderAction {
      *            the new default color */
     public void setDefaultColor(int color) {
         m_defaultColor = color;
+        invalidate();
     }
 
     /** Add a color mapping rule to this ColorAction. VisualItems that match the
@@ -236,4 +238,15 @@ public class ColorAction extends EncoderAction {
         }
         return m_defaultColor;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as a color is only computed
+     *         from the rules and the values of the item; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == ColorAction.class && areRulesThreadSafe();
+    }
 } // end of class ColorAction
@@ -2,6 +2,7 @@ package prefuse.action.assignment;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import prefuse.Constants;
@@ -54,6 +55,8 @@ public class DataColorAction extends ColorAction {
     private Map m_omap;
     /** The m_olist. */
     private Object[] m_olist;
+    /** The m_ordinals, looking up the positions of items in the ordinal map. */
+    private OrdinalLookup m_ordinals;
     /** The m_cmap. */
     private final ColorMap m_cmap = new ColorMap(null, 0, 1);
     /** The m_palette. */
@@ -235,6 +238,16 @@ public class DataColorAction extends ColorAction {
     }
 
     // ------------------------------------------------------------------------
+    /** Get the dependencies. The encoding of an item depends on the values
+     * of the data field of all items, so they are unknown.
+     * 
+     * @return null
+     * @see prefuse.action.EncoderAction#getDependencies() */
+    @Override
+    protected Set getDependencies() {
+        return null;
+    }
+
     /** Set up the state of this encoding Action.
      * 
      * @see prefuse.action.EncoderAction#setup() */
@@ -257,6 +270,8 @@ public class DataColorAction extends ColorAction {
             case Constants.ORDINAL:
                 m_dist = getDistribution();
                 size = m_omap.size();
+                m_ordinals = new OrdinalLookup(m_vis.getGroup(m_group), m_dataField,
+                        m_omap);
                 palette = m_palette != null ? m_palette : createPalette(size);
                 m_cmap.setColorPalette(palette);
                 m_cmap.setMinValue(m_dist[0]);
@@ -347,8 +362,18 @@ public class DataColorAction extends ColorAction {
                 double f = MathLib.interp(m_scale, v, m_dist);
                 return m_cmap.getColor(f);
             default:
-                Integer idx = (Integer) m_omap.get(item.get(m_dataField));
-                return m_cmap.getColor(idx.doubleValue());
+                return m_cmap.getColor(m_ordinals.getOrdinal(item));
         }
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as the distribution and the
+     *         palette are only computed during setup; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == DataColorAction.class && areRulesThreadSafe();
+    }
 } // end of class DataColorAction
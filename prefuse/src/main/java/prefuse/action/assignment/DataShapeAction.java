@@ -1,6 +1,7 @@
 package prefuse.action.assignment;
 
 import java.util.Map;
+import java.util.Set;
 
 import prefuse.Constants;
 import prefuse.data.tuple.TupleSet;
@@ -38,6 +39,8 @@ public class DataShapeAction extends ShapeAction {
     protected int[] m_palette;
     /** The m_ordinal map. */
     protected Map m_ordinalMap;
+    /** The m_ordinals, looking up the positions of items in the ordinal map. */
+    private OrdinalLookup m_ordinals;
 
     /** Create a new DataShapeAction.
      * 
@@ -94,6 +97,16 @@ public class DataShapeAction extends ShapeAction {
     }
 
     // ------------------------------------------------------------------------
+    /** Get the dependencies. The encoding of an item depends on the values
+     * of the data field of all items, so they are unknown.
+     * 
+     * @return null
+     * @see prefuse.action.EncoderAction#getDependencies() */
+    @Override
+    protected Set getDependencies() {
+        return null;
+    }
+
     /** Setup.
      * 
      * @see prefuse.action.EncoderAction#setup() */
@@ -101,6 +114,7 @@ public class DataShapeAction extends ShapeAction {
     protected void setup() {
         TupleSet ts = m_vis.getGroup(m_group);
         m_ordinalMap = DataLib.ordinalMap(ts, m_dataField);
+        m_ordinals = new OrdinalLookup(ts, m_dataField, m_ordinalMap);
     }
 
     /** Gets the shape.
@@ -117,12 +131,22 @@ public class DataShapeAction extends ShapeAction {
             return shape;
         }
         // otherwise perform data-driven assignment
-        Object v = item.get(m_dataField);
-        int idx = ((Integer) m_ordinalMap.get(v)).intValue();
+        int idx = m_ordinals.getOrdinal(item);
         if (m_palette == null) {
             return idx % Constants.SHAPE_COUNT;
         } else {
             return m_palette[idx % m_palette.length];
         }
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as the ordinal map is only
+     *         computed during setup; subclasses have to override this method to
+     *         run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == DataShapeAction.class && areRulesThreadSafe();
+    }
 } // end of class DataShapeAction
@@ -1,5 +1,6 @@
 package prefuse.action.assignment;
 
+import java.util.Set;
 import java.util.logging.Logger;
 
 import prefuse.Constants;
@@ -283,6 +284,16 @@ public class DataSizeAction extends SizeAction {
     }
 
     // ------------------------------------------------------------------------
+    /** Get the dependencies. The encoding of an item depends on the values
+     * of the data field of all items, so they are unknown.
+     * 
+     * @return null
+     * @see prefuse.action.EncoderAction#getDependencies() */
+    @Override
+    protected Set getDependencies() {
+        return null;
+    }
+
     /** Setup.
      * 
      * @see prefuse.action.EncoderAction#setup() */
@@ -356,4 +367,15 @@ public class DataSizeAction extends SizeAction {
         // size value is appropriately scaled first
         return m_is2DArea ? PrefuseLib.getSize2D(v) : v;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as the distribution is only
+     *         computed during setup; subclasses have to override this method to
+     *         run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == DataSizeAction.class && areRulesThreadSafe();
+    }
 } // end of class DataSizeAction
@@ -63,6 +63,7 @@ public class FontAction extends EncoderAction {
      *            the default font to use */
     public void setDefaultFont(Font f) {
         defaultFont = f;
+        invalidate();
     }
 
     /** Get the default font assigned to items.
@@ -161,4 +162,15 @@ public class FontAction extends EncoderAction {
         }
         return defaultFont;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as a font is only computed
+     *         from the rules and the values of the item; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == FontAction.class && areRulesThreadSafe();
+    }
 } // end of class FontAction
@@ -0,0 +1,72 @@
+package prefuse.action.assignment;
+
+import java.util.Map;
+
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.column.Column;
+import prefuse.data.column.DictionaryColumn;
+import prefuse.data.tuple.TupleSet;
+
+/** Lookup of the ordinal positions of the values of a data field, used by the
+ * data-driven assignment actions. When the tuples are the rows of a table
+ * whose column for the field is a {@link DictionaryColumn}, positions are
+ * looked up by dictionary code rather than by hashing the values. */
+class OrdinalLookup {
+    /** The m_field. */
+    private final String m_field;
+    /** The m_map, mapping values to their ordinal positions. */
+    private final Map m_map;
+    /** The m_table, whose rows are looked up by code. */
+    private Table m_table;
+    /** The m_column, the dictionary column of the field. */
+    private DictionaryColumn m_column;
+    /** The m_colidx. */
+    private int m_colidx;
+    /** The m_ordinals, the ordinal position of each code, or -1. */
+    private int[] m_ordinals;
+
+    /** Create a new lookup.
+     * 
+     * @param ts
+     *            the tuples whose values are looked up
+     * @param field
+     *            the data field
+     * @param map
+     *            the map from values to ordinal positions */
+    OrdinalLookup(TupleSet ts, String field, Map map) {
+        m_field = field;
+        m_map = map;
+        if (!(ts instanceof Table)) {
+            return;
+        }
+        Table t = (Table) ts;
+        int colidx = t.getColumnNumber(field);
+        Column col = colidx < 0 ? null : t.getColumn(colidx);
+        if (col instanceof DictionaryColumn) {
+            m_table = t;
+            m_column = (DictionaryColumn) col;
+            m_colidx = colidx;
+            m_ordinals = new int[m_column.getDictionarySize()];
+            for (int code = 0; code < m_ordinals.length; ++code) {
+                Integer idx = (Integer) map.get(m_column.getValue(code));
+                m_ordinals[code] = idx == null ? -1 : idx.intValue();
+            }
+        }
+    }
+
+    /** Get the ordinal position of the value of a tuple.
+     * 
+     * @param t
+     *            the tuple
+     * @return the ordinal position of the value of the data field */
+    int getOrdinal(Tuple t) {
+        if (m_ordinals != null && t.getTable() == m_table) {
+            int code = m_column.getCode(m_table.getColumnRow(t.getRow(), m_colidx));
+            if (code < m_ordinals.length && m_ordinals[code] >= 0) {
+                return m_ordinals[code];
+            }
+        }
+        return ((Integer) m_map.get(t.get(m_field))).intValue();
+    }
+} // end of class OrdinalLookup
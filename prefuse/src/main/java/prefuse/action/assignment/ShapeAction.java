@@ -84,6 +84,7 @@ public class ShapeAction extends EncoderAction {
      *            the new default shape value */
     public void setDefaultShape(int defaultShape) {
         m_defaultShape = defaultShape;
+        invalidate();
     }
 
     /** Add a shape mapping rule to this ShapeAction. VisualItems that match the
@@ -170,4 +171,15 @@ public class ShapeAction extends EncoderAction {
         }
         return m_defaultShape;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as a shape is only computed
+     *         from the rules and the values of the item; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == ShapeAction.class && areRulesThreadSafe();
+    }
 } // end of class ShapeAction
@@ -73,6 +73,7 @@ public class SizeAction extends EncoderAction {
      *            the new default size value */
     public void setDefaultSize(double defaultSize) {
         m_defaultSize = defaultSize;
+        invalidate();
     }
 
     /** Add a size mapping rule to this SizeAction. VisualItems that match the
@@ -163,4 +164,15 @@ public class SizeAction extends EncoderAction {
         }
         return m_defaultSize;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as a size is only computed
+     *         from the rules and the values of the item; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == SizeAction.class && areRulesThreadSafe();
+    }
 } // end of class SizeAction
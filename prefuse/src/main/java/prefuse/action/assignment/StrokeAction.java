@@ -66,6 +66,7 @@ public class StrokeAction extends EncoderAction {
      *            the default BasicStroke to use */
     public void setDefaultStroke(BasicStroke f) {
         defaultStroke = f;
+        invalidate();
     }
 
     /** Get the default BasicStroke assigned to items.
@@ -160,4 +161,15 @@ public class StrokeAction extends EncoderAction {
         }
         return defaultStroke;
     }
+
+    /** Is thread safe.
+     * 
+     * @return true if the rules are thread-safe, as a stroke is only computed
+     *         from the rules and the values of the item; subclasses have to
+     *         override this method to run in parallel
+     * @see prefuse.action.EncoderAction#isThreadSafe() */
+    @Override
+    public boolean isThreadSafe() {
+        return getClass() == StrokeAction.class && areRulesThreadSafe();
+    }
 } // end of class StrokeAction
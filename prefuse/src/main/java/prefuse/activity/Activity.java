@@ -1,6 +1,7 @@
 package prefuse.activity;
 
 import prefuse.util.collections.CopyOnWriteArrayList;
+import prefuse.util.metrics.Metrics;
 
 /** Represents an activity that can be scheduled and run. This could include data
  * processing, animation, and time-sensitive operations.
@@ -31,6 +32,19 @@ public abstract class Activity {
     private boolean m_isScheduled = false;
     /** The m_listeners. */
     private CopyOnWriteArrayList m_listeners;
+    /** The m_name, or null. */
+    private String m_name = null;
+    /** The m_priority. */
+    private volatile int m_priority = 0;
+    /** The m_dispatched flag, set by the ActivityManager while a step of this
+     * activity is queued or running in an executor. */
+    boolean m_dispatched = false;
+    /** The m_schedule count, incremented by the ActivityManager each time this
+     * activity is scheduled, under the lock of the manager. */
+    int m_schedule = 0;
+    /** The m_dispatched schedule, the schedule count when the step in an
+     * executor was dispatched. */
+    int m_dispatchedSchedule = 0;
 
     /** Creates a new Activity.
      * 
@@ -132,37 +146,87 @@ public abstract class Activity {
      * 
      * @param currentTime
      *            the time at which this step is being run.
+     * @param lock
+     *            the lock of the ActivityManager, under which the activity may
+     *            be scheduled again while the step runs
      * @return the time (in milliseconds) when this activity should be run
      *         again. A return value of -1 indicates this activity is finished. */
-    long runActivity(long currentTime) {
-        if (currentTime < m_startTime) {
-            return m_startTime - currentTime;
+    long runActivity(long currentTime, Object lock) {
+        long startTime;
+        long nextTime;
+        int schedule;
+        synchronized (lock) {
+            startTime = m_startTime;
+            nextTime = m_nextTime;
+            schedule = m_schedule;
+        }
+        if (currentTime < startTime) {
+            return startTime - currentTime;
         }
-        long elapsedTime = currentTime - m_startTime;
-        if (m_duration == 0 || currentTime >= getStopTime()) {
+        long elapsedTime = currentTime - startTime;
+        long stopTime = m_duration == -1 ? Long.MAX_VALUE : startTime + m_duration;
+        if (m_duration == 0 || currentTime >= stopTime) {
             if (!setRunning(true)) {
                 fireActivityStarted();
             }
             if (m_enabled) {
-                run(elapsedTime);
-                fireActivityStepped();
+                step(elapsedTime);
             }
             setRunning(false);
             fireActivityFinished();
             return -1;
-        } else if (currentTime >= m_nextTime) {
+        } else if (currentTime >= nextTime) {
             if (!setRunning(true)) {
                 fireActivityStarted();
             }
             if (m_enabled) {
-                run(elapsedTime);
-                fireActivityStepped();
+                step(elapsedTime);
             }
-            m_nextTime = currentTime + m_stepTime;
+            nextTime = currentTime + m_stepTime;
+            synchronized (lock) {
+                // a new schedule keeps the times it has been given
+                if (m_schedule == schedule) {
+                    m_nextTime = nextTime;
+                }
+            }
+        }
+        return nextTime - currentTime;
+    }
+
+    /** Get the time to wait before the next step of this activity, as
+     * computed by {@link #runActivity(long, Object)}, without running the step.
+     * Must be called under the lock of the ActivityManager.
+     * 
+     * @param currentTime
+     *            the current time
+     * @return the time (in milliseconds) to wait, 0 if a step is due */
+    long getWaitTime(long currentTime) {
+        if (currentTime < m_startTime) {
+            return m_startTime - currentTime;
+        } else if (m_duration == 0 || currentTime >= getStopTime()
+                || currentTime >= m_nextTime) {
+            return 0;
         }
         return m_nextTime - currentTime;
     }
 
+    /** Run a single step and notify the listeners, recording the duration of
+     * the step if the ActivityManager has metrics.
+     * 
+     * @param elapsedTime
+     *            the time elapsed since the start of the activity. */
+    private void step(long elapsedTime) {
+        Metrics metrics = ActivityManager.getMetrics();
+        if (metrics == null) {
+            run(elapsedTime);
+        } else {
+            long start = System.nanoTime();
+            run(elapsedTime);
+            metrics.recordSince(Metrics.ACTIVITY_PREFIX + getMetricsName(), start);
+        }
+        fireActivityStepped();
+    }
+
     /** Cancels this activity, if scheduled. This will stop a running activity,
      * and will remove the activity from the ActivityManager's schedule. */
     public void cancel() {
@@ -431,4 +495,56 @@ public abstract class Activity {
     public void setEnabled(boolean s) {
         m_enabled = s;
     }
+
+    /** Get the name of this activity. Actions are named after the first name
+     * they are registered with in a {@link prefuse.Visualization}.
+     * 
+     * @return the name, or null if the activity has no name */
+    public String getName() {
+        return m_name;
+    }
+
+    /** Sets the name of this activity.
+     * 
+     * @param name
+     *            the name, or null */
+    public void setName(String name) {
+        m_name = name;
+    }
+
+    /** Get the priority of this activity. Among the activities due at the same
+     * time, the activities of higher priority are run first.
+     * 
+     * @return the priority, 0 by default */
+    public int getPriority() {
+        return m_priority;
+    }
+
+    /** Sets the priority of this activity.
+     * 
+     * @param priority
+     *            the priority; activities of higher priority are run first */
+    public void setPriority(int priority) {
+        m_priority = priority;
+    }
+
+    /** Get the scheduling key of this activity. When the ActivityManager runs
+     * the activities with an executor, the activities sharing a key are run
+     * one at a time, while activities with different keys may run
+     * concurrently.
+     * 
+     * @return the scheduling key, null by default, for a queue shared by all
+     *         activities without key
+     * @see ActivityManager#setExecutor(java.util.concurrent.Executor) */
+    public Object getSchedulingKey() {
+        return null;
+    }
+
+    /** Get the name under which the durations of this activity are recorded.
+     * 
+     * @return the name of the activity, or the name of its class if it has no
+     *         name */
+    public String getMetricsName() {
+        return m_name != null ? m_name : getClass().getName();
+    }
 } // end of class Activity
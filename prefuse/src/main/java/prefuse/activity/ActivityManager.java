@@ -1,8 +1,19 @@
 package prefuse.activity;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
 
 import prefuse.util.PrefuseConfig;
+import prefuse.util.StringLib;
+import prefuse.util.metrics.Metrics;
 
 /** <p>
  * The ActivityManager is responsible for scheduling and running timed
@@ -31,6 +42,18 @@ import prefuse.util.PrefuseConfig;
  * a useful level of indirection, allowing actions to be changed dynamically
  * without changes to code in other locations.
  * </p>
+ * <p>
+ * By default, the steps of all activities are run one after the other on the
+ * ActivityManager thread. When an {@link #setExecutor(Executor) executor} is
+ * set, or the <code>activity.threadCount</code> configuration property is
+ * larger than 1, the ActivityManager thread only schedules the activities, and
+ * their steps are run by the executor, in one queue per
+ * {@link Activity#getSchedulingKey() scheduling key}: the activities of a
+ * Visualization then still run one at a time, in order of
+ * {@link Activity#getPriority() priority}, but a slow activity of one
+ * Visualization no longer delays the activities of the others. An activity
+ * scheduled again while one of its steps is still queued is only run once.
+ * </p>
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a>
  * @see Activity
@@ -38,6 +61,24 @@ import prefuse.util.PrefuseConfig;
 public class ActivityManager extends Thread {
     /** The s_instance. */
     private static ActivityManager s_instance;
+    /** The s_metrics, or null. */
+    private static volatile Metrics s_metrics = null;
+    /** The s_executor running the activity steps, or null. */
+    private static volatile Executor s_executor = null;
+    /** The s_pool, the executor created from the configuration, or null. */
+    private static ExecutorService s_pool = null;
+    /** The Constant s_logger. */
+    private static final Logger s_logger = Logger.getLogger(ActivityManager.class
+            .getName());
+    /** Orders activities by decreasing priority. */
+    private static final Comparator s_priority = new Comparator() {
+        @Override
+        public int compare(Object o1, Object o2) {
+            int p1 = ((Activity) o1).getPriority();
+            int p2 = ((Activity) o2).getPriority();
+            return p1 > p2 ? -1 : p1 < p2 ? 1 : 0;
+        }
+    };
     /** The m_activities. */
     private final ArrayList m_activities;
     /** The m_tmp. */
@@ -46,6 +87,84 @@ public class ActivityManager extends Thread {
     private long m_nextTime;
     /** The m_run. */
     private boolean m_run;
+    /** The m_lanes, the queues of activity steps by scheduling key. */
+    private final HashMap m_lanes = new HashMap();
+    /** The m_wakeup, set when the schedule changed since the last loop. */
+    private boolean m_wakeup = false;
+
+    /** Get the metrics in which the durations of activity steps are recorded.
+     * 
+     * @return the metrics, or null if durations are not recorded */
+    public static Metrics getMetrics() {
+        return s_metrics;
+    }
+
+    /** Sets the metrics in which the durations of activity steps are recorded,
+     * under {@link Metrics#ACTIVITY_PREFIX} followed by the
+     * {@link Activity#getMetricsName() name} of the activity. The actions of
+     * an {@link prefuse.action.ActionList} are recorded individually as well,
+     * after the name of the list, their position and their own name.
+     * 
+     * @param metrics
+     *            the metrics, or null to stop recording */
+    public static void setMetrics(Metrics metrics) {
+        s_metrics = metrics;
+    }
+
+    /** Get the executor running the steps of the activities.
+     * 
+     * @return the executor, or null if the steps are run on the
+     *         ActivityManager thread */
+    public static Executor getExecutor() {
+        return s_executor;
+    }
+
+    /** Sets the executor running the steps of the activities. Any executor can
+     * be used, such as a fixed thread pool, or a virtual thread per task
+     * executor on Java versions providing them; the executor is not shut down
+     * by the ActivityManager. Steps already queued are still run by the
+     * previous executor.
+     * 
+     * @param executor
+     *            the executor, or null to run the steps on the ActivityManager
+     *            thread */
+    public static void setExecutor(Executor executor) {
+        ExecutorService pool;
+        synchronized (ActivityManager.class) {
+            pool = s_pool;
+            s_pool = null;
+            s_executor = executor;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /** Creates the executor configured by the <code>activity.threadCount</code>
+     * property, unless an executor is already set.
+     * 
+     * @param priority
+     *            the priority of the worker threads */
+    private static void createPool(final int priority) {
+        int count = PrefuseConfig.getInt("activity.threadCount");
+        if (s_executor != null || count <= 1) {
+            return;
+        }
+        s_pool = Executors.newFixedThreadPool(count, new ThreadFactory() {
+            private int m_count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "prefuse_ActivityWorker-" + ++m_count);
+                if (priority >= Thread.MIN_PRIORITY && priority <= Thread.MAX_PRIORITY) {
+                    t.setPriority(priority);
+                }
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        s_executor = s_pool;
+    }
 
     /** Returns the active ActivityManager instance.
      * 
@@ -67,6 +186,7 @@ public class ActivityManager extends Thread {
         if (priority >= Thread.MIN_PRIORITY && priority <= Thread.MAX_PRIORITY) {
             setPriority(priority);
         }
+        createPool(priority);
         setDaemon(true);
         start();
     }
@@ -168,31 +288,39 @@ public class ActivityManager extends Thread {
             Activity a = (Activity) m_activities.get(m_activities.size() - 1);
             a.cancel();
         }
+        m_lanes.clear();
         _setRunning(false);
         notify();
     }
 
-    /** Schedules an Activity with the manager.
+    /** Schedules an Activity with the manager. An activity that is already
+     * scheduled is not scheduled twice, but is moved to the earlier start time
+     * if it has not started yet.
      * 
      * @param a
      *            the Activity to schedule
      * @param startTime
      *            the start time */
     private void _schedule(Activity a, long startTime) {
-        if (a.isScheduled()) {
-            try {
-                notifyAll();
-            } catch (Exception e) {}
-            return; // already scheduled, do nothing
-        }
-        a.setStartTime(startTime);
         synchronized (this) {
+            if (a.isScheduled()) {
+                if (startTime < a.getStartTime() && !a.isRunning()) {
+                    a.setStartTime(startTime);
+                    m_nextTime = Math.min(m_nextTime, startTime);
+                }
+                m_wakeup = true;
+                notifyAll();
+                return; // already scheduled, do nothing else
+            }
+            a.setStartTime(startTime);
+            a.m_schedule++;
             m_activities.add(a);
+            m_wakeup = true;
             a.setScheduled(true);
             if (startTime < m_nextTime) {
                 m_nextTime = startTime;
-                notify();
             }
+            notifyAll();
         }
     }
 
@@ -266,6 +394,13 @@ public class ActivityManager extends Thread {
                     _removeActivity(a);
                     fire = true;
                 }
+                // drop a step still waiting in its queue
+                if (a.m_dispatched) {
+                    Lane lane = (Lane) m_lanes.get(getLaneKey(a));
+                    if (lane != null && lane.m_queue.remove(a)) {
+                        a.m_dispatched = false;
+                    }
+                }
                 a.setRunning(false);
             }
         }
@@ -330,11 +465,17 @@ public class ActivityManager extends Thread {
             if (_activityCount() > 0) {
                 long currentTime = System.currentTimeMillis();
                 long t = -1;
+                Executor executor = s_executor;
                 synchronized (this) {
+                    m_wakeup = false;
                     // copy content of activities, as new activities might
                     // be added while we process the current ones
                     for (int i = 0; i < m_activities.size(); i++) {
                         Activity a = (Activity) m_activities.get(i);
+                        if (a.m_dispatched) {
+                            // a step is still queued, run it first
+                            continue;
+                        }
                         m_tmp.add(a);
                         // remove activities that won't be run again
                         if (currentTime >= a.getStopTime()) {
@@ -347,23 +488,42 @@ public class ActivityManager extends Thread {
                         m_nextTime = Long.MAX_VALUE;
                     }
                 }
+                Collections.sort(m_tmp, s_priority);
                 for (int i = 0; i < m_tmp.size(); i++) {
-                    // run the activity - the activity will check for
-                    // itself if it should perform any action or not
                     Activity a = (Activity) m_tmp.get(i);
-                    long s = a.runActivity(currentTime);
+                    long s;
+                    if (executor == null) {
+                        // run the activity - the activity will check for
+                        // itself if it should perform any action or not
+                        s = a.runActivity(currentTime, this);
+                    } else {
+                        synchronized (this) {
+                            s = a.getWaitTime(currentTime);
+                        }
+                        if (s == 0) {
+                            dispatch(a, executor);
+                            s = -1;
+                        }
+                    }
                     // compute minimum time for next activity cycle
                     t = s < 0 ? t : t < 0 ? s : Math.min(t, s);
                 }
                 // clear the temporary list
                 m_tmp.clear();
-                if (t == -1) {
+                if (t == -1 && executor == null) {
                     continue;
                 }
-                // determine the next time we should run
+                // determine the next time we should run, dispatched
+                // activities waking us up when their step is done
                 try {
                     synchronized (this) {
-                        wait(t);
+                        if (!m_wakeup) {
+                            if (t == -1) {
+                                wait();
+                            } else if (t > 0) {
+                                wait(t);
+                            }
+                        }
                     }
                 } catch (InterruptedException e) {}
             } else {
@@ -377,6 +537,123 @@ public class ActivityManager extends Thread {
         }
     }
 
+    /** Get the key of the queue of an activity.
+     * 
+     * @param a
+     *            the activity
+     * @return the scheduling key of the activity, or this manager for the
+     *         activities without key */
+    private Object getLaneKey(Activity a) {
+        Object key = a.getSchedulingKey();
+        return key == null ? this : key;
+    }
+
+    /** Queue the current step of an activity, to be run by an executor. The
+     * step is run with the time at which it leaves the queue, so that steps
+     * delayed by other work still see the time increase.
+     * 
+     * @param a
+     *            the activity
+     * @param executor
+     *            the executor */
+    private void dispatch(Activity a, Executor executor) {
+        Lane lane;
+        synchronized (this) {
+            a.m_dispatched = true;
+            a.m_dispatchedSchedule = a.m_schedule;
+            Object key = getLaneKey(a);
+            lane = (Lane) m_lanes.get(key);
+            if (lane == null) {
+                lane = new Lane(key);
+                m_lanes.put(key, lane);
+            }
+            // keep the queue sorted by priority, in order of arrival
+            int i = lane.m_queue.size();
+            while (i > 0
+                    && ((Activity) lane.m_queue.get(i - 1)).getPriority() < a
+                            .getPriority()) {
+                --i;
+            }
+            lane.m_queue.add(i, a);
+            if (lane.m_active) {
+                return;
+            }
+            lane.m_active = true;
+        }
+        try {
+            executor.execute(lane);
+        } catch (RejectedExecutionException e) {
+            // the executor was shut down, fall back to this thread
+            lane.run();
+        }
+    }
+
+    /** Notification that a dispatched step has been run.
+     * 
+     * @param a
+     *            the activity
+     * @param currentTime
+     *            the time the step was run with
+     * @param finished
+     *            true if it was the last step of the activity */
+    private synchronized void _stepped(Activity a, long currentTime, boolean finished) {
+        a.m_dispatched = false;
+        // the step ran past the stop time, do not run the last step again,
+        // unless the activity has been scheduled anew while the step ran
+        if (finished && a.m_schedule == a.m_dispatchedSchedule
+                && currentTime >= a.getStopTime()) {
+            _removeActivity(a);
+        }
+        m_wakeup = true;
+        notifyAll();
+    }
+
+    /** The queue of the steps of the activities sharing a scheduling key, run
+     * one at a time by the executor. */
+    private class Lane implements Runnable {
+        /** The m_key. */
+        private final Object m_key;
+        /** The m_queue of activities, by decreasing priority. */
+        final ArrayList m_queue = new ArrayList();
+        /** The m_active flag, set while the lane is submitted or running. */
+        boolean m_active = false;
+
+        /** Instantiates a new lane.
+         * 
+         * @param key
+         *            the scheduling key */
+        Lane(Object key) {
+            m_key = key;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Activity a;
+                synchronized (ActivityManager.this) {
+                    if (m_queue.isEmpty()) {
+                        m_active = false;
+                        if (m_lanes.get(m_key) == this) {
+                            m_lanes.remove(m_key);
+                        }
+                        return;
+                    }
+                    a = (Activity) m_queue.remove(0);
+                }
+                long currentTime = System.currentTimeMillis();
+                boolean finished = false;
+                try {
+                    finished = a.runActivity(currentTime, ActivityManager.this) < 0;
+                } catch (RuntimeException e) {
+                    s_logger.warning("Activity step failed: " + e + "\n"
+                            + StringLib.getStackTrace(e));
+                } finally {
+                    _stepped(a, currentTime, finished);
+                }
+            }
+        }
+    }
+
     /** The Class ScheduleAfterActivity. */
     public class ScheduleAfterActivity extends ActivityAdapter {
         /** The after. */
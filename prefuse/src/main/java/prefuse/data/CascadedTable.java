@@ -345,6 +345,25 @@ public class CascadedTable extends Table {
         }
     }
 
+    /** Adds the rows.
+     * 
+     * @param nrows
+     *            the nrows
+     * @param fields
+     *            the fields
+     * @param values
+     *            the values
+     * @return the first added row
+     * @see prefuse.data.Table#addRows(int, String[], Object[]) */
+    @Override
+    public int addRows(int nrows, String[] fields, Object[] values) {
+        if (m_parent != null) {
+            throw new IllegalStateException("Add rows not supported for CascadedTable.");
+        } else {
+            return super.addRows(nrows, fields, values);
+        }
+    }
+
     /** Removes the row.
      * 
      * @param row
@@ -13,6 +13,7 @@ import prefuse.data.tuple.TableEdge;
 import prefuse.data.tuple.TableNode;
 import prefuse.data.tuple.TupleManager;
 import prefuse.data.tuple.TupleSet;
+import prefuse.data.util.AdjacencyStore;
 import prefuse.data.util.Index;
 import prefuse.data.util.NeighborIterator;
 import prefuse.util.PrefuseConfig;
@@ -49,7 +50,9 @@ import prefuse.util.collections.IntIterator;
  * the graph linkage structure, to make graph operations more efficient an
  * additional table is maintained internally by the Graph class, storing node
  * indegree and outdegree counts and adjacency lists for the inlinks and
- * outlinks for all nodes.
+ * outlinks for all nodes. Graphs created with compact links keep this linkage
+ * in an {@link AdjacencyStore} instead, which stores all adjacency lists in a
+ * single primitive array and uses much less memory for large graphs.
  * </p>
  * <p>
  * Graph nodes and edges can be accessed by application code by either using the
@@ -95,6 +98,11 @@ public class Graph extends CompositeTupleSet {
     // -- auxiliary data structures -----
     /** Table containing the adjacency lists for the graph. */
     protected Table m_links;
+    /** Compact adjacency lists for the graph, used instead of the link table
+     * if this graph has compact links. */
+    protected AdjacencyStore m_adjacency;
+    /** Indicates if this graph uses compact adjacency lists. */
+    private boolean m_compact = false;
     /** TupleManager for managing Node tuple instances. */
     protected TupleManager m_nodeTuples;
     /** TupleManager for managing Edge tuple instances. */
@@ -226,6 +234,36 @@ public class Graph extends CompositeTupleSet {
         init(nodes, edges, directed, nodeKey, sourceKey, targetKey);
     }
 
+    /** Create a new Graph, choosing how its linkage structure is stored.
+     * Compact links keep the adjacency lists of all nodes in a single
+     * primitive array, in place of the int array objects of the link table.
+     * Subclasses that access the link table directly, such as {@link Tree},
+     * require the link table.
+     * 
+     * @param nodes
+     *            the backing table to use for node data. Node instances of this
+     *            graph will get their data from this table.
+     * @param edges
+     *            the backing table to use for edge data. Edge instances of this
+     *            graph will get their data from this table.
+     * @param directed
+     *            true for directed edges, false for undirected
+     * @param nodeKey
+     *            data field used to uniquely identify a node. If this field is
+     *            null, the node table row numbers will be used
+     * @param sourceKey
+     *            data field used to denote the source node in an edge table
+     * @param targetKey
+     *            data field used to denote the target node in an edge table
+     * @param compactLinks
+     *            true to store the adjacency lists in an
+     *            {@link AdjacencyStore}, false to use the link table */
+    public Graph(Table nodes, Table edges, boolean directed, String nodeKey,
+            String sourceKey, String targetKey, boolean compactLinks) {
+        m_compact = compactLinks;
+        init(nodes, edges, directed, nodeKey, sourceKey, targetKey);
+    }
+
     // ------------------------------------------------------------------------
     // Initialization
     /** Initialize this Graph instance.
@@ -321,14 +359,26 @@ public class Graph extends CompositeTupleSet {
         Table oldEdges = getEdgeTable();
         oldEdges.removeTableListener(m_listener);
         m_edgeTuples.invalidateAll();
-        m_links.clear();
+        clearLinks();
         init(getNodeTable(), edges, m_directed, m_nkey, m_skey, m_tkey);
     }
 
     // ------------------------------------------------------------------------
     // Data Access Optimization
+    /** Indicates if this graph stores its adjacency lists in an
+     * {@link AdjacencyStore} rather than in the link table.
+     * 
+     * @return true if this graph has compact links */
+    public boolean hasCompactLinks() {
+        return m_compact;
+    }
+
     /** Initialize the link table, which holds adjacency lists for this graph. */
     protected void initLinkTable() {
+        if (m_compact) {
+            initAdjacency();
+            return;
+        }
         // set up cache of node data
         m_links = createLinkTable();
         IntIterator edges = getEdgeTable().rows();
@@ -337,6 +387,38 @@ public class Graph extends CompositeTupleSet {
         }
     }
 
+    /** Initialize the compact adjacency lists, loading all edges at once in
+     * compressed sparse row order. */
+    private void initAdjacency() {
+        Table edges = getEdgeTable();
+        int n = edges.getRowCount();
+        int[] rows = new int[n], sources = new int[n], targets = new int[n];
+        int count = 0;
+        for (IntIterator it = edges.rows(); it.hasNext();) {
+            int e = it.nextInt();
+            int s = getSourceNode(e);
+            int t = getTargetNode(e);
+            if (s >= 0 && t >= 0) {
+                rows[count] = e;
+                sources[count] = s;
+                targets[count] = t;
+                ++count;
+            }
+        }
+        m_adjacency = new AdjacencyStore(getNodeTable().getMaximumRow() + 1);
+        m_adjacency.load(rows, sources, targets, count);
+        m_spanning = null;
+    }
+
+    /** Remove all links from the linkage structure. */
+    private void clearLinks() {
+        if (m_compact) {
+            m_adjacency.clear();
+        } else {
+            m_links.clear();
+        }
+    }
+
     /** Instantiate and return the link table.
      * 
      * @return the created link table */
@@ -378,6 +460,17 @@ public class Graph extends CompositeTupleSet {
      *            the increment value, 1 for an added link, -1 for a removed
      *            link */
     protected void updateDegrees(int e, int s, int t, int incr) {
+        if (m_compact) {
+            if (incr > 0) {
+                m_adjacency.add(s, OUTEDGES, e);
+                m_adjacency.add(t, INEDGES, e);
+            } else if (incr < 0) {
+                m_adjacency.remove(s, OUTEDGES, e);
+                m_adjacency.remove(t, INEDGES, e);
+            }
+            m_spanning = null;
+            return;
+        }
         int od = m_links.getInt(s, OUTDEGREE);
         int id = m_links.getInt(t, INDEGREE);
         // update adjacency lists
@@ -444,6 +537,108 @@ public class Graph extends CompositeTupleSet {
         return false;
     }
 
+    /** Get the edge ids of an adjacency list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link #INEDGES} or {@link #OUTEDGES}
+     * @return an array starting with the edge ids of the list: the array of
+     *         the link table, or a copy of the compact list */
+    private int[] getLinks(int node, int direction) {
+        if (!m_compact) {
+            return (int[]) m_links.get(node, direction == INEDGES ? INLINKS : OUTLINKS);
+        }
+        int[] links = new int[m_adjacency.getDegree(node, direction)];
+        for (int i = 0; i < links.length; ++i) {
+            links[i] = m_adjacency.get(node, direction, i);
+        }
+        return links;
+    }
+
+    /** Update the linkage structure for a range of edges added at once. The
+     * adjacency lists are grown once for all of the edges, or, for compact
+     * links, reloaded if the range makes up a large part of the graph.
+     * 
+     * @param first
+     *            the first edge id of the range
+     * @param last
+     *            the last edge id (inclusive) of the range */
+    protected void addLinks(int first, int last) {
+        if (m_compact && 4 * (last - first + 1) >= getEdgeCount()) {
+            initAdjacency();
+            return;
+        }
+        if (!m_compact) {
+            // count the added links of each node
+            int nodes = getNodeTable().getMaximumRow() + 1;
+            int[] in = new int[nodes], out = new int[nodes];
+            for (int e = first; e <= last; ++e) {
+                if (getEdgeTable().isValidRow(e)) {
+                    int s = getSourceNode(e);
+                    int t = getTargetNode(e);
+                    if (s >= 0 && t >= 0) {
+                        ++out[s];
+                        ++in[t];
+                    }
+                }
+            }
+            for (int n = 0; n < nodes; ++n) {
+                if (out[n] > 0) {
+                    reserveLinks(OUTLINKS, getOutDegree(n) + out[n], n);
+                }
+                if (in[n] > 0) {
+                    reserveLinks(INLINKS, getInDegree(n) + in[n], n);
+                }
+            }
+        }
+        for (int e = first; e <= last; ++e) {
+            updateDegrees(e, 1);
+        }
+    }
+
+    /** Internal method for growing an adjacency list of the link table.
+     * 
+     * @param field
+     *            which adjacency list (inlinks or outlinks) to use
+     * @param len
+     *            the length the adjacency list must be able to hold
+     * @param n
+     *            the node id of the adjacency list to use */
+    protected void reserveLinks(String field, int len, int n) {
+        int[] array = (int[]) m_links.get(n, field);
+        if (array == null || array.length < len) {
+            int[] narray = new int[len];
+            if (array != null) {
+                System.arraycopy(array, 0, narray, 0, array.length);
+            }
+            m_links.set(n, field, narray);
+        }
+    }
+
+    /** Update the linkage structure for a range of added nodes. The link rows
+     * must have the same indices as the node rows: nodes added after the
+     * highest node, as by {@link Table#addRows(int, String[], Object[])}, get
+     * link rows appended after the highest link row, even when rows below it
+     * are free. A single node reusing a free row gets the same free row of the
+     * link table, which mirrors the free rows of the node table.
+     * 
+     * @param first
+     *            the first node id of the range
+     * @param last
+     *            the last node id (inclusive) of the range */
+    protected void addNodeData(int first, int last) {
+        if (m_compact) {
+            m_adjacency.ensureNode(last);
+        } else if (m_links.getMaximumRow() + 1 == first) {
+            m_links.addRows(last - first + 1, new String[0], new Object[0]);
+        } else {
+            for (int r = first; r <= last; ++r) {
+                updateNodeData(r, true);
+            }
+        }
+    }
+
     /** Update the link table to accomodate an inserted or deleted node.
      * 
      * @param r
@@ -451,7 +646,14 @@ public class Graph extends CompositeTupleSet {
      * @param added
      *            indicates if a node was added or removed */
     protected void updateNodeData(int r, boolean added) {
-        if (added) {
+        if (m_compact) {
+            if (added) {
+                m_adjacency.ensureNode(r);
+            } else {
+                m_nodeTuples.invalidate(r);
+                m_adjacency.clearNode(r);
+            }
+        } else if (added) {
             m_links.addRow();
         } else {
             m_nodeTuples.invalidate(r);
@@ -516,6 +718,22 @@ public class Graph extends CompositeTupleSet {
         return getNodeTable().addRow();
     }
 
+    /** Add a range of rows to the node table at once, thereby adding nodes to
+     * the graph, with their values given column by column.
+     * 
+     * @param nrows
+     *            the number of nodes to add
+     * @param fields
+     *            the data fields of the given values
+     * @param values
+     *            for each data field, an array of at least nrows values
+     * @return the node id of the first added node, the others following it,
+     *         or -1 if no nodes were added
+     * @see Table#addRows(int, String[], Object[]) */
+    public int addNodeRows(int nrows, String[] fields, Object[] values) {
+        return getNodeTable().addRows(nrows, fields, values);
+    }
+
     /** Add a new node to the graph.
      * 
      * @return the new Node instance */
@@ -549,6 +767,71 @@ public class Graph extends CompositeTupleSet {
         return r;
     }
 
+    /** Add edges to the graph at once.
+     * 
+     * @param sources
+     *            the source node ids
+     * @param targets
+     *            the target node ids
+     * @param count
+     *            the number of edges to add
+     * @return the edge id of the first added edge, the others following it,
+     *         or -1 if no edges were added */
+    public int addEdgeRows(int[] sources, int[] targets, int count) {
+        return addEdgeRows(sources, targets, count, new String[0], new Object[0]);
+    }
+
+    /** Add edges to the graph at once, with their values given column by
+     * column. The edge table receives a single insert event, and the linkage
+     * structure is updated once for all of the edges.
+     * 
+     * @param sources
+     *            the source node ids
+     * @param targets
+     *            the target node ids
+     * @param count
+     *            the number of edges to add
+     * @param fields
+     *            the data fields of the given values
+     * @param values
+     *            for each data field, an array of at least count values
+     * @return the edge id of the first added edge, the others following it,
+     *         or -1 if no edges were added
+     * @see Table#addRows(int, String[], Object[]) */
+    public int addEdgeRows(int[] sources, int[] targets, int count, String[] fields,
+            Object[] values) {
+        if (sources.length < count || targets.length < count) {
+            throw new IllegalArgumentException("Too few source or target nodes");
+        }
+        Object skeys = sources, tkeys = targets;
+        if (m_longKey) {
+            long[] s = new long[count], t = new long[count];
+            for (int i = 0; i < count; ++i) {
+                s[i] = getKey(sources[i]);
+                t[i] = getKey(targets[i]);
+            }
+            skeys = s;
+            tkeys = t;
+        } else if (m_nkey != null) {
+            int[] s = new int[count], t = new int[count];
+            for (int i = 0; i < count; ++i) {
+                s[i] = (int) getKey(sources[i]);
+                t[i] = (int) getKey(targets[i]);
+            }
+            skeys = s;
+            tkeys = t;
+        }
+        String[] f = new String[fields.length + 2];
+        Object[] v = new Object[values.length + 2];
+        f[0] = m_skey;
+        f[1] = m_tkey;
+        v[0] = skeys;
+        v[1] = tkeys;
+        System.arraycopy(fields, 0, f, 2, fields.length);
+        System.arraycopy(values, 0, v, 2, values.length);
+        return getEdgeTable().addRows(count, f, v);
+    }
+
     /** Add an edge to the graph.
      * 
      * @param s
@@ -574,14 +857,14 @@ public class Graph extends CompositeTupleSet {
         if (nodeTable.isValidRow(node)) {
             int id = getInDegree(node);
             if (id > 0) {
-                int[] links = (int[]) m_links.get(node, INLINKS);
+                int[] links = getLinks(node, INEDGES);
                 for (int i = id; --i >= 0;) {
                     removeEdge(links[i]);
                 }
             }
             int od = getOutDegree(node);
             if (od > 0) {
-                int[] links = (int[]) m_links.get(node, OUTLINKS);
+                int[] links = getLinks(node, OUTEDGES);
                 for (int i = od; --i >= 0;) {
                     removeEdge(links[i]);
                 }
@@ -622,6 +905,30 @@ public class Graph extends CompositeTupleSet {
         return removeEdge(e.getRow());
     }
 
+    /** Start a batch of updates on the node and edge tables. Until the
+     * matching call to {@link #endBatch()}, updates of node and edge values
+     * are merged, and delivered to table and graph listeners once the batch
+     * ends.
+     * 
+     * @see Table#beginBatch() */
+    public void beginBatch() {
+        getNodeTable().beginBatch();
+        getEdgeTable().beginBatch();
+    }
+
+    /** End a batch of updates started by {@link #beginBatch()}, delivering the
+     * buffered updates of the edge table and then of the node table if this
+     * ends the outermost batch.
+     * 
+     * @see Table#endBatch() */
+    public void endBatch() {
+        try {
+            getEdgeTable().endBatch();
+        } finally {
+            getNodeTable().endBatch();
+        }
+    }
+
     /** Internal method for clearing the edge table, removing all edges. */
     protected void clearEdges() {
         getEdgeTable().clear();
@@ -705,6 +1012,9 @@ public class Graph extends CompositeTupleSet {
      *            the node id (node table row number)
      * @return the in-degree of the node */
     public int getInDegree(int node) {
+        if (m_compact) {
+            return m_adjacency.getDegree(node, INEDGES);
+        }
         return m_links.getInt(node, INDEGREE);
     }
 
@@ -726,6 +1036,9 @@ public class Graph extends CompositeTupleSet {
      *            the node id (node table row number)
      * @return the out-degree of the node */
     public int getOutDegree(int node) {
+        if (m_compact) {
+            return m_adjacency.getDegree(node, OUTEDGES);
+        }
         return m_links.getInt(node, OUTDEGREE);
     }
 
@@ -836,6 +1149,9 @@ public class Graph extends CompositeTupleSet {
      *            the target
      * @return the edge */
     public int getEdge(int source, int target) {
+        if (m_compact) {
+            return m_adjacency.find(this, source, target);
+        }
         int outd = getOutDegree(source);
         if (outd > 0) {
             int[] edges = (int[]) m_links.get(source, OUTLINKS);
@@ -976,7 +1292,9 @@ public class Graph extends CompositeTupleSet {
      *         node {@link #INEDGES} (for in-linking edges), {@link #OUTEDGES}
      *         (for out-linking edges), or {@link #UNDIRECTED} (for all edges). */
     public IntIterator edgeRows(int node, int direction) {
-        if (direction == OUTEDGES) {
+        if (m_compact && direction != UNDIRECTED) {
+            return m_adjacency.iterator(node, direction);
+        } else if (direction == OUTEDGES) {
             int[] outedges = (int[]) m_links.get(node, OUTLINKS);
             return new IntArrayIterator(outedges, 0, getOutDegree(node));
         } else if (direction == INEDGES) {
@@ -1094,7 +1412,7 @@ public class Graph extends CompositeTupleSet {
         m_nodeTuples.invalidateAll();
         m_edgeTuples.invalidateAll();
         super.clear();
-        m_links.clear();
+        clearLinks();
     }
 
     /** If the given tuple is a Node or Edge in this graph, remove it.
@@ -1301,17 +1619,24 @@ public class Graph extends CompositeTupleSet {
                 if (t == getNodeTable()) {
                     // update the linkage structure table
                     if (col == EventConstants.ALL_COLUMNS) {
-                        boolean added = type == EventConstants.INSERT;
-                        for (int r = start; r <= end; ++r) {
-                            updateNodeData(r, added);
+                        if (type == EventConstants.INSERT) {
+                            addNodeData(start, end);
+                        } else {
+                            for (int r = start; r <= end; ++r) {
+                                updateNodeData(r, false);
+                            }
                         }
                     }
                 } else {
                     // update the linkage structure table
                     if (col == EventConstants.ALL_COLUMNS) {
-                        boolean added = type == EventConstants.INSERT;
-                        for (int r = start; r <= end; ++r) {
-                            updateDegrees(start, added ? 1 : -1);
+                        if (type == EventConstants.INSERT && end > start) {
+                            addLinks(start, end);
+                        } else {
+                            boolean added = type == EventConstants.INSERT;
+                            for (int r = start; r <= end; ++r) {
+                                updateDegrees(r, added ? 1 : -1);
+                            }
                         }
                     }
                 }
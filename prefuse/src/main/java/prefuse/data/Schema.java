@@ -2,6 +2,7 @@ package prefuse.data;
 
 import java.util.HashMap;
 
+import prefuse.data.column.ColumnFactory;
 import prefuse.util.PrefuseLib;
 
 /** <p>
@@ -26,6 +27,8 @@ public class Schema implements Cloneable {
     private Class[] m_types;
     /** The m_dflts. */
     private Object[] m_dflts;
+    /** The m_storage, as defined by {@link ColumnFactory}. */
+    private int[] m_storage;
     /** The m_lookup. */
     private HashMap m_lookup;
     /** The m_size. */
@@ -49,6 +52,7 @@ public class Schema implements Cloneable {
         m_names = new String[ncols];
         m_types = new Class[ncols];
         m_dflts = new Object[ncols];
+        m_storage = new int[ncols];
         m_size = 0;
         m_locked = false;
     }
@@ -100,7 +104,7 @@ public class Schema implements Cloneable {
     public Object clone() {
         Schema s = new Schema(m_size);
         for (int i = 0; i < m_size; ++i) {
-            s.addColumn(m_names[i], m_types[i], m_dflts[i]);
+            s.addColumn(m_names[i], m_types[i], m_dflts[i], m_storage[i]);
         }
         return s;
     }
@@ -152,6 +156,25 @@ public class Schema implements Cloneable {
      * @param defaultValue
      *            the default value */
     public void addColumn(String name, Class type, Object defaultValue) {
+        addColumn(name, type, defaultValue, ColumnFactory.HEAP_STORAGE);
+    }
+
+    /** Add a column to this schema, whose values are stored in a given way
+     * when the schema is instantiated.
+     * 
+     * @param name
+     *            the column name
+     * @param type
+     *            the column type (as a Class instance)
+     * @param defaultValue
+     *            the default value
+     * @param storage
+     *            the storage of the column values,
+     *            {@link ColumnFactory#HEAP_STORAGE},
+     *            {@link ColumnFactory#DIRECT_STORAGE} or
+     *            {@link ColumnFactory#DICTIONARY_STORAGE}
+     * @see ColumnFactory#getColumn(Class, int, Object, int) */
+    public void addColumn(String name, Class type, Object defaultValue, int storage) {
         // check lock status
         if (m_locked) {
             throw new IllegalStateException("Can not add column to a locked Schema.");
@@ -176,16 +199,20 @@ public class Schema implements Cloneable {
             String[] names = new String[capacity];
             Class[] types = new Class[capacity];
             Object[] dflts = new Object[capacity];
+            int[] storages = new int[capacity];
             System.arraycopy(m_names, 0, names, 0, m_size);
             System.arraycopy(m_types, 0, types, 0, m_size);
             System.arraycopy(m_dflts, 0, dflts, 0, m_size);
+            System.arraycopy(m_storage, 0, storages, 0, m_size);
             m_names = names;
             m_types = types;
             m_dflts = dflts;
+            m_storage = storages;
         }
         m_names[m_size] = name;
         m_types[m_size] = type;
         m_dflts[m_size] = defaultValue;
+        m_storage[m_size] = storage;
         if (m_lookup != null) {
             m_lookup.put(name, new Integer(m_size));
         }
@@ -289,6 +316,15 @@ public class Schema implements Cloneable {
         return m_dflts[col];
     }
 
+    /** The storage of the values of the column at the given position.
+     * 
+     * @param col
+     *            the column index
+     * @return the column's storage, as defined by {@link ColumnFactory} */
+    public int getStorage(int col) {
+        return m_storage[col];
+    }
+
     /** The default value of the column with the given name.
      * 
      * @param field
@@ -557,7 +593,7 @@ public class Schema implements Cloneable {
     public Table instantiate(int nrows) {
         Table t = new Table(nrows, m_size);
         for (int i = 0; i < m_size; ++i) {
-            t.addColumn(m_names[i], m_types[i], m_dflts[i]);
+            t.addColumn(m_names[i], m_types[i], m_dflts[i], m_storage[i]);
         }
         return t;
     }
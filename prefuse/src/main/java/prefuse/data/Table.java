@@ -1,17 +1,22 @@
 package prefuse.data;
 
+import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 
 import javax.swing.event.TableModelEvent;
 
+import prefuse.data.column.BufferColumn;
 import prefuse.data.column.Column;
 import prefuse.data.column.ColumnFactory;
 import prefuse.data.column.ColumnMetadata;
+import prefuse.data.column.DictionaryColumn;
 import prefuse.data.event.ColumnListener;
 import prefuse.data.event.EventConstants;
+import prefuse.data.event.TableBatchListener;
 import prefuse.data.event.TableListener;
 import prefuse.data.expression.Expression;
 import prefuse.data.expression.Predicate;
@@ -105,6 +110,10 @@ public class Table extends AbstractTupleSet implements ColumnListener {
     /** Memoize the index of the last column operated on, used to expedite
      * handling of column updates. */
     protected int m_lastCol = -1;
+    /** The nesting depth of the open update batches. */
+    protected int m_batchDepth = 0;
+    /** The rows updated in each column during the current batch. */
+    private BitSet[] m_batch;
     /** A cached schema instance, loaded lazily. */
     protected Schema m_schema;
 
@@ -245,8 +254,15 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         if (m_schema == null) {
             Schema s = new Schema();
             for (int i = 0; i < getColumnCount(); ++i) {
-                s.addColumn(getColumnName(i), getColumnType(i), getColumn(i)
-                        .getDefaultValue());
+                Column col = getColumn(i);
+                int storage = ColumnFactory.HEAP_STORAGE;
+                if (col instanceof BufferColumn && !((BufferColumn) col).isMapped()) {
+                    storage = ColumnFactory.DIRECT_STORAGE;
+                } else if (col instanceof DictionaryColumn) {
+                    storage = ColumnFactory.DICTIONARY_STORAGE;
+                }
+                s.addColumn(getColumnName(i), getColumnType(i), col.getDefaultValue(),
+                        storage);
             }
             s.lockSchema();
             m_schema = s;
@@ -324,6 +340,124 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         }
     }
 
+    /** <p>
+     * Add a range of rows to this table at once, with their values given
+     * column by column. The rows are added after the highest row in use, so
+     * that they are contiguous, and the columns are grown once for all of them.
+     * Values are written before the rows become valid, so that listeners get
+     * no update events for them, and the indices of the table are rebuilt once
+     * the rows are in. Table listeners then receive a single insert event for
+     * the whole range.
+     * </p>
+     * <p>
+     * Each value array is either an array of objects, or an array of the
+     * primitive type of the column (such as int[] for an int column). Columns
+     * not given keep their default values.
+     * </p>
+     * 
+     * @param nrows
+     *            the number of rows to add
+     * @param fields
+     *            the data fields of the given values
+     * @param values
+     *            for each data field, an array of at least nrows values
+     * @return the row number of the first added row, or -1 if no rows were
+     *         added */
+    public int addRows(int nrows, String[] fields, Object[] values) {
+        if (fields.length != values.length) {
+            throw new IllegalArgumentException("Expected " + fields.length
+                    + " value arrays, got " + values.length);
+        }
+        Column[] cols = new Column[fields.length];
+        for (int i = 0; i < fields.length; ++i) {
+            cols[i] = getColumn(fields[i]);
+            if (cols[i] == null) {
+                throw new IllegalArgumentException("Unknown column name: " + fields[i]);
+            } else if (Array.getLength(values[i]) < nrows) {
+                throw new IllegalArgumentException("Too few values for column "
+                        + fields[i]);
+            }
+        }
+        if (nrows <= 0) {
+            return -1;
+        }
+        int first = m_rows.getMaximumRow() + 1;
+        int last = first + nrows - 1;
+        // grow the columns, and fill the rows while they are still invalid
+        for (Iterator it = getColumns(); it.hasNext();) {
+            ((Column) it.next()).setMaximumRow(last + 1);
+        }
+        for (int i = 0; i < cols.length; ++i) {
+            setValues(cols[i], first, nrows, values[i]);
+        }
+        m_rows.addRows(nrows);
+        // rebuild the indices, keeping them from processing the event
+        ArrayList indices = new ArrayList();
+        for (Iterator it = m_entries.values().iterator(); it.hasNext();) {
+            Index index = ((ColumnEntry) it.next()).index;
+            if (index instanceof TableListener) {
+                m_listeners.remove(index);
+                index.index();
+                indices.add(index);
+            }
+        }
+        try {
+            fireTableEvent(first, last, TableModelEvent.ALL_COLUMNS,
+                    TableModelEvent.INSERT);
+        } finally {
+            for (int i = 0; i < indices.size(); ++i) {
+                addTableListener((TableListener) indices.get(i));
+            }
+        }
+        return first;
+    }
+
+    /** Internal method for writing an array of values into a column.
+     * 
+     * @param c
+     *            the column
+     * @param row
+     *            the row of the first value
+     * @param nrows
+     *            the number of values
+     * @param values
+     *            the array of values */
+    private static void setValues(Column c, int row, int nrows, Object values) {
+        if (values instanceof int[]) {
+            int[] a = (int[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.setInt(a[i], row + i);
+            }
+        } else if (values instanceof long[]) {
+            long[] a = (long[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.setLong(a[i], row + i);
+            }
+        } else if (values instanceof float[]) {
+            float[] a = (float[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.setFloat(a[i], row + i);
+            }
+        } else if (values instanceof double[]) {
+            double[] a = (double[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.setDouble(a[i], row + i);
+            }
+        } else if (values instanceof boolean[]) {
+            boolean[] a = (boolean[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.setBoolean(a[i], row + i);
+            }
+        } else if (values instanceof Object[]) {
+            Object[] a = (Object[]) values;
+            for (int i = 0; i < nrows; ++i) {
+                c.set(a[i], row + i);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported value array: " + values);
+        }
+    }
+
     /** Internal method that updates the row counts for local data columns. */
     protected void updateRowCount() {
         int maxrow = m_rows.getMaximumRow() + 1;
@@ -474,6 +608,30 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         addColumn(name, col);
     }
 
+    /** Add a column with the given name and data type to this table, whose
+     * values are stored in a given way. Direct storage keeps the values of
+     * int, long, float, double and boolean columns outside of the Java heap,
+     * and dictionary storage keeps each distinct value of an Object column
+     * once.
+     * 
+     * @param name
+     *            the data field name for the column
+     * @param type
+     *            the data type, as a Java Class, for the column
+     * @param defaultValue
+     *            the default value for column data values
+     * @param storage
+     *            the storage of the column values,
+     *            {@link ColumnFactory#HEAP_STORAGE},
+     *            {@link ColumnFactory#DIRECT_STORAGE} or
+     *            {@link ColumnFactory#DICTIONARY_STORAGE}
+     * @see ColumnFactory#getColumn(Class, int, Object, int) */
+    public void addColumn(String name, Class type, Object defaultValue, int storage) {
+        Column col = ColumnFactory.getColumn(type, m_rows.getMaximumRow() + 1,
+                defaultValue, storage);
+        addColumn(name, col);
+    }
+
     /** Add a derived column to this table, using an Expression instance to
      * dynamically calculate the column data values.
      * 
@@ -525,13 +683,15 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         addColumn(name, ColumnFactory.getConstantColumn(type, dflt));
     }
 
-    /** Internal method for adding a column.
+    /** Add a column instance to this table, such as a column mapped from a
+     * file by {@link ColumnFactory#getMappedColumn(Class, java.io.File, int,
+     * Object)}. The column should have at least as many rows as the table.
      * 
      * @param name
      *            the name of the column
      * @param col
      *            the actual Column instance */
-    protected void addColumn(String name, Column col) {
+    public void addColumn(String name, Column col) {
         int idx = getColumnNumber(name);
         if (idx >= 0 && idx < m_columns.size()) {
             throw new IllegalArgumentException("Table already has column with name \""
@@ -566,6 +726,8 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         if (idx < 0 || idx >= m_columns.size()) {
             throw new IllegalArgumentException("Column index is not legal.");
         }
+        // batched updates refer to the current column numbers
+        flushBatch();
         String name = (String) m_names.get(idx);
         ((ColumnEntry) m_entries.get(name)).dispose();
         Column col = (Column) m_columns.remove(idx);
@@ -1898,11 +2060,10 @@ public class Table extends AbstractTupleSet implements ColumnListener {
             return; // bail if no valid rows
         }
         // determine the index of the updated column
-        int idx;
-        if (m_lastCol != -1 && c == getColumn(m_lastCol)) {
-            // constant time
-            idx = m_lastCol;
-        } else {
+        // constant time, reading the last column once, as it is also set by
+        // concurrent readers
+        int idx = m_lastCol;
+        if (idx == -1 || c != m_columns.get(idx)) {
             // linear time
             idx = getColumnNumber(c);
         }
@@ -1936,6 +2097,100 @@ public class Table extends AbstractTupleSet implements ColumnListener {
         m_listeners.clear();
     }
 
+    // -- Update Batches ------------------------------------------------------
+    /** <p>
+     * Start a batch of updates. Until the matching call to {@link #endBatch()},
+     * update events are not delivered to table listeners, but merged into
+     * ranges of updated rows for each column. When the batch ends, each
+     * listener receives one update event for each range, or, if it is a
+     * {@link TableBatchListener}, a single notification with all updated rows.
+     * </p>
+     * <p>
+     * Inserts, deletions, column changes and unmeasured updates (over all
+     * columns) are delivered immediately, as listeners may need to see them
+     * before further changes. The updates buffered so far are delivered just
+     * before them. Column listeners, such as indices, are not affected by
+     * batches. Batches can be nested; updates are only delivered when the
+     * outermost batch ends.
+     * </p> */
+    public void beginBatch() {
+        ++m_batchDepth;
+    }
+
+    /** End a batch of updates started by {@link #beginBatch()}. If this ends
+     * the outermost batch, the buffered updates are delivered to the table
+     * listeners.
+     * 
+     * @throws IllegalStateException
+     *             if no batch has been started */
+    public void endBatch() {
+        if (m_batchDepth == 0) {
+            throw new IllegalStateException("No batch in progress");
+        }
+        if (--m_batchDepth == 0) {
+            flushBatch();
+        }
+    }
+
+    /** Indicates if a batch of updates is in progress.
+     * 
+     * @return true if update events are currently buffered */
+    public boolean isInBatch() {
+        return m_batchDepth > 0;
+    }
+
+    /** Internal method for adding an update to the current batch.
+     * 
+     * @param row0
+     *            the starting row of the updated range
+     * @param row1
+     *            the ending row (inclusive) of the updated range
+     * @param col
+     *            the number of the updated column */
+    private void addToBatch(int row0, int row1, int col) {
+        if (m_batch == null) {
+            m_batch = new BitSet[Math.max(col + 1, getColumnCount())];
+        } else if (col >= m_batch.length) {
+            BitSet[] batch = new BitSet[col + 1];
+            System.arraycopy(m_batch, 0, batch, 0, m_batch.length);
+            m_batch = batch;
+        }
+        if (m_batch[col] == null) {
+            m_batch[col] = new BitSet();
+        }
+        m_batch[col].set(row0, row1 + 1);
+    }
+
+    /** Internal method for delivering the buffered updates to the table
+     * listeners, one event per range of contiguous updated rows of a column,
+     * or one notification for listeners of whole batches. */
+    private void flushBatch() {
+        BitSet[] batch = m_batch;
+        if (batch == null) {
+            return;
+        }
+        m_batch = null;
+        Object[] lstnrs = m_listeners.getArray();
+        for (int i = 0; i < lstnrs.length; ++i) {
+            if (lstnrs[i] instanceof TableBatchListener) {
+                ((TableBatchListener) lstnrs[i]).tableBatchChanged(this, batch);
+                continue;
+            }
+            TableListener l = (TableListener) lstnrs[i];
+            for (int col = 0; col < batch.length; ++col) {
+                BitSet rows = batch[col];
+                if (rows == null) {
+                    continue;
+                }
+                for (int r = rows.nextSetBit(0); r >= 0; r = rows.nextSetBit(r)) {
+                    int end = rows.nextClearBit(r);
+                    l.tableChanged(this, r, end - 1, col, EventConstants.UPDATE);
+                    r = end;
+                }
+            }
+        }
+    }
+
     /** Fire a table event to notify listeners.
      * 
      * @param row0
@@ -1954,6 +2209,15 @@ public class Table extends AbstractTupleSet implements ColumnListener {
     protected void fireTableEvent(int row0, int row1, int col, int type) {
         // increment the modification count
         ++m_modCount;
+        if (m_batchDepth > 0) {
+            if (type == EventConstants.UPDATE && col >= 0 && row0 >= 0
+                    && row0 <= row1) {
+                addToBatch(row0, row1, col);
+                return;
+            }
+            // deliver the batched updates before any other change
+            flushBatch();
+        }
         if (type != EventConstants.UPDATE && col == EventConstants.ALL_COLUMNS) {
             // fire event to all tuple set listeners
             fireTupleEvent(this, row0, row1, type);
@@ -13,9 +13,24 @@ import prefuse.util.collections.CopyOnWriteArrayList;
 
 /** Abstract base class for Column implementations. Provides listener support and
  * default implementations of column methods.
+ * <p>
+ * The values of distinct rows may be set concurrently, for example by a
+ * parallel {@link prefuse.action.ItemAction}: the threads of the action share
+ * an event lock (see {@link #setEventLock(Object)}), and listeners are notified
+ * of one change at a time while holding it, so that tables, indices and other
+ * listeners do not need to be thread-safe. Other threads each hold a lock of
+ * their own, so that they never contend on it.
+ * </p>
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public abstract class AbstractColumn implements Column {
+    /** The lock held by each thread while notifying listeners of a change. */
+    private static final ThreadLocal s_eventLock = new ThreadLocal() {
+        @Override
+        protected Object initialValue() {
+            return new Object();
+        }
+    };
     /** The m_column type. */
     protected final Class m_columnType;
     /** The m_parser. */
@@ -118,6 +133,23 @@ public abstract class AbstractColumn implements Column {
 
     // ------------------------------------------------------------------------
     // Listener Methods
+    /** Sets the lock the calling thread holds while notifying column listeners.
+     * Threads writing to the same columns concurrently must share a lock for
+     * the duration of their writes, and then restore their previous lock.
+     * 
+     * @param lock
+     *            the lock, or null for a lock private to the calling thread
+     * @return the previous lock of the calling thread */
+    public static Object setEventLock(Object lock) {
+        Object prev = s_eventLock.get();
+        if (lock == null) {
+            s_eventLock.remove();
+        } else {
+            s_eventLock.set(lock);
+        }
+        return prev;
+    }
+
     /** Adds a listener to be notified when this column changes.
      * 
      * @param listener
@@ -146,8 +178,10 @@ public abstract class AbstractColumn implements Column {
      *            the end */
     protected final void fireColumnEvent(int type, int start, int end) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, type, start, end);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, type, start, end);
+            }
         }
     }
 
@@ -159,8 +193,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, int prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -172,8 +208,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, long prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -185,8 +223,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, float prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -198,8 +238,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, double prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -211,8 +253,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, boolean prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -224,8 +268,10 @@ public abstract class AbstractColumn implements Column {
      *            the previous value at the given index */
     protected final void fireColumnEvent(int idx, Object prev) {
         Object[] lstnrs = m_listeners.getArray();
-        for (int i = 0; i < lstnrs.length; ++i) {
-            ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+        synchronized (s_eventLock.get()) {
+            for (int i = 0; i < lstnrs.length; ++i) {
+                ((ColumnListener) lstnrs[i]).columnChanged(this, idx, prev);
+            }
         }
     }
 
@@ -66,6 +66,9 @@ public class BooleanColumn extends AbstractColumn {
     @Override
     public void setMaximumRow(int nrows) {
         if (nrows > m_size) {
+            // allocate the words of all the rows up front, so that setting a
+            // row never replaces the words read by getBoolean
+            m_bits.set(nrows - 1);
             m_bits.set(m_size, nrows, ((Boolean) m_defaultValue).booleanValue());
         }
         m_size = nrows;
@@ -144,14 +147,19 @@ public class BooleanColumn extends AbstractColumn {
         } else if (row < 0 || row >= m_size) {
             throw new IllegalArgumentException("Row index out of bounds: " + row);
         }
-        // get the previous value
-        boolean prev = m_bits.get(row);
-        // exit early if no change
-        if (prev == val) {
-            return;
+        boolean prev;
+        // words of a BitSet are shared by several rows, which may be set
+        // concurrently; reads do not lock, as the words are never reallocated
+        synchronized (m_bits) {
+            // get the previous value
+            prev = m_bits.get(row);
+            // exit early if no change
+            if (prev == val) {
+                return;
+            }
+            // set the new value
+            m_bits.set(row, val);
         }
-        // set the new value
-        m_bits.set(row, val);
         // fire a change event
         fireColumnEvent(row, prev);
     }
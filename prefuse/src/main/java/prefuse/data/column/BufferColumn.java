@@ -0,0 +1,598 @@
+package prefuse.data.column;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import prefuse.data.DataReadOnlyException;
+import prefuse.data.DataTypeException;
+
+/** <p>
+ * Column implementation storing int, long, float, double or boolean values
+ * outside of the Java heap, in a direct {@link ByteBuffer} or in a file
+ * mapped into memory. Large columns then put no pressure on the garbage
+ * collector, and mapped columns may be larger than the heap and can be
+ * reopened without reading their values.
+ * </p>
+ * <p>
+ * Values are stored with a fixed width (booleans take one byte each). Like the
+ * array based columns, the storage grows by half its capacity when rows are
+ * added beyond it, copying the values of a direct buffer, and extending and
+ * remapping a mapped file. A mapped file holds the values of the rows in
+ * order, in little-endian byte order; {@link #close()} trims it to the rows of
+ * the column, so that it can be reopened with
+ * {@link #map(Class, File, int, Object)}.
+ * </p> */
+public class BufferColumn extends AbstractColumn {
+    /** The m_width, the number of bytes of each value. */
+    private final int m_width;
+    /** The m_buffer. */
+    private ByteBuffer m_buffer;
+    /** The m_size. */
+    private int m_size;
+    /** The m_capacity, in rows. */
+    private int m_capacity;
+    /** The m_file, the mapped file, or null for a direct buffer. */
+    private RandomAccessFile m_file;
+
+    /** Create a new BufferColumn backed by a direct buffer.
+     * 
+     * @param type
+     *            the column type: int, long, float, double or boolean
+     * @param nrows
+     *            the initial size of the column
+     * @param defaultValue
+     *            the default value for the column, or null for the default of
+     *            the array based columns: -1 for int, zero or false otherwise */
+    public BufferColumn(Class type, int nrows, Object defaultValue) {
+        this(type, defaultValue, null);
+        m_capacity = Math.max(nrows, 10);
+        m_buffer = ByteBuffer.allocateDirect(m_capacity * m_width).order(
+                ByteOrder.nativeOrder());
+        fillDefault(0, m_capacity);
+        m_size = nrows;
+    }
+
+    /** Instantiates a new column, without storage.
+     * 
+     * @param type
+     *            the column type
+     * @param defaultValue
+     *            the default value, or null for the default of the type
+     * @param file
+     *            the mapped file, or null */
+    private BufferColumn(Class type, Object defaultValue, RandomAccessFile file) {
+        super(type, getDefault(type, defaultValue));
+        m_width = getWidth(type);
+        m_file = file;
+    }
+
+    /** Create a new BufferColumn backed by a file mapped into memory. The
+     * values already in the file are kept, and the other rows take the default
+     * value.
+     * 
+     * @param type
+     *            the column type: int, long, float, double or boolean
+     * @param file
+     *            the file holding the values, created if it does not exist
+     * @param nrows
+     *            the initial size of the column, or -1 to use all the values
+     *            in the file
+     * @param defaultValue
+     *            the default value for the column, or null for the default of
+     *            the array based columns: -1 for int, zero or false otherwise
+     * @return the new column
+     * @throws IOException
+     *             if the file cannot be opened or mapped */
+    public static BufferColumn map(Class type, File file, int nrows, Object defaultValue)
+            throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            BufferColumn c = new BufferColumn(type, defaultValue, raf);
+            int stored = (int) (raf.length() / c.m_width);
+            if (nrows < 0) {
+                nrows = stored;
+            }
+            c.m_capacity = Math.max(Math.max(nrows, stored), 10);
+            c.m_buffer = c.mapFile(c.m_capacity);
+            c.fillDefault(stored, c.m_capacity);
+            c.m_size = nrows;
+            return c;
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        } catch (RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /** Get the number of bytes used to store a value of a type.
+     * 
+     * @param type
+     *            the column type
+     * @return the width of the values */
+    private static int getWidth(Class type) {
+        if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == boolean.class) {
+            return 1;
+        } else {
+            throw new DataTypeException(type);
+        }
+    }
+
+    /** Get the default value of a column, converted to the column type.
+     * 
+     * @param type
+     *            the column type
+     * @param dflt
+     *            the requested default value, or null
+     * @return the default value, or the default value of the array based
+     *         column of the type if none was requested, as in
+     *         {@link IntColumn#IntColumn(int)} */
+    private static Object getDefault(Class type, Object dflt) {
+        if (type == boolean.class) {
+            return dflt == null ? Boolean.FALSE : dflt;
+        } else if (dflt != null && !(dflt instanceof Number)) {
+            return dflt;
+        }
+        Number n = dflt != null ? (Number) dflt : new Integer(type == int.class ? -1
+                : 0);
+        if (type == int.class) {
+            return new Integer(n.intValue());
+        } else if (type == long.class) {
+            return new Long(n.longValue());
+        } else if (type == float.class) {
+            return new Float(n.floatValue());
+        } else if (type == double.class) {
+            return new Double(n.doubleValue());
+        }
+        return dflt;
+    }
+
+    /** Map the file of this column.
+     * 
+     * @param capacity
+     *            the number of rows to map
+     * @return the mapped buffer
+     * @throws IOException
+     *             if the file cannot be mapped */
+    private MappedByteBuffer mapFile(int capacity) throws IOException {
+        MappedByteBuffer b = m_file.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                0, (long) capacity * m_width);
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        return b;
+    }
+
+    /** Indicates if this column is backed by a mapped file.
+     * 
+     * @return true if the column is mapped, false if it uses a direct buffer */
+    public boolean isMapped() {
+        return m_file != null;
+    }
+
+    /** Write the changes of a mapped column to its file. Does nothing for a
+     * column backed by a direct buffer. */
+    public void force() {
+        if (m_buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) m_buffer).force();
+        }
+    }
+
+    /** Release the file of a mapped column, trimming it to the rows of the
+     * column. The column must not be used afterwards. Does nothing for a column
+     * backed by a direct buffer.
+     * 
+     * @throws IOException
+     *             if the file cannot be written */
+    public void close() throws IOException {
+        if (m_file == null) {
+            return;
+        }
+        force();
+        try {
+            m_file.setLength((long) m_size * m_width);
+        } finally {
+            m_file.close();
+            m_file = null;
+            m_buffer = null;
+        }
+    }
+
+    /** Write the default value into a range of rows.
+     * 
+     * @param start
+     *            the first row
+     * @param end
+     *            the row after the last one */
+    private void fillDefault(int start, int end) {
+        for (int row = start; row < end; ++row) {
+            write(row, m_defaultValue);
+        }
+    }
+
+    /** Write a value without checks or events.
+     * 
+     * @param row
+     *            the row
+     * @param val
+     *            the value, of the wrapper type of the column */
+    private void write(int row, Object val) {
+        int i = row * m_width;
+        if (m_columnType == int.class) {
+            m_buffer.putInt(i, ((Number) val).intValue());
+        } else if (m_columnType == long.class) {
+            m_buffer.putLong(i, ((Number) val).longValue());
+        } else if (m_columnType == float.class) {
+            m_buffer.putFloat(i, ((Number) val).floatValue());
+        } else if (m_columnType == double.class) {
+            m_buffer.putDouble(i, ((Number) val).doubleValue());
+        } else {
+            m_buffer.put(i, ((Boolean) val).booleanValue() ? (byte) 1 : (byte) 0);
+        }
+    }
+
+    /** Check a row index.
+     * 
+     * @param row
+     *            the row */
+    private void checkRow(int row) {
+        if (row < 0 || row >= m_size) {
+            throw new IllegalArgumentException("Row index out of bounds: " + row);
+        }
+    }
+
+    /** Check that the column can be written.
+     * 
+     * @param row
+     *            the row to write */
+    private void checkWrite(int row) {
+        if (m_readOnly) {
+            throw new DataReadOnlyException();
+        }
+        checkRow(row);
+    }
+
+    // ------------------------------------------------------------------------
+    // Column Metadata
+    /** Gets the row count.
+     * 
+     * @return the row count
+     * @see prefuse.data.column.Column#getRowCount() */
+    @Override
+    public int getRowCount() {
+        return m_size;
+    }
+
+    /** Sets the maximum row.
+     * 
+     * @param nrows
+     *            the new maximum row
+     * @see prefuse.data.column.Column#setMaximumRow(int) */
+    @Override
+    public void setMaximumRow(int nrows) {
+        if (nrows > m_capacity) {
+            int capacity = Math.max(3 * m_capacity / 2 + 1, nrows);
+            if (m_file != null) {
+                try {
+                    m_buffer = mapFile(capacity);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot grow mapped column: " + e);
+                }
+            } else {
+                ByteBuffer b = ByteBuffer.allocateDirect(capacity * m_width).order(
+                        ByteOrder.nativeOrder());
+                ByteBuffer src = m_buffer.duplicate();
+                src.position(0).limit(m_size * m_width);
+                b.put(src);
+                m_buffer = b;
+            }
+            m_capacity = capacity;
+            fillDefault(m_size, capacity);
+        } else if (nrows > m_size) {
+            // reset the values left by rows removed earlier
+            fillDefault(m_size, nrows);
+        }
+        m_size = nrows;
+    }
+
+    // ------------------------------------------------------------------------
+    // Data Access Methods
+    /** Gets the.
+     * 
+     * @param row
+     *            the row
+     * @return the object
+     * @see prefuse.data.column.Column#get(int) */
+    @Override
+    public Object get(int row) {
+        if (m_columnType == int.class) {
+            return new Integer(getInt(row));
+        } else if (m_columnType == long.class) {
+            return new Long(getLong(row));
+        } else if (m_columnType == float.class) {
+            return new Float(getFloat(row));
+        } else if (m_columnType == double.class) {
+            return new Double(getDouble(row));
+        } else {
+            return getBoolean(row) ? Boolean.TRUE : Boolean.FALSE;
+        }
+    }
+
+    /** Sets the.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.Column#set(java.lang.Object, int) */
+    @Override
+    public void set(Object val, int row) throws DataTypeException {
+        if (m_readOnly) {
+            throw new DataReadOnlyException();
+        } else if (val == null) {
+            throw new DataTypeException("Column does not accept null values");
+        } else if (val instanceof String) {
+            setString((String) val, row);
+        } else if (m_columnType == boolean.class) {
+            if (!(val instanceof Boolean)) {
+                throw new DataTypeException(val.getClass());
+            }
+            setBoolean(((Boolean) val).booleanValue(), row);
+        } else if (!(val instanceof Number)) {
+            throw new DataTypeException(val.getClass());
+        } else if (m_columnType == int.class) {
+            setInt(((Number) val).intValue(), row);
+        } else if (m_columnType == long.class) {
+            setLong(((Number) val).longValue(), row);
+        } else if (m_columnType == float.class) {
+            setFloat(((Number) val).floatValue(), row);
+        } else {
+            setDouble(((Number) val).doubleValue(), row);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Data Type Convenience Methods
+    /** Gets the int.
+     * 
+     * @param row
+     *            the row
+     * @return the int
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#getInt(int) */
+    @Override
+    public int getInt(int row) throws DataTypeException {
+        checkRow(row);
+        if (m_columnType == int.class) {
+            return m_buffer.getInt(row * 4);
+        } else if (m_columnType == boolean.class) {
+            throw new DataTypeException(int.class);
+        }
+        return (int) getDouble(row);
+    }
+
+    /** Sets the int.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#setInt(int, int) */
+    @Override
+    public void setInt(int val, int row) throws DataTypeException {
+        if (m_columnType == double.class) {
+            // widen the value, as DoubleColumn does
+            setDouble(val, row);
+            return;
+        } else if (m_columnType != int.class) {
+            super.setInt(val, row);
+            return;
+        }
+        checkWrite(row);
+        int prev = m_buffer.getInt(row * 4);
+        if (prev == val) {
+            return;
+        }
+        m_buffer.putInt(row * 4, val);
+        fireColumnEvent(row, prev);
+    }
+
+    /** Gets the long.
+     * 
+     * @param row
+     *            the row
+     * @return the long
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#getLong(int) */
+    @Override
+    public long getLong(int row) throws DataTypeException {
+        checkRow(row);
+        if (m_columnType == long.class) {
+            return m_buffer.getLong(row * 8);
+        } else if (m_columnType == int.class) {
+            return m_buffer.getInt(row * 4);
+        } else if (m_columnType == boolean.class) {
+            throw new DataTypeException(long.class);
+        }
+        return (long) getDouble(row);
+    }
+
+    /** Sets the long.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#setLong(long, int) */
+    @Override
+    public void setLong(long val, int row) throws DataTypeException {
+        if (m_columnType == double.class) {
+            // widen the value, as DoubleColumn does
+            setDouble(val, row);
+            return;
+        } else if (m_columnType != long.class) {
+            super.setLong(val, row);
+            return;
+        }
+        checkWrite(row);
+        long prev = m_buffer.getLong(row * 8);
+        if (prev == val) {
+            return;
+        }
+        m_buffer.putLong(row * 8, val);
+        fireColumnEvent(row, prev);
+    }
+
+    /** Gets the float.
+     * 
+     * @param row
+     *            the row
+     * @return the float
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#getFloat(int) */
+    @Override
+    public float getFloat(int row) throws DataTypeException {
+        checkRow(row);
+        if (m_columnType == float.class) {
+            return m_buffer.getFloat(row * 4);
+        } else if (m_columnType == long.class) {
+            return m_buffer.getLong(row * 8);
+        } else if (m_columnType == boolean.class) {
+            throw new DataTypeException(float.class);
+        }
+        return (float) getDouble(row);
+    }
+
+    /** Sets the float.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#setFloat(float, int) */
+    @Override
+    public void setFloat(float val, int row) throws DataTypeException {
+        if (m_columnType == double.class) {
+            // widen the value, as DoubleColumn does
+            setDouble(val, row);
+            return;
+        } else if (m_columnType != float.class) {
+            super.setFloat(val, row);
+            return;
+        }
+        checkWrite(row);
+        float prev = m_buffer.getFloat(row * 4);
+        if (prev == val) {
+            return;
+        }
+        m_buffer.putFloat(row * 4, val);
+        fireColumnEvent(row, prev);
+    }
+
+    /** Gets the double.
+     * 
+     * @param row
+     *            the row
+     * @return the double
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#getDouble(int) */
+    @Override
+    public double getDouble(int row) throws DataTypeException {
+        checkRow(row);
+        if (m_columnType == double.class) {
+            return m_buffer.getDouble(row * 8);
+        } else if (m_columnType == float.class) {
+            return m_buffer.getFloat(row * 4);
+        } else if (m_columnType == int.class) {
+            return m_buffer.getInt(row * 4);
+        } else if (m_columnType == long.class) {
+            return m_buffer.getLong(row * 8);
+        }
+        throw new DataTypeException(double.class);
+    }
+
+    /** Sets the double.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#setDouble(double, int) */
+    @Override
+    public void setDouble(double val, int row) throws DataTypeException {
+        if (m_columnType != double.class) {
+            super.setDouble(val, row);
+            return;
+        }
+        checkWrite(row);
+        double prev = m_buffer.getDouble(row * 8);
+        if (prev == val) {
+            return;
+        }
+        m_buffer.putDouble(row * 8, val);
+        fireColumnEvent(row, prev);
+    }
+
+    /** Gets the boolean.
+     * 
+     * @param row
+     *            the row
+     * @return true, if successful
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#getBoolean(int) */
+    @Override
+    public boolean getBoolean(int row) throws DataTypeException {
+        if (m_columnType != boolean.class) {
+            throw new DataTypeException(boolean.class);
+        }
+        checkRow(row);
+        return m_buffer.get(row) != 0;
+    }
+
+    /** Sets the boolean.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.AbstractColumn#setBoolean(boolean, int) */
+    @Override
+    public void setBoolean(boolean val, int row) throws DataTypeException {
+        if (m_columnType != boolean.class) {
+            super.setBoolean(val, row);
+            return;
+        }
+        checkWrite(row);
+        boolean prev = m_buffer.get(row) != 0;
+        if (prev == val) {
+            return;
+        }
+        m_buffer.put(row, val ? (byte) 1 : (byte) 0);
+        fireColumnEvent(row, prev);
+    }
+} // end of class BufferColumn
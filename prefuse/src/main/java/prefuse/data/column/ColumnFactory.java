@@ -1,5 +1,7 @@
 package prefuse.data.column;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 
 import prefuse.data.DataTypeException;
@@ -11,6 +13,19 @@ import prefuse.data.expression.Expression;
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class ColumnFactory {
+    /** Storage of column values in arrays on the Java heap. */
+    public static final int HEAP_STORAGE = 0;
+    /** Storage of primitive column values in direct buffers, outside of the
+     * Java heap.
+     * 
+     * @see BufferColumn */
+    public static final int DIRECT_STORAGE = 1;
+    /** Storage of Object column values as codes into a dictionary of distinct
+     * values, for values repeated across many rows.
+     * 
+     * @see DictionaryColumn */
+    public static final int DICTIONARY_STORAGE = 2;
+
     /** Get a new column of the given type.
      * 
      * @param type
@@ -116,6 +131,71 @@ public class ColumnFactory {
         }
     }
 
+    /** Get a new column of the given type, using the given storage. Direct
+     * storage only applies to int, long, float, double and boolean columns, and
+     * dictionary storage to Object columns other than dates; other columns are
+     * stored on the heap.
+     * 
+     * @param type
+     *            the column data type
+     * @param nrows
+     *            the number of rows to include in the column
+     * @param defaultValue
+     *            the default value for the column
+     * @param storage
+     *            the storage of the values, {@link #HEAP_STORAGE},
+     *            {@link #DIRECT_STORAGE} or {@link #DICTIONARY_STORAGE}
+     * @return the new column */
+    public static final Column getColumn(Class type, int nrows, Object defaultValue,
+            int storage) {
+        if (storage == DIRECT_STORAGE && isBufferType(type)) {
+            return new BufferColumn(type, nrows, defaultValue);
+        } else if (storage == DICTIONARY_STORAGE && !type.isPrimitive()
+                && !Date.class.isAssignableFrom(type)) {
+            return new DictionaryColumn(type, nrows, defaultValue);
+        } else if (storage != HEAP_STORAGE && storage != DIRECT_STORAGE
+                && storage != DICTIONARY_STORAGE) {
+            throw new IllegalArgumentException("Unrecognized storage: " + storage);
+        }
+        return getColumn(type, nrows, nrows, defaultValue);
+    }
+
+    /** Get a new column of the given type, backed by a file mapped into memory.
+     * The values already in the file are kept, so that a column written and
+     * closed earlier can be reopened without copying its values.
+     * 
+     * @param type
+     *            the column data type, one of int, long, float, double or
+     *            boolean
+     * @param file
+     *            the file holding the values
+     * @param nrows
+     *            the number of rows to include in the column, or -1 to use all
+     *            the values in the file
+     * @param defaultValue
+     *            the default value for the column
+     * @return the new column
+     * @throws IOException
+     *             if the file cannot be mapped
+     * @see BufferColumn#map(Class, File, int, Object) */
+    public static final BufferColumn getMappedColumn(Class type, File file, int nrows,
+            Object defaultValue) throws IOException {
+        if (!isBufferType(type)) {
+            throw new DataTypeException(type);
+        }
+        return BufferColumn.map(type, file, nrows, defaultValue);
+    }
+
+    /** Indicates if values of a type can be stored outside of the heap.
+     * 
+     * @param type
+     *            the column data type
+     * @return true for int, long, float, double and boolean */
+    private static boolean isBufferType(Class type) {
+        return type == int.class || type == long.class || type == float.class
+                || type == double.class || type == boolean.class;
+    }
+
     /** Get a new column based on the given expression.
      * 
      * @param t
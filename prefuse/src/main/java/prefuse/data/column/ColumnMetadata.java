@@ -1,5 +1,6 @@
 package prefuse.data.column;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,6 +10,7 @@ import prefuse.data.event.ColumnListener;
 import prefuse.data.util.Index;
 import prefuse.util.DataLib;
 import prefuse.util.TypeLib;
+import prefuse.util.collections.IntIterator;
 import prefuse.util.collections.DefaultLiteralComparator;
 
 /** ColumnMetadata stores computed metadata and statistics for a singe column
@@ -271,11 +273,43 @@ public class ColumnMetadata implements ColumnListener {
     public Object[] getOrdinalArray() {
         accessCheck();
         if (m_ordinalA == null && m_dynamic) {
-            m_ordinalA = DataLib.ordinalArray(m_table.tuples(), m_field, m_cmp);
+            Column col = m_table.getColumn(m_field);
+            if (col instanceof DictionaryColumn) {
+                m_ordinalA = getOrdinalArray((DictionaryColumn) col);
+            } else {
+                m_ordinalA = DataLib.ordinalArray(m_table.tuples(), m_field, m_cmp);
+            }
         }
         return m_ordinalA;
     }
 
+    /** Get the sorted distinct values of a dictionary column, collecting the
+     * codes used by the rows of the table rather than their values.
+     * 
+     * @param col
+     *            the column
+     * @return the sorted distinct values of the column */
+    private Object[] getOrdinalArray(DictionaryColumn col) {
+        int colidx = m_table.getColumnNumber(m_field);
+        boolean[] used = new boolean[col.getDictionarySize()];
+        int count = 0;
+        for (IntIterator rows = m_table.rows(); rows.hasNext();) {
+            int code = col.getCode(m_table.getColumnRow(rows.nextInt(), colidx));
+            if (!used[code]) {
+                used[code] = true;
+                ++count;
+            }
+        }
+        Object[] a = new Object[count];
+        for (int code = 0, i = 0; code < used.length; ++code) {
+            if (used[code]) {
+                a[i++] = col.getValue(code);
+            }
+        }
+        Arrays.sort(a, m_cmp);
+        return a;
+    }
+
     /** Get a map between all unique column values and their integer index in the
      * sort order of those values. For example, the minimum value maps to 0, the
      * next greater value to 1, etc.
@@ -0,0 +1,285 @@
+package prefuse.data.column;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+
+import prefuse.data.DataReadOnlyException;
+import prefuse.data.DataTypeException;
+import prefuse.util.collections.DefaultLiteralComparator;
+import prefuse.util.collections.LiteralComparator;
+
+/** <p>
+ * Column implementation storing Object values, such as labels or categories,
+ * that are repeated across many rows. Each distinct value is stored once in a
+ * dictionary, and rows hold the int code of their value in the dictionary.
+ * Values are considered equal according to their equals method, so that rows
+ * holding equal values share both the value instance and the code, and can be
+ * compared by code.
+ * </p>
+ * <p>
+ * Codes are assigned in the order in which values are first stored, and stay
+ * valid for the life of the column: values remain in the dictionary after the
+ * last row holding them has changed. Unlike {@link ObjectColumn}, default
+ * values are never cloned, all rows holding the default value share it.
+ * </p> */
+public class DictionaryColumn extends AbstractColumn {
+    /** The m_codes, the dictionary code of each row. */
+    private int[] m_codes;
+    /** The m_size. */
+    private int m_size;
+    /** The m_dictionary, the value of each code. */
+    private Object[] m_dictionary;
+    /** The m_count, the number of codes in use. */
+    private int m_count;
+    /** The m_lookup, mapping values to their codes. */
+    private HashMap m_lookup;
+    /** The m_default code. */
+    private int m_defaultCode;
+
+    /** Create a new DictionaryColumn.
+     * 
+     * @param type
+     *            the data type of Objects in this column
+     * @param nrows
+     *            the initial size of the column
+     * @param defaultValue
+     *            the default value for the column */
+    public DictionaryColumn(Class type, int nrows, Object defaultValue) {
+        super(type, defaultValue);
+        if (type.isPrimitive()) {
+            throw new DataTypeException(type);
+        }
+        m_dictionary = new Object[16];
+        m_lookup = new HashMap();
+        // the default value is the first code, 0
+        m_defaultCode = encode(m_defaultValue);
+        m_codes = new int[Math.max(nrows, 10)];
+        m_size = nrows;
+    }
+
+    /** Get the code of a value, adding it to the dictionary if needed.
+     * 
+     * @param val
+     *            the value
+     * @return the code of the value */
+    private int encode(Object val) {
+        Integer code = (Integer) m_lookup.get(val);
+        if (code != null) {
+            return code.intValue();
+        }
+        if (m_count == m_dictionary.length) {
+            Object[] d = new Object[2 * m_count];
+            System.arraycopy(m_dictionary, 0, d, 0, m_count);
+            m_dictionary = d;
+        }
+        m_dictionary[m_count] = val;
+        m_lookup.put(val, new Integer(m_count));
+        return m_count++;
+    }
+
+    /** Check a row index.
+     * 
+     * @param row
+     *            the row */
+    private void checkRow(int row) {
+        if (row < 0 || row >= m_size) {
+            throw new IllegalArgumentException("Row index out of bounds: " + row);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Dictionary Access
+    /** Get the number of distinct values stored in the dictionary.
+     * 
+     * @return the size of the dictionary */
+    public int getDictionarySize() {
+        return m_count;
+    }
+
+    /** Get the dictionary code of the value at a row.
+     * 
+     * @param row
+     *            the row
+     * @return the code of the value */
+    public int getCode(int row) {
+        checkRow(row);
+        return m_codes[row];
+    }
+
+    /** Get the dictionary code of a value.
+     * 
+     * @param val
+     *            the value
+     * @return the code of the value, or -1 if no row ever held it */
+    public int getCode(Object val) {
+        Integer code = (Integer) m_lookup.get(val);
+        return code == null ? -1 : code.intValue();
+    }
+
+    /** Get the value of a dictionary code.
+     * 
+     * @param code
+     *            the code
+     * @return the value */
+    public Object getValue(int code) {
+        if (code < 0 || code >= m_count) {
+            throw new IllegalArgumentException("Unknown dictionary code: " + code);
+        }
+        return m_dictionary[code];
+    }
+
+    /** Get a comparator of dictionary codes, ordering codes as their values.
+     * Integer.MIN_VALUE and Integer.MAX_VALUE are ordered before and after all
+     * codes, so that they can be used as open bounds of code ranges.
+     * 
+     * @param cmp
+     *            the comparator of values, or null for the default comparator
+     * @return the comparator of codes */
+    public LiteralComparator getCodeComparator(Comparator cmp) {
+        return new CodeComparator(cmp == null ? DefaultLiteralComparator.getInstance()
+                : cmp);
+    }
+
+    // ------------------------------------------------------------------------
+    // Column Metadata
+    /** Gets the row count.
+     * 
+     * @return the row count
+     * @see prefuse.data.column.Column#getRowCount() */
+    @Override
+    public int getRowCount() {
+        return m_size;
+    }
+
+    /** Sets the maximum row.
+     * 
+     * @param nrows
+     *            the new maximum row
+     * @see prefuse.data.column.Column#setMaximumRow(int) */
+    @Override
+    public void setMaximumRow(int nrows) {
+        if (nrows > m_codes.length) {
+            int capacity = Math.max(3 * m_codes.length / 2 + 1, nrows);
+            int[] codes = new int[capacity];
+            System.arraycopy(m_codes, 0, codes, 0, m_size);
+            Arrays.fill(codes, m_size, capacity, m_defaultCode);
+            m_codes = codes;
+        }
+        m_size = nrows;
+    }
+
+    /** Sets the default value, adding it to the dictionary.
+     * 
+     * @param dflt
+     *            the new default value
+     * @see prefuse.data.column.AbstractColumn#setDefaultValue(java.lang.Object) */
+    @Override
+    public void setDefaultValue(Object dflt) {
+        super.setDefaultValue(dflt);
+        // the dictionary does not exist yet when called by the constructor
+        if (m_lookup != null) {
+            m_defaultCode = encode(dflt);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Data Access Methods
+    /** Gets the.
+     * 
+     * @param row
+     *            the row
+     * @return the object
+     * @see prefuse.data.column.Column#get(int) */
+    @Override
+    public Object get(int row) {
+        checkRow(row);
+        return m_dictionary[m_codes[row]];
+    }
+
+    /** Sets the.
+     * 
+     * @param val
+     *            the val
+     * @param row
+     *            the row
+     * @throws DataTypeException
+     *             the data type exception
+     * @see prefuse.data.column.Column#set(java.lang.Object, int) */
+    @Override
+    public void set(Object val, int row) throws DataTypeException {
+        if (m_readOnly) {
+            throw new DataReadOnlyException();
+        }
+        checkRow(row);
+        if (val != null && !canSet(val.getClass())) {
+            throw new DataTypeException(val.getClass());
+        }
+        int prev = m_codes[row];
+        int code = encode(val);
+        // exit early if no change
+        if (prev == code) {
+            return;
+        }
+        m_codes[row] = code;
+        fireColumnEvent(row, m_dictionary[prev]);
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** Comparator of dictionary codes by their values. */
+    private class CodeComparator implements LiteralComparator {
+        /** The comparator of values. */
+        private final Comparator m_cmp;
+
+        /** Instantiates a new code comparator.
+         * 
+         * @param cmp
+         *            the comparator of values */
+        CodeComparator(Comparator cmp) {
+            m_cmp = cmp;
+        }
+
+        @Override
+        public int compare(int x1, int x2) {
+            if (x1 == x2) {
+                return 0;
+            } else if (x1 == Integer.MIN_VALUE || x2 == Integer.MAX_VALUE) {
+                return -1;
+            } else if (x1 == Integer.MAX_VALUE || x2 == Integer.MIN_VALUE) {
+                return 1;
+            }
+            return m_cmp.compare(m_dictionary[x1], m_dictionary[x2]);
+        }
+
+        @Override
+        public int compare(Object o1, Object o2) {
+            return compare(((Integer) o1).intValue(), ((Integer) o2).intValue());
+        }
+
+        @Override
+        public int compare(byte x1, byte x2) {
+            return compare((int) x1, (int) x2);
+        }
+
+        @Override
+        public int compare(long x1, long x2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int compare(float x1, float x2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int compare(double x1, double x2) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int compare(boolean x1, boolean x2) {
+            throw new UnsupportedOperationException();
+        }
+    }
+} // end of class DictionaryColumn
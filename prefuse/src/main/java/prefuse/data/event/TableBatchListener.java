@@ -0,0 +1,24 @@
+package prefuse.data.event;
+
+import java.util.BitSet;
+
+import prefuse.data.Table;
+
+/** Listener interface for monitoring the batches of updates committed to a
+ * table. Listeners implementing this interface receive all the updates of a
+ * batch in a single notification, instead of one update event per modified
+ * range of each column. Inserts, deletions and other events are still
+ * delivered through {@link TableListener#tableChanged}.
+ * 
+ * @see Table#beginBatch() */
+public interface TableBatchListener extends TableListener {
+    /** Notification that a batch of updates has been committed to a table.
+     * 
+     * @param t
+     *            the table that has changed
+     * @param rows
+     *            for each column number, the rows updated in that column, or
+     *            null if the column was not updated. The sets must not be
+     *            modified. */
+    public void tableBatchChanged(Table t, BitSet[] rows);
+} // end of interface TableBatchListener
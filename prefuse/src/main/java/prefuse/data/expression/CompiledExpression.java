@@ -0,0 +1,310 @@
+package prefuse.data.expression;
+
+import prefuse.data.Schema;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.event.ExpressionListener;
+
+/** An expression compiled by the {@link ExpressionCompiler} for the rows of a
+ * table. The value of a row is computed by a tree of nodes specialised for
+ * the types of the columns of the table, which read the columns by row number,
+ * without creating tuples nor boxing values. Sub-expressions that cannot be
+ * compiled are interpreted on the tuple of the row.
+ * <p>
+ * A compiled expression is a snapshot of the expression and of the columns of
+ * the table at compile time, and should be compiled again after either
+ * changes. Tuples of other tables are evaluated by the source expression. The
+ * listeners and visitors of a compiled expression are those of its source.
+ * </p> */
+public class CompiledExpression implements Predicate {
+    /** The m_source expression. */
+    private final Expression m_source;
+    /** The m_table. */
+    private final Table m_table;
+    /** The m_root node. */
+    final Node m_root;
+
+    /** Instantiates a new compiled expression.
+     * 
+     * @param source
+     *            the source expression
+     * @param table
+     *            the table
+     * @param root
+     *            the root node */
+    CompiledExpression(Expression source, Table table, Node root) {
+        m_source = source;
+        m_table = table;
+        m_root = root;
+    }
+
+    /** Get the expression this expression was compiled from.
+     * 
+     * @return the source expression */
+    public Expression getSource() {
+        return m_source;
+    }
+
+    /** Get the table this expression was compiled for.
+     * 
+     * @return the table */
+    public Table getTable() {
+        return m_table;
+    }
+
+    /** Indicates if the expression as a whole is interpreted, in which case
+     * evaluating it by row number still creates the tuple of the row.
+     * 
+     * @return true if the root of the expression could not be compiled */
+    public boolean isInterpreted() {
+        return m_root instanceof ExpressionCompiler.Interpreted;
+    }
+
+    // ------------------------------------------------------------------------
+    // Row Evaluation
+    /** Evaluate the expression on a row of the table.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public Object get(int row) {
+        return m_root.get(row);
+    }
+
+    /** Evaluate the expression on a row of the table as an int.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public int getInt(int row) {
+        return m_root.getInt(row);
+    }
+
+    /** Evaluate the expression on a row of the table as a long.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public long getLong(int row) {
+        return m_root.getLong(row);
+    }
+
+    /** Evaluate the expression on a row of the table as a float.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public float getFloat(int row) {
+        return m_root.getFloat(row);
+    }
+
+    /** Evaluate the expression on a row of the table as a double.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public double getDouble(int row) {
+        return m_root.getDouble(row);
+    }
+
+    /** Evaluate the expression on a row of the table as a boolean.
+     * 
+     * @param row
+     *            the row
+     * @return the value */
+    public boolean getBoolean(int row) {
+        return m_root.getBoolean(row);
+    }
+
+    // ------------------------------------------------------------------------
+    // Expression Interface
+    /** Gets the type.
+     * 
+     * @param s
+     *            the s
+     * @return the type
+     * @see prefuse.data.expression.Expression#getType(prefuse.data.Schema) */
+    @Override
+    public Class getType(Schema s) {
+        return m_source.getType(s);
+    }
+
+    /** Visit the source expression.
+     * 
+     * @param v
+     *            the v
+     * @see prefuse.data.expression.Expression#visit(prefuse.data.expression.ExpressionVisitor) */
+    @Override
+    public void visit(ExpressionVisitor v) {
+        m_source.visit(v);
+    }
+
+    /** Gets the.
+     * 
+     * @param t
+     *            the t
+     * @return the object
+     * @see prefuse.data.expression.Expression#get(prefuse.data.Tuple) */
+    @Override
+    public Object get(Tuple t) {
+        return t.getTable() == m_table ? m_root.get(t.getRow()) : m_source.get(t);
+    }
+
+    /** Gets the int.
+     * 
+     * @param t
+     *            the t
+     * @return the int
+     * @see prefuse.data.expression.Expression#getInt(prefuse.data.Tuple) */
+    @Override
+    public int getInt(Tuple t) {
+        return t.getTable() == m_table ? m_root.getInt(t.getRow()) : m_source.getInt(t);
+    }
+
+    /** Gets the long.
+     * 
+     * @param t
+     *            the t
+     * @return the long
+     * @see prefuse.data.expression.Expression#getLong(prefuse.data.Tuple) */
+    @Override
+    public long getLong(Tuple t) {
+        return t.getTable() == m_table ? m_root.getLong(t.getRow()) : m_source.getLong(t);
+    }
+
+    /** Gets the float.
+     * 
+     * @param t
+     *            the t
+     * @return the float
+     * @see prefuse.data.expression.Expression#getFloat(prefuse.data.Tuple) */
+    @Override
+    public float getFloat(Tuple t) {
+        return t.getTable() == m_table ? m_root.getFloat(t.getRow()) : m_source
+                .getFloat(t);
+    }
+
+    /** Gets the double.
+     * 
+     * @param t
+     *            the t
+     * @return the double
+     * @see prefuse.data.expression.Expression#getDouble(prefuse.data.Tuple) */
+    @Override
+    public double getDouble(Tuple t) {
+        return t.getTable() == m_table ? m_root.getDouble(t.getRow()) : m_source
+                .getDouble(t);
+    }
+
+    /** Gets the boolean.
+     * 
+     * @param t
+     *            the t
+     * @return the boolean
+     * @see prefuse.data.expression.Expression#getBoolean(prefuse.data.Tuple) */
+    @Override
+    public boolean getBoolean(Tuple t) {
+        return t.getTable() == m_table ? m_root.getBoolean(t.getRow()) : m_source
+                .getBoolean(t);
+    }
+
+    /** Adds the expression listener to the source expression.
+     * 
+     * @param lstnr
+     *            the lstnr
+     * @see prefuse.data.expression.Expression#addExpressionListener(prefuse.data.event.ExpressionListener) */
+    @Override
+    public void addExpressionListener(ExpressionListener lstnr) {
+        m_source.addExpressionListener(lstnr);
+    }
+
+    /** Removes the expression listener from the source expression.
+     * 
+     * @param lstnr
+     *            the lstnr
+     * @see prefuse.data.expression.Expression#removeExpressionListener(prefuse.data.event.ExpressionListener) */
+    @Override
+    public void removeExpressionListener(ExpressionListener lstnr) {
+        m_source.removeExpressionListener(lstnr);
+    }
+
+    /** To string.
+     * 
+     * @return the string
+     * @see java.lang.Object#toString() */
+    @Override
+    public String toString() {
+        return m_source.toString();
+    }
+
+    // ------------------------------------------------------------------------
+    /** A node of a compiled expression, computing a value from a row number.
+     * The getters not supported by the type of the node throw an
+     * UnsupportedOperationException, as those of {@link AbstractExpression}. */
+    abstract static class Node {
+        /** The m_type of the value. */
+        final Class m_type;
+
+        /** Instantiates a new node.
+         * 
+         * @param type
+         *            the type of the value */
+        Node(Class type) {
+            m_type = type;
+        }
+
+        /** Get the value of a row.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        Object get(int row) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Get the value of a row as an int.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        int getInt(int row) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Get the value of a row as a long.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        long getLong(int row) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Get the value of a row as a float.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        float getFloat(int row) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Get the value of a row as a double.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        double getDouble(int row) {
+            throw new UnsupportedOperationException();
+        }
+
+        /** Get the value of a row as a boolean.
+         * 
+         * @param row
+         *            the row
+         * @return the value */
+        boolean getBoolean(int row) {
+            throw new UnsupportedOperationException();
+        }
+    }
+} // end of class CompiledExpression
@@ -32,6 +32,22 @@ public class ExpressionAnalyzer {
         return cc.getColumnSet();
     }
 
+    /** Get the set of data fields the value of an expression is determined by,
+     * if it only depends on the values of the tuple it is evaluated on. This
+     * is the case of expressions only made of columns, literals, and
+     * arithmetic, comparison, logical and conditional expressions; functions
+     * and other predicates may depend on other tuples or on external state.
+     * 
+     * @param expr
+     *            the expression to analyze
+     * @return a set of all data field names the expression references, or
+     *         null if the expression may depend on anything else */
+    public static Set getRowDependencies(Expression expr) {
+        ColumnCollector cc = new ColumnCollector(true);
+        expr.visit(cc);
+        return cc.isRowLocal() ? cc.getColumnSet() : null;
+    }
+
     /** ExpressionVisitor that collects all referenced columns / data fields in
      * an Expression. */
     private static class ColumnCollector implements ExpressionVisitor {
@@ -41,6 +57,9 @@ public class ExpressionAnalyzer {
         private Set m_cols;
         /** The m_count. */
         private int m_count;
+        /** The m_row local flag, cleared by expressions that may depend on
+         * more than the columns of a tuple. */
+        private boolean m_rowLocal = true;
 
         /** Instantiates a new column collector.
          * 
@@ -68,8 +87,23 @@ public class ExpressionAnalyzer {
             }
         }
 
+        /** Indicates if the visited expressions only depend on the columns of
+         * a tuple.
+         * 
+         * @return true if the expressions only depend on the columns */
+        public boolean isRowLocal() {
+            return m_rowLocal;
+        }
+
         @Override
         public void visitExpression(Expression expr) {
+            if (!(expr instanceof ColumnExpression || expr instanceof Literal
+                    || expr instanceof BinaryExpression
+                    || expr instanceof CompositePredicate
+                    || expr instanceof NotPredicate || expr instanceof RangePredicate
+                    || expr instanceof IfExpression)) {
+                m_rowLocal = false;
+            }
             if (expr instanceof ColumnExpression) {
                 ++m_count;
                 if (store) {
@@ -0,0 +1,863 @@
+package prefuse.data.expression;
+
+import prefuse.data.Table;
+import prefuse.data.column.Column;
+import prefuse.data.expression.CompiledExpression.Node;
+import prefuse.util.TypeLib;
+import prefuse.util.collections.DefaultLiteralComparator;
+
+/** Library class that compiles expressions for the rows of a table. The
+ * interpreted expressions look up columns by name, box values and check the
+ * types of their operands on every evaluation; the compiled ones resolve the
+ * columns and types once, into nodes specialised for them. Columns, literals,
+ * and arithmetic, comparison, logical and conditional expressions using the
+ * default comparator are compiled; other expressions, such as functions, are
+ * interpreted on the tuple of the row. */
+public class ExpressionCompiler {
+    /** The default comparator, which compiled comparisons inline. */
+    private static final DefaultLiteralComparator s_cmp = DefaultLiteralComparator
+            .getInstance();
+
+    /** Compile an expression for the rows of a table.
+     * 
+     * @param expr
+     *            the expression
+     * @param table
+     *            the table
+     * @return the compiled expression */
+    public static CompiledExpression compile(Expression expr, Table table) {
+        if (expr instanceof CompiledExpression
+                && ((CompiledExpression) expr).getTable() == table) {
+            return (CompiledExpression) expr;
+        }
+        return new CompiledExpression(expr, table, node(expr, table));
+    }
+
+    /** Compile a predicate for the rows of a table.
+     * 
+     * @param p
+     *            the predicate
+     * @param table
+     *            the table
+     * @return the compiled predicate */
+    public static Predicate compile(Predicate p, Table table) {
+        return compile((Expression) p, table);
+    }
+
+    /** Compile an expression into a node, or an interpreted node if it is not
+     * supported.
+     * 
+     * @param e
+     *            the expression
+     * @param t
+     *            the table
+     * @return the node */
+    private static Node node(Expression e, Table t) {
+        Node n = null;
+        try {
+            n = compileNode(e, t);
+        } catch (RuntimeException ex) {
+            // unknown columns or incompatible types: the interpreted
+            // expression fails in the same way when evaluated, if ever
+        }
+        return n != null ? n : new Interpreted(e, t);
+    }
+
+    /** Compile an expression into a node.
+     * 
+     * @param e
+     *            the expression
+     * @param t
+     *            the table
+     * @return the node, or null if the expression is not supported */
+    private static Node compileNode(Expression e, Table t) {
+        if (e instanceof CompiledExpression) {
+            return node(((CompiledExpression) e).getSource(), t);
+        } else if (e instanceof ColumnExpression) {
+            int col = t.getColumnNumber(((ColumnExpression) e).getColumnName());
+            return col < 0 ? null : new ColumnNode(t, col);
+        } else if (e instanceof Literal) {
+            return new LiteralNode((Literal) e, e.getType(t.getSchema()));
+        } else if (e instanceof ArithmeticExpression) {
+            ArithmeticExpression ae = (ArithmeticExpression) e;
+            Node left = node(ae.getLeftExpression(), t);
+            Node right = node(ae.getRightExpression(), t);
+            return new ArithmeticNode(ae.getOperation(), left, right,
+                    TypeLib.getNumericType(left.m_type, right.m_type));
+        } else if (e instanceof ComparisonPredicate) {
+            ComparisonPredicate cp = (ComparisonPredicate) e;
+            if (cp.getComparator() != s_cmp) {
+                return null;
+            }
+            return compare(cp.getOperation(), node(cp.getLeftExpression(), t),
+                    node(cp.getRightExpression(), t));
+        } else if (e instanceof RangePredicate) {
+            RangePredicate rp = (RangePredicate) e;
+            if (rp.getComparator() != s_cmp) {
+                return null;
+            }
+            return range(rp.getOperation(), node(rp.getMiddleExpression(), t),
+                    node(rp.getLeftExpression(), t), node(rp.getRightExpression(), t));
+        } else if (e instanceof CompositePredicate) {
+            CompositePredicate cp = (CompositePredicate) e;
+            Node[] clauses = new Node[cp.size()];
+            for (int i = 0; i < clauses.length; ++i) {
+                clauses[i] = node(cp.get(i), t);
+            }
+            if (e instanceof AndPredicate) {
+                return new AndNode(clauses);
+            } else if (e instanceof OrPredicate) {
+                return new OrNode(clauses);
+            } else if (e instanceof XorPredicate) {
+                return new XorNode(clauses);
+            }
+        } else if (e instanceof NotPredicate) {
+            return new NotNode(node(((NotPredicate) e).getPredicate(), t));
+        } else if (e instanceof IfExpression) {
+            IfExpression ie = (IfExpression) e;
+            Node then = node(ie.getThenExpression(), t);
+            Node otherwise = node(ie.getElseExpression(), t);
+            return new IfNode(node(ie.getTestPredicate(), t), then, otherwise,
+                    TypeLib.getSharedType(then.m_type, otherwise.m_type));
+        }
+        return null;
+    }
+
+    /** Compile a comparison, resolving the type of its operands as
+     * {@link ComparisonPredicate} does.
+     * 
+     * @param op
+     *            the comparison operation
+     * @param left
+     *            the left operand
+     * @param right
+     *            the right operand
+     * @return the node, or null if the type of an operand is unknown */
+    private static Node compare(int op, Node left, Node right) {
+        if (left.m_type == null || right.m_type == null) {
+            return null;
+        } else if (TypeLib.isNumericType(left.m_type) && TypeLib.isNumericType(right.m_type)) {
+            Class type = TypeLib.getNumericType(left.m_type, right.m_type);
+            if (type == int.class) {
+                return new IntComparison(op, left, right);
+            } else if (type == long.class) {
+                return new LongComparison(op, left, right);
+            } else if (type == float.class) {
+                return new FloatComparison(op, left, right);
+            } else {
+                return new DoubleComparison(op, left, right);
+            }
+        } else if (left.m_type == boolean.class && right.m_type == boolean.class) {
+            return new BooleanComparison(op, left, right);
+        }
+        return new ObjectComparison(op, left, right);
+    }
+
+    /** Compile a range test, resolving the type of its operands as
+     * {@link RangePredicate} does.
+     * 
+     * @param op
+     *            the range operation
+     * @param middle
+     *            the tested operand
+     * @param lo
+     *            the lower bound
+     * @param hi
+     *            the upper bound
+     * @return the node, or null if the type of an operand is unknown */
+    private static Node range(int op, Node middle, Node lo, Node hi) {
+        if (middle.m_type == null || lo.m_type == null || hi.m_type == null) {
+            return null;
+        }
+        Class sType = null;
+        if (lo.m_type.isAssignableFrom(hi.m_type)) {
+            sType = lo.m_type;
+        } else if (hi.m_type.isAssignableFrom(lo.m_type)) {
+            sType = hi.m_type;
+        }
+        if (sType != null && TypeLib.isNumericType(sType)
+                && TypeLib.isNumericType(middle.m_type)) {
+            Class type = TypeLib.getNumericType(sType, middle.m_type);
+            if (type == int.class) {
+                return new RangeNode(op, new IntComparison(ComparisonPredicate.EQ, middle,
+                        lo), new IntComparison(ComparisonPredicate.EQ, middle, hi));
+            } else if (type == long.class) {
+                return new RangeNode(op, new LongComparison(ComparisonPredicate.EQ,
+                        middle, lo), new LongComparison(ComparisonPredicate.EQ, middle, hi));
+            } else if (type == float.class) {
+                return new RangeNode(op, new FloatComparison(ComparisonPredicate.EQ,
+                        middle, lo), new FloatComparison(ComparisonPredicate.EQ, middle,
+                        hi));
+            } else {
+                return new RangeNode(op, new DoubleComparison(ComparisonPredicate.EQ,
+                        middle, lo), new DoubleComparison(ComparisonPredicate.EQ,
+                        middle, hi));
+            }
+        }
+        return new RangeNode(op, new ObjectComparison(ComparisonPredicate.EQ, middle, lo),
+                new ObjectComparison(ComparisonPredicate.EQ, middle, hi));
+    }
+
+    // ------------------------------------------------------------------------
+    /** An expression interpreted on the tuple of the row. */
+    static final class Interpreted extends Node {
+        /** The m_expr. */
+        private final Expression m_expr;
+        /** The m_table. */
+        private final Table m_table;
+
+        /** Instantiates a new interpreted node.
+         * 
+         * @param expr
+         *            the expression
+         * @param table
+         *            the table */
+        Interpreted(Expression expr, Table table) {
+            super(typeOf(expr, table));
+            m_expr = expr;
+            m_table = table;
+        }
+
+        /** Get the type of an expression, if it can be determined.
+         * 
+         * @param expr
+         *            the expression
+         * @param table
+         *            the table
+         * @return the type, or null if unknown */
+        private static Class typeOf(Expression expr, Table table) {
+            try {
+                return expr.getType(table.getSchema());
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return m_expr.get(m_table.getTuple(row));
+        }
+
+        @Override
+        int getInt(int row) {
+            return m_expr.getInt(m_table.getTuple(row));
+        }
+
+        @Override
+        long getLong(int row) {
+            return m_expr.getLong(m_table.getTuple(row));
+        }
+
+        @Override
+        float getFloat(int row) {
+            return m_expr.getFloat(m_table.getTuple(row));
+        }
+
+        @Override
+        double getDouble(int row) {
+            return m_expr.getDouble(m_table.getTuple(row));
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return m_expr.getBoolean(m_table.getTuple(row));
+        }
+    }
+
+    /** A column, read by row number. */
+    private static final class ColumnNode extends Node {
+        /** The m_table. */
+        private final Table m_table;
+        /** The m_col, the column number. */
+        private final int m_col;
+        /** The m_column. */
+        private final Column m_column;
+
+        /** Instantiates a new column node.
+         * 
+         * @param table
+         *            the table
+         * @param col
+         *            the column number */
+        ColumnNode(Table table, int col) {
+            super(table.getColumnType(col));
+            m_table = table;
+            m_col = col;
+            m_column = table.getColumn(col);
+        }
+
+        @Override
+        Object get(int row) {
+            return m_column.get(m_table.getColumnRow(row, m_col));
+        }
+
+        @Override
+        int getInt(int row) {
+            return m_column.getInt(m_table.getColumnRow(row, m_col));
+        }
+
+        @Override
+        long getLong(int row) {
+            return m_column.getLong(m_table.getColumnRow(row, m_col));
+        }
+
+        @Override
+        float getFloat(int row) {
+            return m_column.getFloat(m_table.getColumnRow(row, m_col));
+        }
+
+        @Override
+        double getDouble(int row) {
+            return m_column.getDouble(m_table.getColumnRow(row, m_col));
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return m_column.getBoolean(m_table.getColumnRow(row, m_col));
+        }
+    }
+
+    /** A literal, which does not depend on the row. */
+    private static final class LiteralNode extends Node {
+        /** The m_literal. */
+        private final Literal m_literal;
+
+        /** Instantiates a new literal node.
+         * 
+         * @param literal
+         *            the literal
+         * @param type
+         *            the type of the literal */
+        LiteralNode(Literal literal, Class type) {
+            super(type);
+            m_literal = literal;
+        }
+
+        @Override
+        Object get(int row) {
+            return m_literal.get(null);
+        }
+
+        @Override
+        int getInt(int row) {
+            return m_literal.getInt(null);
+        }
+
+        @Override
+        long getLong(int row) {
+            return m_literal.getLong(null);
+        }
+
+        @Override
+        float getFloat(int row) {
+            return m_literal.getFloat(null);
+        }
+
+        @Override
+        double getDouble(int row) {
+            return m_literal.getDouble(null);
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return m_literal.getBoolean(null);
+        }
+    }
+
+    /** An arithmetic expression. */
+    private static final class ArithmeticNode extends Node {
+        /** The m_op. */
+        private final int m_op;
+        /** The m_left. */
+        private final Node m_left;
+        /** The m_right. */
+        private final Node m_right;
+
+        /** Instantiates a new arithmetic node.
+         * 
+         * @param op
+         *            the operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand
+         * @param type
+         *            the numeric type of the result */
+        ArithmeticNode(int op, Node left, Node right, Class type) {
+            super(type);
+            m_op = op;
+            m_left = left;
+            m_right = right;
+        }
+
+        @Override
+        Object get(int row) {
+            if (int.class == m_type) {
+                return new Integer(getInt(row));
+            } else if (long.class == m_type) {
+                return new Long(getLong(row));
+            } else if (float.class == m_type) {
+                return new Float(getFloat(row));
+            } else {
+                return new Double(getDouble(row));
+            }
+        }
+
+        @Override
+        int getInt(int row) {
+            int x = m_left.getInt(row);
+            int y = m_right.getInt(row);
+            switch (m_op) {
+                case ArithmeticExpression.ADD:
+                    return x + y;
+                case ArithmeticExpression.SUB:
+                    return x - y;
+                case ArithmeticExpression.MUL:
+                    return x * y;
+                case ArithmeticExpression.DIV:
+                    return x / y;
+                case ArithmeticExpression.POW:
+                    return (int) Math.pow(x, y);
+                default:
+                    return x % y;
+            }
+        }
+
+        @Override
+        long getLong(int row) {
+            long x = m_left.getLong(row);
+            long y = m_right.getLong(row);
+            switch (m_op) {
+                case ArithmeticExpression.ADD:
+                    return x + y;
+                case ArithmeticExpression.SUB:
+                    return x - y;
+                case ArithmeticExpression.MUL:
+                    return x * y;
+                case ArithmeticExpression.DIV:
+                    return x / y;
+                case ArithmeticExpression.POW:
+                    return (long) Math.pow(x, y);
+                default:
+                    return x % y;
+            }
+        }
+
+        @Override
+        float getFloat(int row) {
+            float x = m_left.getFloat(row);
+            float y = m_right.getFloat(row);
+            switch (m_op) {
+                case ArithmeticExpression.ADD:
+                    return x + y;
+                case ArithmeticExpression.SUB:
+                    return x - y;
+                case ArithmeticExpression.MUL:
+                    return x * y;
+                case ArithmeticExpression.DIV:
+                    return x / y;
+                case ArithmeticExpression.POW:
+                    return (float) Math.pow(x, y);
+                default:
+                    return (float) Math.IEEEremainder(x, y);
+            }
+        }
+
+        @Override
+        double getDouble(int row) {
+            double x = m_left.getDouble(row);
+            double y = m_right.getDouble(row);
+            switch (m_op) {
+                case ArithmeticExpression.ADD:
+                    return x + y;
+                case ArithmeticExpression.SUB:
+                    return x - y;
+                case ArithmeticExpression.MUL:
+                    return x * y;
+                case ArithmeticExpression.DIV:
+                    return x / y;
+                case ArithmeticExpression.POW:
+                    return Math.pow(x, y);
+                default:
+                    return Math.IEEEremainder(x, y);
+            }
+        }
+    }
+
+    /** A predicate node, whose value is a boolean. */
+    private abstract static class PredicateNode extends Node {
+        /** Instantiates a new predicate node. */
+        PredicateNode() {
+            super(boolean.class);
+        }
+
+        @Override
+        final Object get(int row) {
+            return getBoolean(row) ? Boolean.TRUE : Boolean.FALSE;
+        }
+    }
+
+    /** A comparison of two operands of a given type. */
+    private abstract static class Comparison extends PredicateNode {
+        /** The m_op. */
+        private final int m_op;
+        /** The m_left. */
+        final Node m_left;
+        /** The m_right. */
+        final Node m_right;
+
+        /** Instantiates a new comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        Comparison(int op, Node left, Node right) {
+            m_op = op;
+            m_left = left;
+            m_right = right;
+        }
+
+        /** Compare the operands.
+         * 
+         * @param row
+         *            the row
+         * @return -1, 0 or 1, as the default comparator */
+        abstract int compare(int row);
+
+        @Override
+        boolean getBoolean(int row) {
+            int c = compare(row);
+            switch (m_op) {
+                case ComparisonPredicate.LT:
+                    return c == -1;
+                case ComparisonPredicate.GT:
+                    return c == 1;
+                case ComparisonPredicate.EQ:
+                    return c == 0;
+                case ComparisonPredicate.NEQ:
+                    return c != 0;
+                case ComparisonPredicate.LTEQ:
+                    return c <= 0;
+                default:
+                    return c >= 0;
+            }
+        }
+    }
+
+    /** A comparison of int operands. */
+    private static final class IntComparison extends Comparison {
+        /** Instantiates a new int comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        IntComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            int x = m_left.getInt(row), y = m_right.getInt(row);
+            return x < y ? -1 : x > y ? 1 : 0;
+        }
+    }
+
+    /** A comparison of long operands. */
+    private static final class LongComparison extends Comparison {
+        /** Instantiates a new long comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        LongComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            long x = m_left.getLong(row), y = m_right.getLong(row);
+            return x < y ? -1 : x > y ? 1 : 0;
+        }
+    }
+
+    /** A comparison of float operands. */
+    private static final class FloatComparison extends Comparison {
+        /** Instantiates a new float comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        FloatComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            return Float.compare(m_left.getFloat(row), m_right.getFloat(row));
+        }
+    }
+
+    /** A comparison of double operands. */
+    private static final class DoubleComparison extends Comparison {
+        /** Instantiates a new double comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        DoubleComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            return Double.compare(m_left.getDouble(row), m_right.getDouble(row));
+        }
+    }
+
+    /** A comparison of boolean operands. */
+    private static final class BooleanComparison extends Comparison {
+        /** Instantiates a new boolean comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        BooleanComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            boolean x = m_left.getBoolean(row), y = m_right.getBoolean(row);
+            return x ? y ? 0 : 1 : y ? -1 : 0;
+        }
+    }
+
+    /** A comparison of operands of any other type, such as strings. */
+    private static final class ObjectComparison extends Comparison {
+        /** Instantiates a new object comparison.
+         * 
+         * @param op
+         *            the comparison operation
+         * @param left
+         *            the left operand
+         * @param right
+         *            the right operand */
+        ObjectComparison(int op, Node left, Node right) {
+            super(op, left, right);
+        }
+
+        @Override
+        int compare(int row) {
+            return s_cmp.compare(m_left.get(row), m_right.get(row));
+        }
+    }
+
+    /** A range test, made of the comparisons of the tested value with the
+     * lower and upper bounds. */
+    private static final class RangeNode extends PredicateNode {
+        /** The m_op. */
+        private final int m_op;
+        /** The m_lo comparison. */
+        private final Comparison m_lo;
+        /** The m_hi comparison. */
+        private final Comparison m_hi;
+
+        /** Instantiates a new range node.
+         * 
+         * @param op
+         *            the range operation
+         * @param lo
+         *            the comparison with the lower bound
+         * @param hi
+         *            the comparison with the upper bound */
+        RangeNode(int op, Comparison lo, Comparison hi) {
+            m_op = op;
+            m_lo = lo;
+            m_hi = hi;
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            int c1 = m_lo.compare(row);
+            int c2 = m_hi.compare(row);
+            switch (m_op) {
+                case RangePredicate.IN_IN:
+                    return c1 >= 0 && c2 <= 0;
+                case RangePredicate.IN_EX:
+                    return c1 >= 0 && c2 < 0;
+                case RangePredicate.EX_IN:
+                    return c1 > 0 && c2 <= 0;
+                default:
+                    return c1 > 0 && c2 < 0;
+            }
+        }
+    }
+
+    /** A conjunction. */
+    private static final class AndNode extends PredicateNode {
+        /** The m_clauses. */
+        private final Node[] m_clauses;
+
+        /** Instantiates a new conjunction.
+         * 
+         * @param clauses
+         *            the clauses */
+        AndNode(Node[] clauses) {
+            m_clauses = clauses;
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            if (m_clauses.length == 0) {
+                return false;
+            }
+            for (int i = 0; i < m_clauses.length; ++i) {
+                if (!m_clauses[i].getBoolean(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** A disjunction. */
+    private static final class OrNode extends PredicateNode {
+        /** The m_clauses. */
+        private final Node[] m_clauses;
+
+        /** Instantiates a new disjunction.
+         * 
+         * @param clauses
+         *            the clauses */
+        OrNode(Node[] clauses) {
+            m_clauses = clauses;
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            for (int i = 0; i < m_clauses.length; ++i) {
+                if (m_clauses[i].getBoolean(row)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** An exclusive disjunction. */
+    private static final class XorNode extends PredicateNode {
+        /** The m_clauses. */
+        private final Node[] m_clauses;
+
+        /** Instantiates a new exclusive disjunction.
+         * 
+         * @param clauses
+         *            the clauses */
+        XorNode(Node[] clauses) {
+            m_clauses = clauses;
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            boolean val = false;
+            for (int i = 0; i < m_clauses.length; ++i) {
+                val ^= m_clauses[i].getBoolean(row);
+            }
+            return val;
+        }
+    }
+
+    /** A negation. */
+    private static final class NotNode extends PredicateNode {
+        /** The m_predicate. */
+        private final Node m_predicate;
+
+        /** Instantiates a new negation.
+         * 
+         * @param predicate
+         *            the negated predicate */
+        NotNode(Node predicate) {
+            m_predicate = predicate;
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return !m_predicate.getBoolean(row);
+        }
+    }
+
+    /** A conditional expression. */
+    private static final class IfNode extends Node {
+        /** The m_test. */
+        private final Node m_test;
+        /** The m_then. */
+        private final Node m_then;
+        /** The m_else. */
+        private final Node m_else;
+
+        /** Instantiates a new conditional node.
+         * 
+         * @param test
+         *            the test
+         * @param then
+         *            the value if the test passes
+         * @param otherwise
+         *            the value if the test fails
+         * @param type
+         *            the shared type of the values */
+        IfNode(Node test, Node then, Node otherwise, Class type) {
+            super(type);
+            m_test = test;
+            m_then = then;
+            m_else = otherwise;
+        }
+
+        @Override
+        Object get(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).get(row);
+        }
+
+        @Override
+        int getInt(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).getInt(row);
+        }
+
+        @Override
+        long getLong(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).getLong(row);
+        }
+
+        @Override
+        float getFloat(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).getFloat(row);
+        }
+
+        @Override
+        double getDouble(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).getDouble(row);
+        }
+
+        @Override
+        boolean getBoolean(int row) {
+            return (m_test.getBoolean(row) ? m_then : m_else).getBoolean(row);
+        }
+    }
+} // end of class ExpressionCompiler
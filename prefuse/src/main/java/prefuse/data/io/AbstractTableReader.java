@@ -8,6 +8,7 @@ import java.io.InputStream;
 import java.net.URL;
 
 import prefuse.data.Table;
+import prefuse.data.column.ColumnFactory;
 import prefuse.util.io.IOLib;
 
 /** Abstract base class implementation of the TableReader interface. Provides
@@ -16,6 +17,36 @@ import prefuse.util.io.IOLib;
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public abstract class AbstractTableReader implements TableReader {
+    /** The m_dictionary, whether Object columns are dictionary encoded. */
+    protected boolean m_dictionary = false;
+
+    /** Set whether the Object columns of read tables are dictionary encoded,
+     * storing each distinct value once. This saves memory when values, such as
+     * labels or categories, are repeated across many rows.
+     * 
+     * @param dictionary
+     *            true to use {@link ColumnFactory#DICTIONARY_STORAGE} for
+     *            Object columns, false to store their values in plain arrays
+     * @see prefuse.data.column.DictionaryColumn */
+    public void setDictionaryEncoding(boolean dictionary) {
+        m_dictionary = dictionary;
+    }
+
+    /** Indicates if the Object columns of read tables are dictionary encoded.
+     * 
+     * @return true if Object columns are dictionary encoded */
+    public boolean isDictionaryEncoding() {
+        return m_dictionary;
+    }
+
+    /** Get the storage of the Object columns of read tables.
+     * 
+     * @return the storage, as defined by {@link ColumnFactory} */
+    protected int getObjectStorage() {
+        return m_dictionary ? ColumnFactory.DICTIONARY_STORAGE
+                : ColumnFactory.HEAP_STORAGE;
+    }
+
     /** Read table.
      * 
      * @param location
@@ -119,7 +119,7 @@ public abstract class AbstractTextTableReader extends AbstractTableReader {
             } else {
                 header = getDefaultHeader(i);
             }
-            table.addColumn(header, di.getType(i));
+            table.addColumn(header, di.getType(i), null, getObjectStorage());
             table.getColumn(i).setParser(di.getParser(i));
         }
         // reset dim array, will hold row/col indices
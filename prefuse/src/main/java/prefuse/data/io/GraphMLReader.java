@@ -14,6 +14,7 @@ import org.xml.sax.helpers.DefaultHandler;
 import prefuse.data.Graph;
 import prefuse.data.Schema;
 import prefuse.data.Table;
+import prefuse.data.column.ColumnFactory;
 import prefuse.data.parser.DataParseException;
 import prefuse.data.parser.DataParser;
 import prefuse.data.parser.ParserFactory;
@@ -41,6 +42,7 @@ public class GraphMLReader extends AbstractGraphReader implements GraphReader {
             SAXParserFactory factory = SAXParserFactory.newInstance();
             SAXParser saxParser = factory.newSAXParser();
             GraphMLHandler handler = new GraphMLHandler();
+            handler.m_storage = getObjectStorage();
             saxParser.parse(is, handler);
             return handler.getGraph();
         } catch (Exception e) {
@@ -124,6 +126,8 @@ public class GraphMLReader extends AbstractGraphReader implements GraphReader {
         protected Schema m_nsch = new Schema();
         /** The m_esch. */
         protected Schema m_esch = new Schema();
+        /** The m_storage of the columns of the attributes. */
+        protected int m_storage = ColumnFactory.HEAP_STORAGE;
         /** The m_graphid. */
         protected String m_graphid;
         /** The m_graph. */
@@ -306,12 +310,12 @@ public class GraphMLReader extends AbstractGraphReader implements GraphReader {
                 Class type = parseType(m_type);
                 Object dflt = m_dflt == null ? null : parse(m_dflt, type);
                 if (m_for == null || m_for.equals(ALL)) {
-                    m_nsch.addColumn(m_name, type, dflt);
-                    m_esch.addColumn(m_name, type, dflt);
+                    m_nsch.addColumn(m_name, type, dflt, m_storage);
+                    m_esch.addColumn(m_name, type, dflt, m_storage);
                 } else if (m_for.equals(NODE)) {
-                    m_nsch.addColumn(m_name, type, dflt);
+                    m_nsch.addColumn(m_name, type, dflt, m_storage);
                 } else if (m_for.equals(EDGE)) {
-                    m_esch.addColumn(m_name, type, dflt);
+                    m_esch.addColumn(m_name, type, dflt, m_storage);
                 } else {
                     error("Unrecognized \"" + FOR + "\" value: " + m_for);
                 }
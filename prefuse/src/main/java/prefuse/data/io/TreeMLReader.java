@@ -134,7 +134,7 @@ public class TreeMLReader extends AbstractGraphReader {
                 String name = atts.getValue(NAME);
                 String type = atts.getValue(TYPE);
                 Class t = parseType(type);
-                m_nodes.addColumn(name, t);
+                m_nodes.addColumn(name, t, null, getObjectStorage());
             } else if (qName.equals(BRANCH) || qName.equals(LEAF)) {
                 schemaCheck();
                 // parse a node element
@@ -0,0 +1,345 @@
+package prefuse.data.util;
+
+import java.util.Arrays;
+
+import prefuse.data.Graph;
+import prefuse.util.collections.IntArrayIterator;
+import prefuse.util.collections.IntIterator;
+
+/** <p>
+ * Compact storage for the adjacency lists of a {@link Graph}. The in-links and
+ * out-links of all nodes are stored as slabs of a single int pool, addressed
+ * by primitive offset, capacity and degree arrays, rather than as one int array
+ * object per list. A freshly loaded store is laid out in compressed sparse row
+ * order, with every slab exactly as long as its list.
+ * </p>
+ * <p>
+ * Appending to a list grows its slab in place when it ends the pool, and
+ * otherwise moves it to the end of the pool with twice its capacity. The space
+ * of moved slabs is reclaimed by compacting the pool once it makes up more
+ * than half of it. Removals shift the rest of the list, so lists keep the order
+ * in which links were added.
+ * </p>
+ * <p>
+ * Lists are identified by a node id and a direction, either
+ * {@link Graph#INEDGES} or {@link Graph#OUTEDGES}.
+ * </p> */
+public class AdjacencyStore {
+    /** The smallest capacity of a slab grown by an append. */
+    private static final int MIN_CAPACITY = 2;
+    /** The m_pool, holding the slabs of all lists. */
+    private int[] m_pool;
+    /** The m_top, the end of the used part of the pool. */
+    private int m_top;
+    /** The m_waste, the number of pool slots in abandoned slabs. */
+    private int m_waste;
+    /** The m_offset, the start of the slab of each list. */
+    private int[] m_offset;
+    /** The m_capacity, the length of the slab of each list. */
+    private int[] m_capacity;
+    /** The m_degree, the length of each list. */
+    private int[] m_degree;
+
+    /** Creates a new, empty store.
+     * 
+     * @param nodes
+     *            the initial number of nodes to reserve space for */
+    public AdjacencyStore(int nodes) {
+        m_pool = new int[Math.max(16, 2 * nodes)];
+        int lists = 2 * Math.max(1, nodes);
+        m_offset = new int[lists];
+        m_capacity = new int[lists];
+        m_degree = new int[lists];
+    }
+
+    /** Get the index of a list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @return the list index */
+    private static int list(int node, int direction) {
+        if (direction != Graph.INEDGES && direction != Graph.OUTEDGES) {
+            throw new IllegalArgumentException("Unrecognized edge type: " + direction);
+        }
+        return 2 * node + direction;
+    }
+
+    /** Reserve space for the lists of a node.
+     * 
+     * @param node
+     *            the node id */
+    public void ensureNode(int node) {
+        int lists = 2 * node + 2;
+        if (lists > m_degree.length) {
+            int len = Math.max(lists, 3 * m_degree.length / 2);
+            m_offset = grow(m_offset, len);
+            m_capacity = grow(m_capacity, len);
+            m_degree = grow(m_degree, len);
+        }
+    }
+
+    /** Copy an array into a longer one.
+     * 
+     * @param a
+     *            the array
+     * @param len
+     *            the new length
+     * @return the new array */
+    private static int[] grow(int[] a, int len) {
+        int[] b = new int[len];
+        System.arraycopy(a, 0, b, 0, a.length);
+        return b;
+    }
+
+    /** Get the length of a list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @return the number of links of the node in the given direction */
+    public int getDegree(int node, int direction) {
+        int l = list(node, direction);
+        return l < m_degree.length ? m_degree[l] : 0;
+    }
+
+    /** Get a link of a list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @param i
+     *            the index of the link in the list
+     * @return the edge id of the link */
+    public int get(int node, int direction, int i) {
+        int l = list(node, direction);
+        if (i < 0 || l >= m_degree.length || i >= m_degree[l]) {
+            throw new IndexOutOfBoundsException(String.valueOf(i));
+        }
+        return m_pool[m_offset[l] + i];
+    }
+
+    /** Get an iterator over a list. Like the iterators over the adjacency
+     * lists of the link table, it should not be used across changes of the
+     * list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @return an iterator over the edge ids of the list */
+    public IntIterator iterator(int node, int direction) {
+        int l = list(node, direction);
+        if (l >= m_degree.length) {
+            return new IntArrayIterator(m_pool, 0, 0);
+        }
+        return new IntArrayIterator(m_pool, m_offset[l], m_degree[l]);
+    }
+
+    /** Find the first link of a list leading to a given node.
+     * 
+     * @param g
+     *            the graph the store belongs to, used to resolve the other end
+     *            of each link
+     * @param source
+     *            the source node id
+     * @param target
+     *            the target node id
+     * @return the edge id of the first out-link of the source with the given
+     *         target, or -1 if there is none */
+    public int find(Graph g, int source, int target) {
+        int l = list(source, Graph.OUTEDGES);
+        if (l >= m_degree.length) {
+            return -1;
+        }
+        int[] pool = m_pool;
+        for (int i = m_offset[l], end = i + m_degree[l]; i < end; ++i) {
+            if (g.getTargetNode(pool[i]) == target) {
+                return pool[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Add a link to the end of a list.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @param e
+     *            the edge id */
+    public void add(int node, int direction, int e) {
+        ensureNode(node);
+        int l = list(node, direction);
+        int deg = m_degree[l];
+        if (deg == m_capacity[l]) {
+            relocate(l, Math.max(MIN_CAPACITY, 2 * deg));
+        }
+        m_pool[m_offset[l] + deg] = e;
+        m_degree[l] = deg + 1;
+    }
+
+    /** Remove a link from a list, keeping the order of the other links.
+     * 
+     * @param node
+     *            the node id
+     * @param direction
+     *            {@link Graph#INEDGES} or {@link Graph#OUTEDGES}
+     * @param e
+     *            the edge id
+     * @return true if the link was found and removed */
+    public boolean remove(int node, int direction, int e) {
+        int l = list(node, direction);
+        if (l >= m_degree.length) {
+            return false;
+        }
+        int start = m_offset[l], len = m_degree[l];
+        for (int i = start, end = start + len; i < end; ++i) {
+            if (m_pool[i] == e) {
+                System.arraycopy(m_pool, i + 1, m_pool, i, end - i - 1);
+                m_degree[l] = len - 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Remove all links of a node, releasing its slabs.
+     * 
+     * @param node
+     *            the node id */
+    public void clearNode(int node) {
+        for (int l = 2 * node; l < 2 * node + 2 && l < m_degree.length; ++l) {
+            release(l);
+        }
+    }
+
+    /** Remove all links of all nodes. */
+    public void clear() {
+        m_top = 0;
+        m_waste = 0;
+        Arrays.fill(m_offset, 0);
+        Arrays.fill(m_capacity, 0);
+        Arrays.fill(m_degree, 0);
+    }
+
+    /** Replace the contents of the store with a set of links, laid out in
+     * compressed sparse row order. Links are added to their lists in the order
+     * in which they are given.
+     * 
+     * @param edges
+     *            the edge ids
+     * @param sources
+     *            the source node id of each edge
+     * @param targets
+     *            the target node id of each edge
+     * @param count
+     *            the number of edges */
+    public void load(int[] edges, int[] sources, int[] targets, int count) {
+        clear();
+        for (int i = 0; i < count; ++i) {
+            ensureNode(Math.max(sources[i], targets[i]));
+            ++m_capacity[list(sources[i], Graph.OUTEDGES)];
+            ++m_capacity[list(targets[i], Graph.INEDGES)];
+        }
+        int top = 0;
+        for (int l = 0; l < m_capacity.length; ++l) {
+            m_offset[l] = top;
+            top += m_capacity[l];
+        }
+        if (top > m_pool.length) {
+            m_pool = new int[top];
+        }
+        m_top = top;
+        for (int i = 0; i < count; ++i) {
+            int out = list(sources[i], Graph.OUTEDGES);
+            m_pool[m_offset[out] + m_degree[out]++] = edges[i];
+            int in = list(targets[i], Graph.INEDGES);
+            m_pool[m_offset[in] + m_degree[in]++] = edges[i];
+        }
+    }
+
+    /** Get the number of pool slots in use, including the slack of growing
+     * slabs and the space of abandoned slabs not yet reclaimed.
+     * 
+     * @return the used size of the pool */
+    public int getPoolSize() {
+        return m_top;
+    }
+
+    /** Release the slab of a list.
+     * 
+     * @param l
+     *            the list index */
+    private void release(int l) {
+        if (m_offset[l] + m_capacity[l] == m_top) {
+            m_top = m_offset[l];
+        } else {
+            m_waste += m_capacity[l];
+        }
+        m_offset[l] = m_capacity[l] = m_degree[l] = 0;
+    }
+
+    /** Give a list a slab of a new capacity.
+     * 
+     * @param l
+     *            the list index
+     * @param cap
+     *            the new capacity, at least the degree of the list */
+    private void relocate(int l, int cap) {
+        int start = m_offset[l], old = m_capacity[l];
+        if (old > 0 && start + old == m_top) {
+            // last slab of the pool, grow in place
+            reserve(cap - old);
+            m_top += cap - old;
+            m_capacity[l] = cap;
+            return;
+        }
+        if (m_waste + old > (m_top + cap) / 2) {
+            compact();
+            start = m_offset[l];
+            old = m_capacity[l];
+            if (old > 0 && start + old == m_top) {
+                relocate(l, cap);
+                return;
+            }
+        }
+        reserve(cap);
+        System.arraycopy(m_pool, start, m_pool, m_top, m_degree[l]);
+        m_offset[l] = m_top;
+        m_capacity[l] = cap;
+        m_top += cap;
+        m_waste += old;
+    }
+
+    /** Make room for more slots at the end of the pool.
+     * 
+     * @param n
+     *            the number of slots needed */
+    private void reserve(int n) {
+        if (m_top + n > m_pool.length) {
+            m_pool = grow(m_pool, Math.max(m_top + n, 3 * m_pool.length / 2));
+        }
+    }
+
+    /** Move all slabs to the front of the pool, in list order, trimming each
+     * to the length of its list. */
+    private void compact() {
+        int[] pool = new int[Math.max(16, m_top - m_waste)];
+        int top = 0;
+        for (int l = 0; l < m_degree.length; ++l) {
+            int deg = m_degree[l];
+            System.arraycopy(m_pool, m_offset[l], pool, top, deg);
+            m_offset[l] = top;
+            m_capacity[l] = deg;
+            top += deg;
+        }
+        m_pool = pool;
+        m_top = top;
+        m_waste = 0;
+    }
+} // end of class AdjacencyStore
@@ -9,6 +9,7 @@ import prefuse.data.expression.ColumnExpression;
 import prefuse.data.expression.ComparisonPredicate;
 import prefuse.data.expression.Expression;
 import prefuse.data.expression.ExpressionAnalyzer;
+import prefuse.data.expression.ExpressionCompiler;
 import prefuse.data.expression.NotPredicate;
 import prefuse.data.expression.OrPredicate;
 import prefuse.data.expression.Predicate;
@@ -21,7 +22,8 @@ import prefuse.util.collections.IntIterator;
 /** Factory class that creates optimized filter iterators. When possible, this
  * factory will attempt to create an optimized query plan by using available
  * indexes, in many incrasing performance by only visiting the tuples which will
- * pass the filter condition.
+ * pass the filter condition. Otherwise, the rows of tables are scanned with the
+ * filter {@link ExpressionCompiler compiled} for the table.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class FilterIteratorFactory {
@@ -55,7 +57,13 @@ public class FilterIteratorFactory {
         }
         // optimization fails, scan the entire table
         if (iter == null) {
-            iter = new FilterIterator(ts.tuples(), p);
+            if (ts instanceof Table) {
+                Table t = (Table) ts;
+                iter = t.tuples(new FilterRowIterator(t.rows(), t, ExpressionCompiler
+                        .compile(p, t)));
+            } else {
+                iter = new FilterIterator(ts.tuples(), p);
+            }
         }
         return iter;
     }
@@ -74,7 +82,7 @@ public class FilterIteratorFactory {
         iter = getOptimizedIterator(t, p);
         // optimization fails, scan the entire table
         if (iter == null) {
-            iter = new FilterRowIterator(t.rows(), t, p);
+            iter = new FilterRowIterator(t.rows(), t, ExpressionCompiler.compile(p, t));
         }
         return iter;
     }
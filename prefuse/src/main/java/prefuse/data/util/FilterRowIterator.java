@@ -3,12 +3,15 @@ package prefuse.data.util;
 import java.util.NoSuchElementException;
 
 import prefuse.data.Table;
+import prefuse.data.expression.CompiledExpression;
 import prefuse.data.expression.Predicate;
 import prefuse.util.collections.IntIterator;
 
 /** Iterator over table rows that filters the output by a given predicate. For
  * each table row, the corresponding tuple is checked against the predicate.
  * Only rows whose tuples pass the filter are included in this iteration.
+ * Predicates {@link prefuse.data.expression.ExpressionCompiler compiled} for
+ * the table are evaluated on the row numbers, without creating the tuples.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class FilterRowIterator extends IntIterator {
@@ -18,6 +21,8 @@ public class FilterRowIterator extends IntIterator {
     private IntIterator rows;
     /** The t. */
     private final Table t;
+    /** The compiled predicate, if compiled for the table, or null. */
+    private final CompiledExpression compiled;
     /** The next. */
     private int next;
 
@@ -33,6 +38,9 @@ public class FilterRowIterator extends IntIterator {
         predicate = p;
         this.rows = rows;
         this.t = t;
+        compiled = p instanceof CompiledExpression
+                && ((CompiledExpression) p).getTable() == t ? (CompiledExpression) p
+                : null;
         next = advance();
     }
 
@@ -42,7 +50,8 @@ public class FilterRowIterator extends IntIterator {
     private int advance() {
         while (rows.hasNext()) {
             int r = rows.nextInt();
-            if (predicate.getBoolean(t.getTuple(r))) {
+            if (compiled != null ? compiled.getBoolean(r) : predicate.getBoolean(t
+                    .getTuple(r))) {
                 return r;
             }
         }
@@ -95,6 +95,19 @@ public class RowManager {
         return r;
     }
 
+    /** Add a range of new rows to management, following the highest row in
+     * use. Unlike {@link #addRow()}, available rows below the highest row are
+     * not reused, so that the added rows are contiguous.
+     * 
+     * @param nrows
+     *            the number of rows to add
+     * @return the row index of the first added row */
+    public int addRows(int nrows) {
+        int r = m_curid + 1;
+        m_curid += nrows;
+        return r;
+    }
+
     /** Release a row and mark it as free.
      * 
      * @param row
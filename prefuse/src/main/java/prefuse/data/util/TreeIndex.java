@@ -4,22 +4,28 @@ import java.util.Comparator;
 
 import prefuse.data.Table;
 import prefuse.data.column.Column;
+import prefuse.data.column.DictionaryColumn;
 import prefuse.data.event.ColumnListener;
 import prefuse.data.event.EventConstants;
 import prefuse.data.event.TableListener;
 import prefuse.util.collections.BooleanIntSortedMap;
+import prefuse.util.collections.DefaultLiteralComparator;
 import prefuse.util.collections.DoubleIntSortedMap;
 import prefuse.util.collections.FloatIntSortedMap;
 import prefuse.util.collections.IncompatibleComparatorException;
+import prefuse.util.collections.IntArrayIterator;
 import prefuse.util.collections.IntIntSortedMap;
+import prefuse.util.collections.IntIntTreeMap;
 import prefuse.util.collections.IntIterator;
 import prefuse.util.collections.IntSortedMap;
+import prefuse.util.collections.LiteralComparator;
 import prefuse.util.collections.LongIntSortedMap;
 import prefuse.util.collections.ObjectIntSortedMap;
 import prefuse.util.collections.SortedMapFactory;
 
 /** Index instance that uses red-black trees to provide an index over a column of
- * data.
+ * data. The values of a {@link DictionaryColumn} are indexed by their
+ * dictionary codes, ordered as the values they stand for.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class TreeIndex implements Index, ColumnListener, TableListener {
@@ -35,6 +41,10 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
     protected boolean m_reindex;
     /** The m_colidx. */
     protected int m_colidx;
+    /** The m_dict, the indexed column if it is dictionary encoded. */
+    protected DictionaryColumn m_dict;
+    /** The m_cmp, the comparator of the values of a dictionary column. */
+    private Comparator m_cmp;
 
     /** Create a new TreeIndex.
      * 
@@ -54,7 +64,13 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
         m_table = t;
         m_rows = rows;
         m_col = col;
-        m_index = SortedMapFactory.getMap(col.getColumnType(), cmp, false);
+        if (col instanceof DictionaryColumn) {
+            m_dict = (DictionaryColumn) col;
+            m_cmp = cmp == null ? DefaultLiteralComparator.getInstance() : cmp;
+            m_index = new IntIntTreeMap(m_dict.getCodeComparator(m_cmp), true);
+        } else {
+            m_index = SortedMapFactory.getMap(col.getColumnType(), cmp, false);
+        }
         index();
         m_col.addColumnListener(this);
         m_table.addTableListener(this);
@@ -75,7 +91,7 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
      * @see prefuse.data.util.Index#getComparator() */
     @Override
     public Comparator getComparator() {
-        return m_index.comparator();
+        return m_dict != null ? m_cmp : m_index.comparator();
     }
 
     /** Size.
@@ -109,7 +125,13 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
         int idx = getColumnIndex();
         m_colidx = idx;
         IntIterator rows = m_rows.rows();
-        if (m_index instanceof IntIntSortedMap) {
+        if (m_dict != null) {
+            IntIntSortedMap map = (IntIntSortedMap) m_index;
+            while (rows.hasNext()) {
+                int r = rows.nextInt();
+                map.put(m_dict.getCode(m_table.getColumnRow(r, idx)), r);
+            }
+        } else if (m_index instanceof IntIntSortedMap) {
             IntIntSortedMap map = (IntIntSortedMap) m_index;
             while (rows.hasNext()) {
                 int r = rows.nextInt();
@@ -188,7 +210,15 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
     private void rowChanged(int row, boolean insert) {
         // make sure we access the right column value
         int crow = m_rows.getColumnRow(row, getColumnIndex());
-        if (m_index instanceof IntIntSortedMap) {
+        if (m_dict != null) {
+            IntIntSortedMap map = (IntIntSortedMap) m_index;
+            int key = m_dict.getCode(crow);
+            if (insert) {
+                map.put(key, row);
+            } else {
+                map.remove(key, row);
+            }
+        } else if (m_index instanceof IntIntSortedMap) {
             IntIntSortedMap map = (IntIntSortedMap) m_index;
             int key = m_col.getInt(row);
             if (insert) {
@@ -374,6 +404,11 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
         if (row < 0) {
             return; // invalid row value
         }
+        if (m_dict != null) {
+            ((IntIntSortedMap) m_index).remove(m_dict.getCode(prev), row);
+            ((IntIntSortedMap) m_index).put(m_dict.getCode(idx), row);
+            return;
+        }
         ((ObjectIntSortedMap) m_index).remove(prev, row);
         ((ObjectIntSortedMap) m_index).put(src.get(idx), row);
     }
@@ -442,6 +477,9 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
      *      int) */
     @Override
     public IntIterator rows(Object lo, Object hi, int type) {
+        if (m_dict != null) {
+            return codeRows(lo, hi, type);
+        }
         if (!(m_index instanceof ObjectIntSortedMap)) {
             throw new IllegalStateException();
         }
@@ -474,7 +512,7 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
      * @see prefuse.data.util.Index#rows(int, int, int) */
     @Override
     public IntIterator rows(int lo, int hi, int type) {
-        if (!(m_index instanceof IntIntSortedMap)) {
+        if (m_dict != null || !(m_index instanceof IntIntSortedMap)) {
             throw new IllegalStateException();
         }
         boolean reverse = (type & Index.TYPE_DESCENDING) > 0;
@@ -566,6 +604,71 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
         }
     }
 
+    /** Get an iterator over the rows of a dictionary column whose values lie
+     * in a range. Bounds missing from the dictionary are replaced by the
+     * closest value of the dictionary inside the range.
+     * 
+     * @param lo
+     *            the minimum value, or null for no minimum
+     * @param hi
+     *            the maximum value, or null for no maximum
+     * @param type
+     *            the index type
+     * @return an iterator over the rows */
+    private IntIterator codeRows(Object lo, Object hi, int type) {
+        boolean reverse = (type & Index.TYPE_DESCENDING) > 0;
+        boolean linc = (type & Index.TYPE_LEFT_INCLUSIVE) > 0;
+        boolean hinc = (type & Index.TYPE_RIGHT_INCLUSIVE) > 0;
+        int l = Integer.MIN_VALUE, h = Integer.MAX_VALUE;
+        if (lo != null && (l = m_dict.getCode(lo)) < 0) {
+            l = closestCode(lo, true);
+            linc = true;
+        }
+        if (hi != null && (h = m_dict.getCode(hi)) < 0) {
+            h = closestCode(hi, false);
+            hinc = true;
+        }
+        IntIntSortedMap index = (IntIntSortedMap) m_index;
+        if (l == -1 || h == -1
+                || ((LiteralComparator) index.comparator()).compare(l, h) > 0) {
+            return new IntArrayIterator(new int[0], 0, 0);
+        }
+        if (reverse) {
+            return index.valueRangeIterator(h, hinc, l, linc);
+        } else {
+            return index.valueRangeIterator(l, linc, h, hinc);
+        }
+    }
+
+    /** Find the dictionary value closest to a value missing from the
+     * dictionary.
+     * 
+     * @param val
+     *            the missing value
+     * @param above
+     *            true to find the smallest greater value, false to find the
+     *            greatest smaller value
+     * @return the code of the closest value, or -1 if there is none */
+    private int closestCode(Object val, boolean above) {
+        int best = -1;
+        for (int c = 0, n = m_dict.getDictionarySize(); c < n; ++c) {
+            Object v = m_dict.getValue(c);
+            int d = m_cmp.compare(v, val);
+            if (above ? d <= 0 : d >= 0) {
+                continue;
+            }
+            if (best < 0) {
+                best = c;
+            } else {
+                d = m_cmp.compare(v, m_dict.getValue(best));
+                if (above ? d < 0 : d > 0) {
+                    best = c;
+                }
+            }
+        }
+        return best;
+    }
+
     // ------------------------------------------------------------------------
     /** Rows.
      * 
@@ -694,6 +797,10 @@ public class TreeIndex implements Index, ColumnListener, TableListener {
      * @see prefuse.data.util.Index#get(java.lang.Object) */
     @Override
     public int get(Object x) {
+        if (m_dict != null) {
+            int code = m_dict.getCode(x);
+            return code < 0 ? Integer.MIN_VALUE : ((IntIntSortedMap) m_index).get(code);
+        }
         ObjectIntSortedMap index = (ObjectIntSortedMap) m_index;
         return index.get(x);
     }
@@ -0,0 +1,39 @@
+package prefuse.render;
+
+import java.awt.Graphics2D;
+
+import prefuse.visual.VisualItem;
+
+/** A Renderer that can accumulate the geometry of several items and draw it
+ * with a few calls, rather than drawing each item on its own. The display
+ * batches consecutive items of its rendering queue that share such a renderer
+ * and have the same ordering score, and flushes the batch before drawing any
+ * other item, so the order of overlapping items only changes among items of a
+ * single batch. Items still use {@link #render(Graphics2D, VisualItem)} when
+ * drawn outside of a display, for example when rendered immediately. */
+public interface BatchRenderer extends Renderer {
+    /** Indicates if an item can be drawn as part of a batch.
+     * 
+     * @param g
+     *            the Graphics2D context the batch will be drawn to
+     * @param item
+     *            the visual item
+     * @return true if the item can be added to a batch, false if it must be
+     *         rendered on its own */
+    public boolean canBatch(Graphics2D g, VisualItem item);
+
+    /** Add an item to the current batch. Nothing needs to be drawn until the
+     * batch is flushed.
+     * 
+     * @param g
+     *            the Graphics2D context the batch will be drawn to
+     * @param item
+     *            the visual item, for which canBatch returned true */
+    public void addToBatch(Graphics2D g, VisualItem item);
+
+    /** Draw the items added since the last flush, and empty the batch.
+     * 
+     * @param g
+     *            the Graphics2D context to draw to */
+    public void flushBatch(Graphics2D g);
+} // end of interface BatchRenderer
@@ -0,0 +1,116 @@
+package prefuse.render;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Iterator;
+
+import prefuse.util.GraphicsLib;
+import prefuse.visual.AggregateItem;
+import prefuse.visual.VisualItem;
+
+/** Renderer that fills and outlines the bounding box of an item, without any
+ * text or image. It does not compute bounds of its own for ordinary items, and
+ * is meant as an intermediate level of a {@link LevelOfDetailRenderer}, where
+ * the bounds are computed by the detailed renderer: a label then appears as an
+ * empty box. For {@link AggregateItem}s, the bounds are the union of the bounds
+ * of the visible items in the aggregate, so the renderer can also draw simple
+ * aggregates, such as bands standing for groups of items when zoomed out. */
+public class BoundsRenderer implements Renderer {
+    /** The m_render type. */
+    private int m_renderType = AbstractShapeRenderer.RENDER_TYPE_DRAW_AND_FILL;
+    /** The m_rect. */
+    private final Rectangle2D m_rect = new Rectangle2D.Double();
+
+    /** Creates a new BoundsRenderer that draws and fills the bounds. */
+    public BoundsRenderer() {}
+
+    /** Creates a new BoundsRenderer.
+     * 
+     * @param renderType
+     *            one of the render types of {@link AbstractShapeRenderer} */
+    public BoundsRenderer(int renderType) {
+        m_renderType = renderType;
+    }
+
+    /** Get the render type.
+     * 
+     * @return the render type, one of the render types of
+     *         {@link AbstractShapeRenderer} */
+    public int getRenderType() {
+        return m_renderType;
+    }
+
+    /** Set the render type.
+     * 
+     * @param renderType
+     *            one of the render types of {@link AbstractShapeRenderer} */
+    public void setRenderType(int renderType) {
+        m_renderType = renderType;
+    }
+
+    /** Render.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @see prefuse.render.Renderer#render(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public void render(Graphics2D g, VisualItem item) {
+        Rectangle2D b = item.getBounds();
+        if (b.getWidth() <= 0 && b.getHeight() <= 0) {
+            return;
+        }
+        m_rect.setFrame(b);
+        GraphicsLib.paint(g, item, m_rect, item.getStroke(), m_renderType);
+    }
+
+    /** Locate point.
+     * 
+     * @param p
+     *            the p
+     * @param item
+     *            the item
+     * @return true, if successful
+     * @see prefuse.render.Renderer#locatePoint(java.awt.geom.Point2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public boolean locatePoint(Point2D p, VisualItem item) {
+        return item.getBounds().contains(p);
+    }
+
+    /** Sets the bounds.
+     * 
+     * @param item
+     *            the new bounds
+     * @see prefuse.render.Renderer#setBounds(prefuse.visual.VisualItem) */
+    @Override
+    public void setBounds(VisualItem item) {
+        if (!(item instanceof AggregateItem)) {
+            item.setBounds(item.getX(), item.getY(), 0, 0);
+            return;
+        }
+        boolean empty = true;
+        Iterator items = ((AggregateItem) item).items();
+        while (items.hasNext()) {
+            VisualItem member = (VisualItem) items.next();
+            if (!member.isVisible()) {
+                continue;
+            }
+            if (empty) {
+                m_rect.setFrame(member.getBounds());
+                empty = false;
+            } else {
+                Rectangle2D.union(m_rect, member.getBounds(), m_rect);
+            }
+        }
+        if (empty) {
+            item.setBounds(item.getX(), item.getY(), 0, 0);
+        } else {
+            item.setBounds(m_rect.getX(), m_rect.getY(), m_rect.getWidth(),
+                    m_rect.getHeight());
+        }
+    }
+} // end of class BoundsRenderer
@@ -4,11 +4,14 @@ import java.awt.BasicStroke;
 import java.awt.Graphics2D;
 import java.awt.Polygon;
 import java.awt.Shape;
+import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.CubicCurve2D;
 import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 
 import prefuse.Constants;
 import prefuse.util.ColorLib;
@@ -28,10 +31,16 @@ import prefuse.visual.VisualItem;
  * This class also supports arrows for directed edges. See the
  * {@link #setArrowType(int)} method for more.
  * </p>
+ * <p>
+ * Edges can be drawn in batches: the lines and arrow heads of all the edges of
+ * a batch that share a stroke and colors are accumulated into one path each,
+ * and drawn with a single call. Batching is disabled for subclasses that
+ * override {@link #render(Graphics2D, VisualItem)}.
+ * </p>
  * 
  * @version 1.0
  * @author <a href="http://jheer.org">jeffrey heer</a> */
-public class EdgeRenderer extends AbstractShapeRenderer {
+public class EdgeRenderer extends AbstractShapeRenderer implements BatchRenderer {
     /** The Constant EDGE_TYPE. */
     public static final String EDGE_TYPE = "edgeType";
     /** The Constant HALF_PI. */
@@ -73,6 +82,13 @@ public class EdgeRenderer extends AbstractShapeRenderer {
     protected AffineTransform m_arrowTrans = new AffineTransform();
     /** The m_cur arrow. */
     protected Shape m_curArrow;
+    // batch handling
+    /** The m_batchable, false if a subclass changes how edges are rendered. */
+    private final boolean m_batchable;
+    /** The m_batches, one per style, reused across batches. */
+    private final ArrayList m_batches = new ArrayList();
+    /** The m_batch count, the number of styles used by the current batch. */
+    private int m_batchCount = 0;
 
     /** Create a new EdgeRenderer. */
     public EdgeRenderer() {
@@ -82,6 +98,14 @@ public class EdgeRenderer extends AbstractShapeRenderer {
         m_ctrlPoints[1] = new Point2D.Float();
         m_isctPoints[0] = new Point2D.Float();
         m_isctPoints[1] = new Point2D.Float();
+        boolean batchable;
+        try {
+            batchable = getClass().getMethod("render", Graphics2D.class,
+                    VisualItem.class).getDeclaringClass() == EdgeRenderer.class;
+        } catch (NoSuchMethodException e) {
+            batchable = false;
+        }
+        m_batchable = batchable;
     }
 
     /** Create a new EdgeRenderer with the given edge type.
@@ -207,6 +231,113 @@ public class EdgeRenderer extends AbstractShapeRenderer {
         }
     }
 
+    /** Can batch.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @return true, if successful
+     * @see prefuse.render.BatchRenderer#canBatch(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public boolean canBatch(Graphics2D g, VisualItem item) {
+        return m_batchable && getRenderType(item) == RENDER_TYPE_DRAW;
+    }
+
+    /** Adds the to batch.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @see prefuse.render.BatchRenderer#addToBatch(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public void addToBatch(Graphics2D g, VisualItem item) {
+        Shape shape = getShape(item);
+        if (shape == null) {
+            return;
+        }
+        int strokeColor = item.getStrokeColor();
+        int fillColor = item.getFillColor();
+        boolean sdraw = ColorLib.alpha(strokeColor) != 0;
+        boolean fdraw = m_curArrow != null && ColorLib.alpha(fillColor) != 0;
+        if (!(sdraw || fdraw)) {
+            return;
+        }
+        EdgeBatch batch = getBatch(getStroke(item), strokeColor, fillColor);
+        if (sdraw) {
+            AffineTransform at = g.getTransform();
+            if (shape == m_line && Math.max(at.getScaleX(), at.getScaleY()) <= 1.5) {
+                // snap to pixels as GraphicsLib.paint does when zoomed out
+                batch.lines.moveTo((int) (m_line.getX1() + 0.5),
+                        (int) (m_line.getY1() + 0.5));
+                batch.lines.lineTo((int) (m_line.getX2() + 0.5),
+                        (int) (m_line.getY2() + 0.5));
+            } else {
+                batch.lines.append(shape, false);
+            }
+        }
+        if (fdraw) {
+            batch.arrows.append(m_curArrow, false);
+        }
+    }
+
+    /** Flush batch.
+     * 
+     * @param g
+     *            the g
+     * @see prefuse.render.BatchRenderer#flushBatch(java.awt.Graphics2D) */
+    @Override
+    public void flushBatch(Graphics2D g) {
+        Stroke origStroke = g.getStroke();
+        for (int i = 0; i < m_batchCount; ++i) {
+            EdgeBatch batch = (EdgeBatch) m_batches.get(i);
+            if (batch.lines.getCurrentPoint() != null) {
+                g.setStroke(batch.stroke);
+                g.setPaint(ColorLib.getColor(batch.strokeColor));
+                g.draw(batch.lines);
+                batch.lines.reset();
+            }
+            if (batch.arrows.getCurrentPoint() != null) {
+                g.setPaint(ColorLib.getColor(batch.fillColor));
+                g.fill(batch.arrows);
+                batch.arrows.reset();
+            }
+            batch.stroke = null;
+        }
+        m_batchCount = 0;
+        g.setStroke(origStroke);
+    }
+
+    /** Get the batch of the edges with the given style, starting it if needed.
+     * 
+     * @param stroke
+     *            the stroke
+     * @param strokeColor
+     *            the stroke color
+     * @param fillColor
+     *            the fill color, used by arrow heads
+     * @return the batch */
+    private EdgeBatch getBatch(BasicStroke stroke, int strokeColor, int fillColor) {
+        for (int i = 0; i < m_batchCount; ++i) {
+            EdgeBatch batch = (EdgeBatch) m_batches.get(i);
+            if (batch.strokeColor == strokeColor && batch.fillColor == fillColor
+                    && (batch.stroke == stroke || batch.stroke.equals(stroke))) {
+                return batch;
+            }
+        }
+        if (m_batchCount == m_batches.size()) {
+            m_batches.add(new EdgeBatch());
+        }
+        EdgeBatch batch = (EdgeBatch) m_batches.get(m_batchCount++);
+        batch.stroke = stroke;
+        batch.strokeColor = strokeColor;
+        batch.fillColor = fillColor;
+        return batch;
+    }
+
     /** Returns an affine transformation that maps the arrowhead shape to the
      * position and orientation specified by the provided line segment end
      * points.
@@ -561,4 +692,18 @@ public class EdgeRenderer extends AbstractShapeRenderer {
     public double getDefaultLineWidth() {
         return m_width;
     }
+
+    /** The geometry of the batched edges sharing a style. */
+    private static final class EdgeBatch {
+        /** The stroke. */
+        BasicStroke stroke;
+        /** The stroke color. */
+        int strokeColor;
+        /** The fill color. */
+        int fillColor;
+        /** The lines. */
+        final Path2D lines = new Path2D.Float();
+        /** The arrow heads. */
+        final Path2D arrows = new Path2D.Float();
+    }
 } // end of class EdgeRenderer
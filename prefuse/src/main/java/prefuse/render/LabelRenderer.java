@@ -13,6 +13,7 @@ import java.awt.geom.RectangularShape;
 import java.awt.geom.RoundRectangle2D;
 
 import prefuse.Constants;
+import prefuse.Visualization;
 import prefuse.util.ColorLib;
 import prefuse.util.FontLib;
 import prefuse.util.GraphicsLib;
@@ -98,6 +99,10 @@ public class LabelRenderer extends AbstractShapeRenderer {
     protected String m_text; // label text
     /** The m_text dim. */
     protected Dimension m_textDim = new Dimension(); // text width / height
+    /** The cache of text measurements. */
+    protected TextMeasureCache m_measures = new TextMeasureCache();
+    /** The measurements of the current label text. */
+    protected TextMeasureCache.Measurement m_measured;
 
     /** Create a new LabelRenderer. By default the field "label" is used as the
      * field name for looking up text, and no image is used. */
@@ -251,7 +256,9 @@ public class LabelRenderer extends AbstractShapeRenderer {
 
     // ------------------------------------------------------------------------
     // Rendering
-    /** Compute text dimensions.
+    /** Compute text dimensions. Measurements are looked up in the cache, so
+     * that a text is only measured the first time it is drawn with a font. The
+     * cache is grown to hold a measurement for each item of the group.
      * 
      * @param item
      *            the item
@@ -268,46 +275,14 @@ public class LabelRenderer extends AbstractShapeRenderer {
             m_font = FontLib.getFont(m_font.getName(), m_font.getStyle(),
                     size * m_font.getSize());
         }
-        FontMetrics fm = DEFAULT_GRAPHICS.getFontMetrics(m_font);
-        StringBuffer str = null;
-        // compute the number of lines and the maximum width
-        int nlines = 1, w = 0, start = 0, end = text.indexOf(m_delim);
-        m_textDim.width = 0;
-        String line;
-        for (; end >= 0; ++nlines) {
-            w = fm.stringWidth(line = text.substring(start, end));
-            // abbreviate line as needed
-            if (m_maxTextWidth > -1 && w > m_maxTextWidth) {
-                if (str == null) {
-                    str = new StringBuffer(text.substring(0, start));
-                }
-                str.append(StringLib.abbreviate(line, fm, m_maxTextWidth));
-                str.append(m_delim);
-                w = m_maxTextWidth;
-            } else if (str != null) {
-                str.append(line).append(m_delim);
-            }
-            // update maximum width and substring indices
-            m_textDim.width = Math.max(m_textDim.width, w);
-            start = end + 1;
-            end = text.indexOf(m_delim, start);
-        }
-        w = fm.stringWidth(line = text.substring(start));
-        // abbreviate line as needed
-        if (m_maxTextWidth > -1 && w > m_maxTextWidth) {
-            if (str == null) {
-                str = new StringBuffer(text.substring(0, start));
-            }
-            str.append(StringLib.abbreviate(line, fm, m_maxTextWidth));
-            w = m_maxTextWidth;
-        } else if (str != null) {
-            str.append(line);
+        Visualization vis = item.getVisualization();
+        if (vis != null) {
+            m_measures.ensureCacheSize(vis.size(item.getGroup()));
         }
-        // update maximum width
-        m_textDim.width = Math.max(m_textDim.width, w);
-        // compute the text height
-        m_textDim.height = fm.getHeight() * nlines;
-        return str == null ? text : str.toString();
+        m_measured = m_measures.measure(text, m_font, m_delim, m_maxTextWidth);
+        m_textDim.width = m_measured.getWidth();
+        m_textDim.height = m_measured.getHeight();
+        return m_measured.getText();
     }
 
     /** Gets the raw shape.
@@ -501,7 +476,7 @@ public class LabelRenderer extends AbstractShapeRenderer {
         if (text != null && ColorLib.alpha(textColor) > 0) {
             g.setPaint(ColorLib.getColor(textColor));
             g.setFont(m_font);
-            FontMetrics fm = DEFAULT_GRAPHICS.getFontMetrics(m_font);
+            TextMeasureCache.Measurement measured = m_measured;
             // compute available width
             double tw;
             switch (m_imagePos) {
@@ -523,7 +498,7 @@ public class LabelRenderer extends AbstractShapeRenderer {
                     th = m_textDim.height;
             }
             // compute starting y-coordinate
-            y += fm.getAscent();
+            y += measured.getAscent();
             switch (m_vTextAlign) {
                 case Constants.TOP:
                     break;
@@ -534,14 +509,11 @@ public class LabelRenderer extends AbstractShapeRenderer {
                     y += (th - m_textDim.height) / 2;
             }
             // render each line of text
-            int lh = fm.getHeight(); // the line height
-            int start = 0, end = text.indexOf(m_delim);
-            for (; end >= 0; y += lh) {
-                drawString(g, fm, text.substring(start, end), useInt, x, y, tw);
-                start = end + 1;
-                end = text.indexOf(m_delim, start);
+            int lh = measured.getLineHeight(); // the line height
+            for (int i = 0; i < measured.getLineCount(); ++i, y += lh) {
+                drawString(g, measured.getLine(i), measured.getLineWidth(i), useInt, x,
+                        y, tw);
             }
-            drawString(g, fm, text.substring(start), useInt, x, y, tw);
         }
         // draw border
         if (type == RENDER_TYPE_DRAW || type == RENDER_TYPE_DRAW_AND_FILL) {
@@ -553,10 +525,10 @@ public class LabelRenderer extends AbstractShapeRenderer {
      * 
      * @param g
      *            the g
-     * @param fm
-     *            the fm
      * @param text
      *            the text
+     * @param textWidth
+     *            the width of the text
      * @param useInt
      *            the use int
      * @param x
@@ -565,7 +537,7 @@ public class LabelRenderer extends AbstractShapeRenderer {
      *            the y
      * @param w
      *            the w */
-    private final void drawString(Graphics2D g, FontMetrics fm, String text,
+    private final void drawString(Graphics2D g, String text, int textWidth,
             boolean useInt, double x, double y, double w) {
         // compute the x-coordinate
         double tx;
@@ -574,10 +546,10 @@ public class LabelRenderer extends AbstractShapeRenderer {
                 tx = x;
                 break;
             case Constants.RIGHT:
-                tx = x + w - fm.stringWidth(text);
+                tx = x + w - textWidth;
                 break;
             case Constants.CENTER:
-                tx = x + (w - fm.stringWidth(text)) / 2;
+                tx = x + (w - textWidth) / 2;
                 break;
             default:
                 throw new IllegalStateException("Unrecognized text alignment setting.");
@@ -609,6 +581,22 @@ public class LabelRenderer extends AbstractShapeRenderer {
         m_images = ifact;
     }
 
+    /** Gets the cache of text measurements used by this renderer.
+     * 
+     * @return the text measure cache */
+    public TextMeasureCache getTextMeasureCache() {
+        return m_measures;
+    }
+
+    /** Sets the cache of text measurements used by this renderer. Renderers
+     * drawing on the same thread can share a cache.
+     * 
+     * @param cache
+     *            the text measure cache */
+    public void setTextMeasureCache(TextMeasureCache cache) {
+        m_measures = cache;
+    }
+
     // ------------------------------------------------------------------------
     /** Get the horizontal text alignment within the layout. One of
      * 
@@ -0,0 +1,211 @@
+package prefuse.render;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+
+import prefuse.visual.VisualItem;
+
+/** Renderer that picks among several renderers according to the current zoom
+ * level, so that cheaper representations can be drawn when items are too
+ * small on screen for their details to be seen. A detailed renderer is used at
+ * full scale, and levels are added with a scale threshold below which their
+ * renderer takes over. For example,
+ * 
+ * <pre>
+ * LevelOfDetailRenderer lod = new LevelOfDetailRenderer(new LabelRenderer());
+ * lod.addLevel(0.5, new BoundsRenderer()); // boxes without text
+ * lod.addLevel(0.15, new PointRenderer()); // single points
+ * </pre>
+ * <p>
+ * A level renderer may be null, in which case nothing is drawn below its
+ * threshold. The detailed renderer may be null too, which allows aggregates to
+ * be drawn only when zoomed out, in place of the items they contain.
+ * <p>
+ * The scale is read from the transform of the graphics context being drawn
+ * to, so that each display, including overviews and exported images, uses the
+ * level that matches its own zoom. Bounds and point containment are always
+ * computed by the detailed renderer (or, if it is null, by the renderer of the
+ * coarsest level), so that culling and picking do not depend on the zoom
+ * level. Items are batched whenever the renderer of the current level is a
+ * {@link BatchRenderer}. */
+public class LevelOfDetailRenderer implements BatchRenderer {
+    /** The m_detail renderer, used above all thresholds. */
+    private final Renderer m_detail;
+    /** The m_scales, the thresholds of the levels in increasing order. */
+    private double[] m_scales = new double[0];
+    /** The m_renderers, the renderers of the levels. */
+    private Renderer[] m_renderers = new Renderer[0];
+
+    /** Create a new LevelOfDetailRenderer.
+     * 
+     * @param detail
+     *            the renderer to use at full scale, or null to draw nothing */
+    public LevelOfDetailRenderer(Renderer detail) {
+        m_detail = detail;
+    }
+
+    /** Get the renderer used at full scale.
+     * 
+     * @return the detailed renderer, possibly null */
+    public Renderer getDetailRenderer() {
+        return m_detail;
+    }
+
+    /** Add a level of detail. The renderer is used when the scale is below the
+     * threshold, unless a level with a lower threshold also applies. A level
+     * added with the threshold of an existing level replaces it.
+     * 
+     * @param scale
+     *            the scale threshold
+     * @param renderer
+     *            the renderer to use below the threshold, or null to draw
+     *            nothing */
+    public void addLevel(double scale, Renderer renderer) {
+        int i = 0;
+        while (i < m_scales.length && m_scales[i] < scale) {
+            ++i;
+        }
+        if (i < m_scales.length && m_scales[i] == scale) {
+            m_renderers[i] = renderer;
+            return;
+        }
+        double[] scales = new double[m_scales.length + 1];
+        Renderer[] renderers = new Renderer[m_renderers.length + 1];
+        System.arraycopy(m_scales, 0, scales, 0, i);
+        System.arraycopy(m_renderers, 0, renderers, 0, i);
+        scales[i] = scale;
+        renderers[i] = renderer;
+        System.arraycopy(m_scales, i, scales, i + 1, m_scales.length - i);
+        System.arraycopy(m_renderers, i, renderers, i + 1, m_renderers.length - i);
+        m_scales = scales;
+        m_renderers = renderers;
+    }
+
+    /** Get the renderer to use at a given scale.
+     * 
+     * @param scale
+     *            the scale
+     * @return the renderer of the level with the lowest threshold above the
+     *         scale, or the detailed renderer if there is none. May be null. */
+    public Renderer getRenderer(double scale) {
+        for (int i = 0; i < m_scales.length; ++i) {
+            if (scale < m_scales[i]) {
+                return m_renderers[i];
+            }
+        }
+        return m_detail;
+    }
+
+    /** Get the scale at which a graphics context draws, as the geometric mean
+     * of the scale factors of its transform.
+     * 
+     * @param g
+     *            the graphics context
+     * @return the scale */
+    public static double getScale(Graphics2D g) {
+        return Math.sqrt(Math.abs(g.getTransform().getDeterminant()));
+    }
+
+    /** Get the renderer that computes bounds and point containment.
+     * 
+     * @return the detailed renderer, or the renderer of the coarsest level if
+     *         it is null. May be null. */
+    protected Renderer getBoundsRenderer() {
+        if (m_detail != null) {
+            return m_detail;
+        }
+        for (int i = 0; i < m_renderers.length; ++i) {
+            if (m_renderers[i] != null) {
+                return m_renderers[i];
+            }
+        }
+        return null;
+    }
+
+    /** Render.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @see prefuse.render.Renderer#render(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public void render(Graphics2D g, VisualItem item) {
+        Renderer r = getRenderer(getScale(g));
+        if (r != null) {
+            r.render(g, item);
+        }
+    }
+
+    /** Can batch.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @return true, if successful
+     * @see prefuse.render.BatchRenderer#canBatch(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public boolean canBatch(Graphics2D g, VisualItem item) {
+        Renderer r = getRenderer(getScale(g));
+        return r instanceof BatchRenderer && ((BatchRenderer) r).canBatch(g, item);
+    }
+
+    /** Adds the to batch.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @see prefuse.render.BatchRenderer#addToBatch(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public void addToBatch(Graphics2D g, VisualItem item) {
+        ((BatchRenderer) getRenderer(getScale(g))).addToBatch(g, item);
+    }
+
+    /** Flush batch.
+     * 
+     * @param g
+     *            the g
+     * @see prefuse.render.BatchRenderer#flushBatch(java.awt.Graphics2D) */
+    @Override
+    public void flushBatch(Graphics2D g) {
+        Renderer r = getRenderer(getScale(g));
+        if (r instanceof BatchRenderer) {
+            ((BatchRenderer) r).flushBatch(g);
+        }
+    }
+
+    /** Locate point.
+     * 
+     * @param p
+     *            the p
+     * @param item
+     *            the item
+     * @return true, if successful
+     * @see prefuse.render.Renderer#locatePoint(java.awt.geom.Point2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public boolean locatePoint(Point2D p, VisualItem item) {
+        Renderer r = getBoundsRenderer();
+        return r != null && r.locatePoint(p, item);
+    }
+
+    /** Sets the bounds.
+     * 
+     * @param item
+     *            the new bounds
+     * @see prefuse.render.Renderer#setBounds(prefuse.visual.VisualItem) */
+    @Override
+    public void setBounds(VisualItem item) {
+        Renderer r = getBoundsRenderer();
+        if (r != null) {
+            r.setBounds(item);
+        } else {
+            item.setBounds(item.getX(), item.getY(), 0, 0);
+        }
+    }
+} // end of class LevelOfDetailRenderer
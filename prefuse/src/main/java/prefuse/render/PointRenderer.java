@@ -0,0 +1,95 @@
+package prefuse.render;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import prefuse.util.ColorLib;
+import prefuse.visual.VisualItem;
+
+/** Renderer that draws an item as a small square of fixed on-screen size,
+ * centered on the item location, without text, outline or anti-aliasing
+ * concerns. Meant as the cheapest level of a {@link LevelOfDetailRenderer},
+ * for zoom levels at which items are only a few pixels wide. The fill color
+ * of the item is used, or its stroke color if the fill is transparent. */
+public class PointRenderer implements Renderer {
+    /** The m_size, in pixels. */
+    private double m_size;
+    /** The m_rect. */
+    private final Rectangle2D m_rect = new Rectangle2D.Double();
+
+    /** Creates a new PointRenderer drawing points 3 pixels wide. */
+    public PointRenderer() {
+        this(3);
+    }
+
+    /** Creates a new PointRenderer.
+     * 
+     * @param size
+     *            the width of the points, in pixels */
+    public PointRenderer(double size) {
+        m_size = size;
+    }
+
+    /** Get the width of the points.
+     * 
+     * @return the width of the points, in pixels */
+    public double getSize() {
+        return m_size;
+    }
+
+    /** Set the width of the points.
+     * 
+     * @param size
+     *            the width of the points, in pixels */
+    public void setSize(double size) {
+        m_size = size;
+    }
+
+    /** Render.
+     * 
+     * @param g
+     *            the g
+     * @param item
+     *            the item
+     * @see prefuse.render.Renderer#render(java.awt.Graphics2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public void render(Graphics2D g, VisualItem item) {
+        int color = item.getFillColor();
+        if (ColorLib.alpha(color) == 0) {
+            color = item.getStrokeColor();
+            if (ColorLib.alpha(color) == 0) {
+                return;
+            }
+        }
+        double s = m_size / LevelOfDetailRenderer.getScale(g);
+        m_rect.setFrame(item.getX() - s / 2, item.getY() - s / 2, s, s);
+        g.setPaint(ColorLib.getColor(color));
+        g.fill(m_rect);
+    }
+
+    /** Locate point.
+     * 
+     * @param p
+     *            the p
+     * @param item
+     *            the item
+     * @return true, if successful
+     * @see prefuse.render.Renderer#locatePoint(java.awt.geom.Point2D,
+     *      prefuse.visual.VisualItem) */
+    @Override
+    public boolean locatePoint(Point2D p, VisualItem item) {
+        return item.getBounds().contains(p);
+    }
+
+    /** Sets the bounds.
+     * 
+     * @param item
+     *            the new bounds
+     * @see prefuse.render.Renderer#setBounds(prefuse.visual.VisualItem) */
+    @Override
+    public void setBounds(VisualItem item) {
+        item.setBounds(item.getX(), item.getY(), 0, 0);
+    }
+} // end of class PointRenderer
@@ -0,0 +1,316 @@
+package prefuse.render;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import prefuse.util.StringLib;
+
+/** <p>
+ * LRU cache of the measurements of multi-line label texts: the lines, as
+ * abbreviated to a maximum width, the width of each line, and the dimensions
+ * and metrics of the whole text. Labels rarely change between repaints, so
+ * that renderers sharing a cache only measure a text the first time it is
+ * drawn with a given font, which already accounts for any scaling.
+ * </p>
+ * <p>
+ * Like renderers, caches are not thread-safe, and must not be shared between
+ * threads. Each cache measures texts with a graphics context of its own, so
+ * that caches used by different threads, such as the renderers of tiled
+ * rendering, can measure texts concurrently.
+ * </p> */
+public class TextMeasureCache {
+    /** The default capacity of a cache. */
+    public static final int DEFAULT_CACHE_SIZE = 2000;
+    /** The m_cache size. */
+    protected int m_cacheSize;
+    // a LRU cache, as in ImageFactory
+    /** The m_cache. */
+    protected Map m_cache;
+    /** The m_graphics, used to measure texts. */
+    private Graphics2D m_graphics;
+    /** The m_lookup key, reused to avoid allocating a key per lookup. */
+    private final Key m_lookup = new Key();
+    /** The m_misses. */
+    private int m_misses = 0;
+    /** The m_lookups. */
+    private int m_lookups = 0;
+
+    /** Create a new TextMeasureCache with the default capacity. */
+    public TextMeasureCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /** Create a new TextMeasureCache.
+     * 
+     * @param size
+     *            the maximum number of cached measurements */
+    public TextMeasureCache(int size) {
+        m_cacheSize = size;
+        m_cache = new LinkedHashMap((int) ((m_cacheSize + 1) / .75F), .75F, true) {
+            @Override
+            public boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > m_cacheSize;
+            }
+        };
+    }
+
+    /** Get the capacity of the cache.
+     * 
+     * @return the maximum number of cached measurements */
+    public int getCacheSize() {
+        return m_cacheSize;
+    }
+
+    /** Sets the capacity of the cache.
+     * 
+     * @param size
+     *            the maximum number of cached measurements */
+    public void setCacheSize(int size) {
+        m_cacheSize = size;
+    }
+
+    /** Grows the capacity of the cache to hold at least the given number of
+     * measurements. Renderers call this with the number of items they draw,
+     * so that a full repaint does not evict the measurements it needs.
+     * 
+     * @param size
+     *            the minimum number of cached measurements */
+    public void ensureCacheSize(int size) {
+        if (size > m_cacheSize) {
+            m_cacheSize = size;
+        }
+    }
+
+    /** Get the number of cache misses.
+     * 
+     * @return the number of cache misses */
+    public int getCacheMissCount() {
+        return m_misses;
+    }
+
+    /** Get the number of cache lookups.
+     * 
+     * @return the number of cache lookups */
+    public int getCacheLookupCount() {
+        return m_lookups;
+    }
+
+    /** Clear the cache. */
+    public void clear() {
+        m_cache.clear();
+    }
+
+    /** Get the measurements of a text, measuring it if it is not cached.
+     * 
+     * @param text
+     *            the text
+     * @param font
+     *            the font the text is drawn with
+     * @param delim
+     *            the line delimiter
+     * @param maxWidth
+     *            the maximum width of a line, or -1 for no maximum. Longer
+     *            lines are abbreviated.
+     * @return the measurements */
+    public Measurement measure(String text, Font font, String delim, int maxWidth) {
+        ++m_lookups;
+        m_lookup.set(text, font, delim, maxWidth);
+        Measurement m = (Measurement) m_cache.get(m_lookup);
+        if (m == null) {
+            ++m_misses;
+            if (m_graphics == null) {
+                m_graphics = (Graphics2D) new BufferedImage(1, 1,
+                        BufferedImage.TYPE_INT_ARGB).getGraphics();
+            }
+            m = new Measurement(m_graphics.getFontMetrics(font), text, delim,
+                    maxWidth);
+            Key key = new Key();
+            key.set(text, font, delim, maxWidth);
+            m_cache.put(key, m);
+        }
+        return m;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** The measurements of a text. */
+    public static class Measurement {
+        /** The text, with abbreviated lines. */
+        private final String m_text;
+        /** The lines. */
+        private final String[] m_lines;
+        /** The widths of the lines. */
+        private final int[] m_lineWidths;
+        /** The width, at most the maximum width. */
+        private final int m_width;
+        /** The line height. */
+        private final int m_lineHeight;
+        /** The ascent. */
+        private final int m_ascent;
+
+        /** Measure a text.
+         * 
+         * @param fm
+         *            the metrics of the font
+         * @param text
+         *            the text
+         * @param delim
+         *            the line delimiter
+         * @param maxWidth
+         *            the maximum width of a line, or -1 for no maximum */
+        Measurement(FontMetrics fm, String text, String delim, int maxWidth) {
+            ArrayList lines = new ArrayList();
+            int start = 0, end = text.indexOf(delim);
+            for (; end >= 0; end = text.indexOf(delim, start)) {
+                lines.add(text.substring(start, end));
+                start = end + delim.length();
+            }
+            lines.add(text.substring(start));
+            m_lines = new String[lines.size()];
+            m_lineWidths = new int[m_lines.length];
+            boolean abbreviated = false;
+            int width = 0;
+            for (int i = 0; i < m_lines.length; ++i) {
+                String line = (String) lines.get(i);
+                int w = fm.stringWidth(line);
+                // abbreviate line as needed
+                if (maxWidth > -1 && w > maxWidth) {
+                    line = StringLib.abbreviate(line, fm, maxWidth);
+                    abbreviated = true;
+                    width = Math.max(width, maxWidth);
+                    w = fm.stringWidth(line);
+                } else {
+                    width = Math.max(width, w);
+                }
+                m_lines[i] = line;
+                m_lineWidths[i] = w;
+            }
+            if (abbreviated) {
+                StringBuffer str = new StringBuffer(m_lines[0]);
+                for (int i = 1; i < m_lines.length; ++i) {
+                    str.append(delim).append(m_lines[i]);
+                }
+                m_text = str.toString();
+            } else {
+                m_text = text;
+            }
+            m_width = width;
+            m_lineHeight = fm.getHeight();
+            m_ascent = fm.getAscent();
+        }
+
+        /** Get the text, with lines abbreviated to the maximum width.
+         * 
+         * @return the text */
+        public String getText() {
+            return m_text;
+        }
+
+        /** Get the number of lines.
+         * 
+         * @return the number of lines */
+        public int getLineCount() {
+            return m_lines.length;
+        }
+
+        /** Get a line.
+         * 
+         * @param i
+         *            the index of the line
+         * @return the line, abbreviated to the maximum width */
+        public String getLine(int i) {
+            return m_lines[i];
+        }
+
+        /** Get the width of a line.
+         * 
+         * @param i
+         *            the index of the line
+         * @return the width of the line as drawn */
+        public int getLineWidth(int i) {
+            return m_lineWidths[i];
+        }
+
+        /** Get the width of the text.
+         * 
+         * @return the width of the widest line, or the maximum width if a line
+         *         was abbreviated */
+        public int getWidth() {
+            return m_width;
+        }
+
+        /** Get the height of the text.
+         * 
+         * @return the height of all lines */
+        public int getHeight() {
+            return m_lineHeight * m_lines.length;
+        }
+
+        /** Get the height of a line.
+         * 
+         * @return the line height of the font */
+        public int getLineHeight() {
+            return m_lineHeight;
+        }
+
+        /** Get the ascent of the font.
+         * 
+         * @return the ascent */
+        public int getAscent() {
+            return m_ascent;
+        }
+    }
+
+    /** The key of a measurement. */
+    private static final class Key {
+        /** The text. */
+        String text;
+        /** The font. */
+        Font font;
+        /** The delimiter. */
+        String delim;
+        /** The maximum width. */
+        int maxWidth;
+        /** The hash code. */
+        int hash;
+
+        /** Set the fields of the key.
+         * 
+         * @param text
+         *            the text
+         * @param font
+         *            the font
+         * @param delim
+         *            the delimiter
+         * @param maxWidth
+         *            the maximum width */
+        void set(String text, Font font, String delim, int maxWidth) {
+            this.text = text;
+            this.font = font;
+            this.delim = delim;
+            this.maxWidth = maxWidth;
+            hash = ((text.hashCode() * 31 + font.hashCode()) * 31 + delim.hashCode())
+                    * 31 + maxWidth;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hash == k.hash && maxWidth == k.maxWidth && text.equals(k.text)
+                    && font.equals(k.font) && delim.equals(k.delim);
+        }
+    }
+} // end of class TextMeasureCache
@@ -20,7 +20,8 @@ import prefuse.util.collections.IntObjectHashMap;
  * <p>
  * This class also maintains methods for mapping these values to actual Java
  * {@link java.awt.Color} instances; a cache is maintained for quick-lookups,
- * avoiding the need to continually allocate new Color instances.
+ * avoiding the need to continually allocate new Color instances. The cache is
+ * synchronized, so that items can be rendered on several threads.
  * </p>
  * <p>
  * Finally, this class also contains routine for creating color palettes for use
@@ -306,7 +307,7 @@ public class ColorLib {
      *            the integer color code containing red, green, blue, and alpha
      *            channel information
      * @return a Java Color object */
-    public static Color getColor(int rgba) {
+    public static synchronized Color getColor(int rgba) {
         Color c = null;
         if ((c = (Color) colorMap.get(rgba)) == null) {
             c = new Color(rgba, true);
@@ -322,19 +323,19 @@ public class ColorLib {
     /** Get the number of cache misses to the Color object cache.
      * 
      * @return the number of cache misses */
-    public static int getCacheMissCount() {
+    public static synchronized int getCacheMissCount() {
         return misses;
     }
 
     /** Get the number of cache lookups to the Color object cache.
      * 
      * @return the number of cache lookups */
-    public static int getCacheLookupCount() {
+    public static synchronized int getCacheLookupCount() {
         return lookups;
     }
 
     /** Clear the Color object cache. */
-    public static void clearCache() {
+    public static synchronized void clearCache() {
         colorMap.clear();
     }
 
@@ -5,7 +5,8 @@ import java.awt.Font;
 import prefuse.util.collections.IntObjectHashMap;
 
 /** Library maintaining a cache of fonts and other useful font computation
- * routines.
+ * routines. The cache is synchronized, so fonts can be looked up while
+ * rendering on several threads.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class FontLib {
@@ -60,7 +61,7 @@ public class FontLib {
      * @param size
      *            the size, in points, of the font
      * @return the requested Font instance */
-    public static Font getFont(String name, int style, int size) {
+    public static synchronized Font getFont(String name, int style, int size) {
         int key = (name.hashCode() << 8) + (size << 2) + style;
         Font f = null;
         if ((f = (Font) fontMap.get(key)) == null) {
@@ -75,19 +76,19 @@ public class FontLib {
     /** Get the number of cache misses to the Font object cache.
      * 
      * @return the number of cache misses */
-    public static int getCacheMissCount() {
+    public static synchronized int getCacheMissCount() {
         return misses;
     }
 
     /** Get the number of cache lookups to the Font object cache.
      * 
      * @return the number of cache lookups */
-    public static int getCacheLookupCount() {
+    public static synchronized int getCacheLookupCount() {
         return lookups;
     }
 
     /** Clear the Font object cache. */
-    public static void clearCache() {
+    public static synchronized void clearCache() {
         fontMap.clear();
     }
 
@@ -23,6 +23,13 @@ import prefuse.util.io.IOLib;
  * <li><code>activity.threadPriority</code> - the thread priority of the
  * ActivityManager thread. The value should be between 1 and 10, with 5 being
  * the standard Java default. The default prefuse setting is 6.</li>
+ * <li><code>activity.threadCount</code> - the number of worker threads running
+ * the steps of activities, with one queue per Visualization. With the default
+ * setting of 1, all steps run on the ActivityManager thread.</li>
+ * <li><code>action.threadCount</code> - the number of threads processing the
+ * items of parallel {@link prefuse.action.ItemAction}s, including the thread
+ * running the action. With the default setting of 0, one thread per available
+ * processor is used.</li>
  * <li><code>data.io.worker.threadPriority</code> - the thread priority of
  * asynchronous database worker threads. The default prefuse setting is 5 (same
  * as the Java thread default).</li>
@@ -178,6 +185,8 @@ public class PrefuseConfig extends Properties {
     private void setDefaults() {
         setProperty("size.scale2D", "0.5");
         setProperty("activity.threadPriority", "6");
+        setProperty("activity.threadCount", "1");
+        setProperty("action.threadCount", "0");
         setProperty("data.delimiter", ".");
         setProperty("data.graph.nodeGroup", "nodes");
         setProperty("data.graph.edgeGroup", "edges");
@@ -8,6 +8,8 @@ import java.awt.geom.Rectangle2D;
 import prefuse.Constants;
 import prefuse.Display;
 import prefuse.data.Schema;
+import prefuse.util.metrics.Histogram;
+import prefuse.util.metrics.Metrics;
 import prefuse.visual.VisualItem;
 
 /** General library routines used by the prefuse toolkit.
@@ -84,6 +86,34 @@ public class PrefuseLib {
         return sb.toString();
     }
 
+    /** Get a String showing the median and 90th percentile durations of the
+     * phases of the paints of a Display, in milliseconds, and the median
+     * numbers of rendered and culled items.
+     * 
+     * @param d
+     *            the Display
+     * @return a String of paint statistics, or null if the Display does not
+     *         record metrics
+     * @see prefuse.Display#setMetrics(Metrics) */
+    public static String getPaintStats(Display d) {
+        Metrics m = d.getMetrics();
+        if (m == null) {
+            return null;
+        }
+        String[] phases = { Metrics.DISPLAY_FRAME, Metrics.DISPLAY_DAMAGE,
+                Metrics.DISPLAY_FILL, Metrics.DISPLAY_SORT, Metrics.DISPLAY_RENDER };
+        StringBuffer sb = new StringBuffer();
+        for (int i = 0; i < phases.length; ++i) {
+            Histogram h = m.getHistogram(phases[i]);
+            sb.append(phases[i].substring(phases[i].indexOf('.') + 1)).append(": ");
+            sb.append(StringLib.formatNumber(h.getP50() / 1e6, 2)).append('/');
+            sb.append(StringLib.formatNumber(h.getP90() / 1e6, 2)).append("ms - ");
+        }
+        sb.append(m.getHistogram(Metrics.DISPLAY_RENDERED).getP50()).append(" rendered, ");
+        sb.append(m.getHistogram(Metrics.DISPLAY_CULLED).getP50()).append(" culled");
+        return sb.toString();
+    }
+
     // ------------------------------------------------------------------------
     // VisualItem Methods
     /** Returns a scale factor by which to scale a 2D shape to grow the area by
@@ -5,7 +5,8 @@ import java.awt.BasicStroke;
 import prefuse.util.collections.IntObjectHashMap;
 
 /** Library maintaining a cache of drawing strokes and other useful stroke
- * computation routines.
+ * computation routines. The cache is synchronized, so strokes can be looked up
+ * while rendering on several threads.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class StrokeLib {
@@ -91,8 +92,8 @@ public class StrokeLib {
      *         {@link java.awt.BasicStroke#JOIN_MITER}, or
      *         {@link java.awt.BasicStroke#JOIN_ROUND}
      * @see java.awt.BasicStroke */
-    public static BasicStroke getStroke(float width, int cap, int join, float miterLimit,
-            float[] dashes, float dashPhase) {
+    public static synchronized BasicStroke getStroke(float width, int cap, int join,
+            float miterLimit, float[] dashes, float dashPhase) {
         int key = getStrokeKey(width, cap, join, miterLimit, dashes, dashPhase);
         BasicStroke s = null;
         if ((s = (BasicStroke) strokeMap.get(key)) == null) {
@@ -154,19 +155,19 @@ public class StrokeLib {
     /** Get the number of cache misses to the Stroke object cache.
      * 
      * @return the number of cache misses */
-    public static int getCacheMissCount() {
+    public static synchronized int getCacheMissCount() {
         return misses;
     }
 
     /** Get the number of cache lookups to the Stroke object cache.
      * 
      * @return the number of cache lookups */
-    public static int getCacheLookupCount() {
+    public static synchronized int getCacheLookupCount() {
         return lookups;
     }
 
     /** Clear the Stroke object cache. */
-    public static void clearCache() {
+    public static synchronized void clearCache() {
         strokeMap.clear();
     }
 } // end of class StrokeLib
@@ -7,7 +7,8 @@ import prefuse.util.PrefuseLib;
 
 /** PinatListener that paints useful debugging statistics over a prefuse display.
  * This includes the current frame rate, the number of visible items, memory
- * usage, and display navigation information.
+ * usage, and display navigation information, followed by the timings of the
+ * paints if the display records metrics.
  * 
  * @author <a href="http://jheer.org">jeffrey heer</a> */
 public class DebugStatsPainter implements PaintListener {
@@ -35,5 +36,9 @@ public class DebugStatsPainter implements PaintListener {
         g.setFont(d.getFont());
         g.setColor(d.getForeground());
         g.drawString(PrefuseLib.getDisplayStats(d), 5, 15);
+        String paint = PrefuseLib.getPaintStats(d);
+        if (paint != null) {
+            g.drawString(paint, 5, 30);
+        }
     }
 } // end of class DebugStatsPainter
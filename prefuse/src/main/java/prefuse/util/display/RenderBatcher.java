@@ -0,0 +1,55 @@
+package prefuse.util.display;
+
+import java.awt.Graphics2D;
+
+import prefuse.render.BatchRenderer;
+import prefuse.render.Renderer;
+import prefuse.visual.VisualItem;
+
+/** Draws the items of a rendering queue in order, handing runs of consecutive
+ * items with the same {@link BatchRenderer} and the same ordering score to
+ * that renderer as a batch. Any other item flushes the current batch before
+ * being rendered, so that items are only reordered within a batch. */
+public class RenderBatcher {
+    /** The m_batch, the renderer of the current batch, or null. */
+    private BatchRenderer m_batch = null;
+    /** The m_score of the items of the current batch. */
+    private int m_score;
+
+    /** Render an item, or add it to the current batch.
+     * 
+     * @param g
+     *            the Graphics2D context
+     * @param item
+     *            the item
+     * @param r
+     *            the renderer of the item
+     * @param score
+     *            the ordering score of the item */
+    public void render(Graphics2D g, VisualItem item, Renderer r, int score) {
+        if (m_batch != null && (r != m_batch || score != m_score)) {
+            flush(g);
+        }
+        if (r instanceof BatchRenderer && ((BatchRenderer) r).canBatch(g, item)) {
+            m_batch = (BatchRenderer) r;
+            m_score = score;
+            m_batch.addToBatch(g, item);
+        } else {
+            flush(g);
+            r.render(g, item);
+        }
+    }
+
+    /** Draw the current batch, if any. Must be called once all items have been
+     * passed to render.
+     * 
+     * @param g
+     *            the Graphics2D context */
+    public void flush(Graphics2D g) {
+        if (m_batch != null) {
+            BatchRenderer batch = m_batch;
+            m_batch = null;
+            batch.flushBatch(g);
+        }
+    }
+} // end of class RenderBatcher
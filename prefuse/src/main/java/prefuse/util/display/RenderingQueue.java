@@ -32,11 +32,12 @@ public class RenderingQueue {
     public int psize = 0;
     /** The psorted. */
     public boolean psorted = false;
-    // buffer queues for use in sorting, these prevent continual re-allocation
+    // buffer queues for use in sorting, these prevent continual re-allocation.
+    // they belong to the queue, so that displays can sort concurrently
     /** The items_buf. */
-    transient static VisualItem[] items_buf;
+    private transient VisualItem[] items_buf;
     /** The scores_buf. */
-    transient static int[] scores_buf;
+    private transient int[] scores_buf;
 
     /** Clear both rendering and picking queues. */
     public void clear() {
@@ -46,6 +47,13 @@ public class RenderingQueue {
         psize = 0;
     }
 
+    /** Clear the picking queue only. */
+    public void clearPickingQueue() {
+        Arrays.fill(pitems, 0, psize, null);
+        psize = 0;
+        psorted = false;
+    }
+
     /** Clears the rendering queue and resizes internal arrays to a small size.
      * This should help reclaim used memory. */
     public void clean() {
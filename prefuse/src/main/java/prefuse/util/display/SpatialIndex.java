@@ -0,0 +1,380 @@
+package prefuse.util.display;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+import prefuse.visual.VisualItem;
+
+/** A spatial index of VisualItem bounds, implemented as a loose quadtree. Each
+ * item is stored in the smallest cell that contains the center of its bounds
+ * and is at least as large as the bounds; cells are tested against queries
+ * with twice their size, so an item never needs to be split across cells.
+ * Items are moved between cells individually when their bounds change, and
+ * the tree grows around the origin when items fall outside of it. Cells left
+ * without entries or children are dropped, so that the tree only holds the
+ * cells of the current items, however far items have moved.
+ * <p>
+ * The index keeps its own copy of the bounds of each item, so that it stays
+ * consistent even if the item bounds change before the index is updated. */
+public class SpatialIndex {
+    /** The half size of the root cell of an empty index. */
+    private static final double INITIAL_HALF_SIZE = 1024;
+    /** The maximum depth of the tree. */
+    private static final int MAX_DEPTH = 20;
+    /** The m_root. */
+    private Cell m_root = new Cell(null, 0, 0, 0, INITIAL_HALF_SIZE);
+    /** The m_entries, mapping items to their entries. */
+    private final HashMap m_entries = new HashMap();
+    /** The m_stack, reused across queries. */
+    private final ArrayList m_stack = new ArrayList();
+
+    /** Removes all items from the index. */
+    public void clear() {
+        m_entries.clear();
+        m_root = new Cell(null, 0, 0, 0, INITIAL_HALF_SIZE);
+    }
+
+    /** Get the number of indexed items.
+     * 
+     * @return the number of indexed items */
+    public int size() {
+        return m_entries.size();
+    }
+
+    /** Get the number of cells of the tree, including the root.
+     * 
+     * @return the number of cells */
+    public int getCellCount() {
+        int count = 0;
+        m_stack.add(m_root);
+        while (!m_stack.isEmpty()) {
+            Cell c = (Cell) m_stack.remove(m_stack.size() - 1);
+            ++count;
+            if (c.children != null) {
+                for (int i = 0; i < 4; ++i) {
+                    if (c.children[i] != null) {
+                        m_stack.add(c.children[i]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Indicates if an item is indexed.
+     * 
+     * @param item
+     *            the item
+     * @return true if the item is indexed */
+    public boolean contains(VisualItem item) {
+        return m_entries.containsKey(item);
+    }
+
+    /** Get an iterator over the indexed items, in no particular order. The
+     * index must not be modified during the iteration.
+     * 
+     * @return an iterator over the indexed items */
+    public Iterator items() {
+        return m_entries.keySet().iterator();
+    }
+
+    /** Get the bounds an item was last indexed with.
+     * 
+     * @param item
+     *            the item
+     * @param r
+     *            the rectangle in which to store the bounds
+     * @return the rectangle, or null if the item is not indexed */
+    public Rectangle2D getBounds(VisualItem item, Rectangle2D r) {
+        Entry e = (Entry) m_entries.get(item);
+        if (e == null) {
+            return null;
+        }
+        r.setFrameFromDiagonal(e.x1, e.y1, e.x2, e.y2);
+        return r;
+    }
+
+    /** Add an item to the index, or move it if its bounds have changed. Items
+     * with undefined bounds (negative sizes, NaN or infinite values) are
+     * removed from the index, as they cannot intersect any region.
+     * 
+     * @param item
+     *            the item
+     * @param b
+     *            the bounds of the item */
+    public void update(VisualItem item, Rectangle2D b) {
+        double x1 = b.getMinX(), y1 = b.getMinY();
+        double x2 = b.getMaxX(), y2 = b.getMaxY();
+        if (!(x1 <= x2 && y1 <= y2) || Double.isInfinite(x1) || Double.isInfinite(x2)
+                || Double.isInfinite(y1) || Double.isInfinite(y2)) {
+            remove(item);
+            return;
+        }
+        Entry e = (Entry) m_entries.get(item);
+        Cell prev = null;
+        if (e != null) {
+            if (e.x1 == x1 && e.y1 == y1 && e.x2 == x2 && e.y2 == y2) {
+                return;
+            }
+            prev = e.cell;
+            prev.remove(e);
+        } else {
+            e = new Entry(item);
+            m_entries.put(item, e);
+        }
+        e.x1 = x1;
+        e.y1 = y1;
+        e.x2 = x2;
+        e.y2 = y2;
+        if (!m_root.fits(e)) {
+            grow(e);
+        } else {
+            insert(e);
+        }
+        // prune after inserting, as the entry often moves within its cell
+        if (prev != null) {
+            prune(prev);
+        }
+    }
+
+    /** Remove an item from the index.
+     * 
+     * @param item
+     *            the item
+     * @return true if the item was indexed */
+    public boolean remove(VisualItem item) {
+        Entry e = (Entry) m_entries.remove(item);
+        if (e == null) {
+            return false;
+        }
+        Cell c = e.cell;
+        c.remove(e);
+        prune(c);
+        return true;
+    }
+
+    /** Collect all indexed items whose bounds intersect a region. Touching
+     * bounds count as intersecting.
+     * 
+     * @param x1
+     *            the minimum x-coordinate of the region
+     * @param y1
+     *            the minimum y-coordinate of the region
+     * @param x2
+     *            the maximum x-coordinate of the region
+     * @param y2
+     *            the maximum y-coordinate of the region
+     * @param result
+     *            the list to which the items are added
+     * @return the number of items added */
+    public int query(double x1, double y1, double x2, double y2, List result) {
+        int count = 0;
+        m_stack.add(m_root);
+        while (!m_stack.isEmpty()) {
+            Cell c = (Cell) m_stack.remove(m_stack.size() - 1);
+            double loose = 2 * c.half;
+            if (c.cx - loose > x2 || c.cx + loose < x1 || c.cy - loose > y2
+                    || c.cy + loose < y1) {
+                continue;
+            }
+            for (int i = 0; i < c.size; ++i) {
+                Entry e = c.entries[i];
+                if (e.x1 <= x2 && e.x2 >= x1 && e.y1 <= y2 && e.y2 >= y1) {
+                    result.add(e.item);
+                    ++count;
+                }
+            }
+            if (c.children != null) {
+                for (int i = 0; i < 4; ++i) {
+                    if (c.children[i] != null) {
+                        m_stack.add(c.children[i]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Store an entry in the smallest cell of the tree that fits it. The root
+     * must fit the entry.
+     * 
+     * @param e
+     *            the entry */
+    private void insert(Entry e) {
+        double extent = Math.max(e.x2 - e.x1, e.y2 - e.y1) / 2;
+        double cx = (e.x1 + e.x2) / 2;
+        double cy = (e.y1 + e.y2) / 2;
+        Cell c = m_root;
+        for (int depth = 0; depth < MAX_DEPTH && extent <= c.half / 2; ++depth) {
+            c = c.child(cx, cy);
+        }
+        c.add(e);
+    }
+
+    /** Drop a cell if it has no entries and no children, and then its
+     * ancestors left in the same state. The root is never dropped.
+     * 
+     * @param c
+     *            the cell */
+    private static void prune(Cell c) {
+        while (c.parent != null && c.size == 0 && c.children == null) {
+            c.parent.drop(c.quadrant);
+            c = c.parent;
+        }
+    }
+
+    /** Enlarge the root until it fits an entry, and rebuild the tree.
+     * 
+     * @param e
+     *            the entry that does not fit */
+    private void grow(Entry e) {
+        double half = m_root.half;
+        Cell root = new Cell(null, 0, 0, 0, half);
+        while (!root.fits(e)) {
+            half *= 2;
+            root = new Cell(null, 0, 0, 0, half);
+        }
+        m_root = root;
+        for (Iterator it = m_entries.values().iterator(); it.hasNext();) {
+            insert((Entry) it.next());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** An indexed item with the bounds it was indexed with. */
+    private static final class Entry {
+        /** The item. */
+        final VisualItem item;
+        /** The bounds. */
+        double x1, y1, x2, y2;
+        /** The cell holding the entry. */
+        Cell cell;
+        /** The position of the entry in its cell. */
+        int index;
+
+        /** Instantiates a new entry.
+         * 
+         * @param item
+         *            the item */
+        Entry(VisualItem item) {
+            this.item = item;
+        }
+    }
+
+    /** A cell of the quadtree. */
+    private static final class Cell {
+        /** The parent, or null for the root. */
+        final Cell parent;
+        /** The index of the cell among the children of its parent. */
+        final int quadrant;
+        /** The center. */
+        final double cx, cy;
+        /** Half the side of the cell; entries extend up to twice as far. */
+        final double half;
+        /** The children, created on demand. */
+        Cell[] children;
+        /** The entries. */
+        Entry[] entries = new Entry[4];
+        /** The number of entries. */
+        int size;
+
+        /** Instantiates a new cell.
+         * 
+         * @param parent
+         *            the parent, or null for the root
+         * @param quadrant
+         *            the index of the cell among the children of its parent
+         * @param cx
+         *            the x-coordinate of the center
+         * @param cy
+         *            the y-coordinate of the center
+         * @param half
+         *            half the side of the cell */
+        Cell(Cell parent, int quadrant, double cx, double cy, double half) {
+            this.parent = parent;
+            this.quadrant = quadrant;
+            this.cx = cx;
+            this.cy = cy;
+            this.half = half;
+        }
+
+        /** Indicates if an entry can be stored in this cell.
+         * 
+         * @param e
+         *            the entry
+         * @return true if the cell contains the center of the entry and is at
+         *         least as large as the entry */
+        boolean fits(Entry e) {
+            double x = (e.x1 + e.x2) / 2;
+            double y = (e.y1 + e.y2) / 2;
+            return Math.abs(x - cx) <= half && Math.abs(y - cy) <= half
+                    && Math.max(e.x2 - e.x1, e.y2 - e.y1) / 2 <= half;
+        }
+
+        /** Get the child containing a point, creating it if needed.
+         * 
+         * @param x
+         *            the x-coordinate
+         * @param y
+         *            the y-coordinate
+         * @return the child */
+        Cell child(double x, double y) {
+            if (children == null) {
+                children = new Cell[4];
+            }
+            int i = (x < cx ? 0 : 1) + (y < cy ? 0 : 2);
+            if (children[i] == null) {
+                double h = half / 2;
+                children[i] = new Cell(this, i, x < cx ? cx - h : cx + h,
+                        y < cy ? cy - h : cy + h, h);
+            }
+            return children[i];
+        }
+
+        /** Drop a child, and the array of children if it was the last one.
+         * 
+         * @param i
+         *            the index of the child */
+        void drop(int i) {
+            children[i] = null;
+            for (int j = 0; j < 4; ++j) {
+                if (children[j] != null) {
+                    return;
+                }
+            }
+            children = null;
+        }
+
+        /** Add an entry.
+         * 
+         * @param e
+         *            the entry */
+        void add(Entry e) {
+            if (size == entries.length) {
+                Entry[] a = new Entry[2 * size];
+                System.arraycopy(entries, 0, a, 0, size);
+                entries = a;
+            }
+            e.cell = this;
+            e.index = size;
+            entries[size++] = e;
+        }
+
+        /** Remove an entry, moving the last entry in its place.
+         * 
+         * @param e
+         *            the entry */
+        void remove(Entry e) {
+            Entry last = entries[--size];
+            entries[e.index] = last;
+            last.index = e.index;
+            entries[size] = null;
+            e.cell = null;
+        }
+    }
+
+} // end of class SpatialIndex
@@ -0,0 +1,362 @@
+package prefuse.util.display;
+
+import java.awt.AlphaComposite;
+import java.awt.Composite;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import prefuse.render.Renderer;
+import prefuse.render.RendererFactory;
+import prefuse.util.StringLib;
+import prefuse.visual.VisualItem;
+
+/** Renders a sorted queue of items on several threads. The damaged region of
+ * the display is split into square tiles of a fixed size in screen pixels,
+ * and each item is binned into the tiles its bounds overlap, keeping the
+ * order of the queue. Each tile is then drawn by a worker thread into an image
+ * of its own, and the finished images are composited into the destination
+ * graphics context, so that every pixel sees the items in the same order as
+ * with serial rendering.
+ * <p>
+ * Renderers keep scratch state and are generally not thread-safe, so each
+ * worker draws with its own {@link RendererFactory}, which must return
+ * renderers equivalent to those of the visualization. The items must have
+ * validated bounds before rendering, as workers only read them. */
+public class TileRasterizer {
+    /** The Constant s_logger. */
+    private static final Logger s_logger = Logger.getLogger(TileRasterizer.class
+            .getName());
+    /** The default tile size, in pixels. */
+    public static final int DEFAULT_TILE_SIZE = 128;
+    /** The m_factories, one per worker. */
+    private final RendererFactory[] m_factories;
+    /** The m_executor. */
+    private final ExecutorService m_executor;
+    /** The m_tile size. */
+    private final int m_tileSize;
+    /** The m_images, one per tile, reused across frames. */
+    private BufferedImage[] m_images = new BufferedImage[0];
+    /** The m_bins, the queue positions of the items of each tile. */
+    private int[][] m_bins = new int[0][];
+    /** The m_bin sizes. */
+    private int[] m_binSizes = new int[0];
+    /** The m_corners, used to transform item bounds. */
+    private final double[] m_corners = new double[8];
+    // the current frame, read by the workers
+    /** The m_items. */
+    private VisualItem[] m_items;
+    /** The m_scores, the ordering scores of the items. */
+    private int[] m_scores;
+    /** The m_transform. */
+    private AffineTransform m_transform;
+    /** The m_hints. */
+    private RenderingHints m_hints;
+    /** The m_region, the damaged region in screen pixels. */
+    private final Rectangle m_region = new Rectangle();
+    /** The m_columns. */
+    private int m_columns;
+    /** The m_tile count. */
+    private int m_tileCount;
+
+    /** Creates a new TileRasterizer with the default tile size.
+     * 
+     * @param factories
+     *            the renderer factories, one per worker thread */
+    public TileRasterizer(RendererFactory[] factories) {
+        this(factories, DEFAULT_TILE_SIZE);
+    }
+
+    /** Creates a new TileRasterizer.
+     * 
+     * @param factories
+     *            the renderer factories, one per worker thread
+     * @param tileSize
+     *            the tile size, in pixels */
+    public TileRasterizer(RendererFactory[] factories, int tileSize) {
+        if (factories == null || factories.length == 0) {
+            throw new IllegalArgumentException("At least one renderer factory is required");
+        }
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Invalid tile size: " + tileSize);
+        }
+        m_factories = factories.clone();
+        m_tileSize = tileSize;
+        m_executor = Executors.newFixedThreadPool(factories.length, new ThreadFactory() {
+            private int m_count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "prefuse_TileRasterizer-" + m_count++);
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /** Get the number of worker threads.
+     * 
+     * @return the number of worker threads */
+    public int getThreadCount() {
+        return m_factories.length;
+    }
+
+    /** Get the tile size.
+     * 
+     * @return the tile size, in pixels */
+    public int getTileSize() {
+        return m_tileSize;
+    }
+
+    /** Stops the worker threads. The rasterizer cannot be used afterwards. */
+    public void dispose() {
+        m_executor.shutdown();
+        m_images = new BufferedImage[0];
+    }
+
+    /** Render items in the given order. The graphics context must draw to an
+     * untransformed pixel grid, with the display transform applied on top of
+     * it: its current transform is taken as the display transform, and its
+     * clip as the damaged region. Pixels outside of the clip are left
+     * untouched.
+     * 
+     * @param g
+     *            the graphics context
+     * @param items
+     *            the items, sorted in rendering order
+     * @param scores
+     *            the ordering scores of the items
+     * @param size
+     *            the number of items
+     * @param d
+     *            the size of the destination, in pixels */
+    public void render(Graphics2D g, VisualItem[] items, int[] scores, int size,
+            Dimension d) {
+        if (size == 0) {
+            return;
+        }
+        AffineTransform transform = g.getTransform();
+        g.setTransform(new AffineTransform());
+        try {
+            Rectangle clip = g.getClipBounds();
+            m_region.setBounds(0, 0, d.width, d.height);
+            if (clip != null) {
+                m_region.setBounds(m_region.intersection(clip));
+            }
+            if (m_region.isEmpty()) {
+                return;
+            }
+            m_items = items;
+            m_scores = scores;
+            m_transform = transform;
+            m_hints = g.getRenderingHints();
+            bin(items, size);
+            renderTiles();
+            composite(g);
+        } finally {
+            m_items = null;
+            m_scores = null;
+            g.setTransform(transform);
+        }
+    }
+
+    /** Bin the items into the tiles they overlap.
+     * 
+     * @param items
+     *            the items
+     * @param size
+     *            the number of items */
+    private void bin(VisualItem[] items, int size) {
+        m_columns = (m_region.width + m_tileSize - 1) / m_tileSize;
+        int rows = (m_region.height + m_tileSize - 1) / m_tileSize;
+        m_tileCount = m_columns * rows;
+        if (m_bins.length < m_tileCount) {
+            int[][] bins = new int[m_tileCount][];
+            System.arraycopy(m_bins, 0, bins, 0, m_bins.length);
+            for (int t = m_bins.length; t < m_tileCount; ++t) {
+                bins[t] = new int[16];
+            }
+            m_bins = bins;
+            m_binSizes = new int[m_tileCount];
+            BufferedImage[] images = new BufferedImage[m_tileCount];
+            System.arraycopy(m_images, 0, images, 0, m_images.length);
+            m_images = images;
+        }
+        for (int t = 0; t < m_tileCount; ++t) {
+            m_binSizes[t] = 0;
+        }
+        for (int i = 0; i < size; ++i) {
+            Rectangle2D b = items[i].getBounds();
+            double x1 = b.getMinX(), y1 = b.getMinY();
+            double x2 = b.getMaxX(), y2 = b.getMaxY();
+            m_corners[0] = x1;
+            m_corners[1] = y1;
+            m_corners[2] = x2;
+            m_corners[3] = y1;
+            m_corners[4] = x1;
+            m_corners[5] = y2;
+            m_corners[6] = x2;
+            m_corners[7] = y2;
+            m_transform.transform(m_corners, 0, m_corners, 0, 4);
+            double minX = Math.min(Math.min(m_corners[0], m_corners[2]),
+                    Math.min(m_corners[4], m_corners[6]));
+            double maxX = Math.max(Math.max(m_corners[0], m_corners[2]),
+                    Math.max(m_corners[4], m_corners[6]));
+            double minY = Math.min(Math.min(m_corners[1], m_corners[3]),
+                    Math.min(m_corners[5], m_corners[7]));
+            double maxY = Math.max(Math.max(m_corners[1], m_corners[3]),
+                    Math.max(m_corners[5], m_corners[7]));
+            // allow two pixels for strokes and anti-aliasing
+            int c1 = clamp((int) Math.floor((minX - 2 - m_region.x) / m_tileSize),
+                    m_columns);
+            int c2 = clamp((int) Math.floor((maxX + 2 - m_region.x) / m_tileSize),
+                    m_columns);
+            int r1 = clamp((int) Math.floor((minY - 2 - m_region.y) / m_tileSize), rows);
+            int r2 = clamp((int) Math.floor((maxY + 2 - m_region.y) / m_tileSize), rows);
+            for (int r = r1; r <= r2; ++r) {
+                for (int c = c1; c <= c2; ++c) {
+                    add(r * m_columns + c, i);
+                }
+            }
+        }
+    }
+
+    /** Clamp a tile coordinate.
+     * 
+     * @param i
+     *            the coordinate
+     * @param n
+     *            the number of tiles along the axis
+     * @return the coordinate, within 0 and n-1 */
+    private static int clamp(int i, int n) {
+        return i < 0 ? 0 : i >= n ? n - 1 : i;
+    }
+
+    /** Add an item to a tile.
+     * 
+     * @param t
+     *            the tile
+     * @param i
+     *            the queue position of the item */
+    private void add(int t, int i) {
+        int[] bin = m_bins[t];
+        if (m_binSizes[t] == bin.length) {
+            int[] a = new int[2 * bin.length];
+            System.arraycopy(bin, 0, a, 0, bin.length);
+            m_bins[t] = bin = a;
+        }
+        bin[m_binSizes[t]++] = i;
+    }
+
+    /** Render all tiles, with each worker taking the next tile until none is
+     * left. */
+    private void renderTiles() {
+        final AtomicInteger next = new AtomicInteger();
+        ArrayList futures = new ArrayList(m_factories.length);
+        for (int w = 0; w < m_factories.length; ++w) {
+            final RendererFactory factory = m_factories[w];
+            futures.add(m_executor.submit(new Callable() {
+                @Override
+                public Object call() {
+                    for (int t = next.getAndIncrement(); t < m_tileCount; t = next
+                            .getAndIncrement()) {
+                        renderTile(t, factory);
+                    }
+                    return null;
+                }
+            }));
+        }
+        boolean interrupted = false;
+        for (int w = 0; w < futures.size(); ++w) {
+            Future f = (Future) futures.get(w);
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // the frame has to be completed before the queue changes
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    s_logger.warning("Exception thrown while rendering a tile: "
+                            + e.getCause() + "\n" + StringLib.getStackTrace(e.getCause()));
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Render the items of a tile into its image.
+     * 
+     * @param t
+     *            the tile
+     * @param factory
+     *            the renderer factory of the worker */
+    private void renderTile(int t, RendererFactory factory) {
+        if (m_binSizes[t] == 0) {
+            return;
+        }
+        BufferedImage image = m_images[t];
+        if (image == null) {
+            image = new BufferedImage(m_tileSize, m_tileSize,
+                    BufferedImage.TYPE_INT_ARGB_PRE);
+            m_images[t] = image;
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            Composite composite = g.getComposite();
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, m_tileSize, m_tileSize);
+            g.setComposite(composite);
+            g.setRenderingHints(m_hints);
+            g.translate(-(m_region.x + t % m_columns * m_tileSize),
+                    -(m_region.y + t / m_columns * m_tileSize));
+            g.transform(m_transform);
+            int[] bin = m_bins[t];
+            RenderBatcher batcher = new RenderBatcher();
+            for (int i = 0; i < m_binSizes[t]; ++i) {
+                VisualItem item = m_items[bin[i]];
+                Renderer r = factory.getRenderer(item);
+                if (r != null) {
+                    batcher.render(g, item, r, m_scores[bin[i]]);
+                }
+            }
+            batcher.flush(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /** Draw the tile images at their place. The graphics context must be
+     * untransformed.
+     * 
+     * @param g
+     *            the graphics context */
+    private void composite(Graphics2D g) {
+        for (int t = 0; t < m_tileCount; ++t) {
+            if (m_binSizes[t] == 0) {
+                continue;
+            }
+            int x = m_region.x + t % m_columns * m_tileSize;
+            int y = m_region.y + t / m_columns * m_tileSize;
+            int w = Math.min(m_tileSize, m_region.x + m_region.width - x);
+            int h = Math.min(m_tileSize, m_region.y + m_region.height - y);
+            g.drawImage(m_images[t], x, y, x + w, y + h, 0, 0, w, h, null);
+        }
+    }
+} // end of class TileRasterizer
@@ -0,0 +1,211 @@
+package prefuse.util.metrics;
+
+import java.util.Arrays;
+
+/** A histogram of non-negative long values, such as durations in nanoseconds
+ * or item counts. Values are counted in buckets of logarithmic size, eight per
+ * power of two, so that percentiles are accurate to within 12.5% whatever the
+ * range of the values, and recording a value takes constant time and no
+ * allocation. The exact count, sum, minimum and maximum are kept as well.
+ * Histograms are thread-safe. */
+public class Histogram implements HistogramMBean {
+    /** The number of buckets per power of two, as a power of two. */
+    private static final int SUB_BITS = 3;
+    /** The number of buckets per power of two. */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /** The number of buckets, covering all non-negative longs. */
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    /** The m_name. */
+    private final String m_name;
+    /** The m_counts. */
+    private final long[] m_counts = new long[BUCKETS];
+    /** The m_count. */
+    private long m_count;
+    /** The m_sum. */
+    private long m_sum;
+    /** The m_min. */
+    private long m_min;
+    /** The m_max. */
+    private long m_max;
+
+    /** Creates a new, empty histogram.
+     * 
+     * @param name
+     *            the name of the histogram */
+    public Histogram(String name) {
+        m_name = name;
+    }
+
+    /** Get the name.
+     * 
+     * @return the name
+     * @see prefuse.util.metrics.HistogramMBean#getName() */
+    @Override
+    public String getName() {
+        return m_name;
+    }
+
+    /** Record a value. Negative values are recorded as 0.
+     * 
+     * @param value
+     *            the value */
+    public synchronized void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        ++m_counts[bucket(value)];
+        if (m_count == 0 || value < m_min) {
+            m_min = value;
+        }
+        if (m_count == 0 || value > m_max) {
+            m_max = value;
+        }
+        ++m_count;
+        m_sum += value;
+    }
+
+    /** Get the count.
+     * 
+     * @return the count
+     * @see prefuse.util.metrics.HistogramMBean#getCount() */
+    @Override
+    public synchronized long getCount() {
+        return m_count;
+    }
+
+    /** Get the sum of the recorded values.
+     * 
+     * @return the sum */
+    public synchronized long getSum() {
+        return m_sum;
+    }
+
+    /** Get the min.
+     * 
+     * @return the min
+     * @see prefuse.util.metrics.HistogramMBean#getMin() */
+    @Override
+    public synchronized long getMin() {
+        return m_min;
+    }
+
+    /** Get the max.
+     * 
+     * @return the max
+     * @see prefuse.util.metrics.HistogramMBean#getMax() */
+    @Override
+    public synchronized long getMax() {
+        return m_max;
+    }
+
+    /** Get the mean.
+     * 
+     * @return the mean
+     * @see prefuse.util.metrics.HistogramMBean#getMean() */
+    @Override
+    public synchronized double getMean() {
+        return m_count == 0 ? 0 : (double) m_sum / m_count;
+    }
+
+    /** Get a percentile of the recorded values.
+     * 
+     * @param p
+     *            the percentile, between 0 and 1
+     * @return the largest value of the bucket holding the percentile, at most
+     *         the maximum recorded value, or 0 if no value was recorded */
+    public synchronized long getPercentile(double p) {
+        if (m_count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p * m_count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += m_counts[i];
+            if (seen >= rank) {
+                return Math.max(m_min, Math.min(m_max, upperBound(i)));
+            }
+        }
+        return m_max;
+    }
+
+    /** Get the p50.
+     * 
+     * @return the p50
+     * @see prefuse.util.metrics.HistogramMBean#getP50() */
+    @Override
+    public long getP50() {
+        return getPercentile(0.5);
+    }
+
+    /** Get the p90.
+     * 
+     * @return the p90
+     * @see prefuse.util.metrics.HistogramMBean#getP90() */
+    @Override
+    public long getP90() {
+        return getPercentile(0.9);
+    }
+
+    /** Get the p99.
+     * 
+     * @return the p99
+     * @see prefuse.util.metrics.HistogramMBean#getP99() */
+    @Override
+    public long getP99() {
+        return getPercentile(0.99);
+    }
+
+    /** Reset.
+     * 
+     * @see prefuse.util.metrics.HistogramMBean#reset() */
+    @Override
+    public synchronized void reset() {
+        Arrays.fill(m_counts, 0);
+        m_count = 0;
+        m_sum = 0;
+        m_min = 0;
+        m_max = 0;
+    }
+
+    /** To string.
+     * 
+     * @return the string
+     * @see java.lang.Object#toString() */
+    @Override
+    public synchronized String toString() {
+        return m_name + ": count=" + m_count + " min=" + m_min + " mean="
+                + (long) getMean() + " p50=" + getP50() + " p90=" + getP90()
+                + " p99=" + getP99() + " max=" + m_max;
+    }
+
+    // ------------------------------------------------------------------------
+
+    /** Get the bucket of a value.
+     * 
+     * @param value
+     *            the non-negative value
+     * @return the index of the bucket */
+    static int bucket(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> exp - SUB_BITS) & SUB_COUNT - 1;
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /** Get the largest value of a bucket.
+     * 
+     * @param bucket
+     *            the index of the bucket
+     * @return the largest value counted in the bucket */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+        long sub = bucket % SUB_COUNT;
+        long next = SUB_COUNT + sub + 1 << exp - SUB_BITS;
+        return next <= 0 ? Long.MAX_VALUE : next - 1;
+    }
+} // end of class Histogram
@@ -0,0 +1,47 @@
+package prefuse.util.metrics;
+
+/** Management interface of a {@link Histogram}, as exported through JMX. */
+public interface HistogramMBean {
+    /** Get the name of the histogram.
+     * 
+     * @return the name */
+    String getName();
+
+    /** Get the number of recorded values.
+     * 
+     * @return the number of values */
+    long getCount();
+
+    /** Get the smallest recorded value.
+     * 
+     * @return the minimum, or 0 if no value was recorded */
+    long getMin();
+
+    /** Get the largest recorded value.
+     * 
+     * @return the maximum, or 0 if no value was recorded */
+    long getMax();
+
+    /** Get the mean of the recorded values.
+     * 
+     * @return the mean, or 0 if no value was recorded */
+    double getMean();
+
+    /** Get the median of the recorded values.
+     * 
+     * @return the approximate median */
+    long getP50();
+
+    /** Get the 90th percentile of the recorded values.
+     * 
+     * @return the approximate 90th percentile */
+    long getP90();
+
+    /** Get the 99th percentile of the recorded values.
+     * 
+     * @return the approximate 99th percentile */
+    long getP99();
+
+    /** Discard all recorded values. */
+    void reset();
+}
@@ -0,0 +1,279 @@
+package prefuse.util.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import prefuse.util.StringLib;
+import prefuse.util.collections.CopyOnWriteArrayList;
+
+/** <p>
+ * A registry of named {@link Histogram histograms}, into which instrumented
+ * code records timings and counts. Displays and the activity manager record
+ * into a registry once it has been set with
+ * {@link prefuse.Display#setMetrics(Metrics)} or
+ * {@link prefuse.activity.ActivityManager#setMetrics(Metrics)}; the names they
+ * use are listed as constants of this class. Durations are recorded in
+ * nanoseconds.
+ * </p>
+ * <p>
+ * The histograms can be read through this class, exported as JMX MBeans with
+ * {@link #registerMBeans(String)}, and every recorded value can be written to
+ * a file by adding a {@link MetricsRecorder} as listener.
+ * </p> */
+public class Metrics implements MetricsMBean {
+    /** Duration of a Display paint, including the copy to the screen. */
+    public static final String DISPLAY_FRAME = "display.frame";
+    /** Duration of the computation and clearing of the damaged region. */
+    public static final String DISPLAY_DAMAGE = "display.damage";
+    /** Duration of the filling of the rendering queue. */
+    public static final String DISPLAY_FILL = "display.fill";
+    /** Duration of the sorting of the rendering queue. */
+    public static final String DISPLAY_SORT = "display.sort";
+    /** Duration of the rendering of the queued items. */
+    public static final String DISPLAY_RENDER = "display.render";
+    /** Number of items rendered by a paint. */
+    public static final String DISPLAY_RENDERED = "display.rendered";
+    /** Number of indexed items culled by a paint, as outside the damaged
+     * region or rejected by the predicate of the Display. */
+    public static final String DISPLAY_CULLED = "display.culled";
+    /** Prefix of the durations of activity runs, followed by the name of the
+     * activity. */
+    public static final String ACTIVITY_PREFIX = "activity.";
+    /** The Constant s_logger. */
+    private static final Logger s_logger = Logger.getLogger(Metrics.class.getName());
+    /** The m_histograms, by name. */
+    private final TreeMap m_histograms = new TreeMap();
+    /** The m_listeners. */
+    private final CopyOnWriteArrayList m_listeners = new CopyOnWriteArrayList();
+    /** The m_enabled. */
+    private volatile boolean m_enabled = true;
+    /** The m_domain of the registered MBeans, or null. */
+    private String m_domain = null;
+
+    /** Get a histogram, creating it if needed.
+     * 
+     * @param name
+     *            the name of the histogram
+     * @return the histogram */
+    public synchronized Histogram getHistogram(String name) {
+        Histogram h = (Histogram) m_histograms.get(name);
+        if (h == null) {
+            h = new Histogram(name);
+            m_histograms.put(name, h);
+            if (m_domain != null) {
+                try {
+                    register(ManagementFactory.getPlatformMBeanServer(), h);
+                } catch (JMException e) {
+                    s_logger.warning("Could not register histogram " + name + ": "
+                            + e + "\n" + StringLib.getStackTrace(e));
+                }
+            }
+        }
+        return h;
+    }
+
+    /** Record a value in a histogram, if recording is enabled, and notify the
+     * listeners.
+     * 
+     * @param name
+     *            the name of the histogram
+     * @param value
+     *            the value */
+    public void record(String name, long value) {
+        if (!m_enabled) {
+            return;
+        }
+        getHistogram(name).record(value);
+        Object[] lstnrs = m_listeners.getArray();
+        for (int i = 0; i < lstnrs.length; ++i) {
+            ((MetricsListener) lstnrs[i]).valueRecorded(name, value);
+        }
+    }
+
+    /** Record the time elapsed since a start time.
+     * 
+     * @param name
+     *            the name of the histogram
+     * @param start
+     *            the start time, as given by {@link System#nanoTime()}
+     * @return the current time, to be used as start time of a following
+     *         phase */
+    public long recordSince(String name, long start) {
+        long now = System.nanoTime();
+        record(name, now - start);
+        return now;
+    }
+
+    /** Get the histogram names.
+     * 
+     * @return the histogram names
+     * @see prefuse.util.metrics.MetricsMBean#getHistogramNames() */
+    @Override
+    public synchronized String[] getHistogramNames() {
+        return (String[]) m_histograms.keySet().toArray(new String[m_histograms.size()]);
+    }
+
+    /** Get the summary.
+     * 
+     * @return the summary
+     * @see prefuse.util.metrics.MetricsMBean#getSummary() */
+    @Override
+    public synchronized String getSummary() {
+        StringBuffer sbuf = new StringBuffer();
+        for (Iterator it = m_histograms.values().iterator(); it.hasNext();) {
+            sbuf.append(it.next()).append('\n');
+        }
+        return sbuf.toString();
+    }
+
+    /** Write the count, minimum, mean, percentiles and maximum of each
+     * histogram as comma-separated values, after a header line.
+     * 
+     * @param out
+     *            the writer
+     * @throws IOException
+     *             Signals that an I/O exception has occurred. */
+    public synchronized void writeSummary(Writer out) throws IOException {
+        out.write("name,count,min,mean,p50,p90,p99,max\n");
+        for (Iterator it = m_histograms.values().iterator(); it.hasNext();) {
+            Histogram h = (Histogram) it.next();
+            out.write(h.getName() + ',' + h.getCount() + ',' + h.getMin() + ','
+                    + h.getMean() + ',' + h.getP50() + ',' + h.getP90() + ','
+                    + h.getP99() + ',' + h.getMax() + '\n');
+        }
+        out.flush();
+    }
+
+    /** Checks if is enabled.
+     * 
+     * @return true, if is enabled
+     * @see prefuse.util.metrics.MetricsMBean#isEnabled() */
+    @Override
+    public boolean isEnabled() {
+        return m_enabled;
+    }
+
+    /** Sets the enabled.
+     * 
+     * @param enabled
+     *            the new enabled
+     * @see prefuse.util.metrics.MetricsMBean#setEnabled(boolean) */
+    @Override
+    public void setEnabled(boolean enabled) {
+        m_enabled = enabled;
+    }
+
+    /** Reset.
+     * 
+     * @see prefuse.util.metrics.MetricsMBean#reset() */
+    @Override
+    public synchronized void reset() {
+        for (Iterator it = m_histograms.values().iterator(); it.hasNext();) {
+            ((Histogram) it.next()).reset();
+        }
+    }
+
+    /** Add a listener notified of every recorded value.
+     * 
+     * @param l
+     *            the listener */
+    public void addMetricsListener(MetricsListener l) {
+        m_listeners.addIfAbsent(l);
+    }
+
+    /** Remove a listener.
+     * 
+     * @param l
+     *            the listener */
+    public void removeMetricsListener(MetricsListener l) {
+        m_listeners.remove(l);
+    }
+
+    // ------------------------------------------------------------------------
+    // JMX
+
+    /** Register this registry and its histograms with the platform MBean
+     * server, under <code>domain:type=Metrics</code> and
+     * <code>domain:type=Histogram,name=...</code>. Histograms created later
+     * are registered as well.
+     * 
+     * @param domain
+     *            the domain of the MBean names
+     * @throws JMException
+     *             if the registration fails, for example because the names
+     *             are already registered */
+    public synchronized void registerMBeans(String domain) throws JMException {
+        if (m_domain != null) {
+            unregisterMBeans();
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        m_domain = domain;
+        server.registerMBean(this, getObjectName());
+        for (Iterator it = m_histograms.values().iterator(); it.hasNext();) {
+            register(server, (Histogram) it.next());
+        }
+    }
+
+    /** Unregister this registry and its histograms from the platform MBean
+     * server, if they were registered.
+     * 
+     * @throws JMException
+     *             if the unregistration fails */
+    public synchronized void unregisterMBeans() throws JMException {
+        if (m_domain == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Iterator it = m_histograms.values().iterator(); it.hasNext();) {
+            ObjectName name = getObjectName((Histogram) it.next());
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+        if (server.isRegistered(getObjectName())) {
+            server.unregisterMBean(getObjectName());
+        }
+        m_domain = null;
+    }
+
+    /** Register a histogram.
+     * 
+     * @param server
+     *            the MBean server
+     * @param h
+     *            the histogram
+     * @throws JMException
+     *             if the registration fails */
+    private void register(MBeanServer server, Histogram h) throws JMException {
+        server.registerMBean(h, getObjectName(h));
+    }
+
+    /** Get the MBean name of this registry.
+     * 
+     * @return the name
+     * @throws JMException
+     *             if the domain is not a valid name */
+    private ObjectName getObjectName() throws JMException {
+        return new ObjectName(m_domain + ":type=Metrics");
+    }
+
+    /** Get the MBean name of a histogram.
+     * 
+     * @param h
+     *            the histogram
+     * @return the name
+     * @throws JMException
+     *             if the domain is not a valid name */
+    private ObjectName getObjectName(Histogram h) throws JMException {
+        return new ObjectName(m_domain + ":type=Histogram,name="
+                + ObjectName.quote(h.getName()));
+    }
+} // end of class Metrics
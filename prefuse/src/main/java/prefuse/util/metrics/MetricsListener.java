@@ -0,0 +1,16 @@
+package prefuse.util.metrics;
+
+import java.util.EventListener;
+
+/** Listener interface for values recorded in a {@link Metrics} registry. */
+public interface MetricsListener extends EventListener {
+    /** Notification that a value was recorded. Listeners are notified on the
+     * thread recording the value, which is often the rendering or the
+     * activity thread, so they should return quickly.
+     * 
+     * @param name
+     *            the name of the histogram
+     * @param value
+     *            the value */
+    void valueRecorded(String name, long value);
+}
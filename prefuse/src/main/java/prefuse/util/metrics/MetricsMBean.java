@@ -0,0 +1,29 @@
+package prefuse.util.metrics;
+
+/** Management interface of a {@link Metrics} registry, as exported through
+ * JMX. */
+public interface MetricsMBean {
+    /** Get the names of the histograms of the registry.
+     * 
+     * @return the names, in alphabetical order */
+    String[] getHistogramNames();
+
+    /** Get a summary of all histograms, one line per histogram.
+     * 
+     * @return the summary */
+    String getSummary();
+
+    /** Indicates if values are recorded.
+     * 
+     * @return true if values are recorded */
+    boolean isEnabled();
+
+    /** Sets if values are recorded.
+     * 
+     * @param enabled
+     *            true to record values */
+    void setEnabled(boolean enabled);
+
+    /** Discard the values of all histograms. */
+    void reset();
+}
@@ -0,0 +1,88 @@
+package prefuse.util.metrics;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.logging.Logger;
+
+import prefuse.util.StringLib;
+
+/** MetricsListener that records every value to a file or a writer, one
+ * <code>time,name,value</code> line per value, where the time is in
+ * milliseconds since the epoch. The output is buffered, and is only complete
+ * once the recorder has been flushed or closed. */
+public class MetricsRecorder implements MetricsListener {
+    /** The Constant s_logger. */
+    private static final Logger s_logger = Logger.getLogger(MetricsRecorder.class
+            .getName());
+    /** The m_out. */
+    private final Writer m_out;
+    /** The m_failed, set after the first write error. */
+    private boolean m_failed = false;
+
+    /** Creates a new MetricsRecorder writing to a file. The file is
+     * overwritten.
+     * 
+     * @param file
+     *            the file
+     * @throws IOException
+     *             if the file cannot be opened */
+    public MetricsRecorder(File file) throws IOException {
+        this(new FileWriter(file));
+    }
+
+    /** Creates a new MetricsRecorder writing to a writer.
+     * 
+     * @param out
+     *            the writer */
+    public MetricsRecorder(Writer out) {
+        m_out = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+    }
+
+    /** Value recorded.
+     * 
+     * @param name
+     *            the name
+     * @param value
+     *            the value
+     * @see prefuse.util.metrics.MetricsListener#valueRecorded(java.lang.String,
+     *      long) */
+    @Override
+    public synchronized void valueRecorded(String name, long value) {
+        if (m_failed) {
+            return;
+        }
+        try {
+            m_out.write(Long.toString(System.currentTimeMillis()));
+            m_out.write(',');
+            m_out.write(name);
+            m_out.write(',');
+            m_out.write(Long.toString(value));
+            m_out.write('\n');
+        } catch (IOException e) {
+            m_failed = true;
+            s_logger.warning("Metrics recording stopped: " + e + "\n"
+                    + StringLib.getStackTrace(e));
+        }
+    }
+
+    /** Flush the recorded values to the underlying writer.
+     * 
+     * @throws IOException
+     *             Signals that an I/O exception has occurred. */
+    public synchronized void flush() throws IOException {
+        m_out.flush();
+    }
+
+    /** Flush and close the underlying writer. Values recorded afterwards are
+     * ignored.
+     * 
+     * @throws IOException
+     *             Signals that an I/O exception has occurred. */
+    public synchronized void close() throws IOException {
+        m_failed = true;
+        m_out.close();
+    }
+} // end of class MetricsRecorder
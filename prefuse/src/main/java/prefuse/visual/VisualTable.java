@@ -3,6 +3,9 @@ package prefuse.visual;
 import java.awt.BasicStroke;
 import java.awt.Font;
 import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 import prefuse.Visualization;
 import prefuse.data.CascadedTable;
@@ -26,6 +29,10 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
     private Visualization m_vis;
     /** The m_group. */
     private String m_group;
+    /** The fields whose updates can move an item in the spatial indexes. */
+    private static final Set s_indexedFields = new HashSet(Arrays.asList(new String[] {
+            VisualItem.X, VisualItem.Y, VisualItem.BOUNDS, VisualItem.VISIBLE,
+            VisualItem.SIZE, VisualItem.SHAPE }));
 
     // ------------------------------------------------------------------------
     // Constructors
@@ -175,10 +182,33 @@ public class VisualTable extends CascadedTable implements VisualTupleSet {
                 }
             }
         }
+        // keep the spatial indexes of the displays up to date; rows inserted
+        // while the table is being built are indexed when its group is added
+        if (m_vis != null && row0 >= 0
+                && (type != EventConstants.UPDATE || isIndexedColumn(col))) {
+            for (int r = row0; r <= row1; ++r) {
+                if (isValidRow(r)) {
+                    m_vis.itemChanged(getItem(r));
+                }
+            }
+        }
         // now propagate the change event
         super.fireTableEvent(row0, row1, col, type);
     }
 
+    /** Indicates if updates of a column can move an item in the spatial
+     * indexes of the displays. Other updates reach the indexes once the bounds
+     * of the item are validated again, as setting them updates the bounds
+     * column.
+     * 
+     * @param col
+     *            the updated column, or {@link EventConstants#ALL_COLUMNS}
+     * @return true if the items of the updated rows have to be reindexed */
+    private boolean isIndexedColumn(int col) {
+        return col == EventConstants.ALL_COLUMNS
+                || s_indexedFields.contains(getColumnName(col));
+    }
+
     // ------------------------------------------------------------------------
     // VisualItemTable Methods
     /** Gets the visualization.
@@ -0,0 +1,16 @@
+package test.prefuse.action;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class All_PrefuseAction_Tests {
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Test for test.prefuse.action");
+        //$JUnit-BEGIN$
+        suite.addTestSuite(ItemActionTest.class);
+        //$JUnit-END$
+        return suite;
+    }
+
+}
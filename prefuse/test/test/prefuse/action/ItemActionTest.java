@@ -0,0 +1,341 @@
+package test.prefuse.action;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.action.EncoderAction;
+import prefuse.action.ItemAction;
+import prefuse.action.assignment.ColorAction;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.event.TableListener;
+import prefuse.data.expression.AbstractPredicate;
+import prefuse.data.expression.Predicate;
+import prefuse.data.expression.parser.ExpressionParser;
+import prefuse.util.ColorLib;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class ItemActionTest extends TestCase {
+
+    private static final int ROWS = 10;
+    private static final int RED = ColorLib.rgb(255, 0, 0);
+    private static final int GRAY = ColorLib.gray(128);
+
+    private Visualization m_vis;
+    private VisualTable m_table;
+    private CountingColorAction m_action;
+    private ExecutorService m_pool;
+
+    public void setUp() {
+        m_vis = new Visualization();
+        m_table = m_vis.addTable("items");
+        m_table.addColumn("value", int.class);
+        m_table.addColumn("label", String.class);
+        for ( int i=0; i<ROWS; ++i ) {
+            int row = m_table.addRow();
+            m_table.setInt(row, "value", i);
+            m_table.setString(row, "label", "item" + i);
+        }
+        m_action = new CountingColorAction("items", VisualItem.FILLCOLOR, GRAY);
+        m_action.add((Predicate) ExpressionParser.parse("value > 5"), RED);
+        m_action.setIncremental(true);
+        m_vis.putAction("color", m_action);
+    }
+
+    public void tearDown() {
+        if (m_pool != null) {
+            ItemAction.setExecutor(null);
+            m_pool.shutdownNow();
+        }
+    }
+
+    private void addRows(int count) {
+        for ( int i=0; i<count; ++i ) {
+            int row = m_table.addRow();
+            m_table.setInt(row, "value", row);
+        }
+    }
+
+    private void useWorkers(int count) {
+        m_pool = Executors.newFixedThreadPool(count);
+        ItemAction.setExecutor(m_pool);
+    }
+
+    private int run() {
+        m_action.m_count = 0;
+        m_action.run(0);
+        return m_action.m_count;
+    }
+
+    private int fillColor(int row) {
+        return m_table.getFillColor(row);
+    }
+
+    public void testFirstRunProcessesAll() {
+        assertEquals(ROWS, run());
+        assertEquals(RED, fillColor(9));
+        assertEquals(GRAY, fillColor(0));
+    }
+
+    public void testDependencyChange() {
+        run();
+        m_table.setInt(0, "value", 10);
+        m_table.setInt(9, "value", 0);
+        assertEquals(2, run());
+        assertEquals(RED, fillColor(0));
+        assertEquals(GRAY, fillColor(9));
+        // nothing changed since
+        assertEquals(0, run());
+    }
+
+    public void testOtherColumnChange() {
+        run();
+        m_table.setString(3, "label", "changed");
+        assertEquals(0, run());
+    }
+
+    public void testAddedRows() {
+        run();
+        int row = m_table.addRow();
+        m_table.setInt(row, "value", 7);
+        assertEquals(1, run());
+        assertEquals(RED, fillColor(row));
+    }
+
+    public void testRemovedRows() {
+        run();
+        m_table.setInt(4, "value", 8);
+        m_table.removeRow(4);
+        assertEquals(0, run());
+    }
+
+    public void testVisibilityChange() {
+        run();
+        m_table.setVisible(2, false);
+        m_table.setVisible(3, false);
+        // the visibility is a dependency of the default filter, but hidden
+        // items are not processed
+        assertEquals(0, run());
+        m_table.setVisible(2, true);
+        assertEquals(1, run());
+    }
+
+    public void testParameterChangeRunsAll() {
+        run();
+        m_action.setDefaultColor(ColorLib.gray(0));
+        assertEquals(ROWS, run());
+        m_action.add((Predicate) ExpressionParser.parse("value < 2"), RED);
+        assertEquals(ROWS, run());
+        m_action.setFilterPredicate((Predicate) ExpressionParser.parse("value >= 0"));
+        assertEquals(ROWS, run());
+        m_table.setInt(1, "value", 5);
+        assertEquals(1, run());
+    }
+
+    public void testUnknownDependenciesRunAll() {
+        m_action.add(new AbstractPredicate() {
+            public boolean getBoolean(Tuple t) {
+                return false;
+            }
+        }, GRAY);
+        run();
+        assertEquals(ROWS, run());
+    }
+
+    public void testNotIncremental() {
+        m_action.setIncremental(false);
+        run();
+        assertEquals(ROWS, run());
+    }
+
+    public void testParallel() {
+        useWorkers(3);
+        addRows(5000);
+        m_action.setIncremental(false);
+        m_action.setParallel(true);
+        m_action.setGrainSize(100);
+        assertTrue(m_action.isThreadSafe());
+        assertEquals(m_table.getRowCount(), run());
+        for ( int i=0; i<m_table.getRowCount(); ++i ) {
+            assertEquals(i > 5 ? RED : GRAY, fillColor(i));
+        }
+    }
+
+    public void testParallelBooleanColumn() {
+        useWorkers(3);
+        addRows(5000);
+        m_table.addColumn("flag", boolean.class);
+        ItemAction flag = new ItemAction("items") {
+            public boolean isThreadSafe() {
+                return true;
+            }
+            public void process(VisualItem item, double frac) {
+                item.setBoolean("flag", item.getRow() % 3 != 0);
+            }
+        };
+        flag.setParallel(true);
+        flag.setGrainSize(10);
+        m_vis.putAction("flag", flag);
+        flag.run(0);
+        for ( int i=0; i<m_table.getRowCount(); ++i ) {
+            assertEquals(i % 3 != 0, m_table.getBoolean(i, "flag"));
+        }
+    }
+
+    public void testUnsafeRunsSerially() {
+        useWorkers(3);
+        addRows(1000);
+        final Set threads = Collections.synchronizedSet(new HashSet());
+        m_action.add(new AbstractPredicate() {
+            public boolean getBoolean(Tuple t) {
+                threads.add(Thread.currentThread());
+                return false;
+            }
+        }, GRAY);
+        m_action.setParallel(true);
+        m_action.setGrainSize(10);
+        assertFalse(m_action.isThreadSafe());
+        run();
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+    }
+
+    public void testSubclassesNotThreadSafe() {
+        ColorAction plain = new ColorAction("items", VisualItem.FILLCOLOR, GRAY);
+        assertTrue(plain.isThreadSafe());
+        ColorAction custom = new ColorAction("items", VisualItem.FILLCOLOR) {
+            public int getColor(VisualItem item) {
+                return GRAY;
+            }
+        };
+        assertFalse(custom.isThreadSafe());
+        EncoderAction encoder = new EncoderAction("items") {
+            public void process(VisualItem item, double frac) {
+            }
+        };
+        assertFalse(encoder.isThreadSafe());
+    }
+
+    public void testParallelFailure() {
+        useWorkers(3);
+        addRows(1000);
+        ItemAction failing = new ItemAction("items") {
+            public boolean isThreadSafe() {
+                return true;
+            }
+            public void process(VisualItem item, double frac) {
+                if (item.getRow() == 500) {
+                    throw new IllegalStateException("row 500");
+                }
+            }
+        };
+        failing.setParallel(true);
+        failing.setGrainSize(10);
+        m_vis.putAction("failing", failing);
+        try {
+            failing.run(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("row 500", e.getMessage());
+        }
+    }
+
+    public void testEventLockOutsideParallelRuns() throws Exception {
+        // a listener waiting on a write of another thread must not deadlock
+        final Table other = new Table();
+        other.addColumn("value", int.class);
+        other.addRow();
+        final CountDownLatch written = new CountDownLatch(1);
+        final boolean[] waited = new boolean[1];
+        other.addTableListener(new TableListener() {
+            public void tableChanged(Table t, int start, int end, int col, int type) {
+                written.countDown();
+            }
+        });
+        m_table.addTableListener(new TableListener() {
+            public void tableChanged(Table t, int start, int end, int col, int type) {
+                Thread writer = new Thread() {
+                    public void run() {
+                        other.setInt(0, "value", 1);
+                    }
+                };
+                writer.start();
+                try {
+                    waited[0] = written.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        m_table.setInt(0, "value", 42);
+        assertTrue(waited[0]);
+    }
+
+    public void testTrackerReleased() {
+        ListenedTable table = new ListenedTable(m_vis, "listened");
+        m_vis.addTable(table);
+        table.addColumn("value", int.class);
+        table.addRow();
+        int base = table.listenerCount();
+
+        // a visualization change releases the tables of the previous one
+        ColorAction moved = new ColorAction("listened", VisualItem.FILLCOLOR, GRAY);
+        moved.setVisualization(m_vis);
+        moved.setIncremental(true);
+        moved.run(0);
+        assertEquals(base+1, table.listenerCount());
+        moved.setVisualization(new Visualization());
+        assertEquals(base, table.listenerCount());
+
+        // a discarded action unregisters on the next event once collected
+        ColorAction discarded = new ColorAction("listened", VisualItem.FILLCOLOR, GRAY);
+        discarded.setVisualization(m_vis);
+        discarded.setIncremental(true);
+        discarded.run(0);
+        assertEquals(base+1, table.listenerCount());
+        discarded = null;
+        for ( int i=0; i<50 && table.listenerCount() > base; ++i ) {
+            System.gc();
+            table.setInt(0, "value", i+1);
+        }
+        assertEquals(base, table.listenerCount());
+    }
+
+    private static class ListenedTable extends VisualTable {
+        ListenedTable(Visualization vis, String group) {
+            super(vis, group);
+        }
+
+        int listenerCount() {
+            return m_listeners.size();
+        }
+    }
+
+    private static class CountingColorAction extends ColorAction {
+        int m_count;
+
+        CountingColorAction(String group, String field, int color) {
+            super(group, field, color);
+        }
+
+        public void process(VisualItem item, double frac) {
+            synchronized (this) {
+                ++m_count;
+            }
+            super.process(item, frac);
+        }
+
+        public boolean isThreadSafe() {
+            // counting is synchronized, the rest is a plain ColorAction
+            return areRulesThreadSafe();
+        }
+    }
+
+}
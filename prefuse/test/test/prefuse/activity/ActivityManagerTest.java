@@ -0,0 +1,245 @@
+package test.prefuse.activity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.action.Action;
+import prefuse.activity.Activity;
+import prefuse.activity.ActivityAdapter;
+import prefuse.activity.ActivityManager;
+
+public class ActivityManagerTest extends TestCase {
+
+    private ExecutorService m_pool;
+    private List m_log;
+
+    public void setUp() {
+        m_log = Collections.synchronizedList(new ArrayList());
+    }
+
+    public void tearDown() {
+        ActivityManager.setExecutor(null);
+        if (m_pool != null) {
+            m_pool.shutdownNow();
+        }
+    }
+
+    private void useWorkers(int count) {
+        m_pool = Executors.newFixedThreadPool(count);
+        ActivityManager.setExecutor(m_pool);
+    }
+
+    private CountDownLatch finished(Activity a, int count) {
+        final CountDownLatch latch = new CountDownLatch(count);
+        a.addActivityListener(new ActivityAdapter() {
+            public void activityFinished(Activity act) {
+                latch.countDown();
+            }
+        });
+        return latch;
+    }
+
+    public void testRunAfter() throws Exception {
+        runAfter();
+        useWorkers(2);
+        m_log.clear();
+        runAfter();
+    }
+
+    private void runAfter() throws Exception {
+        Visualization vis = new Visualization();
+        vis.putAction("a", new LogAction("a", null));
+        vis.putAction("b", new LogAction("b", null));
+        vis.runAfter("a", "b");
+        CountDownLatch done = finished(vis.getAction("b"), 1);
+        vis.run("a");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, m_log.size());
+        assertEquals("a", m_log.get(0));
+        assertEquals("b", m_log.get(1));
+    }
+
+    public void testVisualizationsRunConcurrently() throws Exception {
+        useWorkers(2);
+        CountDownLatch fast = new CountDownLatch(1);
+        Visualization slowVis = new Visualization();
+        Visualization fastVis = new Visualization();
+        // the slow action waits for the fast one, which would never run if
+        // both shared the same thread
+        slowVis.putAction("slow", new LogAction("slow", fast));
+        fastVis.putAction("fast", new CountDownAction(fast));
+        CountDownLatch done = finished(slowVis.getAction("slow"), 1);
+        slowVis.run("slow");
+        fastVis.run("fast");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(1, m_log.size());
+    }
+
+    public void testCoalescing() throws Exception {
+        useWorkers(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Visualization vis = new Visualization();
+        LogAction layout = new LogAction("layout", release);
+        vis.putAction("layout", layout);
+        CountDownLatch first = finished(layout, 1);
+        vis.run("layout");
+        waitUntilRunning(layout);
+        for ( int i=0; i<5; ++i ) {
+            vis.run("layout");
+        }
+        release.countDown();
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        waitUntilIdle();
+        assertEquals(2, m_log.size());
+    }
+
+    public void testPriority() throws Exception {
+        useWorkers(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Visualization vis = new Visualization();
+        LogAction block = new LogAction("block", release);
+        LogAction low = new LogAction("low", null);
+        LogAction high = new LogAction("high", null);
+        high.setPriority(1);
+        vis.putAction("block", block);
+        vis.putAction("low", low);
+        vis.putAction("high", high);
+        CountDownLatch done = finished(low, 1);
+        vis.run("block");
+        waitUntilRunning(block);
+        vis.run("low");
+        vis.run("high");
+        waitUntilQueued(2);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("block", m_log.get(0));
+        assertEquals("high", m_log.get(1));
+        assertEquals("low", m_log.get(2));
+    }
+
+    public void testQueuedStepsRunWithCurrentTime() throws Exception {
+        useWorkers(2);
+        CountDownLatch release = new CountDownLatch(1);
+        Visualization vis = new Visualization();
+        LogAction block = new LogAction("block", release);
+        PaceAction anim = new PaceAction(400);
+        vis.putAction("block", block);
+        vis.putAction("anim", anim);
+        CountDownLatch done = finished(anim, 1);
+        vis.run("block");
+        waitUntilRunning(block);
+        // the first step of the animation waits behind the blocked action
+        vis.run("anim");
+        Thread.sleep(200);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitUntilIdle();
+        assertTrue(((Double)anim.m_paces.get(0)).doubleValue() >= 0.4);
+        int last = 0;
+        for ( int i=1; i<anim.m_paces.size(); ++i ) {
+            double prev = ((Double)anim.m_paces.get(i-1)).doubleValue();
+            double pace = ((Double)anim.m_paces.get(i)).doubleValue();
+            assertTrue(pace >= prev);
+            last += pace == 1.0 ? 1 : 0;
+        }
+        assertEquals(1, last);
+    }
+
+    public void testRerunFromStep() throws Exception {
+        useWorkers(2);
+        Visualization vis = new Visualization();
+        RerunAction rerun = new RerunAction();
+        vis.putAction("rerun", rerun);
+        CountDownLatch done = finished(rerun, 2);
+        vis.run("rerun");
+        // the step schedules the action again, usually in the same millisecond
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitUntilIdle();
+        assertEquals(2, m_log.size());
+    }
+
+    private void waitUntilRunning(Activity a) throws InterruptedException {
+        for ( int i=0; i<500 && !a.isRunning(); ++i ) {
+            Thread.sleep(10);
+        }
+        assertTrue(a.isRunning());
+    }
+
+    private void waitUntilQueued(int count) throws InterruptedException {
+        // the blocked activity is no longer scheduled, the others are
+        for ( int i=0; i<500 && ActivityManager.activityCount() < count; ++i ) {
+            Thread.sleep(10);
+        }
+        // leave the scheduler time to dispatch them
+        Thread.sleep(100);
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        for ( int i=0; i<500 && ActivityManager.activityCount() > 0; ++i ) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(0, ActivityManager.activityCount());
+    }
+
+    private class LogAction extends Action {
+        private final String m_entry;
+        private final CountDownLatch m_wait;
+
+        LogAction(String entry, CountDownLatch wait) {
+            m_entry = entry;
+            m_wait = wait;
+        }
+
+        public void run(double frac) {
+            if (m_wait != null) {
+                try {
+                    m_wait.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                }
+            }
+            m_log.add(m_entry);
+        }
+    }
+
+    private static class PaceAction extends Action {
+        private final List m_paces = Collections.synchronizedList(new ArrayList());
+
+        PaceAction(long duration) {
+            super(duration, 20);
+        }
+
+        public void run(double frac) {
+            m_paces.add(new Double(frac));
+        }
+    }
+
+    private class RerunAction extends Action {
+        public void run(double frac) {
+            m_log.add("rerun");
+            if (m_log.size() == 1) {
+                run();
+            }
+        }
+    }
+
+    private static class CountDownAction extends Action {
+        private final CountDownLatch m_latch;
+
+        CountDownAction(CountDownLatch latch) {
+            m_latch = latch;
+        }
+
+        public void run(double frac) {
+            m_latch.countDown();
+        }
+    }
+
+}
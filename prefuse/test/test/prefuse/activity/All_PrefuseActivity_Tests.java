@@ -0,0 +1,16 @@
+package test.prefuse.activity;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class All_PrefuseActivity_Tests {
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Test for test.prefuse.activity");
+        //$JUnit-BEGIN$
+        suite.addTestSuite(ActivityManagerTest.class);
+        //$JUnit-END$
+        return suite;
+    }
+
+}
@@ -7,7 +7,9 @@ import prefuse.data.Edge;
 import prefuse.data.Graph;
 import prefuse.data.Node;
 import prefuse.data.Table;
+import prefuse.data.util.AdjacencyStore;
 import prefuse.util.GraphLib;
+import prefuse.util.collections.IntIterator;
 import test.prefuse.TestConfig;
 
 public class GraphTest extends TestCase implements GraphTestData {
@@ -160,4 +162,171 @@ public class GraphTest extends TestCase implements GraphTestData {
             assertEquals(false, edges[i].isValid());
         }
     }
+
+    public void testCompactLinks() {
+        Table nodes = graph.getNodeTable();
+        Table edges = graph.getEdgeTable();
+        Graph compact = new Graph(nodes, edges, false,
+                NHEADERS[0], EHEADERS[0], EHEADERS[1], true);
+        assertTrue(compact.hasCompactLinks());
+        assertFalse(graph.hasCompactLinks());
+        assertSameLinks(graph, compact);
+        
+        // edit both graphs through the shared tables
+        java.util.Random rand = new java.util.Random(42);
+        for ( int i=0; i<200; ++i ) {
+            int s = rand.nextInt(NNODES), t = rand.nextInt(NNODES);
+            graph.addEdge(s, t);
+            if ( i % 3 == 0 ) {
+                IntIterator rows = graph.edgeRows();
+                int e = rows.nextInt();
+                for ( int k=rand.nextInt(graph.getEdgeCount()); --k>=0; )
+                    e = rows.nextInt();
+                graph.removeEdge(e);
+            }
+        }
+        assertSameLinks(graph, compact);
+        compact.removeNode(3);
+        assertSameLinks(graph, compact);
+        assertEquals(0, compact.getDegree(3));
+    }
+    
+    public void testAddEdgeRows() {
+        for ( int k=0; k<2; ++k ) {
+            boolean compact = k == 1;
+            Table nodes = new Table();
+            nodes.addColumn("label", String.class);
+            Table edges = new Table();
+            edges.addColumn(Graph.DEFAULT_SOURCE_KEY, int.class, new Integer(-1));
+            edges.addColumn(Graph.DEFAULT_TARGET_KEY, int.class, new Integer(-1));
+            edges.addColumn("weight", double.class);
+            Graph g = new Graph(nodes, edges, true, null,
+                    Graph.DEFAULT_SOURCE_KEY, Graph.DEFAULT_TARGET_KEY, compact);
+            final int[] events = new int[1];
+            g.addGraphModelListener(new prefuse.data.event.GraphListener() {
+                public void graphChanged(Graph gg, String table, int start,
+                        int end, int col, int type) {
+                    ++events[0];
+                }
+            });
+            
+            int n = 50;
+            Object[] labels = new Object[n];
+            for ( int i=0; i<n; ++i ) labels[i] = "n"+i;
+            int first = g.addNodeRows(n, new String[] {"label"}, new Object[] {labels});
+            assertEquals(0, first);
+            assertEquals(1, events[0]);
+            assertEquals(n, g.getNodeCount());
+            assertEquals("n7", g.getNode(7).getString("label"));
+            
+            // a ring, plus edges from node 0 to all others
+            int m = 2*n-1;
+            int[] s = new int[m], t = new int[m];
+            double[] w = new double[m];
+            for ( int i=0; i<n; ++i ) {
+                s[i] = i; t[i] = (i+1) % n; w[i] = i;
+            }
+            for ( int i=1; i<n; ++i ) {
+                s[n+i-1] = 0; t[n+i-1] = i; w[n+i-1] = -i;
+            }
+            int e = g.addEdgeRows(s, t, m, new String[] {"weight"}, new Object[] {w});
+            assertEquals(0, e);
+            assertEquals(2, events[0]);
+            assertEquals(m, g.getEdgeCount());
+            assertEquals(n, g.getOutDegree(0));
+            assertEquals(2, g.getInDegree(1));
+            assertEquals(1, g.getInDegree(0));
+            assertEquals(0, g.getEdge(0, 1));
+            assertEquals(n+5, g.getEdge(0, 6));
+            assertEquals(-6.0, g.getEdge(n+5).getDouble("weight"), 0.0);
+            IntIterator out = g.outEdgeRows(0);
+            for ( int i=0; out.hasNext(); ++i ) {
+                assertEquals(i == 0 ? 0 : n+i-1, out.nextInt());
+            }
+            
+            // a small batch on top of a larger graph
+            e = g.addEdgeRows(new int[] {3, 4}, new int[] {4, 3}, 2);
+            assertEquals(m, e);
+            assertEquals(2, g.getOutDegree(3));
+            assertEquals(m+1, g.getEdge(4, 3));
+            assertTrue(g.removeEdge(m));
+            assertEquals(1, g.getOutDegree(3));
+        }
+    }
+    
+    public void testAddNodeRowsAfterRemove() {
+        for ( int k=0; k<2; ++k ) {
+            Graph g = GraphLib.getClique(5);
+            assertTrue(g.removeNode(2));
+            // bulk-added rows follow the highest row, not the free row 2
+            int first = g.addNodeRows(k+1, new String[] {"label"},
+                    new Object[] { new Object[] {"a", "b"} });
+            assertEquals(5, first);
+            for ( int r=first; r<=first+k; ++r ) {
+                assertEquals(0, g.getDegree(r));
+                g.addEdge(r, 0);
+                assertEquals(1, g.getDegree(r));
+                assertEquals(r, g.getEdge(g.getEdge(r, 0)).getSourceNode().getRow());
+            }
+            assertEquals(3+k+1, g.getDegree(0));
+            // a single added node reuses the free row
+            assertEquals(2, g.addNodeRow());
+            assertEquals(0, g.getDegree(2));
+            g.addEdge(2, first);
+            assertEquals(2, g.getDegree(first));
+        }
+    }
+
+    public void testAdjacencyStore() {
+        AdjacencyStore store = new AdjacencyStore(4);
+        // interleaved appends move the slabs around the pool
+        for ( int e=0; e<1000; ++e ) {
+            store.add(e % 10, Graph.OUTEDGES, e);
+            store.add(e % 7, Graph.INEDGES, e);
+        }
+        assertEquals(100, store.getDegree(3, Graph.OUTEDGES));
+        assertEquals(143, store.getDegree(3, Graph.INEDGES));
+        for ( int i=0; i<100; ++i ) {
+            assertEquals(10*i+3, store.get(3, Graph.OUTEDGES, i));
+        }
+        // abandoned slabs are reclaimed
+        assertTrue(store.getPoolSize() < 4*2000);
+        
+        assertTrue(store.remove(3, Graph.OUTEDGES, 13));
+        assertFalse(store.remove(3, Graph.OUTEDGES, 13));
+        assertEquals(23, store.get(3, Graph.OUTEDGES, 1));
+        store.clearNode(3);
+        assertEquals(0, store.getDegree(3, Graph.INEDGES));
+        assertFalse(store.iterator(3, Graph.OUTEDGES).hasNext());
+        assertEquals(0, store.getDegree(50, Graph.OUTEDGES));
+        
+        // a loaded store is laid out without slack
+        store.load(new int[] {0, 1, 2}, new int[] {0, 0, 1},
+                new int[] {1, 2, 2}, 3);
+        assertEquals(6, store.getPoolSize());
+        assertEquals(2, store.getDegree(2, Graph.INEDGES));
+        assertEquals(1, store.get(0, Graph.OUTEDGES, 1));
+    }
+    
+    private static void assertSameLinks(Graph expected, Graph actual) {
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for ( IntIterator nodes = expected.nodeRows(); nodes.hasNext(); ) {
+            int n = nodes.nextInt();
+            assertEquals(expected.getInDegree(n), actual.getInDegree(n));
+            assertEquals(expected.getOutDegree(n), actual.getOutDegree(n));
+            for ( int d=Graph.INEDGES; d<=Graph.UNDIRECTED; ++d ) {
+                IntIterator a = expected.edgeRows(n, d);
+                IntIterator b = actual.edgeRows(n, d);
+                while ( a.hasNext() ) {
+                    assertTrue(b.hasNext());
+                    assertEquals(a.nextInt(), b.nextInt());
+                }
+                assertFalse(b.hasNext());
+            }
+            for ( IntIterator targets = expected.nodeRows(); targets.hasNext(); ) {
+                int t = targets.nextInt();
+                assertEquals(expected.getEdge(n, t), actual.getEdge(n, t));
+            }
+        }
+    }
 }
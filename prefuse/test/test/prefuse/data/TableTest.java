@@ -1,6 +1,8 @@
 package test.prefuse.data;
 
 import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.Iterator;
 
@@ -8,6 +10,10 @@ import junit.framework.TestCase;
 import prefuse.data.Table;
 import prefuse.data.Tuple;
 import prefuse.data.column.Column;
+import prefuse.data.event.EventConstants;
+import prefuse.data.event.TableBatchListener;
+import prefuse.data.event.TableListener;
+import prefuse.data.util.Index;
 import prefuse.data.util.Sort;
 import prefuse.util.collections.DefaultLiteralComparator;
 import test.prefuse.TestConfig;
@@ -98,6 +104,133 @@ public class TableTest extends TestCase implements TableTestData {
         assertEquals(NROWS+nrows, t.getRowCount());
     }
 
+    /*
+     * Test method for 'prefuse.data.Table.addRows(int, String[], Object[])'
+     */
+    public void testAddRowsBulk() {
+        final int[] events = new int[3];
+        t.addTableListener(new TableListener() {
+            public void tableChanged(Table tt, int start, int end, int col, int type) {
+                ++events[0];
+                events[1] = start;
+                events[2] = end;
+            }
+        });
+        t.index(HEADERS[0]);
+        t.removeRow(1);
+        events[0] = 0;
+        
+        int nrows = 100;
+        int[] ids = new int[nrows];
+        Object[] text = new Object[nrows];
+        for ( int i=0; i<nrows; ++i ) {
+            ids[i] = 1000+i;
+            text[i] = "row"+i;
+        }
+        int first = t.addRows(nrows, new String[] {HEADERS[0], HEADERS[5]},
+                new Object[] {ids, text});
+        // rows are appended after the last row, with one event
+        assertEquals(NROWS, first);
+        assertEquals(1, events[0]);
+        assertEquals(first, events[1]);
+        assertEquals(first+nrows-1, events[2]);
+        assertEquals(NROWS-1+nrows, t.getRowCount());
+        for ( int i=0; i<nrows; ++i ) {
+            assertEquals(1000+i, t.getInt(first+i, HEADERS[0]));
+            assertEquals("row"+i, t.getString(first+i, HEADERS[5]));
+            assertEquals(0.0, t.getDouble(first+i, HEADERS[4]), 0.0);
+        }
+        // the index was rebuilt, and still tracks later changes
+        Index idx = t.getIndex(HEADERS[0]);
+        assertEquals(NROWS-1+nrows, idx.size());
+        assertEquals(first+42, idx.get(1042));
+        t.removeRow(first+42);
+        assertFalse(t.getIndex(HEADERS[0]).rows(1042).hasNext());
+        
+        try {
+            t.addRows(2, new String[] {HEADERS[0]}, new Object[] {new int[1]});
+            fail("Allowed too few values");
+        } catch ( IllegalArgumentException success ) {
+        }
+        assertEquals(-1, t.addRows(0, new String[0], new Object[0]));
+    }
+
+    /*
+     * Test method for 'prefuse.data.Table.beginBatch()'
+     */
+    public void testBatch() {
+        final ArrayList events = new ArrayList();
+        final BitSet[][] batches = new BitSet[1][];
+        t.addTableListener(new TableListener() {
+            public void tableChanged(Table tt, int start, int end, int col, int type) {
+                events.add(new int[] {start, end, col, type});
+            }
+        });
+        t.addTableListener(new TableBatchListener() {
+            public void tableChanged(Table tt, int start, int end, int col, int type) {
+                if ( type == EventConstants.UPDATE )
+                    fail("Update delivered outside of the batch");
+            }
+            public void tableBatchChanged(Table tt, BitSet[] rows) {
+                assertNull(batches[0]);
+                batches[0] = rows;
+            }
+        });
+        t.index(HEADERS[0]);
+        
+        t.beginBatch();
+        t.beginBatch();
+        for ( int r=0; r<NROWS; ++r ) {
+            if ( r != 1 ) t.setInt(r, HEADERS[0], 100+r);
+        }
+        t.setFloat(2, HEADERS[3], 1.5f);
+        t.setInt(0, HEADERS[0], 50);
+        t.endBatch();
+        assertTrue(t.isInBatch());
+        assertEquals(0, events.size());
+        // column listeners are not batched
+        assertEquals(3, t.getIndex(HEADERS[0]).get(103));
+        t.endBatch();
+        assertFalse(t.isInBatch());
+        
+        // merged into one event per range of each column
+        assertEquals(3, events.size());
+        assertEvent(events.get(0), 0, 0, 0, EventConstants.UPDATE);
+        assertEvent(events.get(1), 2, 3, 0, EventConstants.UPDATE);
+        assertEvent(events.get(2), 2, 2, 3, EventConstants.UPDATE);
+        assertEquals(3, batches[0][0].cardinality());
+        assertNull(batches[0][1]);
+        assertTrue(batches[0][3].get(2));
+        
+        // buffered updates are delivered before an insertion
+        events.clear();
+        batches[0] = null;
+        t.beginBatch();
+        t.setInt(1, HEADERS[0], 7);
+        int r = t.addRow();
+        assertEquals(2, events.size());
+        assertEvent(events.get(0), 1, 1, 0, EventConstants.UPDATE);
+        assertEvent(events.get(1), r, r, EventConstants.ALL_COLUMNS,
+                EventConstants.INSERT);
+        assertNotNull(batches[0]);
+        t.endBatch();
+        assertEquals(2, events.size());
+        
+        try {
+            t.endBatch();
+            fail("Allowed to end a batch that was not started");
+        } catch ( IllegalStateException success ) {
+        }
+    }
+    
+    private static void assertEvent(Object e, int start, int end, int col, int type) {
+        int[] a = (int[])e;
+        assertEquals(start, a[0]);
+        assertEquals(end, a[1]);
+        assertEquals(col, a[2]);
+        assertEquals(type, a[3]);
+    }
+
     /*
      * Test method for 'edu.berkeley.guir.prefuse.data.Table.removeRow(int)'
      */
@@ -8,6 +8,8 @@ public class All_PrefuseDataColumn_Tests {
     public static Test suite() {
         TestSuite suite = new TestSuite("Test for test.prefuse.data.column");
         //$JUnit-BEGIN$
+        suite.addTestSuite(BufferColumnTest.class);
+        suite.addTestSuite(DictionaryColumnTest.class);
         suite.addTestSuite(ExpressionColumnTest.class);
         //$JUnit-END$
         return suite;
@@ -0,0 +1,199 @@
+package test.prefuse.data.column;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+import prefuse.data.DataTypeException;
+import prefuse.data.Schema;
+import prefuse.data.Table;
+import prefuse.data.column.BufferColumn;
+import prefuse.data.column.Column;
+import prefuse.data.column.ColumnFactory;
+import prefuse.data.event.ColumnListener;
+
+public class BufferColumnTest extends TestCase {
+
+    static final Class[] TYPES = {
+        int.class, long.class, float.class, double.class, boolean.class
+    };
+    static final Object[] DEFAULTS = {
+        new Integer(3), new Long(-4), new Float(1.5f), new Double(2.5), Boolean.TRUE
+    };
+
+    public void testDirectMatchesHeap() {
+        for ( int k=0; k<TYPES.length; ++k ) {
+            Column heap = ColumnFactory.getColumn(TYPES[k], 5, DEFAULTS[k],
+                    ColumnFactory.HEAP_STORAGE);
+            Column direct = ColumnFactory.getColumn(TYPES[k], 5, DEFAULTS[k],
+                    ColumnFactory.DIRECT_STORAGE);
+            assertTrue(direct instanceof BufferColumn);
+            assertEquals(DEFAULTS[k], direct.getDefaultValue());
+
+            direct.setMaximumRow(40);
+            heap.setMaximumRow(40);
+            for ( int i=0; i<40; i+=3 ) {
+                Object v = TYPES[k] == boolean.class
+                    ? (Object)Boolean.valueOf(i%2==0) : (Object)new Integer(i*7-50);
+                heap.set(v, i);
+                direct.set(v, i);
+            }
+            String str = TYPES[k] == boolean.class ? "false" : "11";
+            direct.setString(str, 1);
+            heap.setString(str, 1);
+            assertEquals(40, direct.getRowCount());
+            for ( int i=0; i<40; ++i ) {
+                assertEquals(heap.get(i), direct.get(i));
+                if ( TYPES[k] != boolean.class ) {
+                    assertEquals(heap.getDouble(i), direct.getDouble(i), 0);
+                }
+            }
+        }
+
+        Column c = ColumnFactory.getColumn(String.class, 2, null,
+                ColumnFactory.DIRECT_STORAGE);
+        assertFalse(c instanceof BufferColumn);
+    }
+
+    public void testNullDefaultsMatchHeap() {
+        for ( int k=0; k<TYPES.length; ++k ) {
+            Column heap = ColumnFactory.getColumn(TYPES[k], 3, null,
+                    ColumnFactory.HEAP_STORAGE);
+            Column direct = ColumnFactory.getColumn(TYPES[k], 3, null,
+                    ColumnFactory.DIRECT_STORAGE);
+            assertEquals(heap.getDefaultValue(), direct.getDefaultValue());
+            assertEquals(heap.get(2), direct.get(2));
+        }
+        assertEquals(-1, new BufferColumn(int.class, 1, null).getInt(0));
+    }
+
+    public void testWideningAndRegrowth() {
+        Column heap = ColumnFactory.getColumn(double.class, 4, new Double(7),
+                ColumnFactory.HEAP_STORAGE);
+        Column direct = new BufferColumn(double.class, 4, new Double(7));
+        heap.setInt(3, 0);
+        direct.setInt(3, 0);
+        heap.setLong(4L, 1);
+        direct.setLong(4L, 1);
+        heap.setFloat(2.5f, 2);
+        direct.setFloat(2.5f, 2);
+        for ( int i=0; i<3; ++i ) {
+            assertEquals(heap.getDouble(i), direct.getDouble(i), 0);
+        }
+        try {
+            new BufferColumn(long.class, 1, null).setInt(1, 0);
+            fail();
+        } catch ( DataTypeException e ) { }
+
+        direct.setMaximumRow(1);
+        direct.setMaximumRow(4);
+        assertEquals(3, direct.getDouble(0), 0);
+        assertEquals(7, direct.getDouble(1), 0);
+        assertEquals(7, direct.getDouble(2), 0);
+    }
+
+    public void testDirectErrors() {
+        Column c = new BufferColumn(int.class, 2, null);
+        try {
+            c.setInt(1, 2);
+            fail();
+        } catch ( IllegalArgumentException e ) { }
+        try {
+            c.set(null, 0);
+            fail();
+        } catch ( DataTypeException e ) { }
+        try {
+            c.getBoolean(0);
+            fail();
+        } catch ( DataTypeException e ) { }
+        try {
+            new BufferColumn(String.class, 2, null);
+            fail();
+        } catch ( DataTypeException e ) { }
+    }
+
+    public void testEvents() {
+        Column c = new BufferColumn(long.class, 2, null);
+        final long[] prev = new long[] { -1 };
+        c.addColumnListener(new ColumnListener() {
+            public void columnChanged(Column src, int type, int start, int end) {}
+            public void columnChanged(Column src, int idx, int p) { fail(); }
+            public void columnChanged(Column src, int idx, long p) { prev[0] = p; }
+            public void columnChanged(Column src, int idx, float p) { fail(); }
+            public void columnChanged(Column src, int idx, double p) { fail(); }
+            public void columnChanged(Column src, int idx, boolean p) { fail(); }
+            public void columnChanged(Column src, int idx, Object p) { fail(); }
+        });
+        c.setLong(5, 1);
+        assertEquals(0, prev[0]);
+        c.setString("9", 1);
+        assertEquals(5, prev[0]);
+        prev[0] = -1;
+        c.setLong(9, 1);
+        assertEquals(-1, prev[0]);
+    }
+
+    public void testTableStorage() {
+        Schema s = new Schema();
+        s.addColumn("id", int.class, null, ColumnFactory.DIRECT_STORAGE);
+        s.addColumn("weight", double.class, new Double(1),
+                ColumnFactory.DIRECT_STORAGE);
+        s.addColumn("label", String.class);
+        Table t = s.instantiate();
+        for ( int i=0; i<100; ++i ) {
+            int r = t.addRow();
+            t.setInt(r, "id", i);
+            t.setString(r, "label", "n"+i);
+        }
+        t.addColumn("flag", boolean.class, null, ColumnFactory.DIRECT_STORAGE);
+        assertTrue(t.getColumn("id") instanceof BufferColumn);
+        assertTrue(t.getColumn("flag") instanceof BufferColumn);
+        assertEquals(ColumnFactory.DIRECT_STORAGE, t.getSchema().getStorage(0));
+        assertEquals(ColumnFactory.HEAP_STORAGE, t.getSchema().getStorage(2));
+        assertEquals(ColumnFactory.DIRECT_STORAGE,
+            ((Schema)s.clone()).getStorage(1));
+
+        t.removeRow(10);
+        assertEquals(42, t.getInt(t.index("id").get(42), "id"));
+        assertEquals(1.0, t.getDouble(99, "weight"), 0);
+        assertFalse(t.getBoolean(99, "flag"));
+    }
+
+    public void testMapped() throws Exception {
+        File f = File.createTempFile("prefuse", ".col");
+        try {
+            BufferColumn c = ColumnFactory.getMappedColumn(double.class, f, 3,
+                    new Double(-1));
+            assertTrue(c.isMapped());
+            c.setMaximumRow(1000);
+            for ( int i=0; i<1000; ++i ) {
+                c.setDouble(i/4.0, i);
+            }
+            c.setMaximumRow(1200);
+            assertEquals(-1, c.getDouble(1100), 0);
+            c.close();
+            assertEquals(1200*8, f.length());
+
+            BufferColumn d = BufferColumn.map(double.class, f, -1, null);
+            assertEquals(1200, d.getRowCount());
+            for ( int i=0; i<1000; ++i ) {
+                assertEquals(i/4.0, d.getDouble(i), 0);
+            }
+
+            Table t = new Table();
+            t.addRows(1200, new String[0], new Object[0]);
+            t.addColumn("value", d);
+            assertEquals(249.75, t.getDouble(999, "value"), 0);
+            t.addRow();
+            assertEquals(0, t.getDouble(1200, "value"), 0);
+            d.close();
+        } finally {
+            f.delete();
+        }
+
+        try {
+            ColumnFactory.getMappedColumn(String.class, f, 1, null);
+            fail();
+        } catch ( DataTypeException e ) { }
+    }
+
+}
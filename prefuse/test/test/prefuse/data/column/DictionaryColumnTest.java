@@ -0,0 +1,149 @@
+package test.prefuse.data.column;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import prefuse.data.DataTypeException;
+import prefuse.data.Table;
+import prefuse.data.column.ColumnFactory;
+import prefuse.data.column.DictionaryColumn;
+import prefuse.data.column.IntColumn;
+import prefuse.data.io.CSVTableReader;
+import prefuse.data.util.Index;
+import prefuse.util.DataLib;
+import prefuse.util.collections.IntIterator;
+import test.prefuse.data.TableTestData;
+
+public class DictionaryColumnTest extends TestCase implements TableTestData {
+
+    static final String[] LABELS = { "owl:Thing", "Person", "Agent", "Person",
+        "Agent", "owl:Thing", "Person", "Document" };
+
+    Table t;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        t = new Table();
+        t.addColumn("label", String.class, "none", ColumnFactory.DICTIONARY_STORAGE);
+        t.addColumn("plain", String.class);
+        for ( int i=0; i<LABELS.length; ++i ) {
+            int r = t.addRow();
+            t.setString(r, "label", LABELS[i]);
+            t.setString(r, "plain", LABELS[i]);
+        }
+    }
+
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        t = null;
+    }
+
+    public void testDictionary() {
+        assertTrue(t.getColumn("label") instanceof DictionaryColumn);
+        DictionaryColumn c = (DictionaryColumn)t.getColumn("label");
+        // the default value, then the distinct labels
+        assertEquals(5, c.getDictionarySize());
+        for ( int i=0; i<LABELS.length; ++i ) {
+            assertEquals(LABELS[i], t.getString(i, "label"));
+            assertEquals(LABELS[i], c.getValue(c.getCode(i)));
+        }
+        assertEquals(c.getCode(1), c.getCode(3));
+        assertSame(t.get(1, "label"), t.get(6, "label"));
+        assertEquals(-1, c.getCode("Organization"));
+
+        int r = t.addRow();
+        assertEquals("none", t.get(r, "label"));
+        t.set(r, "label", null);
+        assertNull(t.get(r, "label"));
+        assertEquals(6, c.getDictionarySize());
+
+        try {
+            t.set(0, "label", new Integer(3));
+            fail();
+        } catch ( DataTypeException e ) { }
+        try {
+            new DictionaryColumn(int.class, 1, null);
+            fail();
+        } catch ( DataTypeException e ) { }
+
+        assertTrue(ColumnFactory.getColumn(int.class, 1, null,
+            ColumnFactory.DICTIONARY_STORAGE) instanceof IntColumn);
+        assertEquals(ColumnFactory.DICTIONARY_STORAGE, t.getSchema().getStorage(0));
+    }
+
+    public void testIndex() {
+        Index di = t.index("label");
+        Index pi = t.index("plain");
+        assertEquals(pi.uniqueCount(), di.uniqueCount());
+        assertEquals(pi.getComparator(), di.getComparator());
+        assertEquals(t.getString(pi.minimum(), "plain"),
+                     t.getString(di.minimum(), "label"));
+        assertEquals(t.getString(pi.maximum(), "plain"),
+                     t.getString(di.maximum(), "label"));
+
+        String[][] ranges = {
+            { "Agent", "Person" }, { "B", "P" }, { "Person", null },
+            { null, "Q" }, { "Person", "Person" }, { "X", "Z" }
+        };
+        int[] types = { Index.TYPE_AII, Index.TYPE_AEE, Index.TYPE_AIE };
+        for ( int i=0; i<ranges.length; ++i ) {
+            for ( int j=0; j<types.length; ++j ) {
+                assertEquals(toString(pi.rows(ranges[i][0], ranges[i][1], types[j])),
+                    toString(di.rows(ranges[i][0], ranges[i][1], types[j])));
+            }
+        }
+
+        assertEquals(toString(pi.rows("B", "P", Index.TYPE_DII)),
+                     toString(di.rows("B", "P", Index.TYPE_DII)));
+        assertEquals(toString(pi.rows("Person")), toString(di.rows("Person")));
+        assertFalse(di.rows("Persons").hasNext());
+        assertEquals(Integer.MIN_VALUE, di.get("Persons"));
+        assertEquals("Document", t.getString(di.get("Document"), "label"));
+
+        // updates move rows between codes
+        t.setString(7, "label", "Agent");
+        t.setString(7, "plain", "Agent");
+        t.setString(0, "label", "Zebra");
+        t.setString(0, "plain", "Zebra");
+        t.removeRow(2);
+        assertEquals(toString(pi.rows("Agent")), toString(di.rows("Agent")));
+        assertFalse(di.rows("Document").hasNext());
+        assertEquals(pi.maximum(), di.maximum());
+        assertEquals(toString(pi.allRows(Index.TYPE_ASCENDING)),
+                     toString(di.allRows(Index.TYPE_ASCENDING)));
+        assertEquals(toString(pi.rows("B", null, Index.TYPE_AII)),
+                     toString(di.rows("B", null, Index.TYPE_AII)));
+    }
+
+    public void testOrdinals() {
+        t.removeRow(7);
+        Object[] o = DataLib.ordinalArray(t, "label");
+        assertEquals(Arrays.asList(new Object[] {
+            "Agent", "Person", "owl:Thing" }), Arrays.asList(o));
+        assertEquals(new Integer(1), DataLib.ordinalMap(t, "label").get("Person"));
+    }
+
+    public void testReader() throws Exception {
+        CSVTableReader ctr = new CSVTableReader();
+        ctr.setDictionaryEncoding(true);
+        Table ct = ctr.readTable(new ByteArrayInputStream(CSV_DATA.getBytes()));
+        for ( int c=0; c<ct.getColumnCount(); ++c ) {
+            assertEquals(TYPES[c], ct.getColumnType(c));
+            assertEquals(TYPES[c] == String.class,
+                ct.getColumn(c) instanceof DictionaryColumn);
+            for ( int r=0; r<ct.getRowCount(); ++r ) {
+                assertEquals(TABLE[c][r], ct.get(r, c));
+            }
+        }
+    }
+
+    private static String toString(IntIterator it) {
+        StringBuffer sb = new StringBuffer();
+        while ( it.hasNext() ) {
+            sb.append(it.nextInt()).append(',');
+        }
+        return sb.toString();
+    }
+
+}
@@ -8,6 +8,7 @@ public class All_PrefuseDataExpression_Tests {
     public static Test suite() {
         TestSuite suite = new TestSuite("Test for test.prefuse.data.expression");
         //$JUnit-BEGIN$
+        suite.addTestSuite(ExpressionCompilerTest.class);
         suite.addTestSuite(ExpressionTest.class);
         suite.addTestSuite(PredicateChainTest.class);
         //$JUnit-END$
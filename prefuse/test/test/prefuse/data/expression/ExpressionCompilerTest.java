@@ -0,0 +1,185 @@
+package test.prefuse.data.expression;
+
+import junit.framework.TestCase;
+import prefuse.data.CascadedTable;
+import prefuse.data.Table;
+import prefuse.data.Tuple;
+import prefuse.data.expression.ColumnExpression;
+import prefuse.data.expression.CompiledExpression;
+import prefuse.data.expression.Expression;
+import prefuse.data.expression.ExpressionCompiler;
+import prefuse.data.expression.NumericLiteral;
+import prefuse.data.expression.Predicate;
+import prefuse.data.expression.RangePredicate;
+import prefuse.data.expression.parser.ExpressionParser;
+import prefuse.util.collections.IntIterator;
+
+public class ExpressionCompilerTest extends TestCase {
+
+    private static final int ROWS = 50;
+
+    private static String[] predicates = {
+        "[selected] = true",
+        "[selected] != false",
+        "NOT [selected]",
+        "i > 10 AND d < 20.5",
+        "i < 5 OR l >= 40 OR s = 'v7'",
+        "i = 3 XOR selected",
+        "i + l * 2 > f",
+        "i / 3 = 4",
+        "i % 7 <= 2",
+        "i ^ 2 > 100",
+        "s > 'v3'",
+        "IF i < 10 THEN selected ELSE i % 2 = 0",
+    };
+
+    private static String[] expressions = {
+        "i * 2 + 1",
+        "l - i",
+        "f / 4",
+        "d * f",
+        "IF selected THEN i ELSE -i",
+        "s",
+    };
+
+    private Table m_table;
+
+    public void setUp() {
+        m_table = new Table();
+        m_table.addColumn("i", int.class);
+        m_table.addColumn("l", long.class);
+        m_table.addColumn("f", float.class);
+        m_table.addColumn("d", double.class);
+        m_table.addColumn("selected", boolean.class);
+        m_table.addColumn("s", String.class);
+        for ( int r=0; r<ROWS; ++r ) {
+            m_table.addRow();
+            m_table.setInt(r, "i", r);
+            m_table.setLong(r, "l", 2L * r);
+            m_table.setFloat(r, "f", r / 2f);
+            m_table.setDouble(r, "d", r * 0.75);
+            m_table.setBoolean(r, "selected", r % 3 == 0);
+            m_table.setString(r, "s", "v" + (r % 10));
+        }
+    }
+
+    public void testPredicates() {
+        for ( int i=0; i<predicates.length; ++i ) {
+            Expression p = ExpressionParser.parse(predicates[i], true);
+            CompiledExpression c = ExpressionCompiler.compile(p, m_table);
+            assertFalse(predicates[i], c.isInterpreted());
+            for ( int r=0; r<ROWS; ++r ) {
+                Tuple t = m_table.getTuple(r);
+                assertEquals(predicates[i], p.getBoolean(t), c.getBoolean(r));
+                assertEquals(predicates[i], p.getBoolean(t), c.getBoolean(t));
+                assertEquals(predicates[i], p.get(t), c.get(r));
+            }
+        }
+    }
+
+    public void testRanges() {
+        Predicate[] ranges = {
+            new RangePredicate(new ColumnExpression("d"), new NumericLiteral(10),
+                new NumericLiteral(20)),
+            new RangePredicate(RangePredicate.EX_IN, new ColumnExpression("f"),
+                new ColumnExpression("i"), new NumericLiteral(30)),
+            new RangePredicate(RangePredicate.IN_EX, new ColumnExpression("s"),
+                new ColumnExpression("s"), new ColumnExpression("s")),
+        };
+        for ( int i=0; i<ranges.length; ++i ) {
+            CompiledExpression c = ExpressionCompiler.compile((Expression) ranges[i],
+                m_table);
+            assertFalse(c.isInterpreted());
+            for ( int r=0; r<ROWS; ++r ) {
+                assertEquals(ranges[i].getBoolean(m_table.getTuple(r)), c.getBoolean(r));
+            }
+        }
+    }
+
+    public void testExpressions() {
+        for ( int i=0; i<expressions.length; ++i ) {
+            Expression e = ExpressionParser.parse(expressions[i], true);
+            CompiledExpression c = ExpressionCompiler.compile(e, m_table);
+            assertFalse(expressions[i], c.isInterpreted());
+            for ( int r=0; r<ROWS; ++r ) {
+                Tuple t = m_table.getTuple(r);
+                assertEquals(expressions[i], e.get(t), c.get(r));
+                if ( e.getType(m_table.getSchema()) != String.class ) {
+                    assertEquals(expressions[i], e.getDouble(t), c.getDouble(r), 0);
+                    assertEquals(expressions[i], e.getInt(t), c.getInt(r));
+                }
+            }
+        }
+    }
+
+    public void testFunctionsAreInterpreted() {
+        Expression e = ExpressionParser.parse("ABS(i - 25)", true);
+        CompiledExpression c = ExpressionCompiler.compile(e, m_table);
+        assertTrue(c.isInterpreted());
+        // the function is interpreted within the compiled predicate
+        Expression p = ExpressionParser.parse("selected AND ABS(i - 25) < 5", true);
+        CompiledExpression d = ExpressionCompiler.compile(p, m_table);
+        assertFalse(d.isInterpreted());
+        for ( int r=0; r<ROWS; ++r ) {
+            Tuple t = m_table.getTuple(r);
+            assertEquals(e.getInt(t), c.getInt(r));
+            assertEquals(p.getBoolean(t), d.getBoolean(r));
+        }
+    }
+
+    public void testUnknownColumn() {
+        Predicate p = (Predicate) ExpressionParser.parse("missing > 3", true);
+        CompiledExpression c = ExpressionCompiler.compile((Expression) p, m_table);
+        assertTrue(c.isInterpreted());
+    }
+
+    public void testOtherTable() {
+        Predicate p = (Predicate) ExpressionParser.parse("i > 10", true);
+        CompiledExpression c = ExpressionCompiler.compile((Expression) p, m_table);
+        Table other = new Table();
+        other.addColumn("s", String.class);
+        other.addColumn("i", int.class);
+        other.addRow();
+        other.setInt(0, "i", 20);
+        assertTrue(c.getBoolean(other.getTuple(0)));
+        assertSame(c, ExpressionCompiler.compile((Expression) c, m_table));
+    }
+
+    public void testCascadedTable() {
+        CascadedTable cascaded = new CascadedTable(m_table,
+                (Predicate) ExpressionParser.parse("i >= 20", true));
+        cascaded.addColumn("local", int.class);
+        for ( int r=0; r<cascaded.getMaximumRow()+1; ++r ) {
+            if ( cascaded.isValidRow(r) ) {
+                cascaded.setInt(r, "local", r);
+            }
+        }
+        Predicate p = (Predicate) ExpressionParser.parse("i - local = 20", true);
+        CompiledExpression c = ExpressionCompiler.compile((Expression) p, cascaded);
+        int count = 0;
+        for ( IntIterator rows = cascaded.rows(); rows.hasNext(); ) {
+            int r = rows.nextInt();
+            assertEquals(p.getBoolean(cascaded.getTuple(r)), c.getBoolean(r));
+            ++count;
+        }
+        assertEquals(ROWS - 20, count);
+    }
+
+    public void testFilteredRows() {
+        Predicate p = (Predicate) ExpressionParser.parse("i % 4 = 1 AND selected", true);
+        int count = 0;
+        for ( IntIterator rows = m_table.rows(p); rows.hasNext(); ) {
+            int r = rows.nextInt();
+            assertTrue(p.getBoolean(m_table.getTuple(r)));
+            ++count;
+        }
+        int expected = 0;
+        for ( int r=0; r<ROWS; ++r ) {
+            if ( r % 4 == 1 && r % 3 == 0 ) {
+                ++expected;
+            }
+        }
+        assertEquals(expected, count);
+    }
+
+}
@@ -0,0 +1,18 @@
+package test.prefuse.render;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class All_PrefuseRender_Tests {
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Test for test.prefuse.render");
+        //$JUnit-BEGIN$
+        suite.addTestSuite(EdgeRendererTest.class);
+        suite.addTestSuite(LevelOfDetailRendererTest.class);
+        suite.addTestSuite(TextMeasureCacheTest.class);
+        //$JUnit-END$
+        return suite;
+    }
+
+}
@@ -0,0 +1,107 @@
+package test.prefuse.render;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+import prefuse.Constants;
+import prefuse.Display;
+import prefuse.Visualization;
+import prefuse.data.Graph;
+import prefuse.render.DefaultRendererFactory;
+import prefuse.render.EdgeRenderer;
+import prefuse.render.NullRenderer;
+import prefuse.util.ColorLib;
+import prefuse.visual.VisualItem;
+
+public class EdgeRendererTest extends TestCase {
+
+    private static final int SIZE = 200;
+
+    private Visualization m_vis;
+    private EdgeRenderer m_renderer;
+
+    public void setUp() {
+        Graph g = new Graph(true);
+        for ( int i=0; i<8; ++i ) {
+            g.addNode();
+        }
+        for ( int i=0; i<8; ++i ) {
+            g.addEdge(i, (i+3)%8);
+            g.addEdge(i, (i+5)%8);
+        }
+        m_vis = new Visualization();
+        m_renderer = new EdgeRenderer(Constants.EDGE_TYPE_LINE,
+                Constants.EDGE_ARROW_FORWARD);
+        m_vis.setRendererFactory(
+                new DefaultRendererFactory(new NullRenderer(), m_renderer));
+        m_vis.add("g", g);
+        Iterator nodes = m_vis.items("g.nodes");
+        for ( int i=0; nodes.hasNext(); ++i ) {
+            VisualItem item = (VisualItem)nodes.next();
+            item.setX(100 + 80*Math.cos(i*Math.PI/4));
+            item.setY(100 + 80*Math.sin(i*Math.PI/4));
+        }
+        Iterator edges = m_vis.items("g.edges");
+        for ( int i=0; edges.hasNext(); ++i ) {
+            VisualItem item = (VisualItem)edges.next();
+            int c = i%3 == 0 ? ColorLib.rgb(255,0,0) : ColorLib.gray(0);
+            item.setStrokeColor(c);
+            item.setFillColor(c);
+        }
+    }
+
+    public void testBatchedRenderingCoversSerial() {
+        BufferedImage serial = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = serial.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, SIZE, SIZE);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING,
+                RenderingHints.VALUE_RENDER_QUALITY);
+        Iterator edges = m_vis.items("g.edges");
+        while ( edges.hasNext() ) {
+            ((VisualItem)edges.next()).render(g);
+        }
+        g.dispose();
+
+        Display display = new Display(m_vis);
+        display.setSize(SIZE, SIZE);
+        BufferedImage batched = new BufferedImage(SIZE, SIZE,
+                BufferedImage.TYPE_INT_ARGB);
+        g = batched.createGraphics();
+        display.damageReport();
+        display.paintDisplay(g, new Dimension(SIZE, SIZE));
+        g.dispose();
+
+        // edges of different colors may cross in another order, but the
+        // same pixels must be covered
+        int white = Color.WHITE.getRGB();
+        for ( int y=0; y<SIZE; ++y ) {
+            for ( int x=0; x<SIZE; ++x ) {
+                assertEquals("pixel "+x+","+y, serial.getRGB(x, y) == white,
+                        batched.getRGB(x, y) == white);
+            }
+        }
+    }
+
+    public void testCanBatch() {
+        VisualItem edge = (VisualItem)m_vis.items("g.edges").next();
+        Graphics2D g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB)
+                .createGraphics();
+        assertTrue(m_renderer.canBatch(g, edge));
+        EdgeRenderer custom = new EdgeRenderer() {
+            public void render(Graphics2D g, VisualItem item) {
+                super.render(g, item);
+            }
+        };
+        assertFalse(custom.canBatch(g, edge));
+    }
+
+}
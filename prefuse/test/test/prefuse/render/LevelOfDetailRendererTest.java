@@ -0,0 +1,129 @@
+package test.prefuse.render;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.render.BoundsRenderer;
+import prefuse.render.DefaultRendererFactory;
+import prefuse.render.LevelOfDetailRenderer;
+import prefuse.render.PointRenderer;
+import prefuse.render.Renderer;
+import prefuse.visual.AggregateItem;
+import prefuse.visual.AggregateTable;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class LevelOfDetailRendererTest extends TestCase {
+
+    private CountingRenderer m_detail;
+    private CountingRenderer m_coarse;
+    private CountingRenderer m_point;
+    private LevelOfDetailRenderer m_lod;
+    private Visualization m_vis;
+    private VisualItem m_item;
+
+    public void setUp() {
+        m_detail = new CountingRenderer(10);
+        m_coarse = new CountingRenderer(20);
+        m_point = new CountingRenderer(30);
+        m_lod = new LevelOfDetailRenderer(m_detail);
+        // added out of order on purpose
+        m_lod.addLevel(0.1, m_point);
+        m_lod.addLevel(0.5, m_coarse);
+        m_vis = new Visualization();
+        m_vis.setRendererFactory(new DefaultRendererFactory(m_lod));
+        VisualTable vt = m_vis.addTable("t");
+        m_item = vt.getItem(vt.addRow());
+        m_item.setX(5);
+        m_item.setY(5);
+    }
+
+    private static Graphics2D graphics(double scale) {
+        Graphics2D g = (Graphics2D)new BufferedImage(10, 10,
+                BufferedImage.TYPE_INT_ARGB).getGraphics();
+        g.scale(scale, scale);
+        return g;
+    }
+
+    public void testGetRenderer() {
+        assertSame(m_detail, m_lod.getRenderer(2));
+        assertSame(m_detail, m_lod.getRenderer(0.5));
+        assertSame(m_coarse, m_lod.getRenderer(0.4));
+        assertSame(m_point, m_lod.getRenderer(0.05));
+        m_lod.addLevel(0.1, null);
+        assertNull(m_lod.getRenderer(0.05));
+        assertSame(m_coarse, m_lod.getRenderer(0.1));
+    }
+
+    public void testRenderFollowsScale() {
+        m_lod.render(graphics(1), m_item);
+        m_lod.render(graphics(0.3), m_item);
+        m_lod.render(graphics(0.3), m_item);
+        m_lod.render(graphics(0.01), m_item);
+        assertEquals(1, m_detail.m_rendered);
+        assertEquals(2, m_coarse.m_rendered);
+        assertEquals(1, m_point.m_rendered);
+        assertEquals(0.25, LevelOfDetailRenderer.getScale(graphics(0.25)), 1e-9);
+    }
+
+    public void testBoundsFromDetail() {
+        assertEquals(10, m_item.getBounds().getWidth(), 0);
+        assertTrue(m_lod.locatePoint(new Point2D.Double(6, 6), m_item));
+        assertEquals(0, m_coarse.m_bounded + m_point.m_bounded);
+
+        // a renderer that only draws when zoomed out
+        LevelOfDetailRenderer coarse = new LevelOfDetailRenderer(null);
+        coarse.addLevel(0.1, m_point);
+        coarse.addLevel(0.5, null);
+        m_vis.setRendererFactory(new DefaultRendererFactory(coarse));
+        coarse.render(graphics(1), m_item);
+        assertEquals(0, m_detail.m_rendered + m_point.m_rendered);
+        m_item.setX(6);
+        assertEquals(30, m_item.getBounds().getWidth(), 0);
+    }
+
+    public void testBoundsRendererAggregate() {
+        Visualization vis = new Visualization();
+        DefaultRendererFactory rf = new DefaultRendererFactory(new PointRenderer());
+        rf.add("INGROUP('a')", new BoundsRenderer());
+        vis.setRendererFactory(rf);
+        VisualTable vt = vis.addTable("t");
+        AggregateTable at = vis.addAggregates("a");
+        AggregateItem aggregate = (AggregateItem)at.addItem();
+        for ( int i=0; i<3; ++i ) {
+            VisualItem item = vt.getItem(vt.addRow());
+            item.setX(i*10);
+            item.setY(i);
+            item.setVisible(i < 2);
+            aggregate.addItem(item);
+        }
+        Rectangle2D b = aggregate.getBounds();
+        assertEquals(0, b.getMinX(), 0);
+        assertEquals(10, b.getMaxX(), 0);
+        assertEquals(1, b.getMaxY(), 0);
+    }
+
+    private static class CountingRenderer implements Renderer {
+        private final double m_size;
+        int m_rendered;
+        int m_bounded;
+        CountingRenderer(double size) {
+            m_size = size;
+        }
+        public void render(Graphics2D g, VisualItem item) {
+            ++m_rendered;
+        }
+        public boolean locatePoint(Point2D p, VisualItem item) {
+            return item.getBounds().contains(p);
+        }
+        public void setBounds(VisualItem item) {
+            ++m_bounded;
+            item.setBounds(item.getX(), item.getY(), m_size, m_size);
+        }
+    }
+
+}
@@ -0,0 +1,131 @@
+package test.prefuse.render;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.render.DefaultRendererFactory;
+import prefuse.render.LabelRenderer;
+import prefuse.render.Renderer;
+import prefuse.render.TextMeasureCache;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class TextMeasureCacheTest extends TestCase {
+
+    private static final Font FONT = new Font("SansSerif", Font.PLAIN, 12);
+
+    private TextMeasureCache m_cache;
+
+    public void setUp() {
+        m_cache = new TextMeasureCache();
+    }
+
+    public void testMeasure() {
+        FontMetrics fm = Renderer.DEFAULT_GRAPHICS.getFontMetrics(FONT);
+        TextMeasureCache.Measurement m = m_cache.measure("a, b\nlonger line",
+                FONT, "\n", -1);
+        assertEquals(2, m.getLineCount());
+        assertEquals("longer line", m.getLine(1));
+        assertEquals(fm.stringWidth("a, b"), m.getLineWidth(0));
+        assertEquals(fm.stringWidth("longer line"), m.getWidth());
+        assertEquals(2*fm.getHeight(), m.getHeight());
+        assertEquals(fm.getAscent(), m.getAscent());
+        assertEquals("a, b\nlonger line", m.getText());
+    }
+
+    public void testAbbreviate() {
+        TextMeasureCache.Measurement m = m_cache.measure(
+                "short\na rather long line of text", FONT, "\n", 40);
+        assertEquals(40, m.getWidth());
+        assertEquals("short", m.getLine(0));
+        assertTrue(m.getLineWidth(1) <= 40);
+        assertEquals("short\n"+m.getLine(1), m.getText());
+    }
+
+    public void testCacheHitsAndEviction() {
+        TextMeasureCache.Measurement m = m_cache.measure("x", FONT, "\n", -1);
+        assertSame(m, m_cache.measure(new String("x"), FONT, "\n", -1));
+        assertNotSame(m, m_cache.measure("x", FONT.deriveFont(20f), "\n", -1));
+        assertNotSame(m, m_cache.measure("x", FONT, "\n", 5));
+        assertEquals(4, m_cache.getCacheLookupCount());
+        assertEquals(3, m_cache.getCacheMissCount());
+
+        m_cache.setCacheSize(2);
+        m_cache.measure("y", FONT, "\n", -1);
+        m_cache.measure("z", FONT, "\n", -1);
+        assertNotSame(m, m_cache.measure("x", FONT, "\n", -1));
+    }
+
+    public void testLabelRendererMeasuresOnce() {
+        Visualization vis = new Visualization();
+        LabelRenderer lr = new LabelRenderer("label");
+        vis.setRendererFactory(new DefaultRendererFactory(lr));
+        VisualTable vt = vis.addTable("t");
+        vt.addColumn("label", String.class);
+        for ( int i=0; i<10; ++i ) {
+            VisualItem item = vt.getItem(vt.addRow());
+            item.setString("label", "label "+(i%3));
+            item.setFont(FONT);
+        }
+        for ( int pass=0; pass<3; ++pass ) {
+            for ( int i=0; i<10; ++i ) {
+                VisualItem item = vt.getItem(i);
+                item.setX(pass);
+                assertTrue(item.getBounds().getWidth() > 0);
+            }
+        }
+        assertEquals(3, lr.getTextMeasureCache().getCacheMissCount());
+    }
+
+    public void testCacheGrowsToGroupSize() {
+        Visualization vis = new Visualization();
+        LabelRenderer lr = new LabelRenderer("label");
+        lr.setTextMeasureCache(new TextMeasureCache(4));
+        vis.setRendererFactory(new DefaultRendererFactory(lr));
+        VisualTable vt = vis.addTable("t");
+        vt.addColumn("label", String.class);
+        for ( int i=0; i<50; ++i ) {
+            VisualItem item = vt.getItem(vt.addRow());
+            item.setString("label", "label "+i);
+            item.setFont(FONT);
+        }
+        for ( int pass=0; pass<2; ++pass ) {
+            for ( int i=0; i<50; ++i ) {
+                VisualItem item = vt.getItem(i);
+                item.setX(pass);
+                item.getBounds();
+            }
+        }
+        assertEquals(50, lr.getTextMeasureCache().getCacheSize());
+        assertEquals(50, lr.getTextMeasureCache().getCacheMissCount());
+    }
+
+    public void testConcurrentCaches() throws Exception {
+        final String[] widths = new String[4];
+        Thread[] threads = new Thread[widths.length];
+        for ( int k=0; k<threads.length; ++k ) {
+            final int id = k;
+            threads[k] = new Thread() {
+                public void run() {
+                    TextMeasureCache cache = new TextMeasureCache();
+                    StringBuffer sb = new StringBuffer();
+                    for ( int i=0; i<500; ++i ) {
+                        sb.append(cache.measure("label "+i, FONT, "\n", -1)
+                                .getWidth()).append(',');
+                    }
+                    widths[id] = sb.toString();
+                }
+            };
+            threads[k].start();
+        }
+        for ( int k=0; k<threads.length; ++k ) {
+            threads[k].join();
+        }
+        for ( int k=1; k<widths.length; ++k ) {
+            assertEquals(widths[0], widths[k]);
+        }
+    }
+
+}
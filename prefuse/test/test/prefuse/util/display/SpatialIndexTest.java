@@ -0,0 +1,137 @@
+package test.prefuse.util.display;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.util.display.SpatialIndex;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class SpatialIndexTest extends TestCase {
+
+    private static final int SIZE = 500;
+
+    private VisualItem[] m_items;
+    private Rectangle2D[] m_bounds;
+    private SpatialIndex m_index;
+    private Random m_rand;
+
+    public void setUp() {
+        Visualization vis = new Visualization();
+        VisualTable vt = vis.addTable("t");
+        m_items = new VisualItem[SIZE];
+        m_bounds = new Rectangle2D[SIZE];
+        m_index = new SpatialIndex();
+        m_rand = new Random(42);
+        for ( int i=0; i<SIZE; ++i ) {
+            m_items[i] = vt.getItem(vt.addRow());
+            m_bounds[i] = randomBounds(1000);
+            m_index.update(m_items[i], m_bounds[i]);
+        }
+    }
+
+    private Rectangle2D randomBounds(double range) {
+        double x = (m_rand.nextDouble()-0.5) * range;
+        double y = (m_rand.nextDouble()-0.5) * range;
+        double w = m_rand.nextDouble() * m_rand.nextDouble() * range / 4;
+        double h = m_rand.nextDouble() * m_rand.nextDouble() * range / 4;
+        return new Rectangle2D.Double(x, y, w, h);
+    }
+
+    private void checkQueries() {
+        for ( int q=0; q<200; ++q ) {
+            Rectangle2D r = randomBounds(1500);
+            ArrayList result = new ArrayList();
+            int count = m_index.query(r.getMinX(), r.getMinY(),
+                    r.getMaxX(), r.getMaxY(), result);
+            Set expected = new HashSet();
+            for ( int i=0; i<SIZE; ++i ) {
+                Rectangle2D b = m_bounds[i];
+                if ( b != null && b.getMinX() <= r.getMaxX()
+                        && b.getMaxX() >= r.getMinX()
+                        && b.getMinY() <= r.getMaxY()
+                        && b.getMaxY() >= r.getMinY() )
+                {
+                    expected.add(m_items[i]);
+                }
+            }
+            assertEquals(expected.size(), count);
+            assertEquals(expected, new HashSet(result));
+        }
+    }
+
+    public void testQuery() {
+        assertEquals(SIZE, m_index.size());
+        checkQueries();
+    }
+
+    public void testMoveAndRemove() {
+        for ( int i=0; i<SIZE; i+=3 ) {
+            m_bounds[i] = randomBounds(1000);
+            m_index.update(m_items[i], m_bounds[i]);
+        }
+        for ( int i=1; i<SIZE; i+=5 ) {
+            m_bounds[i] = null;
+            assertTrue(m_index.remove(m_items[i]));
+            assertFalse(m_index.contains(m_items[i]));
+        }
+        checkQueries();
+    }
+
+    public void testPruneEmptyCells() {
+        int cells = m_index.getCellCount();
+        // items wander from where they started, and come back
+        Rectangle2D[] start = (Rectangle2D[])m_bounds.clone();
+        for ( int step=0; step<20; ++step ) {
+            for ( int i=0; i<SIZE; ++i ) {
+                m_bounds[i] = new Rectangle2D.Double(
+                        start[i].getX() + 20*step, start[i].getY() - 12*step,
+                        start[i].getWidth() / (step+1), start[i].getHeight());
+                m_index.update(m_items[i], m_bounds[i]);
+            }
+        }
+        checkQueries();
+        for ( int i=0; i<SIZE; ++i ) {
+            m_bounds[i] = start[i];
+            m_index.update(m_items[i], m_bounds[i]);
+        }
+        assertEquals(cells, m_index.getCellCount());
+        checkQueries();
+
+        for ( int i=0; i<SIZE; ++i ) {
+            m_bounds[i] = null;
+            m_index.remove(m_items[i]);
+        }
+        assertEquals(1, m_index.getCellCount());
+    }
+
+    public void testGrow() {
+        // far outside the initial root cell
+        m_bounds[0] = new Rectangle2D.Double(1e6, -1e6, 10, 10);
+        m_index.update(m_items[0], m_bounds[0]);
+        m_bounds[1] = new Rectangle2D.Double(-5e4, 0, 1e5, 1e5);
+        m_index.update(m_items[1], m_bounds[1]);
+        assertEquals(SIZE, m_index.size());
+        checkQueries();
+        ArrayList result = new ArrayList();
+        m_index.query(1e6+5, -1e6+5, 1e6+5, -1e6+5, result);
+        assertEquals(1, result.size());
+        assertSame(m_items[0], result.get(0));
+    }
+
+    public void testUndefinedBounds() {
+        m_bounds[0] = null;
+        m_index.update(m_items[0], new Rectangle2D.Double(Double.NaN, 0, 1, 1));
+        m_bounds[1] = null;
+        m_index.update(m_items[1], new Rectangle2D.Double(
+                Double.NEGATIVE_INFINITY, 0, 1, 1));
+        assertEquals(SIZE-2, m_index.size());
+        checkQueries();
+    }
+
+}
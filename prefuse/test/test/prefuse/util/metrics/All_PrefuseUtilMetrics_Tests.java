@@ -0,0 +1,16 @@
+package test.prefuse.util.metrics;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class All_PrefuseUtilMetrics_Tests {
+
+    public static Test suite() {
+        TestSuite suite = new TestSuite("Test for test.prefuse.util.metrics");
+        //$JUnit-BEGIN$
+        suite.addTestSuite(MetricsTest.class);
+        //$JUnit-END$
+        return suite;
+    }
+
+}
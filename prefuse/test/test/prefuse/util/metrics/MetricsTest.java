@@ -0,0 +1,132 @@
+package test.prefuse.util.metrics;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+import prefuse.Visualization;
+import prefuse.action.Action;
+import prefuse.action.ActionList;
+import prefuse.activity.ActivityManager;
+import prefuse.util.metrics.Histogram;
+import prefuse.util.metrics.Metrics;
+import prefuse.util.metrics.MetricsRecorder;
+
+public class MetricsTest extends TestCase {
+
+    public void testHistogram() {
+        Histogram h = new Histogram("h");
+        assertEquals(0, h.getPercentile(0.5));
+        Random rand = new Random(42);
+        long[] values = new long[10000];
+        for ( int i=0; i<values.length; ++i ) {
+            values[i] = rand.nextInt(1000000);
+            h.record(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(values.length, h.getCount());
+        assertEquals(values[0], h.getMin());
+        assertEquals(values[values.length-1], h.getMax());
+        double[] ps = { 0.5, 0.9, 0.99 };
+        for ( int i=0; i<ps.length; ++i ) {
+            long exact = values[(int)Math.ceil(ps[i]*values.length)-1];
+            long approx = h.getPercentile(ps[i]);
+            assertTrue(approx >= exact);
+            assertTrue(approx <= exact*1.125+1);
+        }
+        assertEquals(h.getMax(), h.getPercentile(1));
+        h.reset();
+        assertEquals(0, h.getCount());
+    }
+
+    public void testSmallAndLargeValues() {
+        Histogram h = new Histogram("h");
+        for ( int i=0; i<8; ++i ) {
+            h.record(i);
+        }
+        assertEquals(3, h.getP50());
+        h.record(Long.MAX_VALUE);
+        h.record(-5);
+        assertEquals(Long.MAX_VALUE, h.getPercentile(1));
+        assertEquals(0, h.getMin());
+    }
+
+    public void testRecorder() throws Exception {
+        Metrics metrics = new Metrics();
+        StringWriter out = new StringWriter();
+        MetricsRecorder recorder = new MetricsRecorder(out);
+        metrics.addMetricsListener(recorder);
+        metrics.record("a", 3);
+        metrics.setEnabled(false);
+        metrics.record("a", 4);
+        metrics.setEnabled(true);
+        metrics.record("b", 5);
+        recorder.close();
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].endsWith(",a,3"));
+        assertTrue(lines[1].endsWith(",b,5"));
+        assertEquals(1, metrics.getHistogram("a").getCount());
+        assertEquals(2, metrics.getHistogramNames().length);
+
+        StringWriter summary = new StringWriter();
+        metrics.writeSummary(summary);
+        assertEquals(3, summary.toString().split("\n").length);
+    }
+
+    public void testMBeans() throws Exception {
+        Metrics metrics = new Metrics();
+        metrics.record("before", 1);
+        metrics.registerMBeans("test.prefuse");
+        try {
+            metrics.record("after", 2);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(
+                    "test.prefuse:type=Histogram,name=\"after\"");
+            assertEquals(new Long(1), server.getAttribute(name, "Count"));
+            assertEquals(new Long(2), server.getAttribute(name, "Max"));
+            assertTrue(server.isRegistered(new ObjectName(
+                    "test.prefuse:type=Histogram,name=\"before\"")));
+            server.invoke(new ObjectName("test.prefuse:type=Metrics"), "reset",
+                    null, null);
+            assertEquals(0, metrics.getHistogram("after").getCount());
+        } finally {
+            metrics.unregisterMBeans();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(
+                new ObjectName("test.prefuse:type=Metrics")));
+    }
+
+    public void testActions() {
+        Metrics metrics = new Metrics();
+        Visualization vis = new Visualization();
+        ActionList list = new ActionList();
+        list.add(new NoAction());
+        list.add(new NoAction());
+        vis.putAction("list", list);
+        assertEquals("list", list.getName());
+        ActivityManager.setMetrics(metrics);
+        try {
+            list.run(1.0);
+            list.run(1.0);
+        } finally {
+            ActivityManager.setMetrics(null);
+        }
+        list.run(1.0);
+        String prefix = Metrics.ACTIVITY_PREFIX+"list/";
+        String action = NoAction.class.getName();
+        assertEquals(2, metrics.getHistogram(prefix+"0:"+action).getCount());
+        assertEquals(2, metrics.getHistogram(prefix+"1:"+action).getCount());
+    }
+
+    public static class NoAction extends Action {
+        public void run(double frac) {
+        }
+    }
+
+}
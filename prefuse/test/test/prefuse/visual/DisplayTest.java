@@ -0,0 +1,153 @@
+package test.prefuse.visual;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+import prefuse.Display;
+import prefuse.Visualization;
+import prefuse.render.DefaultRendererFactory;
+import prefuse.render.RendererFactory;
+import prefuse.util.ColorLib;
+import prefuse.util.metrics.Metrics;
+import prefuse.visual.VisualItem;
+import prefuse.visual.VisualTable;
+
+public class DisplayTest extends TestCase {
+
+    private Visualization m_vis;
+    private VisualTable m_vt;
+    private Display m_display;
+    private BufferedImage m_img;
+
+    public void setUp() {
+        m_vis = new Visualization();
+        m_vt = m_vis.addTable("t");
+        for ( int i=0; i<10; ++i ) {
+            VisualItem item = m_vt.getItem(m_vt.addRow());
+            item.setX(20*i+10);
+            item.setY(20*i+10);
+        }
+        m_display = new Display(m_vis);
+        m_display.setSize(400, 400);
+        m_img = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    private void paint() {
+        m_display.damageReport();
+        Graphics2D g = m_img.createGraphics();
+        m_display.paintDisplay(g, new Dimension(400, 400));
+        g.dispose();
+    }
+
+    public void testTiledRendering() {
+        // large overlapping items crossing tile boundaries
+        for ( int i=0; i<m_vt.getRowCount(); ++i ) {
+            VisualItem item = m_vt.getItem(i);
+            item.setSize(3+i);
+            item.setFillColor(ColorLib.rgba(25*i, 0, 255-25*i, 200));
+            item.setStrokeColor(ColorLib.gray(0));
+        }
+        m_display.setHighQuality(true);
+        paint();
+        int[] serial = m_img.getRGB(0, 0, 400, 400, null, 0, 400);
+        m_display.setTiledRendering(new RendererFactory[] {
+            new DefaultRendererFactory(), new DefaultRendererFactory() });
+        assertTrue(m_display.isTiledRendering());
+        m_img = new BufferedImage(400, 400, BufferedImage.TYPE_INT_ARGB);
+        paint();
+        int[] tiled = m_img.getRGB(0, 0, 400, 400, null, 0, 400);
+        // compositing the tiles may round translucent colors differently
+        for ( int i=0; i<serial.length; ++i ) {
+            for ( int shift=0; shift<32; shift+=8 ) {
+                int a = (serial[i] >>> shift) & 0xFF;
+                int b = (tiled[i] >>> shift) & 0xFF;
+                assertTrue("pixel "+i, Math.abs(a-b) <= 2);
+            }
+        }
+        m_display.setTiledRendering(null);
+        assertFalse(m_display.isTiledRendering());
+    }
+
+    public void testMetrics() {
+        Metrics metrics = new Metrics();
+        m_display.setMetrics(metrics);
+        paint();
+        // validate the moved bounds before painting, so that they are not
+        // reported as damage during the paint
+        for ( int i=0; i<2; ++i ) {
+            m_vt.getItem(i).setX(1000);
+            m_vt.getItem(i).getBounds();
+        }
+        paint();
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_DAMAGE).getCount());
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_FILL).getCount());
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_SORT).getCount());
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_RENDER).getCount());
+        assertEquals(10, metrics.getHistogram(Metrics.DISPLAY_RENDERED).getMax());
+        assertEquals(8, metrics.getHistogram(Metrics.DISPLAY_RENDERED).getMin());
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_CULLED).getMax());
+        m_display.setMetrics(null);
+        paint();
+        assertEquals(2, metrics.getHistogram(Metrics.DISPLAY_RENDER).getCount());
+    }
+
+    public void testFindItem() {
+        paint();
+        assertEquals(10, m_display.getVisibleItemCount());
+        for ( int i=0; i<10; ++i ) {
+            assertSame(m_vt.getItem(i),
+                    m_display.findItem(new Point(20*i+10, 20*i+10)));
+        }
+        assertNull(m_display.findItem(new Point(390, 10)));
+    }
+
+    public void testMovedItem() {
+        paint();
+        VisualItem item = m_vt.getItem(3);
+        item.setX(390);
+        item.setY(10);
+        paint();
+        assertSame(item, m_display.findItem(new Point(390, 10)));
+        assertNull(m_display.findItem(new Point(70, 70)));
+    }
+
+    public void testResizedItem() {
+        paint();
+        assertNull(m_display.findItem(new Point(10, 28)));
+        // colors do not move items, the size does
+        m_vt.getItem(0).setFillColor(ColorLib.gray(0));
+        m_vt.getItem(0).setSize(4);
+        paint();
+        assertSame(m_vt.getItem(0), m_display.findItem(new Point(10, 28)));
+    }
+
+    public void testHiddenAndRemovedItems() {
+        paint();
+        m_vt.getItem(2).setVisible(false);
+        m_vt.removeRow(5);
+        paint();
+        assertEquals(8, m_display.getVisibleItemCount());
+        assertNull(m_display.findItem(new Point(50, 50)));
+        assertNull(m_display.findItem(new Point(110, 110)));
+        m_vt.getItem(2).setVisible(true);
+        VisualItem added = m_vt.getItem(m_vt.addRow());
+        added.setX(390);
+        added.setY(390);
+        paint();
+        assertEquals(10, m_display.getVisibleItemCount());
+        assertSame(m_vt.getItem(2), m_display.findItem(new Point(50, 50)));
+        assertSame(added, m_display.findItem(new Point(390, 390)));
+    }
+
+    public void testRemovedGroup() {
+        paint();
+        m_vis.removeGroup("t");
+        paint();
+        assertEquals(0, m_display.getVisibleItemCount());
+        assertNull(m_display.findItem(new Point(10, 10)));
+    }
+
+}